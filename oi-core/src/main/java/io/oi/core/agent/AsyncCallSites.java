@@ -0,0 +1,99 @@
+package io.oi.core.agent;
+
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Recognises call sites that hand a task to another thread and wraps the task argument
+ * with {@code Tracer.wrap(...)} before the call, so the task's execution is attached to
+ * the submitting node. This includes {@code StructuredTaskScope.fork}, so subtasks forked
+ * onto virtual threads appear as children of the forking node.
+ * <p>
+ * Only tasks that sit on top of the operand stack, or directly below one single-slot
+ * argument, are wrapped. Periodic scheduling methods are deliberately left alone, since
+ * every later run would be attached to a tree that has long been emitted.
+ */
+final class AsyncCallSites {
+
+    private static final String TRACER = "io/oi/core/trace/Tracer";
+    private static final String WRAP_RUNNABLE = "(Ljava/lang/Runnable;)Ljava/lang/Runnable;";
+    private static final String WRAP_CALLABLE = "(Ljava/util/concurrent/Callable;)Ljava/util/concurrent/Callable;";
+    private static final String WRAP_SUPPLIER = "(Ljava/util/function/Supplier;)Ljava/util/function/Supplier;";
+
+    private AsyncCallSites() {
+        // Static utility class
+    }
+
+    /**
+     * Emits the wrapping instructions for a call site, if it is one.
+     *
+     * @param mv        The visitor to emit the wrapping instructions to.
+     * @param owner     The internal name of the call's owner.
+     * @param name      The called method's name.
+     * @param desc      The called method's descriptor.
+     * @param executors Whether executor and {@code CompletableFuture} submissions should be wrapped.
+     * @param threads   Whether {@code Thread} creation should be wrapped.
+     */
+    static void wrapTaskArgument(MethodVisitor mv, String owner, String name, String desc,
+                                 boolean executors, boolean threads) {
+        if (executors) {
+            if (owner.equals("java/util/concurrent/CompletableFuture")) {
+                switch (name + desc) {
+                    case "runAsync(Ljava/lang/Runnable;)Ljava/util/concurrent/CompletableFuture;" ->
+                            wrapTop(mv, WRAP_RUNNABLE);
+                    case "runAsync(Ljava/lang/Runnable;Ljava/util/concurrent/Executor;)Ljava/util/concurrent/CompletableFuture;" ->
+                            wrapBelowTop(mv, WRAP_RUNNABLE);
+                    case "supplyAsync(Ljava/util/function/Supplier;)Ljava/util/concurrent/CompletableFuture;" ->
+                            wrapTop(mv, WRAP_SUPPLIER);
+                    case "supplyAsync(Ljava/util/function/Supplier;Ljava/util/concurrent/Executor;)Ljava/util/concurrent/CompletableFuture;" ->
+                            wrapBelowTop(mv, WRAP_SUPPLIER);
+                    default -> { }
+                }
+                return;
+            }
+            if (owner.startsWith("java/util/concurrent/StructuredTaskScope")) {
+                if (name.equals("fork") && desc.startsWith("(Ljava/util/concurrent/Callable;)")) {
+                    wrapTop(mv, WRAP_CALLABLE);
+                }
+                return;
+            }
+            // Executor-like call sites are matched by signature so that framework executors
+            // (e.g. Spring's TaskExecutor) are covered as well as the JDK interfaces.
+            if (name.equals("execute") && desc.equals("(Ljava/lang/Runnable;)V")) {
+                wrapTop(mv, WRAP_RUNNABLE);
+            } else if (name.equals("submit") && desc.startsWith("(Ljava/lang/Runnable;)")) {
+                wrapTop(mv, WRAP_RUNNABLE);
+            } else if (name.equals("submit") && desc.startsWith("(Ljava/util/concurrent/Callable;)")) {
+                wrapTop(mv, WRAP_CALLABLE);
+            } else if (name.equals("submit") && desc.startsWith("(Ljava/lang/Runnable;Ljava/lang/Object;)")) {
+                wrapBelowTop(mv, WRAP_RUNNABLE);
+            }
+        }
+
+        if (threads) {
+            if (owner.equals("java/lang/Thread")) {
+                if (name.equals("<init>") && desc.equals("(Ljava/lang/Runnable;)V")) {
+                    wrapTop(mv, WRAP_RUNNABLE);
+                } else if (name.equals("<init>") && desc.equals("(Ljava/lang/Runnable;Ljava/lang/String;)V")) {
+                    wrapBelowTop(mv, WRAP_RUNNABLE);
+                } else if (name.equals("startVirtualThread") && desc.equals("(Ljava/lang/Runnable;)Ljava/lang/Thread;")) {
+                    wrapTop(mv, WRAP_RUNNABLE);
+                }
+            } else if (owner.startsWith("java/lang/Thread$Builder")
+                    && (name.equals("start") || name.equals("unstarted"))
+                    && desc.equals("(Ljava/lang/Runnable;)Ljava/lang/Thread;")) {
+                wrapTop(mv, WRAP_RUNNABLE);
+            }
+        }
+    }
+
+    private static void wrapTop(MethodVisitor mv, String wrapDesc) {
+        mv.visitMethodInsn(Opcodes.INVOKESTATIC, TRACER, "wrap", wrapDesc, false);
+    }
+
+    private static void wrapBelowTop(MethodVisitor mv, String wrapDesc) {
+        mv.visitInsn(Opcodes.SWAP);
+        mv.visitMethodInsn(Opcodes.INVOKESTATIC, TRACER, "wrap", wrapDesc, false);
+        mv.visitInsn(Opcodes.SWAP);
+    }
+}
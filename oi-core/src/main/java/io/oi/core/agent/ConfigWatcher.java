@@ -0,0 +1,227 @@
+package io.oi.core.agent;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.oi.core.config.OiCoreProperties;
+import io.oi.core.emitter.EmitterFactory;
+import io.oi.core.emitter.FlowEmitter;
+import io.oi.core.management.AgentStats;
+import io.oi.core.trace.Tracer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.instrument.Instrumentation;
+import java.lang.instrument.UnmodifiableClassException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reloads the agent's config file ({@code oi-core.config.file}) when it changes and applies
+ * the new configuration without a restart.
+ * <p>
+ * The file's directory is watched rather than the file, as editors and Kubernetes config maps
+ * replace files by renaming; after any event in it, and a short quiet period, the file is
+ * reloaded if its content changed. Each reload builds a new {@link OiCoreProperties} from the
+ * agent arguments, system properties and the file, as at startup, which is not modified once
+ * published. Only the top-level groups that differ from the previous configuration are applied:
+ * <ul>
+ *   <li>The tracer's settings, through {@link Tracer#reconfigure(OiCoreProperties, Set)}.</li>
+ *   <li>{@code emitter}: a new emitter replaces the current one, which is then closed.</li>
+ *   <li>{@code includePackages}, {@code excludeAnnotations} and {@code instrumentation}: the
+ *       transformer uses the new configuration, and the loaded classes it now transforms
+ *       differently are retransformed.</li>
+ * </ul>
+ */
+final class ConfigWatcher implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ConfigWatcher.class);
+
+    static final long QUIET_MILLIS = 200;
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Path file;
+    private final String agentArgs;
+    private final Instrumentation instrumentation;
+    private final OiClassFileTransformer transformer;
+    private final WatchService watchService;
+    private final Thread worker;
+    private volatile OiCoreProperties current;
+    private volatile boolean running = true;
+    private byte[] content;
+
+    /**
+     * @param instrumentation Used to retransform classes, or null to only transform classes
+     *                        loaded after a reload.
+     */
+    ConfigWatcher(Path file, String agentArgs, OiCoreProperties properties, Instrumentation instrumentation,
+                  OiClassFileTransformer transformer) throws IOException {
+        this.file = file.toAbsolutePath();
+        this.agentArgs = agentArgs;
+        this.instrumentation = instrumentation;
+        this.transformer = transformer;
+        this.current = properties;
+        this.content = read();
+        this.watchService = this.file.getFileSystem().newWatchService();
+        this.file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        this.worker = new Thread(this::run, "oi-config-watcher");
+        this.worker.setDaemon(true);
+        this.worker.start();
+        log.info("Watching {} for configuration changes", this.file);
+    }
+
+    /**
+     * @return The configuration applied last.
+     */
+    OiCoreProperties current() {
+        return current;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            log.debug("Failed to close the watch service: {}", e.getMessage());
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                WatchKey key = watchService.take();
+                // Let an editor or a config map update finish before reading the file
+                do {
+                    key.pollEvents();
+                    key.reset();
+                    key = watchService.poll(QUIET_MILLIS, TimeUnit.MILLISECONDS);
+                } while (key != null);
+                reload();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            } catch (Exception e) {
+                log.warn("Failed to reload {}: {}", file, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Reloads the file and applies it, if its content changed since it was last read.
+     */
+    synchronized void reload() throws IOException {
+        byte[] read = read();
+        if (read == null || Arrays.equals(read, content)) {
+            return;
+        }
+        content = read;
+        apply(OiAgent.loadProperties(agentArgs, file.toString()));
+    }
+
+    synchronized void apply(OiCoreProperties next) {
+        Set<String> changed = changedGroups(current, next);
+        if (changed.isEmpty()) {
+            log.debug("{} changed without affecting the configuration", file);
+            return;
+        }
+        Tracer.reconfigure(next, changed);
+        if (changed.contains("jmx")) {
+            AgentStats.setHookTiming(next.getJmx().isHookTiming());
+        }
+        if (changed.contains("emitter")) {
+            replaceEmitter(next);
+        }
+        boolean instrumentationChanged = changed.contains("instrumentation") || changed.contains("excludeAnnotations");
+        if (instrumentationChanged || changed.contains("includePackages")) {
+            transformer.update(next);
+            retransform(instrumentationChanged);
+        }
+        current = next;
+        log.info("Applied the configuration changes to {} from {}", changed, file);
+    }
+
+    private void replaceEmitter(OiCoreProperties next) {
+        FlowEmitter previous = Tracer.getEmitter();
+        Tracer.setEmitter(EmitterFactory.create(next.getEmitter()));
+        if (previous instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                log.warn("Failed to close the previous emitter: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void retransform(boolean instrumentationChanged) {
+        if (instrumentation == null || !instrumentation.isRetransformClassesSupported()) {
+            log.warn("Classes cannot be retransformed; the instrumentation changes apply to classes loaded from now on.");
+            return;
+        }
+        List<Class<?>> affected = new ArrayList<>();
+        for (Class<?> type : instrumentation.getAllLoadedClasses()) {
+            if (!type.isArray() && instrumentation.isModifiableClass(type)
+                    && transformer.isAffected(type.getName().replace('.', '/'), instrumentationChanged)) {
+                affected.add(type);
+            }
+        }
+        if (affected.isEmpty()) {
+            return;
+        }
+        try {
+            instrumentation.retransformClasses(affected.toArray(new Class<?>[0]));
+            log.info("Retransformed {} classes", affected.size());
+        } catch (UnmodifiableClassException | RuntimeException | LinkageError e) {
+            // One class failing fails them all; retry them one by one
+            int failed = 0;
+            for (Class<?> type : affected) {
+                try {
+                    instrumentation.retransformClasses(type);
+                } catch (UnmodifiableClassException | RuntimeException | LinkageError classFailure) {
+                    failed++;
+                    log.debug("Failed to retransform {}: {}", type.getName(), classFailure.toString());
+                }
+            }
+            log.info("Retransformed {} classes, {} failed", affected.size() - failed, failed);
+        }
+    }
+
+    /**
+     * @return The names of the top-level properties, e.g. {@code emitter}, that differ between
+     * the two configurations.
+     */
+    static Set<String> changedGroups(OiCoreProperties previous, OiCoreProperties next) {
+        JsonNode before = objectMapper.valueToTree(previous);
+        JsonNode after = objectMapper.valueToTree(next);
+        Set<String> changed = new TreeSet<>();
+        for (Iterator<Map.Entry<String, JsonNode>> fields = after.fields(); fields.hasNext(); ) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (!field.getValue().equals(before.get(field.getKey()))) {
+                changed.add(field.getKey());
+            }
+        }
+        return changed;
+    }
+
+    private byte[] read() {
+        try {
+            return Files.readAllBytes(file);
+        } catch (IOException e) {
+            // Being replaced, or removed
+            return null;
+        }
+    }
+}
\ No newline at end of file
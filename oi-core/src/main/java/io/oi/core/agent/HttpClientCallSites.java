@@ -0,0 +1,44 @@
+package io.oi.core.agent;
+
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Recognises {@code java.net.http.HttpClient} calls that are redirected to
+ * {@link io.oi.core.http.HttpClientInstrumentation}.
+ * <p>
+ * The redirect replaces the virtual call with a static call taking the client as its first
+ * argument, so the operand stack is unchanged and no locals are needed. The JDK's client
+ * implementation itself is not woven.
+ */
+final class HttpClientCallSites {
+
+    static final String HOOKS = "io/oi/core/http/HttpClientInstrumentation";
+    private static final String CLIENT = "java/net/http/HttpClient";
+
+    private HttpClientCallSites() {
+        // Static utility class
+    }
+
+    /**
+     * @return Whether the call is an {@code HttpClient.send} or {@code sendAsync} to redirect.
+     */
+    static boolean isClientCall(int opcode, String owner, String name, String desc) {
+        if (opcode != Opcodes.INVOKEVIRTUAL || !owner.equals(CLIENT)) {
+            return false;
+        }
+        return switch (name + desc) {
+            case "send(Ljava/net/http/HttpRequest;Ljava/net/http/HttpResponse$BodyHandler;)Ljava/net/http/HttpResponse;",
+                 "sendAsync(Ljava/net/http/HttpRequest;Ljava/net/http/HttpResponse$BodyHandler;)Ljava/util/concurrent/CompletableFuture;",
+                 "sendAsync(Ljava/net/http/HttpRequest;Ljava/net/http/HttpResponse$BodyHandler;Ljava/net/http/HttpResponse$PushPromiseHandler;)Ljava/util/concurrent/CompletableFuture;" ->
+                    true;
+            default -> false;
+        };
+    }
+
+    /**
+     * @return The descriptor of the static hook replacing a call with descriptor {@code desc}.
+     */
+    static String hookDescriptor(String desc) {
+        return "(L" + CLIENT + ";" + desc.substring(1);
+    }
+}
@@ -0,0 +1,235 @@
+package io.oi.core.agent;
+
+import io.oi.core.model.event.ConnectionEvent;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.commons.AdviceAdapter;
+
+/**
+ * Weaves JDBC timing into {@code javax.sql.DataSource}, {@code java.sql.Connection} and
+ * {@code java.sql.Statement} implementations, delegating to
+ * {@link io.oi.core.jdbc.JdbcInstrumentation}.
+ * <ul>
+ *   <li>{@code DataSource.getConnection}: timed as a connection acquisition.</li>
+ *   <li>{@code Connection.commit}/{@code rollback}: timed.</li>
+ *   <li>{@code Connection.prepareStatement}/{@code prepareCall}: the returned statement is
+ *       registered with its SQL.</li>
+ *   <li>{@code Statement.addBatch(String)}: the SQL is registered with the statement.</li>
+ *   <li>{@code execute}, {@code executeQuery}, {@code executeUpdate},
+ *       {@code executeLargeUpdate}: timed; the SQL is the first argument when it is a
+ *       {@code String}, and the registered SQL otherwise. Update counts are recorded as
+ *       the row count.</li>
+ *   <li>{@code executeBatch}/{@code executeLargeBatch}: timed, with the batch size and
+ *       summed update counts taken from the returned array.</li>
+ * </ul>
+ * Timed executions are wrapped in a catch-all handler, so executions that fail with an
+ * exception are recorded too (with a row count of -1) and the per-thread nesting count
+ * stays balanced. The handler is appended after the method's own handlers so that it
+ * never intercepts exceptions the method catches itself.
+ */
+class JdbcMethodAdapter extends AdviceAdapter {
+
+    private static final String HOOKS = "io/oi/core/jdbc/JdbcInstrumentation";
+
+    private enum Kind {
+        ACQUIRE,
+        COMMIT,
+        ROLLBACK,
+        PREPARE,
+        ADD_BATCH,
+        EXECUTE,
+        EXECUTE_BATCH
+    }
+
+    private final Kind kind;
+    private final boolean sqlArgument;
+    private int startVar = -1;
+    private final Label tryStart = new Label();
+
+    private JdbcMethodAdapter(MethodVisitor methodVisitor, int access, String name, String desc, Kind kind) {
+        super(ASM9, methodVisitor, access, name, desc);
+        this.kind = kind;
+        Type[] arguments = Type.getArgumentTypes(desc);
+        this.sqlArgument = arguments.length > 0 && "java/lang/String".equals(arguments[0].getInternalName());
+    }
+
+    /**
+     * @return An adapter for the method, or null if it is not a JDBC method of interest.
+     */
+    static MethodVisitor forMethod(MethodVisitor methodVisitor, int access, String name, String desc,
+                                   JdbcTypeResolver.JdbcType type) {
+        if ((access & (ACC_STATIC | ACC_ABSTRACT | ACC_BRIDGE)) != 0) {
+            return null;
+        }
+        Kind kind = kindOf(name, desc, type);
+        return kind == null ? null : new JdbcMethodAdapter(methodVisitor, access, name, desc, kind);
+    }
+
+    private static Kind kindOf(String name, String desc, JdbcTypeResolver.JdbcType type) {
+        Type returnType = Type.getReturnType(desc);
+        if (type == JdbcTypeResolver.JdbcType.DATA_SOURCE) {
+            return name.equals("getConnection") && returnType.getSort() == Type.OBJECT ? Kind.ACQUIRE : null;
+        }
+        if (type == JdbcTypeResolver.JdbcType.CONNECTION) {
+            if (name.equals("commit") && desc.equals("()V")) {
+                return Kind.COMMIT;
+            }
+            if (name.equals("rollback") && (desc.equals("()V") || desc.equals("(Ljava/sql/Savepoint;)V"))) {
+                return Kind.ROLLBACK;
+            }
+            boolean prepares = name.equals("prepareStatement") || name.equals("prepareCall");
+            return prepares && desc.startsWith("(Ljava/lang/String;") && returnType.getSort() == Type.OBJECT
+                    ? Kind.PREPARE : null;
+        }
+        if (type != JdbcTypeResolver.JdbcType.STATEMENT) {
+            return null;
+        }
+        switch (name) {
+            case "addBatch":
+                return "(Ljava/lang/String;)V".equals(desc) ? Kind.ADD_BATCH : null;
+            case "executeBatch":
+            case "executeLargeBatch":
+                return desc.equals("()[I") || desc.equals("()[J") ? Kind.EXECUTE_BATCH : null;
+            case "execute":
+            case "executeQuery":
+            case "executeUpdate":
+            case "executeLargeUpdate":
+                return Kind.EXECUTE;
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    protected void onMethodEnter() {
+        switch (kind) {
+            case ADD_BATCH:
+                loadThis();
+                loadArg(0);
+                mv.visitMethodInsn(INVOKESTATIC, HOOKS, "addBatch", "(Ljava/lang/Object;Ljava/lang/String;)V", false);
+                break;
+            case ACQUIRE:
+            case COMMIT:
+            case ROLLBACK:
+            case EXECUTE:
+            case EXECUTE_BATCH:
+                startVar = newLocal(Type.LONG_TYPE);
+                mv.visitMethodInsn(INVOKESTATIC, HOOKS, "begin", "()J", false);
+                mv.visitVarInsn(LSTORE, startVar);
+                mv.visitLabel(tryStart);
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Override
+    protected void onMethodExit(int opcode) {
+        if (opcode == ATHROW && startVar >= 0) {
+            // Thrown exceptions reach the catch-all handler added in visitMaxs.
+            return;
+        }
+        switch (kind) {
+            case PREPARE:
+                if (opcode == ARETURN) {
+                    dup();
+                    loadArg(0);
+                    mv.visitMethodInsn(INVOKESTATIC, HOOKS, "registerStatement",
+                            "(Ljava/lang/Object;Ljava/lang/String;)V", false);
+                }
+                break;
+            case ACQUIRE:
+            case COMMIT:
+            case ROLLBACK:
+                endConnection(false);
+                break;
+            case EXECUTE:
+                pushRowCount(opcode);
+                loadThis();
+                if (sqlArgument) {
+                    loadArg(0);
+                } else {
+                    mv.visitInsn(ACONST_NULL);
+                }
+                mv.visitVarInsn(LLOAD, startVar);
+                mv.visitMethodInsn(INVOKESTATIC, HOOKS, "end", "(JLjava/lang/Object;Ljava/lang/String;J)V", false);
+                break;
+            case EXECUTE_BATCH:
+                dup();
+                loadThis();
+                mv.visitVarInsn(LLOAD, startVar);
+                mv.visitMethodInsn(INVOKESTATIC, HOOKS, "endBatch", "(Ljava/lang/Object;Ljava/lang/Object;J)V", false);
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Override
+    public void visitMaxs(int maxStack, int maxLocals) {
+        if (startVar >= 0) {
+            Label tryEnd = new Label();
+            Label handler = new Label();
+            mv.visitLabel(tryEnd);
+            mv.visitTryCatchBlock(tryStart, tryEnd, handler, null);
+            mv.visitLabel(handler);
+            onFailure();
+            mv.visitInsn(ATHROW);
+        }
+        super.visitMaxs(maxStack, maxLocals);
+    }
+
+    /**
+     * Records a failed execution; the exception stays on the stack.
+     */
+    private void onFailure() {
+        if (kind == Kind.ACQUIRE || kind == Kind.COMMIT || kind == Kind.ROLLBACK) {
+            endConnection(true);
+        } else if (kind == Kind.EXECUTE_BATCH) {
+            mv.visitInsn(ACONST_NULL);
+            loadThis();
+            mv.visitVarInsn(LLOAD, startVar);
+            mv.visitMethodInsn(INVOKESTATIC, HOOKS, "endBatch", "(Ljava/lang/Object;Ljava/lang/Object;J)V", false);
+        } else {
+            push(-1L);
+            loadThis();
+            if (sqlArgument) {
+                loadArg(0);
+            } else {
+                mv.visitInsn(ACONST_NULL);
+            }
+            mv.visitVarInsn(LLOAD, startVar);
+            mv.visitMethodInsn(INVOKESTATIC, HOOKS, "end", "(JLjava/lang/Object;Ljava/lang/String;J)V", false);
+        }
+    }
+
+    private void endConnection(boolean failed) {
+        ConnectionEvent.Operation operation = switch (kind) {
+            case ACQUIRE -> ConnectionEvent.Operation.ACQUIRE;
+            case COMMIT -> ConnectionEvent.Operation.COMMIT;
+            default -> ConnectionEvent.Operation.ROLLBACK;
+        };
+        push(operation.ordinal());
+        loadThis();
+        mv.visitVarInsn(LLOAD, startVar);
+        push(failed);
+        mv.visitMethodInsn(INVOKESTATIC, HOOKS, "endConnection", "(ILjava/lang/Object;JZ)V", false);
+    }
+
+    /**
+     * Pushes the update count as a {@code long}: the returned value for
+     * {@code executeUpdate}/{@code executeLargeUpdate}, and -1 for everything else.
+     */
+    private void pushRowCount(int opcode) {
+        Type returnType = Type.getReturnType(methodDesc);
+        if (opcode == IRETURN && returnType.getSort() == Type.INT) {
+            dup();
+            mv.visitInsn(I2L);
+        } else if (opcode == LRETURN) {
+            dup2();
+        } else {
+            push(-1L);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package io.oi.core.agent;
+
+import org.objectweb.asm.ClassReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decides whether a class being loaded implements {@code javax.sql.DataSource},
+ * {@code java.sql.Connection} or {@code java.sql.Statement}, without loading it.
+ * <p>
+ * The class's own bytes give its direct supertypes; supertypes are read as resources from
+ * the defining loader and resolved recursively. Calling {@code Class.forName} on the class
+ * being transformed instead would define it recursively from inside its own transformation.
+ * Classes whose direct supertypes are all JDK types other than the JDBC interfaces, which
+ * is most of them, are decided from their own bytes without reading anything else.
+ * <p>
+ * Results are cached per defining loader, weakly, so that the entries of an undeployed
+ * application go with its loader; each loader's cache is bounded and starts over when full.
+ */
+final class JdbcTypeResolver {
+
+    enum JdbcType {
+        NONE,
+        DATA_SOURCE,
+        CONNECTION,
+        STATEMENT
+    }
+
+    private static final Map<String, JdbcType> JDBC_INTERFACES = Map.of(
+            "javax/sql/DataSource", JdbcType.DATA_SOURCE,
+            "java/sql/Connection", JdbcType.CONNECTION,
+            "java/sql/Statement", JdbcType.STATEMENT,
+            "java/sql/PreparedStatement", JdbcType.STATEMENT,
+            "java/sql/CallableStatement", JdbcType.STATEMENT);
+    static final int MAX_CACHED_PER_LOADER = 4096;
+
+    private static final Map<ClassLoader, Map<String, JdbcType>> caches =
+            Collections.synchronizedMap(new WeakHashMap<>());
+    private static final Map<String, JdbcType> bootstrapCache = new ConcurrentHashMap<>();
+
+    private JdbcTypeResolver() {
+        // Static utility class
+    }
+
+    /**
+     * @param loader     The defining loader of the class, or null for the bootstrap loader.
+     * @param classBytes The class file being transformed.
+     */
+    static JdbcType resolve(ClassLoader loader, byte[] classBytes) {
+        try {
+            ClassReader reader = new ClassReader(classBytes);
+            String superName = reader.getSuperName();
+            String[] interfaces = reader.getInterfaces();
+            if (!mayImplementJdbc(superName, interfaces)) {
+                return JdbcType.NONE;
+            }
+            Map<String, JdbcType> cache = cacheFor(loader);
+            JdbcType type = resolveSupertypes(cache, loader, superName, interfaces);
+            remember(cache, reader.getClassName(), type);
+            return type;
+        } catch (RuntimeException e) {
+            // Malformed class files are left for the JVM to reject.
+            return JdbcType.NONE;
+        }
+    }
+
+    /**
+     * @return The number of classes cached for {@code loader}.
+     */
+    static int cachedTypes(ClassLoader loader) {
+        Map<String, JdbcType> cache = loader == null ? bootstrapCache : caches.get(loader);
+        return cache == null ? 0 : cache.size();
+    }
+
+    /**
+     * @return False if every direct supertype is a JDK type other than the JDBC interfaces,
+     * so that none of them needs to be read.
+     */
+    private static boolean mayImplementJdbc(String superName, String[] interfaces) {
+        for (String candidate : interfaces) {
+            if (JDBC_INTERFACES.containsKey(candidate) || !isJdkType(candidate)) {
+                return true;
+            }
+        }
+        return superName != null && !isJdkType(superName);
+    }
+
+    private static boolean isJdkType(String internalName) {
+        return internalName.startsWith("java/") || internalName.startsWith("javax/") || internalName.startsWith("jdk/");
+    }
+
+    private static Map<String, JdbcType> cacheFor(ClassLoader loader) {
+        if (loader == null) {
+            return bootstrapCache;
+        }
+        return caches.computeIfAbsent(loader, ignored -> new ConcurrentHashMap<>());
+    }
+
+    private static void remember(Map<String, JdbcType> cache, String internalName, JdbcType type) {
+        if (cache.size() >= MAX_CACHED_PER_LOADER) {
+            cache.clear();
+        }
+        cache.put(internalName, type);
+    }
+
+    private static JdbcType resolve(Map<String, JdbcType> cache, ClassLoader loader, String internalName) {
+        if (internalName == null) {
+            return JdbcType.NONE;
+        }
+        JdbcType known = JDBC_INTERFACES.get(internalName);
+        if (known != null) {
+            return known;
+        }
+        // Apart from the JDBC interfaces themselves, no JDK type implements them.
+        if (isJdkType(internalName)) {
+            return JdbcType.NONE;
+        }
+        JdbcType cached = cache.get(internalName);
+        if (cached != null) {
+            return cached;
+        }
+        JdbcType type = JdbcType.NONE;
+        try (InputStream in = loader != null
+                ? loader.getResourceAsStream(internalName + ".class")
+                : ClassLoader.getSystemResourceAsStream(internalName + ".class")) {
+            if (in != null) {
+                ClassReader reader = new ClassReader(in);
+                type = resolveSupertypes(cache, loader, reader.getSuperName(), reader.getInterfaces());
+            }
+        } catch (IOException | RuntimeException e) {
+            // Unreadable supertypes are treated as unrelated to JDBC.
+        }
+        remember(cache, internalName, type);
+        return type;
+    }
+
+    private static JdbcType resolveSupertypes(Map<String, JdbcType> cache, ClassLoader loader,
+                                              String superName, String[] interfaces) {
+        for (String candidate : interfaces) {
+            JdbcType type = resolve(cache, loader, candidate);
+            if (type != JdbcType.NONE) {
+                return type;
+            }
+        }
+        return resolve(cache, loader, superName);
+    }
+}
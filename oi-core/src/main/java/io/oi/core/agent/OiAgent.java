@@ -1,18 +1,30 @@
 package io.oi.core.agent;
 
 import io.oi.core.config.OiCoreProperties;
-import io.oi.core.emitter.HttpFlowEmitter;
+import io.oi.core.emitter.EmitterFactory;
+import io.oi.core.management.AgentStats;
+import io.oi.core.management.OiAgentControl;
 import io.oi.core.trace.Tracer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.lang.instrument.Instrumentation;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Properties;
 
 public class OiAgent {
 
     private static final Logger log = LoggerFactory.getLogger(OiAgent.class);
+    private static volatile boolean started;
+
+    /**
+     * @return Whether the agent is attached and configured the {@link Tracer} from its own
+     * configuration, which integrations such as the Spring adapter then leave in place.
+     */
+    public static boolean isStarted() {
+        return started;
+    }
 
     public static void premain(String agentArgs, Instrumentation inst) {
         log.info("Starting OI-Core Agent...");
@@ -25,21 +37,77 @@ public class OiAgent {
             return;
         }
 
-        log.info("OI-Core Agent configuration: enabled={}, includePackages={}, emitterUrl={}", 
+        log.info("OI-Core Agent configuration: enabled={}, backend={}, includePackages={}, emitters={}, emitterUrl={}", 
                 properties.isEnabled(), 
+                properties.getBackend(),
                 properties.getIncludePackages(), 
+                properties.getEmitter().getTypes(),
                 properties.getEmitter().getUrl());
 
-        HttpFlowEmitter emitter = new HttpFlowEmitter(properties.getEmitter());
-        Tracer.setEmitter(emitter);
+        Tracer.configure(properties);
+        Tracer.setEmitter(EmitterFactory.create(properties.getEmitter()));
+        started = true;
+        // The emitter may have been replaced by a reload by then
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            if (Tracer.getEmitter() instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    log.warn("Failed to close the emitter: {}", e.getMessage());
+                }
+            }
+        }, "oi-emitter-shutdown"));
 
         OiClassFileTransformer transformer = new OiClassFileTransformer(properties);
-        inst.addTransformer(transformer);
+        // Retransformation capable, so that reloaded instrumentation settings reach loaded classes
+        inst.addTransformer(transformer, true);
+
+        AgentStats.setHookTiming(properties.getJmx().isHookTiming());
+        if (properties.getJmx().isEnabled()) {
+            OiAgentControl.register();
+        }
+
+        String configFile = System.getProperty("oi-core.config.file");
+        if (configFile != null && !configFile.trim().isEmpty()
+                && Boolean.parseBoolean(System.getProperty("oi-core.config.watch", "true"))) {
+            try {
+                new ConfigWatcher(Path.of(configFile.trim()), agentArgs, properties, inst, transformer);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Failed to watch config file {}; changes need a restart: {}", configFile, e.getMessage());
+            }
+        }
 
         log.info("OI-Core Agent started successfully.");
     }
 
     private static OiCoreProperties loadProperties(String agentArgs) {
+        OiCoreProperties properties = loadBaseProperties(agentArgs);
+
+        // Try to load from config file if specified
+        String configFile = System.getProperty("oi-core.config.file");
+        if (configFile != null && !configFile.trim().isEmpty()) {
+            try {
+                loadPropertiesFromFile(configFile, properties);
+                log.info("Loaded properties from config file: {}", configFile);
+            } catch (Exception e) {
+                log.warn("Failed to load config file: {}, using current properties", configFile, e);
+            }
+        }
+
+        return properties;
+    }
+
+    /**
+     * Loads the configuration as {@link #premain} does, except that a config file that cannot be
+     * read or parsed fails the load instead of being skipped.
+     */
+    static OiCoreProperties loadProperties(String agentArgs, String configFile) throws IOException {
+        OiCoreProperties properties = loadBaseProperties(agentArgs);
+        loadPropertiesFromFile(configFile, properties);
+        return properties;
+    }
+
+    private static OiCoreProperties loadBaseProperties(String agentArgs) {
         OiCoreProperties properties = new OiCoreProperties();
         
         // Try to load from agent arguments first
@@ -54,18 +122,6 @@ public class OiAgent {
 
         // Override with system properties
         loadPropertiesFromSystem(properties);
-
-        // Try to load from config file if specified
-        String configFile = System.getProperty("oi-core.config.file");
-        if (configFile != null && !configFile.trim().isEmpty()) {
-            try {
-                loadPropertiesFromFile(configFile, properties);
-                log.info("Loaded properties from config file: {}", configFile);
-            } catch (Exception e) {
-                log.warn("Failed to load config file: {}, using current properties", configFile, e);
-            }
-        }
-
         return properties;
     }
 
@@ -81,6 +137,12 @@ public class OiAgent {
                     case "enabled":
                         properties.setEnabled(Boolean.parseBoolean(value));
                         break;
+                    case "backend":
+                        properties.setBackend(value);
+                        break;
+                    case "sampleRate":
+                        properties.setSampleRate(Double.parseDouble(value));
+                        break;
                     case "includePackages":
                         properties.getIncludePackages().clear();
                         for (String pkg : value.split(";")) {
@@ -105,6 +167,183 @@ public class OiAgent {
                     case "instrumentation.ast":
                         properties.getInstrumentation().setAst(Boolean.parseBoolean(value));
                         break;
+                    case "instrumentation.async":
+                        properties.getInstrumentation().setAsync(Boolean.parseBoolean(value));
+                        break;
+                    case "instrumentation.httpClient":
+                        properties.getInstrumentation().setHttpClient(Boolean.parseBoolean(value));
+                        break;
+                    case "context.carrier":
+                        properties.getContext().setCarrier(value);
+                        break;
+                    case "metrics.enabled":
+                        properties.getMetrics().setEnabled(Boolean.parseBoolean(value));
+                        break;
+                    case "profile.enabled":
+                        properties.getProfile().setEnabled(Boolean.parseBoolean(value));
+                        break;
+                    case "profile.maxNodes":
+                        properties.getProfile().setMaxNodes(Integer.parseInt(value));
+                        break;
+                    case "sql.repeatedQueryThreshold":
+                        properties.getSql().setRepeatedQueryThreshold(Integer.parseInt(value));
+                        break;
+                    case "sql.maxStatements":
+                        properties.getSql().setMaxStatements(Integer.parseInt(value));
+                        break;
+                    case "limits.maxNodes":
+                        properties.getLimits().setMaxNodes(Integer.parseInt(value));
+                        break;
+                    case "limits.maxDepth":
+                        properties.getLimits().setMaxDepth(Integer.parseInt(value));
+                        break;
+                    case "limits.maxEventsPerTrace":
+                        properties.getLimits().setMaxEventsPerTrace(Integer.parseInt(value));
+                        break;
+                    case "limits.collapseRecursion":
+                        properties.getLimits().setCollapseRecursion(Boolean.parseBoolean(value));
+                        break;
+                    case "capture.mode":
+                        properties.getCapture().setMode(value);
+                        break;
+                    case "capture.maxStringLength":
+                        properties.getCapture().setMaxStringLength(Integer.parseInt(value));
+                        break;
+                    case "capture.maxCollectionElements":
+                        properties.getCapture().setMaxCollectionElements(Integer.parseInt(value));
+                        break;
+                    case "capture.maxDepth":
+                        properties.getCapture().setMaxDepth(Integer.parseInt(value));
+                        break;
+                    case "capture.typeOnlyTypes":
+                        properties.getCapture().getTypeOnlyTypes().clear();
+                        for (String item : value.split(";")) {
+                            properties.getCapture().getTypeOnlyTypes().add(item.trim());
+                        }
+                        break;
+                    case "capture.toStringTypes":
+                        properties.getCapture().getToStringTypes().clear();
+                        for (String item : value.split(";")) {
+                            properties.getCapture().getToStringTypes().add(item.trim());
+                        }
+                        break;
+                    case "capture.maxStackDepth":
+                        properties.getCapture().setMaxStackDepth(Integer.parseInt(value));
+                        break;
+                    case "stuck.enabled":
+                        properties.getStuck().setEnabled(Boolean.parseBoolean(value));
+                        break;
+                    case "stuck.thresholdMs":
+                        properties.getStuck().setThresholdMs(Long.parseLong(value));
+                        break;
+                    case "stuck.scanIntervalMs":
+                        properties.getStuck().setScanIntervalMs(Long.parseLong(value));
+                        break;
+                    case "stuck.maxSnapshots":
+                        properties.getStuck().setMaxSnapshots(Integer.parseInt(value));
+                        break;
+                    case "stuck.maxStackDepth":
+                        properties.getStuck().setMaxStackDepth(Integer.parseInt(value));
+                        break;
+                    case "store.enabled":
+                        properties.getStore().setEnabled(Boolean.parseBoolean(value));
+                        break;
+                    case "store.maxBytes":
+                        properties.getStore().setMaxBytes(Long.parseLong(value));
+                        break;
+                    case "store.maxTraces":
+                        properties.getStore().setMaxTraces(Integer.parseInt(value));
+                        break;
+                    case "store.queueSize":
+                        properties.getStore().setQueueSize(Integer.parseInt(value));
+                        break;
+                    case "store.type":
+                        properties.getStore().setType(value);
+                        break;
+                    case "store.path":
+                        properties.getStore().setPath(value);
+                        break;
+                    case "store.segments":
+                        properties.getStore().setSegments(Integer.parseInt(value));
+                        break;
+                    case "store.segmentBytes":
+                        properties.getStore().setSegmentBytes(Integer.parseInt(value));
+                        break;
+                    case "emitter.types":
+                        properties.getEmitter().getTypes().clear();
+                        for (String item : value.split(";")) {
+                            properties.getEmitter().getTypes().add(item.trim());
+                        }
+                        break;
+                    case "emitter.routes":
+                        properties.getEmitter().getRoutes().clear();
+                        for (String item : value.split(";")) {
+                            properties.getEmitter().getRoutes().add(item.trim());
+                        }
+                        break;
+                    case "emitter.fileDirectory":
+                        properties.getEmitter().setFileDirectory(value);
+                        break;
+                    case "emitter.filePrefix":
+                        properties.getEmitter().setFilePrefix(value);
+                        break;
+                    case "emitter.fileMaxBytes":
+                        properties.getEmitter().setFileMaxBytes(Long.parseLong(value));
+                        break;
+                    case "emitter.fileRotateMinutes":
+                        properties.getEmitter().setFileRotateMinutes(Long.parseLong(value));
+                        break;
+                    case "emitter.fileMaxFiles":
+                        properties.getEmitter().setFileMaxFiles(Integer.parseInt(value));
+                        break;
+                    case "emitter.queueSize":
+                        properties.getEmitter().setQueueSize(Integer.parseInt(value));
+                        break;
+                    case "emitter.otlpEndpoint":
+                        properties.getEmitter().setOtlpEndpoint(value);
+                        break;
+                    case "emitter.otlpServiceName":
+                        properties.getEmitter().setOtlpServiceName(value);
+                        break;
+                    case "emitter.otlpGzip":
+                        properties.getEmitter().setOtlpGzip(Boolean.parseBoolean(value));
+                        break;
+                    case "emitter.otlpMaxBatchSpans":
+                        properties.getEmitter().setOtlpMaxBatchSpans(Integer.parseInt(value));
+                        break;
+                    case "emitter.otlpFlushMs":
+                        properties.getEmitter().setOtlpFlushMs(Long.parseLong(value));
+                        break;
+                    case "emitter.socketPath":
+                        properties.getEmitter().setSocketPath(value);
+                        break;
+                    case "emitter.socketMaxBatch":
+                        properties.getEmitter().setSocketMaxBatch(Integer.parseInt(value));
+                        break;
+                    case "emitter.maxAttempts":
+                        properties.getEmitter().setMaxAttempts(Integer.parseInt(value));
+                        break;
+                    case "emitter.initialBackoffMs":
+                        properties.getEmitter().setInitialBackoffMs(Long.parseLong(value));
+                        break;
+                    case "emitter.maxBackoffMs":
+                        properties.getEmitter().setMaxBackoffMs(Long.parseLong(value));
+                        break;
+                    case "emitter.breakerFailureThreshold":
+                        properties.getEmitter().setBreakerFailureThreshold(Integer.parseInt(value));
+                        break;
+                    case "emitter.breakerOpenMs":
+                        properties.getEmitter().setBreakerOpenMs(Long.parseLong(value));
+                        break;
+                    case "emitter.spill":
+                        properties.getEmitter().setSpill(value);
+                        break;
+                    case "jmx.enabled":
+                        properties.getJmx().setEnabled(Boolean.parseBoolean(value));
+                        break;
+                    case "jmx.hookTiming":
+                        properties.getJmx().setHookTiming(Boolean.parseBoolean(value));
+                        break;
                 }
             }
         }
@@ -117,6 +356,16 @@ public class OiAgent {
             properties.setEnabled(Boolean.parseBoolean(enabled));
         }
 
+        String backend = System.getProperty("oi-core.backend");
+        if (backend != null) {
+            properties.setBackend(backend.trim());
+        }
+
+        String sampleRate = System.getProperty("oi-core.sampleRate");
+        if (sampleRate != null) {
+            properties.setSampleRate(Double.parseDouble(sampleRate.trim()));
+        }
+
         String includePackages = System.getProperty("oi-core.includePackages");
         if (includePackages != null) {
             properties.getIncludePackages().clear();
@@ -154,6 +403,293 @@ public class OiAgent {
         if (ast != null) {
             properties.getInstrumentation().setAst(Boolean.parseBoolean(ast));
         }
+
+        String async = System.getProperty("oi-core.instrumentation.async");
+        if (async != null) {
+            properties.getInstrumentation().setAsync(Boolean.parseBoolean(async));
+        }
+
+        String httpClient = System.getProperty("oi-core.instrumentation.httpClient");
+        if (httpClient != null) {
+            properties.getInstrumentation().setHttpClient(Boolean.parseBoolean(httpClient));
+        }
+
+        String carrier = System.getProperty("oi-core.context.carrier");
+        if (carrier != null) {
+            properties.getContext().setCarrier(carrier.trim());
+        }
+
+        String metricsEnabled = System.getProperty("oi-core.metrics.enabled");
+        if (metricsEnabled != null) {
+            properties.getMetrics().setEnabled(Boolean.parseBoolean(metricsEnabled));
+        }
+
+        String profileEnabled = System.getProperty("oi-core.profile.enabled");
+        if (profileEnabled != null) {
+            properties.getProfile().setEnabled(Boolean.parseBoolean(profileEnabled));
+        }
+
+        String profileMaxNodes = System.getProperty("oi-core.profile.maxNodes");
+        if (profileMaxNodes != null) {
+            properties.getProfile().setMaxNodes(Integer.parseInt(profileMaxNodes.trim()));
+        }
+
+        String repeatedQueryThreshold = System.getProperty("oi-core.sql.repeatedQueryThreshold");
+        if (repeatedQueryThreshold != null) {
+            properties.getSql().setRepeatedQueryThreshold(Integer.parseInt(repeatedQueryThreshold.trim()));
+        }
+
+        String maxStatements = System.getProperty("oi-core.sql.maxStatements");
+        if (maxStatements != null) {
+            properties.getSql().setMaxStatements(Integer.parseInt(maxStatements.trim()));
+        }
+
+        String limitsMaxNodes = System.getProperty("oi-core.limits.maxNodes");
+        if (limitsMaxNodes != null) {
+            properties.getLimits().setMaxNodes(Integer.parseInt(limitsMaxNodes.trim()));
+        }
+
+        String limitsMaxDepth = System.getProperty("oi-core.limits.maxDepth");
+        if (limitsMaxDepth != null) {
+            properties.getLimits().setMaxDepth(Integer.parseInt(limitsMaxDepth.trim()));
+        }
+
+        String limitsMaxEventsPerTrace = System.getProperty("oi-core.limits.maxEventsPerTrace");
+        if (limitsMaxEventsPerTrace != null) {
+            properties.getLimits().setMaxEventsPerTrace(Integer.parseInt(limitsMaxEventsPerTrace.trim()));
+        }
+
+        String limitsCollapseRecursion = System.getProperty("oi-core.limits.collapseRecursion");
+        if (limitsCollapseRecursion != null) {
+            properties.getLimits().setCollapseRecursion(Boolean.parseBoolean(limitsCollapseRecursion));
+        }
+
+        String captureMode = System.getProperty("oi-core.capture.mode");
+        if (captureMode != null) {
+            properties.getCapture().setMode(captureMode.trim());
+        }
+
+        String captureMaxStringLength = System.getProperty("oi-core.capture.maxStringLength");
+        if (captureMaxStringLength != null) {
+            properties.getCapture().setMaxStringLength(Integer.parseInt(captureMaxStringLength.trim()));
+        }
+
+        String captureMaxCollectionElements = System.getProperty("oi-core.capture.maxCollectionElements");
+        if (captureMaxCollectionElements != null) {
+            properties.getCapture().setMaxCollectionElements(Integer.parseInt(captureMaxCollectionElements.trim()));
+        }
+
+        String captureMaxDepth = System.getProperty("oi-core.capture.maxDepth");
+        if (captureMaxDepth != null) {
+            properties.getCapture().setMaxDepth(Integer.parseInt(captureMaxDepth.trim()));
+        }
+
+        String captureTypeOnlyTypes = System.getProperty("oi-core.capture.typeOnlyTypes");
+        if (captureTypeOnlyTypes != null) {
+            properties.getCapture().getTypeOnlyTypes().clear();
+            for (String item : captureTypeOnlyTypes.split(",")) {
+                properties.getCapture().getTypeOnlyTypes().add(item.trim());
+            }
+        }
+
+        String captureToStringTypes = System.getProperty("oi-core.capture.toStringTypes");
+        if (captureToStringTypes != null) {
+            properties.getCapture().getToStringTypes().clear();
+            for (String item : captureToStringTypes.split(",")) {
+                properties.getCapture().getToStringTypes().add(item.trim());
+            }
+        }
+
+        String captureMaxStackDepth = System.getProperty("oi-core.capture.maxStackDepth");
+        if (captureMaxStackDepth != null) {
+            properties.getCapture().setMaxStackDepth(Integer.parseInt(captureMaxStackDepth.trim()));
+        }
+
+        String stuckEnabled = System.getProperty("oi-core.stuck.enabled");
+        if (stuckEnabled != null) {
+            properties.getStuck().setEnabled(Boolean.parseBoolean(stuckEnabled));
+        }
+
+        String stuckThresholdMs = System.getProperty("oi-core.stuck.thresholdMs");
+        if (stuckThresholdMs != null) {
+            properties.getStuck().setThresholdMs(Long.parseLong(stuckThresholdMs.trim()));
+        }
+
+        String stuckScanIntervalMs = System.getProperty("oi-core.stuck.scanIntervalMs");
+        if (stuckScanIntervalMs != null) {
+            properties.getStuck().setScanIntervalMs(Long.parseLong(stuckScanIntervalMs.trim()));
+        }
+
+        String stuckMaxSnapshots = System.getProperty("oi-core.stuck.maxSnapshots");
+        if (stuckMaxSnapshots != null) {
+            properties.getStuck().setMaxSnapshots(Integer.parseInt(stuckMaxSnapshots.trim()));
+        }
+
+        String stuckMaxStackDepth = System.getProperty("oi-core.stuck.maxStackDepth");
+        if (stuckMaxStackDepth != null) {
+            properties.getStuck().setMaxStackDepth(Integer.parseInt(stuckMaxStackDepth.trim()));
+        }
+
+        String storeEnabled = System.getProperty("oi-core.store.enabled");
+        if (storeEnabled != null) {
+            properties.getStore().setEnabled(Boolean.parseBoolean(storeEnabled));
+        }
+
+        String storeMaxBytes = System.getProperty("oi-core.store.maxBytes");
+        if (storeMaxBytes != null) {
+            properties.getStore().setMaxBytes(Long.parseLong(storeMaxBytes.trim()));
+        }
+
+        String storeMaxTraces = System.getProperty("oi-core.store.maxTraces");
+        if (storeMaxTraces != null) {
+            properties.getStore().setMaxTraces(Integer.parseInt(storeMaxTraces.trim()));
+        }
+
+        String storeQueueSize = System.getProperty("oi-core.store.queueSize");
+        if (storeQueueSize != null) {
+            properties.getStore().setQueueSize(Integer.parseInt(storeQueueSize.trim()));
+        }
+
+        String storeType = System.getProperty("oi-core.store.type");
+        if (storeType != null) {
+            properties.getStore().setType(storeType.trim());
+        }
+
+        String storePath = System.getProperty("oi-core.store.path");
+        if (storePath != null) {
+            properties.getStore().setPath(storePath.trim());
+        }
+
+        String storeSegments = System.getProperty("oi-core.store.segments");
+        if (storeSegments != null) {
+            properties.getStore().setSegments(Integer.parseInt(storeSegments.trim()));
+        }
+
+        String storeSegmentBytes = System.getProperty("oi-core.store.segmentBytes");
+        if (storeSegmentBytes != null) {
+            properties.getStore().setSegmentBytes(Integer.parseInt(storeSegmentBytes.trim()));
+        }
+
+        String emitterTypes = System.getProperty("oi-core.emitter.types");
+        if (emitterTypes != null) {
+            properties.getEmitter().getTypes().clear();
+            for (String item : emitterTypes.split(",")) {
+                properties.getEmitter().getTypes().add(item.trim());
+            }
+        }
+
+        String emitterRoutes = System.getProperty("oi-core.emitter.routes");
+        if (emitterRoutes != null) {
+            properties.getEmitter().getRoutes().clear();
+            for (String item : emitterRoutes.split(",")) {
+                properties.getEmitter().getRoutes().add(item.trim());
+            }
+        }
+
+        String emitterFileDirectory = System.getProperty("oi-core.emitter.fileDirectory");
+        if (emitterFileDirectory != null) {
+            properties.getEmitter().setFileDirectory(emitterFileDirectory.trim());
+        }
+
+        String emitterFilePrefix = System.getProperty("oi-core.emitter.filePrefix");
+        if (emitterFilePrefix != null) {
+            properties.getEmitter().setFilePrefix(emitterFilePrefix.trim());
+        }
+
+        String emitterFileMaxBytes = System.getProperty("oi-core.emitter.fileMaxBytes");
+        if (emitterFileMaxBytes != null) {
+            properties.getEmitter().setFileMaxBytes(Long.parseLong(emitterFileMaxBytes.trim()));
+        }
+
+        String emitterFileRotateMinutes = System.getProperty("oi-core.emitter.fileRotateMinutes");
+        if (emitterFileRotateMinutes != null) {
+            properties.getEmitter().setFileRotateMinutes(Long.parseLong(emitterFileRotateMinutes.trim()));
+        }
+
+        String emitterFileMaxFiles = System.getProperty("oi-core.emitter.fileMaxFiles");
+        if (emitterFileMaxFiles != null) {
+            properties.getEmitter().setFileMaxFiles(Integer.parseInt(emitterFileMaxFiles.trim()));
+        }
+
+        String emitterQueueSize = System.getProperty("oi-core.emitter.queueSize");
+        if (emitterQueueSize != null) {
+            properties.getEmitter().setQueueSize(Integer.parseInt(emitterQueueSize.trim()));
+        }
+
+        String emitterOtlpEndpoint = System.getProperty("oi-core.emitter.otlpEndpoint");
+        if (emitterOtlpEndpoint != null) {
+            properties.getEmitter().setOtlpEndpoint(emitterOtlpEndpoint.trim());
+        }
+
+        String emitterOtlpServiceName = System.getProperty("oi-core.emitter.otlpServiceName");
+        if (emitterOtlpServiceName != null) {
+            properties.getEmitter().setOtlpServiceName(emitterOtlpServiceName.trim());
+        }
+
+        String emitterOtlpGzip = System.getProperty("oi-core.emitter.otlpGzip");
+        if (emitterOtlpGzip != null) {
+            properties.getEmitter().setOtlpGzip(Boolean.parseBoolean(emitterOtlpGzip));
+        }
+
+        String emitterOtlpMaxBatchSpans = System.getProperty("oi-core.emitter.otlpMaxBatchSpans");
+        if (emitterOtlpMaxBatchSpans != null) {
+            properties.getEmitter().setOtlpMaxBatchSpans(Integer.parseInt(emitterOtlpMaxBatchSpans.trim()));
+        }
+
+        String emitterOtlpFlushMs = System.getProperty("oi-core.emitter.otlpFlushMs");
+        if (emitterOtlpFlushMs != null) {
+            properties.getEmitter().setOtlpFlushMs(Long.parseLong(emitterOtlpFlushMs.trim()));
+        }
+
+        String emitterSocketPath = System.getProperty("oi-core.emitter.socketPath");
+        if (emitterSocketPath != null) {
+            properties.getEmitter().setSocketPath(emitterSocketPath.trim());
+        }
+
+        String emitterSocketMaxBatch = System.getProperty("oi-core.emitter.socketMaxBatch");
+        if (emitterSocketMaxBatch != null) {
+            properties.getEmitter().setSocketMaxBatch(Integer.parseInt(emitterSocketMaxBatch.trim()));
+        }
+
+        String emitterMaxAttempts = System.getProperty("oi-core.emitter.maxAttempts");
+        if (emitterMaxAttempts != null) {
+            properties.getEmitter().setMaxAttempts(Integer.parseInt(emitterMaxAttempts.trim()));
+        }
+
+        String emitterInitialBackoffMs = System.getProperty("oi-core.emitter.initialBackoffMs");
+        if (emitterInitialBackoffMs != null) {
+            properties.getEmitter().setInitialBackoffMs(Long.parseLong(emitterInitialBackoffMs.trim()));
+        }
+
+        String emitterMaxBackoffMs = System.getProperty("oi-core.emitter.maxBackoffMs");
+        if (emitterMaxBackoffMs != null) {
+            properties.getEmitter().setMaxBackoffMs(Long.parseLong(emitterMaxBackoffMs.trim()));
+        }
+
+        String emitterBreakerFailureThreshold = System.getProperty("oi-core.emitter.breakerFailureThreshold");
+        if (emitterBreakerFailureThreshold != null) {
+            properties.getEmitter().setBreakerFailureThreshold(Integer.parseInt(emitterBreakerFailureThreshold.trim()));
+        }
+
+        String emitterBreakerOpenMs = System.getProperty("oi-core.emitter.breakerOpenMs");
+        if (emitterBreakerOpenMs != null) {
+            properties.getEmitter().setBreakerOpenMs(Long.parseLong(emitterBreakerOpenMs.trim()));
+        }
+
+        String emitterSpill = System.getProperty("oi-core.emitter.spill");
+        if (emitterSpill != null) {
+            properties.getEmitter().setSpill(emitterSpill.trim());
+        }
+
+        String jmxEnabled = System.getProperty("oi-core.jmx.enabled");
+        if (jmxEnabled != null) {
+            properties.getJmx().setEnabled(Boolean.parseBoolean(jmxEnabled));
+        }
+
+        String jmxHookTiming = System.getProperty("oi-core.jmx.hookTiming");
+        if (jmxHookTiming != null) {
+            properties.getJmx().setHookTiming(Boolean.parseBoolean(jmxHookTiming));
+        }
     }
 
     private static void loadPropertiesFromFile(String configFile, OiCoreProperties properties) throws IOException {
@@ -168,6 +704,16 @@ public class OiAgent {
             properties.setEnabled(Boolean.parseBoolean(enabled));
         }
 
+        String backend = props.getProperty("oi-core.backend");
+        if (backend != null) {
+            properties.setBackend(backend.trim());
+        }
+
+        String sampleRate = props.getProperty("oi-core.sampleRate");
+        if (sampleRate != null) {
+            properties.setSampleRate(Double.parseDouble(sampleRate.trim()));
+        }
+
         String includePackages = props.getProperty("oi-core.includePackages");
         if (includePackages != null) {
             properties.getIncludePackages().clear();
@@ -205,5 +751,292 @@ public class OiAgent {
         if (ast != null) {
             properties.getInstrumentation().setAst(Boolean.parseBoolean(ast));
         }
+
+        String async = props.getProperty("oi-core.instrumentation.async");
+        if (async != null) {
+            properties.getInstrumentation().setAsync(Boolean.parseBoolean(async));
+        }
+
+        String httpClient = props.getProperty("oi-core.instrumentation.httpClient");
+        if (httpClient != null) {
+            properties.getInstrumentation().setHttpClient(Boolean.parseBoolean(httpClient));
+        }
+
+        String carrier = props.getProperty("oi-core.context.carrier");
+        if (carrier != null) {
+            properties.getContext().setCarrier(carrier.trim());
+        }
+
+        String metricsEnabled = props.getProperty("oi-core.metrics.enabled");
+        if (metricsEnabled != null) {
+            properties.getMetrics().setEnabled(Boolean.parseBoolean(metricsEnabled));
+        }
+
+        String profileEnabled = props.getProperty("oi-core.profile.enabled");
+        if (profileEnabled != null) {
+            properties.getProfile().setEnabled(Boolean.parseBoolean(profileEnabled));
+        }
+
+        String profileMaxNodes = props.getProperty("oi-core.profile.maxNodes");
+        if (profileMaxNodes != null) {
+            properties.getProfile().setMaxNodes(Integer.parseInt(profileMaxNodes.trim()));
+        }
+
+        String repeatedQueryThreshold = props.getProperty("oi-core.sql.repeatedQueryThreshold");
+        if (repeatedQueryThreshold != null) {
+            properties.getSql().setRepeatedQueryThreshold(Integer.parseInt(repeatedQueryThreshold.trim()));
+        }
+
+        String maxStatements = props.getProperty("oi-core.sql.maxStatements");
+        if (maxStatements != null) {
+            properties.getSql().setMaxStatements(Integer.parseInt(maxStatements.trim()));
+        }
+
+        String limitsMaxNodes = props.getProperty("oi-core.limits.maxNodes");
+        if (limitsMaxNodes != null) {
+            properties.getLimits().setMaxNodes(Integer.parseInt(limitsMaxNodes.trim()));
+        }
+
+        String limitsMaxDepth = props.getProperty("oi-core.limits.maxDepth");
+        if (limitsMaxDepth != null) {
+            properties.getLimits().setMaxDepth(Integer.parseInt(limitsMaxDepth.trim()));
+        }
+
+        String limitsMaxEventsPerTrace = props.getProperty("oi-core.limits.maxEventsPerTrace");
+        if (limitsMaxEventsPerTrace != null) {
+            properties.getLimits().setMaxEventsPerTrace(Integer.parseInt(limitsMaxEventsPerTrace.trim()));
+        }
+
+        String limitsCollapseRecursion = props.getProperty("oi-core.limits.collapseRecursion");
+        if (limitsCollapseRecursion != null) {
+            properties.getLimits().setCollapseRecursion(Boolean.parseBoolean(limitsCollapseRecursion));
+        }
+
+        String captureMode = props.getProperty("oi-core.capture.mode");
+        if (captureMode != null) {
+            properties.getCapture().setMode(captureMode.trim());
+        }
+
+        String captureMaxStringLength = props.getProperty("oi-core.capture.maxStringLength");
+        if (captureMaxStringLength != null) {
+            properties.getCapture().setMaxStringLength(Integer.parseInt(captureMaxStringLength.trim()));
+        }
+
+        String captureMaxCollectionElements = props.getProperty("oi-core.capture.maxCollectionElements");
+        if (captureMaxCollectionElements != null) {
+            properties.getCapture().setMaxCollectionElements(Integer.parseInt(captureMaxCollectionElements.trim()));
+        }
+
+        String captureMaxDepth = props.getProperty("oi-core.capture.maxDepth");
+        if (captureMaxDepth != null) {
+            properties.getCapture().setMaxDepth(Integer.parseInt(captureMaxDepth.trim()));
+        }
+
+        String captureTypeOnlyTypes = props.getProperty("oi-core.capture.typeOnlyTypes");
+        if (captureTypeOnlyTypes != null) {
+            properties.getCapture().getTypeOnlyTypes().clear();
+            for (String item : captureTypeOnlyTypes.split(",")) {
+                properties.getCapture().getTypeOnlyTypes().add(item.trim());
+            }
+        }
+
+        String captureToStringTypes = props.getProperty("oi-core.capture.toStringTypes");
+        if (captureToStringTypes != null) {
+            properties.getCapture().getToStringTypes().clear();
+            for (String item : captureToStringTypes.split(",")) {
+                properties.getCapture().getToStringTypes().add(item.trim());
+            }
+        }
+
+        String captureMaxStackDepth = props.getProperty("oi-core.capture.maxStackDepth");
+        if (captureMaxStackDepth != null) {
+            properties.getCapture().setMaxStackDepth(Integer.parseInt(captureMaxStackDepth.trim()));
+        }
+
+        String stuckEnabled = props.getProperty("oi-core.stuck.enabled");
+        if (stuckEnabled != null) {
+            properties.getStuck().setEnabled(Boolean.parseBoolean(stuckEnabled));
+        }
+
+        String stuckThresholdMs = props.getProperty("oi-core.stuck.thresholdMs");
+        if (stuckThresholdMs != null) {
+            properties.getStuck().setThresholdMs(Long.parseLong(stuckThresholdMs.trim()));
+        }
+
+        String stuckScanIntervalMs = props.getProperty("oi-core.stuck.scanIntervalMs");
+        if (stuckScanIntervalMs != null) {
+            properties.getStuck().setScanIntervalMs(Long.parseLong(stuckScanIntervalMs.trim()));
+        }
+
+        String stuckMaxSnapshots = props.getProperty("oi-core.stuck.maxSnapshots");
+        if (stuckMaxSnapshots != null) {
+            properties.getStuck().setMaxSnapshots(Integer.parseInt(stuckMaxSnapshots.trim()));
+        }
+
+        String stuckMaxStackDepth = props.getProperty("oi-core.stuck.maxStackDepth");
+        if (stuckMaxStackDepth != null) {
+            properties.getStuck().setMaxStackDepth(Integer.parseInt(stuckMaxStackDepth.trim()));
+        }
+
+        String storeEnabled = props.getProperty("oi-core.store.enabled");
+        if (storeEnabled != null) {
+            properties.getStore().setEnabled(Boolean.parseBoolean(storeEnabled));
+        }
+
+        String storeMaxBytes = props.getProperty("oi-core.store.maxBytes");
+        if (storeMaxBytes != null) {
+            properties.getStore().setMaxBytes(Long.parseLong(storeMaxBytes.trim()));
+        }
+
+        String storeMaxTraces = props.getProperty("oi-core.store.maxTraces");
+        if (storeMaxTraces != null) {
+            properties.getStore().setMaxTraces(Integer.parseInt(storeMaxTraces.trim()));
+        }
+
+        String storeQueueSize = props.getProperty("oi-core.store.queueSize");
+        if (storeQueueSize != null) {
+            properties.getStore().setQueueSize(Integer.parseInt(storeQueueSize.trim()));
+        }
+
+        String storeType = props.getProperty("oi-core.store.type");
+        if (storeType != null) {
+            properties.getStore().setType(storeType.trim());
+        }
+
+        String storePath = props.getProperty("oi-core.store.path");
+        if (storePath != null) {
+            properties.getStore().setPath(storePath.trim());
+        }
+
+        String storeSegments = props.getProperty("oi-core.store.segments");
+        if (storeSegments != null) {
+            properties.getStore().setSegments(Integer.parseInt(storeSegments.trim()));
+        }
+
+        String storeSegmentBytes = props.getProperty("oi-core.store.segmentBytes");
+        if (storeSegmentBytes != null) {
+            properties.getStore().setSegmentBytes(Integer.parseInt(storeSegmentBytes.trim()));
+        }
+
+        String emitterTypes = props.getProperty("oi-core.emitter.types");
+        if (emitterTypes != null) {
+            properties.getEmitter().getTypes().clear();
+            for (String item : emitterTypes.split(",")) {
+                properties.getEmitter().getTypes().add(item.trim());
+            }
+        }
+
+        String emitterRoutes = props.getProperty("oi-core.emitter.routes");
+        if (emitterRoutes != null) {
+            properties.getEmitter().getRoutes().clear();
+            for (String item : emitterRoutes.split(",")) {
+                properties.getEmitter().getRoutes().add(item.trim());
+            }
+        }
+
+        String emitterFileDirectory = props.getProperty("oi-core.emitter.fileDirectory");
+        if (emitterFileDirectory != null) {
+            properties.getEmitter().setFileDirectory(emitterFileDirectory.trim());
+        }
+
+        String emitterFilePrefix = props.getProperty("oi-core.emitter.filePrefix");
+        if (emitterFilePrefix != null) {
+            properties.getEmitter().setFilePrefix(emitterFilePrefix.trim());
+        }
+
+        String emitterFileMaxBytes = props.getProperty("oi-core.emitter.fileMaxBytes");
+        if (emitterFileMaxBytes != null) {
+            properties.getEmitter().setFileMaxBytes(Long.parseLong(emitterFileMaxBytes.trim()));
+        }
+
+        String emitterFileRotateMinutes = props.getProperty("oi-core.emitter.fileRotateMinutes");
+        if (emitterFileRotateMinutes != null) {
+            properties.getEmitter().setFileRotateMinutes(Long.parseLong(emitterFileRotateMinutes.trim()));
+        }
+
+        String emitterFileMaxFiles = props.getProperty("oi-core.emitter.fileMaxFiles");
+        if (emitterFileMaxFiles != null) {
+            properties.getEmitter().setFileMaxFiles(Integer.parseInt(emitterFileMaxFiles.trim()));
+        }
+
+        String emitterQueueSize = props.getProperty("oi-core.emitter.queueSize");
+        if (emitterQueueSize != null) {
+            properties.getEmitter().setQueueSize(Integer.parseInt(emitterQueueSize.trim()));
+        }
+
+        String emitterOtlpEndpoint = props.getProperty("oi-core.emitter.otlpEndpoint");
+        if (emitterOtlpEndpoint != null) {
+            properties.getEmitter().setOtlpEndpoint(emitterOtlpEndpoint.trim());
+        }
+
+        String emitterOtlpServiceName = props.getProperty("oi-core.emitter.otlpServiceName");
+        if (emitterOtlpServiceName != null) {
+            properties.getEmitter().setOtlpServiceName(emitterOtlpServiceName.trim());
+        }
+
+        String emitterOtlpGzip = props.getProperty("oi-core.emitter.otlpGzip");
+        if (emitterOtlpGzip != null) {
+            properties.getEmitter().setOtlpGzip(Boolean.parseBoolean(emitterOtlpGzip));
+        }
+
+        String emitterOtlpMaxBatchSpans = props.getProperty("oi-core.emitter.otlpMaxBatchSpans");
+        if (emitterOtlpMaxBatchSpans != null) {
+            properties.getEmitter().setOtlpMaxBatchSpans(Integer.parseInt(emitterOtlpMaxBatchSpans.trim()));
+        }
+
+        String emitterOtlpFlushMs = props.getProperty("oi-core.emitter.otlpFlushMs");
+        if (emitterOtlpFlushMs != null) {
+            properties.getEmitter().setOtlpFlushMs(Long.parseLong(emitterOtlpFlushMs.trim()));
+        }
+
+        String emitterSocketPath = props.getProperty("oi-core.emitter.socketPath");
+        if (emitterSocketPath != null) {
+            properties.getEmitter().setSocketPath(emitterSocketPath.trim());
+        }
+
+        String emitterSocketMaxBatch = props.getProperty("oi-core.emitter.socketMaxBatch");
+        if (emitterSocketMaxBatch != null) {
+            properties.getEmitter().setSocketMaxBatch(Integer.parseInt(emitterSocketMaxBatch.trim()));
+        }
+
+        String emitterMaxAttempts = props.getProperty("oi-core.emitter.maxAttempts");
+        if (emitterMaxAttempts != null) {
+            properties.getEmitter().setMaxAttempts(Integer.parseInt(emitterMaxAttempts.trim()));
+        }
+
+        String emitterInitialBackoffMs = props.getProperty("oi-core.emitter.initialBackoffMs");
+        if (emitterInitialBackoffMs != null) {
+            properties.getEmitter().setInitialBackoffMs(Long.parseLong(emitterInitialBackoffMs.trim()));
+        }
+
+        String emitterMaxBackoffMs = props.getProperty("oi-core.emitter.maxBackoffMs");
+        if (emitterMaxBackoffMs != null) {
+            properties.getEmitter().setMaxBackoffMs(Long.parseLong(emitterMaxBackoffMs.trim()));
+        }
+
+        String emitterBreakerFailureThreshold = props.getProperty("oi-core.emitter.breakerFailureThreshold");
+        if (emitterBreakerFailureThreshold != null) {
+            properties.getEmitter().setBreakerFailureThreshold(Integer.parseInt(emitterBreakerFailureThreshold.trim()));
+        }
+
+        String emitterBreakerOpenMs = props.getProperty("oi-core.emitter.breakerOpenMs");
+        if (emitterBreakerOpenMs != null) {
+            properties.getEmitter().setBreakerOpenMs(Long.parseLong(emitterBreakerOpenMs.trim()));
+        }
+
+        String emitterSpill = props.getProperty("oi-core.emitter.spill");
+        if (emitterSpill != null) {
+            properties.getEmitter().setSpill(emitterSpill.trim());
+        }
+
+        String jmxEnabled = props.getProperty("oi-core.jmx.enabled");
+        if (jmxEnabled != null) {
+            properties.getJmx().setEnabled(Boolean.parseBoolean(jmxEnabled));
+        }
+
+        String jmxHookTiming = props.getProperty("oi-core.jmx.hookTiming");
+        if (jmxHookTiming != null) {
+            properties.getJmx().setHookTiming(Boolean.parseBoolean(jmxHookTiming));
+        }
     }
 } 
\ No newline at end of file
@@ -1,6 +1,7 @@
 package io.oi.core.agent;
 
 import io.oi.core.config.OiCoreProperties;
+import io.oi.core.management.AgentStats;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassWriter;
 import org.slf4j.Logger;
@@ -10,40 +11,92 @@ import java.lang.instrument.ClassFileTransformer;
 import java.lang.instrument.IllegalClassFormatException;
 import java.security.ProtectionDomain;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class OiClassFileTransformer implements ClassFileTransformer {
 
     private static final Logger log = LoggerFactory.getLogger(OiClassFileTransformer.class);
-    private final OiCoreProperties properties;
-    private final List<String> includePackages;
+
+    /**
+     * The configuration a transformation uses, replaced as a whole when it is reloaded.
+     */
+    private record Config(OiCoreProperties properties, List<String> includePackages) {
+        static Config of(OiCoreProperties properties) {
+            return new Config(properties, properties.getIncludePackages().stream().map(p -> p.replace('.', '/')).toList());
+        }
+    }
+
+    private volatile Config config;
+    /** Internal names of the classes instrumented for tracing, i.e. other than as JDBC types. */
+    private final Set<String> instrumented = ConcurrentHashMap.newKeySet();
 
     public OiClassFileTransformer(OiCoreProperties properties) {
-        this.properties = properties;
-        this.includePackages = properties.getIncludePackages().stream().map(p -> p.replace('.', '/')).toList();
+        this.config = Config.of(properties);
+    }
+
+    /**
+     * Uses {@code properties} for the classes transformed from now on. Classes already loaded
+     * keep their bytecode until they are retransformed.
+     */
+    void update(OiCoreProperties properties) {
+        config = Config.of(properties);
+    }
+
+    /**
+     * @param instrumentationChanged Whether settings other than the included packages that
+     *                               shape the bytecode changed.
+     * @return Whether a loaded class would be transformed differently under the current
+     * configuration than it was.
+     */
+    boolean isAffected(String className, boolean instrumentationChanged) {
+        Config current = config;
+        boolean wasInstrumented = instrumented.contains(className);
+        boolean candidate = !isExcluded(current, className) && isIncluded(current, className);
+        return instrumentationChanged ? wasInstrumented || candidate : wasInstrumented != candidate;
     }
 
     @Override
     public byte[] transform(ClassLoader loader, String className, Class<?> classBeingRedefined,
                             ProtectionDomain protectionDomain, byte[] classfileBuffer) throws IllegalClassFormatException {
 
-        if (className == null || !shouldTransform(className)) {
+        Config current = config;
+        if (className != null && classBeingRedefined != null) {
+            instrumented.remove(className);
+        }
+        if (className == null || isExcluded(current, className)) {
             return classfileBuffer; // No transformation
         }
 
+        long started = 0L;
         try {
-            log.trace("Transforming class: {}", className);
+            JdbcTypeResolver.JdbcType jdbcType = JdbcTypeResolver.resolve(loader, classfileBuffer);
+            if (jdbcType == JdbcTypeResolver.JdbcType.NONE && !isIncluded(current, className)) {
+                return classfileBuffer;
+            }
+            log.trace("Transforming class: {} (JDBC type {})", className, jdbcType);
+            started = System.nanoTime();
             ClassReader cr = new ClassReader(classfileBuffer);
             ClassWriter cw = new ClassWriter(cr, ClassWriter.COMPUTE_MAXS | ClassWriter.COMPUTE_FRAMES);
-            OiClassVisitor cv = new OiClassVisitor(cw, className, properties);
+            OiClassVisitor cv = new OiClassVisitor(cw, className, current.properties(), jdbcType);
             cr.accept(cv, ClassReader.EXPAND_FRAMES);
-            return cw.toByteArray();
+            byte[] transformed = cw.toByteArray();
+            AgentStats.recordTransform(System.nanoTime() - started, false);
+            if (jdbcType == JdbcTypeResolver.JdbcType.NONE) {
+                instrumented.add(className);
+            }
+            return transformed;
         } catch (Exception e) {
+            if (started != 0L) {
+                AgentStats.recordTransform(System.nanoTime() - started, true);
+            }
             log.error("Error transforming class " + className, e);
             return classfileBuffer; // Return original bytecode on error
         }
     }
 
-    private boolean shouldTransform(String className) {
+    private static boolean isExcluded(Config config, String className) {
+        OiCoreProperties properties = config.properties();
         // Avoid instrumenting self, JDK, and other common libraries to prevent recursion and performance issues.
         if (className.startsWith("io/oi/core/") ||
             className.startsWith("java/") ||
@@ -53,7 +106,8 @@ public class OiClassFileTransformer implements ClassFileTransformer {
             className.startsWith("jdk/") ||
             className.startsWith("org/slf4j/") ||
             className.startsWith("com/fasterxml/jackson/")) {
-            return false;
+            // java/lang/Thread is the one JDK class instrumented, for thread start interception
+            return !(properties.getInstrumentation().isThreads() && "java/lang/Thread".equals(className));
         }
 
         // Suppress framework noise unless explicitly configured
@@ -61,43 +115,28 @@ public class OiClassFileTransformer implements ClassFileTransformer {
             if (className.startsWith("org/springframework/") ||
                 className.startsWith("org/apache/catalina/") ||
                 className.startsWith("org/apache/tomcat/")) {
-                return false;
+                return true;
             }
         }
+        return false;
+    }
 
-        // Instrument java.lang.Thread specifically for thread start interception
-        if (properties.getInstrumentation().isThreads() && "java/lang/Thread".equals(className)) {
-            return true;
-        }
-
-        // Instrument JDBC statements, but only if not framework noise
-        if (isJdbcStatement(className) && (properties.getInstrumentation().isFramework() || !className.startsWith("org/springframework/"))) {
+    /**
+     * JDBC drivers and pools are instrumented wherever they live; everything else only if
+     * it is in a configured package.
+     */
+    private static boolean isIncluded(Config config, String className) {
+        if ("java/lang/Thread".equals(className)) {
             return true;
         }
 
         // Check against user-configured packages
-        for (String pkg : includePackages) {
-            if (className.replace('/', '.').startsWith(pkg)) {
+        for (String pkg : config.includePackages()) {
+            if (className.startsWith(pkg)) {
                 return true;
             }
         }
 
         return false;
     }
-
-    private boolean isJdbcStatement(String className) {
-        if (className == null) {
-            return false;
-        }
-        try {
-            Class<?> clazz = Class.forName(className.replace('/', '.'), false, ClassLoader.getSystemClassLoader());
-            if (java.sql.Statement.class.isAssignableFrom(clazz)) {
-                log.trace("Identified JDBC Statement for transformation: {}", className);
-                return true;
-            }
-        } catch (Throwable e) {
-            // Ignore errors like ClassNotFoundException, NoClassDefFoundError, etc.
-        }
-        return false;
-    }
-} 
\ No newline at end of file
+}
\ No newline at end of file
@@ -11,26 +11,19 @@ public class OiClassVisitor extends ClassVisitor {
     private final String className;
     private final OiCoreProperties properties;
     private boolean isController, isService, isRepository;
-    private boolean isJdbcStatement;
+    private final JdbcTypeResolver.JdbcType jdbcType;
     private final List<String> classAnnotations = new ArrayList<>();
 
     public OiClassVisitor(ClassVisitor classVisitor, String className, OiCoreProperties properties) {
+        this(classVisitor, className, properties, JdbcTypeResolver.JdbcType.NONE);
+    }
+
+    OiClassVisitor(ClassVisitor classVisitor, String className, OiCoreProperties properties,
+                   JdbcTypeResolver.JdbcType jdbcType) {
         super(Opcodes.ASM9, classVisitor);
         this.className = className;
         this.properties = properties;
-    }
-
-    @Override
-    public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
-        super.visit(version, access, name, signature, superName, interfaces);
-        try {
-            Class<?> clazz = Class.forName(name.replace('/', '.'), false, getClass().getClassLoader());
-            if (java.sql.Statement.class.isAssignableFrom(clazz)) {
-                this.isJdbcStatement = true;
-            }
-        } catch (Throwable e) {
-            // Ignore
-        }
+        this.jdbcType = jdbcType;
     }
 
     @Override
@@ -52,7 +45,17 @@ public class OiClassVisitor extends ClassVisitor {
     @Override
     public MethodVisitor visitMethod(int access, String name, String desc, String signature, String[] exceptions) {
         MethodVisitor mv = super.visitMethod(access, name, desc, signature, exceptions);
-        if (mv == null || !shouldInstrumentMethod(name)) {
+        if (mv == null) {
+            return null;
+        }
+
+        // JDBC implementations get timing only, never method tracing
+        if (jdbcType != JdbcTypeResolver.JdbcType.NONE) {
+            MethodVisitor jdbc = JdbcMethodAdapter.forMethod(mv, access, name, desc, jdbcType);
+            return jdbc != null ? jdbc : mv;
+        }
+
+        if (!shouldInstrumentMethod(name)) {
             return mv;
         }
 
@@ -65,11 +68,6 @@ public class OiClassVisitor extends ClassVisitor {
             return false;
         }
 
-        // Instrument JDBC execute methods
-        if (isJdbcStatement) {
-            return methodName.startsWith("execute") || methodName.equals("addBatch");
-        }
-
         // Check for specific annotations based on config
         if (properties.getInstrumentation().isController() && isController) return true;
         if (properties.getInstrumentation().isService() && isService) return true;
@@ -1,6 +1,7 @@
 package io.oi.core.agent;
 
 import io.oi.core.config.OiCoreProperties;
+import io.oi.core.trace.MethodRegistry;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
@@ -12,14 +13,15 @@ import java.util.HashSet;
 import java.util.Set;
 
 public class OiMethodAdapter extends AdviceAdapter {
+    private static final String TRACER = "io/oi/core/trace/Tracer";
+
     private final String methodName;
     private final String className;
     private final String methodDesc;
     private final OiCoreProperties properties;
+    private final boolean jfrBackend;
     private int instructionCount = 0;
     private int maxLocals = 0;
-    private final boolean isJdbcStatement;
-    private int startTimeVar = -1;
     private final Set<Label> instrumentedLabels = new HashSet<>();
     private int branchCounter = 0;
 
@@ -29,22 +31,13 @@ public class OiMethodAdapter extends AdviceAdapter {
         this.methodDesc = desc;
         this.className = className;
         this.properties = properties;
-        this.isJdbcStatement = isJdbcStatement(className);
+        this.jfrBackend = "jfr".equalsIgnoreCase(properties.getBackend());
         this.maxLocals = (Opcodes.ACC_STATIC & access) != 0 ? 0 : 1; // `this` pointer
         for (Type t : Type.getArgumentTypes(desc)) {
             maxLocals += t.getSize();
         }
     }
 
-    private boolean isJdbcStatement(String className) {
-        try {
-            Class<?> clazz = Class.forName(className.replace('/', '.'), false, getClass().getClassLoader());
-            return java.sql.Statement.class.isAssignableFrom(clazz);
-        } catch (Throwable e) {
-            return false;
-        }
-    }
-
     @Override
     public void visitInsn(int opcode) {
         instructionCount++;
@@ -65,91 +58,118 @@ public class OiMethodAdapter extends AdviceAdapter {
 
     @Override
     protected void onMethodEnter() {
-        if (isJdbcStatement && methodName.startsWith("execute")) {
-            startTimeVar = newLocal(Type.LONG_TYPE);
-            mv.visitMethodInsn(INVOKESTATIC, "java/lang/System", "nanoTime", "()J", false);
-            mv.visitVarInsn(LSTORE, startTimeVar);
-        } else {
-            // Pass class name, method name, and method descriptor to the tracer
-            mv.visitLdcInsn(className);
-            mv.visitLdcInsn(methodName);
-            mv.visitLdcInsn(methodDesc);
-
-            // Pass bytecode analysis results
-            mv.visitIntInsn(SIPUSH, instructionCount);
-            mv.visitIntInsn(SIPUSH, maxLocals);
-
-            // Create an array of objects to hold the method parameters
-            Type[] argumentTypes = Type.getArgumentTypes(methodDesc);
-            mv.visitIntInsn(BIPUSH, argumentTypes.length);
-            mv.visitTypeInsn(ANEWARRAY, "java/lang/Object");
-
-            // Load each parameter, box it if primitive, and store it in the array
-            for (int i = 0; i < argumentTypes.length; i++) {
-                mv.visitInsn(DUP);
-                mv.visitIntInsn(BIPUSH, i);
-                loadArg(i);
-                box(argumentTypes[i]);
-                mv.visitInsn(AASTORE);
-            }
-
-            // Call the static startTrace method
-            mv.visitMethodInsn(INVOKESTATIC, "io/oi/core/trace/Tracer", "startTrace",
-                    "(Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;II[Ljava/lang/Object;)V", false);
+        int methodId = MethodRegistry.register(className, methodName, methodDesc);
+        if (jfrBackend) {
+            // The JFR backend keeps nothing but the method ID
+            enterLean(methodId);
+            return;
         }
+        Label lean = new Label();
+        Label entered = new Label();
+        mv.visitMethodInsn(INVOKESTATIC, TRACER, "isCapturing", "()Z", false);
+        mv.visitJumpInsn(IFEQ, lean);
+
+        // Pass the method ID, class name, method name, and method descriptor to the tracer
+        mv.visitLdcInsn(methodId);
+        mv.visitLdcInsn(className);
+        mv.visitLdcInsn(methodName);
+        mv.visitLdcInsn(methodDesc);
+
+        // Pass bytecode analysis results
+        mv.visitIntInsn(SIPUSH, instructionCount);
+        mv.visitIntInsn(SIPUSH, maxLocals);
+
+        // Create an array of objects to hold the method parameters
+        Type[] argumentTypes = Type.getArgumentTypes(methodDesc);
+        mv.visitIntInsn(BIPUSH, argumentTypes.length);
+        mv.visitTypeInsn(ANEWARRAY, "java/lang/Object");
+
+        // Load each parameter, box it if primitive, and store it in the array
+        for (int i = 0; i < argumentTypes.length; i++) {
+            mv.visitInsn(DUP);
+            mv.visitIntInsn(BIPUSH, i);
+            loadArg(i);
+            box(argumentTypes[i]);
+            mv.visitInsn(AASTORE);
+        }
+
+        // Call the static startTrace method
+        mv.visitMethodInsn(INVOKESTATIC, TRACER, "startTrace",
+                "(ILjava/lang/String;Ljava/lang/String;Ljava/lang/String;II[Ljava/lang/Object;)V", false);
+        mv.visitJumpInsn(GOTO, entered);
+
+        // Nothing of the arguments would be kept, so don't box them
+        mv.visitLabel(lean);
+        enterLean(methodId);
+        mv.visitLabel(entered);
+    }
+
+    private void enterLean(int methodId) {
+        mv.visitLdcInsn(methodId);
+        mv.visitMethodInsn(INVOKESTATIC, TRACER, "enter", "(I)V", false);
     }
 
     @Override
     protected void onMethodExit(int opcode) {
-        if (isJdbcStatement && methodName.startsWith("execute")) {
-            if (opcode != ATHROW) {
-                // For a successful execution, calculate duration and record the event
-                mv.visitMethodInsn(INVOKESTATIC, "java/lang/System", "nanoTime", "()J", false);
-                mv.visitVarInsn(LLOAD, startTimeVar);
-                mv.visitInsn(LSUB);
-                int durationVar = newLocal(Type.LONG_TYPE);
-                mv.visitVarInsn(LSTORE, durationVar);
-
-                // Load SQL from the first argument
-                loadArg(0); 
-                
-                // Load duration
-                mv.visitVarInsn(LLOAD, durationVar);
-
-                // Get row count from return value (if applicable)
-                if (opcode == IRETURN) { // executeUpdate returns an int
-                    dup(); // duplicate the return value (rowCount)
+        if (jfrBackend) {
+            exitLean(opcode);
+            return;
+        }
+        Label lean = new Label();
+        Label exited = new Label();
+        mv.visitMethodInsn(INVOKESTATIC, TRACER, "isCapturing", "()Z", false);
+        mv.visitJumpInsn(IFEQ, lean);
+
+        if (opcode != ATHROW) {
+            // If it's a normal return, load the return value onto the stack
+            if (opcode == RETURN) { // void return
+                mv.visitInsn(ACONST_NULL);
+            } else {
+                // If there is a return value, duplicate it and box if necessary
+                if (opcode == LRETURN || opcode == DRETURN) {
+                    dup2();
                 } else {
-                    mv.visitInsn(ICONST_M1); // -1 for unknown/not applicable row count
+                    dup();
                 }
-                
-                mv.visitMethodInsn(INVOKESTATIC, "io/oi/core/trace/Tracer", "recordDbQuery", "(Ljava/lang/String;JI)V", false);
+                box(Type.getReturnType(methodDesc));
             }
+            mv.visitInsn(ACONST_NULL); // No exception
         } else {
-            // Original tracing logic for non-DB methods
-            if (opcode != ATHROW) {
-                // If it's a normal return, load the return value onto the stack
-                if (opcode == RETURN) { // void return
-                    mv.visitInsn(ACONST_NULL);
-                } else {
-                    // If there is a return value, duplicate it and box if necessary
-                    if (opcode == LRETURN || opcode == DRETURN) {
-                        dup2();
-                    } else {
-                        dup();
-                    }
-                    box(Type.getReturnType(methodDesc));
-                }
-                mv.visitInsn(ACONST_NULL); // No exception
-            } else {
-                // Exception is already on the stack
-                mv.visitInsn(ACONST_NULL); // No return value
-                mv.visitInsn(SWAP); // Swap to get exception on top
-            }
+            // Exception is already on the stack; keep it there for the ATHROW
+            mv.visitInsn(DUP);
+            mv.visitInsn(ACONST_NULL); // No return value
+            mv.visitInsn(SWAP); // Swap to get exception on top
+        }
+
+        mv.visitMethodInsn(INVOKESTATIC, TRACER, "endTrace",
+                "(Ljava/lang/Object;Ljava/lang/Throwable;)V", false);
+        mv.visitJumpInsn(GOTO, exited);
 
-            mv.visitMethodInsn(INVOKESTATIC, "io/oi/core/trace/Tracer", "endTrace",
-                    "(Ljava/lang/Object;Ljava/lang/Throwable;)V", false);
+        mv.visitLabel(lean);
+        exitLean(opcode);
+        mv.visitLabel(exited);
+    }
+
+    private void exitLean(int opcode) {
+        if (opcode == ATHROW) {
+            mv.visitInsn(DUP);
+        } else {
+            mv.visitInsn(ACONST_NULL); // No exception
+        }
+        mv.visitMethodInsn(INVOKESTATIC, TRACER, "exit", "(Ljava/lang/Throwable;)V", false);
+    }
+
+    @Override
+    public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+        AsyncCallSites.wrapTaskArgument(mv, owner, name, descriptor,
+                properties.getInstrumentation().isAsync(), properties.getInstrumentation().isThreads());
+        if (properties.getInstrumentation().isHttpClient()
+                && HttpClientCallSites.isClientCall(opcode, owner, name, descriptor)) {
+            super.visitMethodInsn(INVOKESTATIC, HttpClientCallSites.HOOKS, name,
+                    HttpClientCallSites.hookDescriptor(descriptor), false);
+            return;
         }
+        super.visitMethodInsn(opcode, owner, name, descriptor, isInterface);
     }
 
     @Override
@@ -0,0 +1,45 @@
+package io.oi.core.capture;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A detached, size-bounded copy of a captured object, taken when it was passed to or
+ * returned from an instrumented method. Only {@code type} is always present.
+ *
+ * @param type     The runtime class name.
+ * @param value    A rendering of the object, e.g. its truncated {@code toString()}.
+ * @param size     For arrays, collections and maps, the number of elements.
+ * @param elements For arrays and collections, the captured first elements.
+ * @param fields   For maps, the captured first entries by key; for other objects, the captured fields.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record CapturedValue(
+    String type,
+    String value,
+    Integer size,
+    List<Object> elements,
+    Map<String, Object> fields
+) {
+    @JsonCreator
+    public CapturedValue(
+            @JsonProperty("type") String type,
+            @JsonProperty("value") String value,
+            @JsonProperty("size") Integer size,
+            @JsonProperty("elements") List<Object> elements,
+            @JsonProperty("fields") Map<String, Object> fields) {
+        this.type = type;
+        this.value = value;
+        this.size = size;
+        this.elements = elements;
+        this.fields = fields;
+    }
+
+    static CapturedValue ofType(Object object) {
+        return new CapturedValue(object.getClass().getName(), null, null, null, null);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,339 @@
+package io.oi.core.capture;
+
+import io.oi.core.config.OiCoreProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Copies method parameters and return values into detached, size-bounded snapshots at the
+ * moment they are captured, so a trace never retains the application's object graph and is
+ * never serialised against live objects (e.g. uninitialised JPA proxies) after the call returned.
+ * <p>
+ * In {@link Mode#SNAPSHOT} mode:
+ * <ul>
+ *   <li>Primitive wrappers are kept as they are; enums become their name.</li>
+ *   <li>Strings are truncated to {@code capture.maxStringLength} characters.</li>
+ *   <li>Arrays, collections and maps become their size and their first
+ *       {@code capture.maxCollectionElements} elements.</li>
+ *   <li>Types matching {@code capture.toStringTypes} become their truncated {@code toString()};
+ *       types matching {@code capture.typeOnlyTypes}, and generated proxies, only their type.</li>
+ *   <li>Any other object becomes its type and up to {@value #MAX_FIELDS} of its fields, nested at
+ *       most {@code capture.maxDepth} levels.</li>
+ * </ul>
+ * Types can be given a rendering of their own with {@link #registerRenderer(Class, ValueRenderer)}.
+ */
+public final class ValueCapture {
+
+    private static final Logger log = LoggerFactory.getLogger(ValueCapture.class);
+
+    /**
+     * The maximum number of fields captured per object.
+     */
+    static final int MAX_FIELDS = 16;
+
+    /**
+     * What is kept of captured values.
+     */
+    public enum Mode {
+        /** Bounded copies of the values, as described on {@link ValueCapture}. */
+        SNAPSHOT,
+        /** Only the runtime type of each non-null value. */
+        TYPE_ONLY,
+        /** Nothing; parameters are not collected and return values are dropped. */
+        NONE
+    }
+
+    private enum Strategy { TYPE_ONLY, TO_STRING, DEFAULT }
+
+    private static volatile Mode mode = Mode.SNAPSHOT;
+    private static volatile int maxStringLength = 256;
+    private static volatile int maxCollectionElements = 10;
+    private static volatile int maxDepth = 2;
+    private static volatile List<String> typeOnlyTypes = new OiCoreProperties.CaptureProperties().getTypeOnlyTypes();
+    private static volatile List<String> toStringTypes = new OiCoreProperties.CaptureProperties().getToStringTypes();
+
+    private static final Map<Class<?>, ValueRenderer<Object>> renderers = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, Strategy> strategies = new ConcurrentHashMap<>();
+    private static final ClassValue<Field[]> fields = new ClassValue<>() {
+        @Override
+        protected Field[] computeValue(Class<?> type) {
+            return accessibleFields(type);
+        }
+    };
+
+    private ValueCapture() {
+    }
+
+    /**
+     * Applies the {@code capture} configuration. Renderers registered earlier are kept.
+     */
+    public static void configure(OiCoreProperties.CaptureProperties capture) {
+        try {
+            mode = Mode.valueOf(capture.getMode().trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            log.warn("Unknown capture mode '{}', using SNAPSHOT.", capture.getMode());
+            mode = Mode.SNAPSHOT;
+        }
+        maxStringLength = Math.max(0, capture.getMaxStringLength());
+        maxCollectionElements = Math.max(0, capture.getMaxCollectionElements());
+        maxDepth = Math.max(0, capture.getMaxDepth());
+        typeOnlyTypes = List.copyOf(capture.getTypeOnlyTypes());
+        toStringTypes = List.copyOf(capture.getToStringTypes());
+        strategies.clear();
+    }
+
+    public static Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Changes the capture mode alone, e.g. at runtime; the other settings are kept.
+     */
+    public static void setMode(Mode captureMode) {
+        mode = captureMode;
+    }
+
+    /**
+     * Renders {@code type} and its subtypes with {@code renderer} instead of the default rendering.
+     * A renderer registered for a class takes precedence over one registered for its supertypes.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> void registerRenderer(Class<T> type, ValueRenderer<? super T> renderer) {
+        renderers.put(type, (ValueRenderer<Object>) renderer);
+        strategies.clear();
+    }
+
+    public static void removeRenderer(Class<?> type) {
+        renderers.remove(type);
+    }
+
+    /**
+     * @return A detached copy of every value in {@code parameters}, in order; empty in {@link Mode#NONE}.
+     */
+    public static Map<String, Object> captureAll(Map<String, Object> parameters) {
+        if (mode == Mode.NONE || parameters.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, Object> captured = new LinkedHashMap<>(parameters.size() * 2);
+        parameters.forEach((name, value) -> captured.put(name, capture(value)));
+        return captured;
+    }
+
+    /**
+     * @return A detached copy of {@code value}: the value itself if it is immutable and small,
+     * otherwise a {@link CapturedValue} or truncated string; {@code null} in {@link Mode#NONE}.
+     */
+    public static Object capture(Object value) {
+        Mode current = mode;
+        if (value == null || current == Mode.NONE) {
+            return null;
+        }
+        if (current == Mode.TYPE_ONLY) {
+            return CapturedValue.ofType(value);
+        }
+        try {
+            return capture(value, 0);
+        } catch (RuntimeException | LinkageError e) {
+            log.trace("Could not capture a {}: {}", value.getClass().getName(), e.toString());
+            return CapturedValue.ofType(value);
+        }
+    }
+
+    private static Object capture(Object value, int depth) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof String string) {
+            return truncate(string);
+        }
+        Class<?> type = value.getClass();
+        if (type == Integer.class || type == Long.class || type == Boolean.class || type == Double.class
+                || type == Float.class || type == Short.class || type == Byte.class || type == Character.class) {
+            return value;
+        }
+        if (value instanceof Enum<?> constant) {
+            return constant.name();
+        }
+        ValueRenderer<Object> renderer = rendererFor(type);
+        if (renderer != null) {
+            Object rendered = renderer.render(value);
+            return rendered == value ? CapturedValue.ofType(value) : capture(rendered, depth);
+        }
+        Strategy strategy = strategies.computeIfAbsent(type, ValueCapture::strategyFor);
+        if (strategy == Strategy.TYPE_ONLY) {
+            return CapturedValue.ofType(value);
+        }
+        if (strategy == Strategy.TO_STRING || value instanceof CharSequence || value instanceof Number) {
+            return new CapturedValue(type.getName(), truncate(String.valueOf(value)), null, null, null);
+        }
+        if (type.isArray()) {
+            return captureArray(value, depth);
+        }
+        if (value instanceof Collection<?> collection) {
+            return captureCollection(collection, depth);
+        }
+        if (value instanceof Map<?, ?> map) {
+            return captureMap(map, depth);
+        }
+        return captureFields(value, depth);
+    }
+
+    private static CapturedValue captureArray(Object array, int depth) {
+        int length = Array.getLength(array);
+        if (depth >= maxDepth) {
+            return new CapturedValue(array.getClass().getName(), null, length, null, null);
+        }
+        int limit = Math.min(length, maxCollectionElements);
+        List<Object> elements = new ArrayList<>(limit);
+        for (int i = 0; i < limit; i++) {
+            elements.add(capture(Array.get(array, i), depth + 1));
+        }
+        return new CapturedValue(array.getClass().getName(), null, length, elements, null);
+    }
+
+    private static CapturedValue captureCollection(Collection<?> collection, int depth) {
+        int size = collection.size();
+        if (depth >= maxDepth) {
+            return new CapturedValue(collection.getClass().getName(), null, size, null, null);
+        }
+        List<Object> elements = new ArrayList<>(Math.min(size, maxCollectionElements));
+        Iterator<?> iterator = collection.iterator();
+        while (elements.size() < maxCollectionElements && iterator.hasNext()) {
+            elements.add(capture(iterator.next(), depth + 1));
+        }
+        return new CapturedValue(collection.getClass().getName(), null, size, elements, null);
+    }
+
+    private static CapturedValue captureMap(Map<?, ?> map, int depth) {
+        int size = map.size();
+        if (depth >= maxDepth) {
+            return new CapturedValue(map.getClass().getName(), null, size, null, null);
+        }
+        Map<String, Object> entries = new LinkedHashMap<>();
+        Iterator<? extends Map.Entry<?, ?>> iterator = map.entrySet().iterator();
+        while (entries.size() < maxCollectionElements && iterator.hasNext()) {
+            Map.Entry<?, ?> entry = iterator.next();
+            entries.put(key(entry.getKey()), capture(entry.getValue(), depth + 1));
+        }
+        return new CapturedValue(map.getClass().getName(), null, size, null, entries);
+    }
+
+    private static CapturedValue captureFields(Object object, int depth) {
+        Field[] declared = fields.get(object.getClass());
+        if (declared.length == 0 || depth >= maxDepth) {
+            return CapturedValue.ofType(object);
+        }
+        Map<String, Object> values = new LinkedHashMap<>(declared.length * 2);
+        for (Field field : declared) {
+            try {
+                values.put(field.getName(), capture(field.get(object), depth + 1));
+            } catch (IllegalAccessException e) {
+                values.put(field.getName(), null);
+            }
+        }
+        return new CapturedValue(object.getClass().getName(), null, null, null, values);
+    }
+
+    private static String key(Object key) {
+        if (key == null) {
+            return "null";
+        }
+        if (key instanceof String || key instanceof Number || key instanceof Enum<?> || key instanceof Character) {
+            return truncate(key.toString());
+        }
+        return key.getClass().getName();
+    }
+
+    private static String truncate(String string) {
+        int limit = maxStringLength;
+        if (string.length() <= limit) {
+            return string;
+        }
+        return string.substring(0, limit) + "... (" + string.length() + " chars)";
+    }
+
+    private static ValueRenderer<Object> rendererFor(Class<?> type) {
+        if (renderers.isEmpty()) {
+            return null;
+        }
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            ValueRenderer<Object> renderer = renderers.get(c);
+            if (renderer != null) {
+                return renderer;
+            }
+        }
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            for (Class<?> face : c.getInterfaces()) {
+                ValueRenderer<Object> renderer = renderers.get(face);
+                if (renderer != null) {
+                    return renderer;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Strategy strategyFor(Class<?> type) {
+        String name = type.getName();
+        if (name.contains("$HibernateProxy") || name.contains("$$") || type.isSynthetic() || type.isHidden()) {
+            return Strategy.TYPE_ONLY;
+        }
+        if (matches(name, typeOnlyTypes)) {
+            return Strategy.TYPE_ONLY;
+        }
+        if (matches(name, toStringTypes)) {
+            return Strategy.TO_STRING;
+        }
+        if (type.isArray() || Collection.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type)
+                || CharSequence.class.isAssignableFrom(type) || Number.class.isAssignableFrom(type)) {
+            return Strategy.DEFAULT;
+        }
+        // Fields of JDK classes are not accessible from the agent; render those by type.
+        return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("jdk.") || name.startsWith("sun.")
+                ? Strategy.TYPE_ONLY
+                : Strategy.DEFAULT;
+    }
+
+    private static boolean matches(String name, List<String> prefixes) {
+        for (String prefix : prefixes) {
+            if (name.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Field[] accessibleFields(Class<?> type) {
+        List<Field> result = new ArrayList<>();
+        for (Class<?> c = type; c != null && c != Object.class && result.size() < MAX_FIELDS; c = c.getSuperclass()) {
+            if (c.getName().startsWith("java.")) {
+                break;
+            }
+            for (Field field : c.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic()) {
+                    continue;
+                }
+                if (!field.trySetAccessible()) {
+                    return new Field[0];
+                }
+                result.add(field);
+                if (result.size() == MAX_FIELDS) {
+                    break;
+                }
+            }
+        }
+        return result.toArray(new Field[0]);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,20 @@
+package io.oi.core.capture;
+
+/**
+ * Renders objects of one type for capture, in place of the default rendering. The result is
+ * captured in turn, so it may be a string (truncated as usual), a map, or any other value;
+ * returning the object itself records only its type.
+ *
+ * @param <T> The type rendered.
+ * @see ValueCapture#registerRenderer(Class, ValueRenderer)
+ */
+@FunctionalInterface
+public interface ValueRenderer<T> {
+
+    /**
+     * Called on the traced thread at capture time; must be fast and must not block.
+     *
+     * @param value The non-null object to render.
+     */
+    Object render(T value);
+}
\ No newline at end of file
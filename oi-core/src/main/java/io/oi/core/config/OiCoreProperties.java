@@ -17,6 +17,16 @@ public class OiCoreProperties {
      * Globally enables or disables the OI-Core agent. If false, no instrumentation will occur.
      */
     private boolean enabled = true;
+    /**
+     * The tracing backend: {@code tree} builds {@link io.oi.core.model.FlowTree}s and hands them to
+     * the emitter, {@code jfr} writes compact JDK Flight Recorder events instead.
+     */
+    private String backend = "tree";
+    /**
+     * The fraction of traces recorded, from 0 to 1, decided at each trace's root. Can be changed
+     * at runtime through the agent's MBean.
+     */
+    private double sampleRate = 1.0;
     /**
      * List of package prefixes to be included for instrumentation.
      * Classes within these packages will be considered for transformation.
@@ -35,6 +45,42 @@ public class OiCoreProperties {
      * Fine-grained control over which types of instrumentation are active.
      */
     private InstrumentationProperties instrumentation = new InstrumentationProperties();
+    /**
+     * Configuration for how the active trace context is carried on each thread.
+     */
+    private ContextProperties context = new ContextProperties();
+    /**
+     * Configuration for the in-process per-method metrics.
+     */
+    private MetricsProperties metrics = new MetricsProperties();
+    /**
+     * Configuration for the continuous calling-context-tree profile.
+     */
+    private ProfileProperties profile = new ProfileProperties();
+    /**
+     * Configuration for SQL statement statistics and repeated-query detection.
+     */
+    private SqlProperties sql = new SqlProperties();
+    /**
+     * Per-trace size limits that bound the memory a single trace can hold.
+     */
+    private LimitsProperties limits = new LimitsProperties();
+    /**
+     * Configuration for how method parameters and return values are captured.
+     */
+    private CaptureProperties capture = new CaptureProperties();
+    /**
+     * Configuration for snapshots of traces that run for too long.
+     */
+    private StuckProperties stuck = new StuckProperties();
+    /**
+     * Configuration for the in-memory store of recently completed traces.
+     */
+    private StoreProperties store = new StoreProperties();
+    /**
+     * Configuration for the agent's MBean.
+     */
+    private JmxProperties jmx = new JmxProperties();
 
     public boolean isEnabled() {
         return enabled;
@@ -44,6 +90,22 @@ public class OiCoreProperties {
         this.enabled = enabled;
     }
 
+    public String getBackend() {
+        return backend;
+    }
+
+    public void setBackend(String backend) {
+        this.backend = backend;
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    public void setSampleRate(double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
     public List<String> getIncludePackages() {
         return includePackages;
     }
@@ -76,6 +138,78 @@ public class OiCoreProperties {
         this.instrumentation = instrumentation;
     }
 
+    public ContextProperties getContext() {
+        return context;
+    }
+
+    public void setContext(ContextProperties context) {
+        this.context = context;
+    }
+
+    public MetricsProperties getMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics(MetricsProperties metrics) {
+        this.metrics = metrics;
+    }
+
+    public ProfileProperties getProfile() {
+        return profile;
+    }
+
+    public void setProfile(ProfileProperties profile) {
+        this.profile = profile;
+    }
+
+    public SqlProperties getSql() {
+        return sql;
+    }
+
+    public void setSql(SqlProperties sql) {
+        this.sql = sql;
+    }
+
+    public LimitsProperties getLimits() {
+        return limits;
+    }
+
+    public void setLimits(LimitsProperties limits) {
+        this.limits = limits;
+    }
+
+    public CaptureProperties getCapture() {
+        return capture;
+    }
+
+    public void setCapture(CaptureProperties capture) {
+        this.capture = capture;
+    }
+
+    public StuckProperties getStuck() {
+        return stuck;
+    }
+
+    public void setStuck(StuckProperties stuck) {
+        this.stuck = stuck;
+    }
+
+    public StoreProperties getStore() {
+        return store;
+    }
+
+    public void setStore(StoreProperties store) {
+        this.store = store;
+    }
+
+    public JmxProperties getJmx() {
+        return jmx;
+    }
+
+    public void setJmx(JmxProperties jmx) {
+        this.jmx = jmx;
+    }
+
     /**
      * Configuration for the {@link io.oi.core.emitter.FlowEmitter}.
      */
@@ -88,6 +222,95 @@ public class OiCoreProperties {
          * The connection and request timeout in milliseconds for the HTTP emitter.
          */
         private int timeoutMs = 200;
+        /**
+         * The emitters to create, by provider name (e.g. {@code http}, {@code file}). Every tree
+         * goes to all of them unless {@code routes} are configured.
+         */
+        private List<String> types = new ArrayList<>(List.of("http"));
+        /**
+         * Rules of the form {@code condition->emitter[@sampleRate]}, where the condition is
+         * {@code failed}, {@code incomplete}, {@code slow:<ms>} or {@code *}. Each tree goes to the
+         * emitter of the first matching rule, if it is sampled.
+         */
+        private List<String> routes = new ArrayList<>();
+        /**
+         * The directory the file emitter writes to.
+         */
+        private String fileDirectory = "oi-traces";
+        /**
+         * The prefix of the file emitter's file names.
+         */
+        private String filePrefix = "traces";
+        /**
+         * The size after which the file emitter starts a new file.
+         */
+        private long fileMaxBytes = 64L * 1024 * 1024;
+        /**
+         * The age after which the file emitter starts a new file.
+         */
+        private long fileRotateMinutes = 60;
+        /**
+         * The number of files the file emitter keeps; older ones are deleted.
+         */
+        private int fileMaxFiles = 10;
+        /**
+         * The number of trees that may wait in the file, OTLP or Unix socket emitter, or be in flight in
+         * the HTTP emitter, before further ones are dropped (or spilled, for HTTP).
+         */
+        private int queueSize = 4096;
+        /**
+         * The OTLP/HTTP traces endpoint the {@code otlp} emitter posts protobuf spans to.
+         */
+        private String otlpEndpoint = "http://localhost:4318/v1/traces";
+        /**
+         * The {@code service.name} resource attribute of exported spans.
+         */
+        private String otlpServiceName = "unknown_service:java";
+        /**
+         * Compress export requests with gzip.
+         */
+        private boolean otlpGzip = true;
+        /**
+         * The maximum number of spans per export request.
+         */
+        private int otlpMaxBatchSpans = 2048;
+        /**
+         * How long spans may wait for a batch to fill before it is sent.
+         */
+        private long otlpFlushMs = 1000;
+        /**
+         * The Unix domain socket the {@code unix} emitter sends batches to.
+         */
+        private String socketPath = "/tmp/oi-collector.sock";
+        /**
+         * The maximum number of trees per batch sent by the {@code unix} emitter.
+         */
+        private int socketMaxBatch = 256;
+        /**
+         * The attempts per delivery of the {@code http} and {@code otlp} emitters, including the first.
+         */
+        private int maxAttempts = 3;
+        /**
+         * The upper bound of the jittered delay before the first retry; it doubles with each retry.
+         */
+        private long initialBackoffMs = 100;
+        /**
+         * The upper bound of any delay between retries.
+         */
+        private long maxBackoffMs = 2000;
+        /**
+         * The consecutive failed attempts after which delivery is suspended.
+         */
+        private int breakerFailureThreshold = 5;
+        /**
+         * How long delivery is suspended before a single probe request is made.
+         */
+        private long breakerOpenMs = 10_000;
+        /**
+         * The emitter that receives trees the {@code http} emitter does not deliver while suspended,
+         * e.g. {@code file}; empty to drop them.
+         */
+        private String spill = "";
 
         public String getUrl() {
             return url;
@@ -104,6 +327,174 @@ public class OiCoreProperties {
         public void setTimeoutMs(int timeoutMs) {
             this.timeoutMs = timeoutMs;
         }
+
+        public List<String> getTypes() {
+            return types;
+        }
+
+        public void setTypes(List<String> types) {
+            this.types = types;
+        }
+
+        public List<String> getRoutes() {
+            return routes;
+        }
+
+        public void setRoutes(List<String> routes) {
+            this.routes = routes;
+        }
+
+        public String getFileDirectory() {
+            return fileDirectory;
+        }
+
+        public void setFileDirectory(String fileDirectory) {
+            this.fileDirectory = fileDirectory;
+        }
+
+        public String getFilePrefix() {
+            return filePrefix;
+        }
+
+        public void setFilePrefix(String filePrefix) {
+            this.filePrefix = filePrefix;
+        }
+
+        public long getFileMaxBytes() {
+            return fileMaxBytes;
+        }
+
+        public void setFileMaxBytes(long fileMaxBytes) {
+            this.fileMaxBytes = fileMaxBytes;
+        }
+
+        public long getFileRotateMinutes() {
+            return fileRotateMinutes;
+        }
+
+        public void setFileRotateMinutes(long fileRotateMinutes) {
+            this.fileRotateMinutes = fileRotateMinutes;
+        }
+
+        public int getFileMaxFiles() {
+            return fileMaxFiles;
+        }
+
+        public void setFileMaxFiles(int fileMaxFiles) {
+            this.fileMaxFiles = fileMaxFiles;
+        }
+
+        public int getQueueSize() {
+            return queueSize;
+        }
+
+        public void setQueueSize(int queueSize) {
+            this.queueSize = queueSize;
+        }
+
+        public String getOtlpEndpoint() {
+            return otlpEndpoint;
+        }
+
+        public void setOtlpEndpoint(String otlpEndpoint) {
+            this.otlpEndpoint = otlpEndpoint;
+        }
+
+        public String getOtlpServiceName() {
+            return otlpServiceName;
+        }
+
+        public void setOtlpServiceName(String otlpServiceName) {
+            this.otlpServiceName = otlpServiceName;
+        }
+
+        public boolean isOtlpGzip() {
+            return otlpGzip;
+        }
+
+        public void setOtlpGzip(boolean otlpGzip) {
+            this.otlpGzip = otlpGzip;
+        }
+
+        public int getOtlpMaxBatchSpans() {
+            return otlpMaxBatchSpans;
+        }
+
+        public void setOtlpMaxBatchSpans(int otlpMaxBatchSpans) {
+            this.otlpMaxBatchSpans = otlpMaxBatchSpans;
+        }
+
+        public long getOtlpFlushMs() {
+            return otlpFlushMs;
+        }
+
+        public void setOtlpFlushMs(long otlpFlushMs) {
+            this.otlpFlushMs = otlpFlushMs;
+        }
+
+        public String getSocketPath() {
+            return socketPath;
+        }
+
+        public void setSocketPath(String socketPath) {
+            this.socketPath = socketPath;
+        }
+
+        public int getSocketMaxBatch() {
+            return socketMaxBatch;
+        }
+
+        public void setSocketMaxBatch(int socketMaxBatch) {
+            this.socketMaxBatch = socketMaxBatch;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public long getInitialBackoffMs() {
+            return initialBackoffMs;
+        }
+
+        public void setInitialBackoffMs(long initialBackoffMs) {
+            this.initialBackoffMs = initialBackoffMs;
+        }
+
+        public long getMaxBackoffMs() {
+            return maxBackoffMs;
+        }
+
+        public void setMaxBackoffMs(long maxBackoffMs) {
+            this.maxBackoffMs = maxBackoffMs;
+        }
+
+        public int getBreakerFailureThreshold() {
+            return breakerFailureThreshold;
+        }
+
+        public void setBreakerFailureThreshold(int breakerFailureThreshold) {
+            this.breakerFailureThreshold = breakerFailureThreshold;
+        }
+
+        public long getBreakerOpenMs() {
+            return breakerOpenMs;
+        }
+
+        public void setBreakerOpenMs(long breakerOpenMs) {
+            this.breakerOpenMs = breakerOpenMs;
+        }
+
+        public String getSpill() {
+            return spill;
+        }
+
+        public void setSpill(String spill) {
+            this.spill = spill;
+        }
     }
 
     /**
@@ -123,9 +514,18 @@ public class OiCoreProperties {
          */
         private boolean repository = true;
         /**
-         * Enable instrumentation of {@code java.lang.Thread.start()} calls.
+         * Enable instrumentation of {@code java.lang.Thread.start()} calls, and propagation of the
+         * active trace into threads created from instrumented methods.
          */
         private boolean threads = true;
+        /**
+         * Enable propagation of the active trace into tasks submitted to executors and {@code CompletableFuture}.
+         */
+        private boolean async = true;
+        /**
+         * Enable recording of {@code java.net.http.HttpClient} calls made from instrumented methods.
+         */
+        private boolean httpClient = true;
         /**
          * Enable experimental AST parsing to gather conditional branch data. Requires source on classpath.
          */
@@ -171,6 +571,22 @@ public class OiCoreProperties {
             this.threads = threads;
         }
 
+        public boolean isAsync() {
+            return async;
+        }
+
+        public void setAsync(boolean async) {
+            this.async = async;
+        }
+
+        public boolean isHttpClient() {
+            return httpClient;
+        }
+
+        public void setHttpClient(boolean httpClient) {
+            this.httpClient = httpClient;
+        }
+
         public boolean isAst() {
             return ast;
         }
@@ -195,4 +611,513 @@ public class OiCoreProperties {
             this.framework = framework;
         }
     }
-} 
\ No newline at end of file
+
+    /**
+     * Configuration for the per-thread trace context used by {@link io.oi.core.trace.Tracer}.
+     */
+    public static class ContextProperties {
+        /**
+         * The call stack carrier: {@code deque} keeps a thread-local deque per traced thread,
+         * {@code frames} keeps a linked chain of immutable frames that is only present while a
+         * trace is active, which suits virtual-thread workloads with many short-lived threads.
+         */
+        private String carrier = "deque";
+
+        public String getCarrier() {
+            return carrier;
+        }
+
+        public void setCarrier(String carrier) {
+            this.carrier = carrier;
+        }
+    }
+
+    /**
+     * Configuration for {@link io.oi.core.metrics.MethodMetricsTable}.
+     */
+    public static class MetricsProperties {
+        /**
+         * Record call count, error count and a latency histogram for every instrumented method.
+         */
+        private boolean enabled = true;
+        /**
+         * The maximum number of methods exported as individually tagged meters (used by oi-spring-adapter):
+         * the busiest methods by total time. Methods that drop out of the top lose their meters.
+         */
+        private int maxTaggedMethods = 100;
+        /**
+         * How often the exported methods are re-ranked, in milliseconds.
+         */
+        private long meterRefreshIntervalMs = 30_000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxTaggedMethods() {
+            return maxTaggedMethods;
+        }
+
+        public void setMaxTaggedMethods(int maxTaggedMethods) {
+            this.maxTaggedMethods = maxTaggedMethods;
+        }
+
+        public long getMeterRefreshIntervalMs() {
+            return meterRefreshIntervalMs;
+        }
+
+        public void setMeterRefreshIntervalMs(long meterRefreshIntervalMs) {
+            this.meterRefreshIntervalMs = meterRefreshIntervalMs;
+        }
+    }
+
+    /**
+     * Configuration for {@link io.oi.core.profile.CallTreeProfiler}.
+     */
+    public static class ProfileProperties {
+        /**
+         * Merge every completed trace into a calling context tree that can be exported as folded stacks.
+         * Off by default: with the default limits the slots may take up to about 25 MB of heap.
+         */
+        private boolean enabled = false;
+        /**
+         * The maximum number of distinct call paths kept per time slot. Each path holds a latency
+         * histogram of about 2.5 KB; colder paths are pruned into their callers first.
+         */
+        private int maxNodes = 1000;
+        /**
+         * The length of one time slot, in seconds.
+         */
+        private int slotSeconds = 60;
+        /**
+         * The number of time slots kept; together with {@code slotSeconds} this is the longest queryable window.
+         */
+        private int slots = 10;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxNodes() {
+            return maxNodes;
+        }
+
+        public void setMaxNodes(int maxNodes) {
+            this.maxNodes = maxNodes;
+        }
+
+        public int getSlotSeconds() {
+            return slotSeconds;
+        }
+
+        public void setSlotSeconds(int slotSeconds) {
+            this.slotSeconds = slotSeconds;
+        }
+
+        public int getSlots() {
+            return slots;
+        }
+
+        public void setSlots(int slots) {
+            this.slots = slots;
+        }
+    }
+
+    /**
+     * Configuration for {@link io.oi.core.sql.SqlStatistics} and {@link io.oi.core.sql.RepeatedQueryDetector}.
+     */
+    public static class SqlProperties {
+        /**
+         * Flag a trace when one statement runs at least this many times under one parent node (N+1 queries).
+         * Values below 2 disable detection.
+         */
+        private int repeatedQueryThreshold = 5;
+        /**
+         * The maximum number of distinct normalised statements tracked; further statements share one entry.
+         */
+        private int maxStatements = 500;
+
+        public int getRepeatedQueryThreshold() {
+            return repeatedQueryThreshold;
+        }
+
+        public void setRepeatedQueryThreshold(int repeatedQueryThreshold) {
+            this.repeatedQueryThreshold = repeatedQueryThreshold;
+        }
+
+        public int getMaxStatements() {
+            return maxStatements;
+        }
+
+        public void setMaxStatements(int maxStatements) {
+            this.maxStatements = maxStatements;
+        }
+    }
+
+    /**
+     * Per-trace size limits. Once a trace holds {@code maxNodes} nodes, further calls are
+     * folded into one aggregate node per parent and method; calls deeper than {@code maxDepth}
+     * are attributed to their nearest recorded ancestor. What was lost is counted in the
+     * tree's {@code truncation}.
+     */
+    public static class LimitsProperties {
+        /**
+         * The maximum number of regular nodes in one trace.
+         */
+        private int maxNodes = 10_000;
+        /**
+         * The maximum call depth below the root that gets nodes of its own.
+         */
+        private int maxDepth = 128;
+        /**
+         * The maximum number of DB, connection, HTTP, branch and loop events in one trace.
+         */
+        private int maxEventsPerTrace = 10_000;
+        /**
+         * Merge directly recursive calls into the recursing node instead of nesting them.
+         */
+        private boolean collapseRecursion = true;
+
+        public int getMaxNodes() {
+            return maxNodes;
+        }
+
+        public void setMaxNodes(int maxNodes) {
+            this.maxNodes = maxNodes;
+        }
+
+        public int getMaxDepth() {
+            return maxDepth;
+        }
+
+        public void setMaxDepth(int maxDepth) {
+            this.maxDepth = maxDepth;
+        }
+
+        public int getMaxEventsPerTrace() {
+            return maxEventsPerTrace;
+        }
+
+        public void setMaxEventsPerTrace(int maxEventsPerTrace) {
+            this.maxEventsPerTrace = maxEventsPerTrace;
+        }
+
+        public boolean isCollapseRecursion() {
+            return collapseRecursion;
+        }
+
+        public void setCollapseRecursion(boolean collapseRecursion) {
+            this.collapseRecursion = collapseRecursion;
+        }
+    }
+
+    /**
+     * Configuration for {@link io.oi.core.capture.ValueCapture}, which copies parameters and
+     * return values into bounded snapshots when they are captured.
+     */
+    public static class CaptureProperties {
+        /**
+         * {@code snapshot} keeps bounded copies of values, {@code type-only} only their types,
+         * {@code none} nothing.
+         */
+        private String mode = "snapshot";
+        /**
+         * Strings longer than this are truncated.
+         */
+        private int maxStringLength = 256;
+        /**
+         * The number of elements captured from arrays, collections and maps.
+         */
+        private int maxCollectionElements = 10;
+        /**
+         * How many levels of nested elements and fields are captured below a parameter.
+         */
+        private int maxDepth = 2;
+        /**
+         * The number of top stack frames kept per distinct exception stack; messages are
+         * truncated to {@code maxStringLength}.
+         */
+        private int maxStackDepth = 16;
+        /**
+         * Class name prefixes captured by type only, e.g. ORM sessions and servlet requests.
+         */
+        private List<String> typeOnlyTypes = new ArrayList<>(List.of(
+                "org.hibernate.", "jakarta.persistence.", "jakarta.servlet.", "javax.servlet.",
+                "org.springframework.", "java.io.", "java.sql.", "javax.sql."));
+        /**
+         * Class name prefixes captured as their {@code toString()}.
+         */
+        private List<String> toStringTypes = new ArrayList<>(List.of(
+                "java.math.", "java.time.", "java.util.UUID", "java.net.URI", "java.net.URL"));
+
+        public String getMode() {
+            return mode;
+        }
+
+        public void setMode(String mode) {
+            this.mode = mode;
+        }
+
+        public int getMaxStringLength() {
+            return maxStringLength;
+        }
+
+        public void setMaxStringLength(int maxStringLength) {
+            this.maxStringLength = maxStringLength;
+        }
+
+        public int getMaxCollectionElements() {
+            return maxCollectionElements;
+        }
+
+        public void setMaxCollectionElements(int maxCollectionElements) {
+            this.maxCollectionElements = maxCollectionElements;
+        }
+
+        public int getMaxDepth() {
+            return maxDepth;
+        }
+
+        public void setMaxDepth(int maxDepth) {
+            this.maxDepth = maxDepth;
+        }
+
+        public int getMaxStackDepth() {
+            return maxStackDepth;
+        }
+
+        public void setMaxStackDepth(int maxStackDepth) {
+            this.maxStackDepth = maxStackDepth;
+        }
+
+        public List<String> getTypeOnlyTypes() {
+            return typeOnlyTypes;
+        }
+
+        public void setTypeOnlyTypes(List<String> typeOnlyTypes) {
+            this.typeOnlyTypes = typeOnlyTypes;
+        }
+
+        public List<String> getToStringTypes() {
+            return toStringTypes;
+        }
+
+        public void setToStringTypes(List<String> toStringTypes) {
+            this.toStringTypes = toStringTypes;
+        }
+    }
+
+    /**
+     * Configuration for {@link io.oi.core.trace.StuckTraceWatchdog}, which emits snapshots of
+     * traces whose root runs for longer than {@code thresholdMs}.
+     */
+    public static class StuckProperties {
+        /**
+         * Emit snapshots of long-running traces before they complete.
+         * Off by default: the watchdog runs on a thread of its own.
+         */
+        private boolean enabled = false;
+        /**
+         * How long a root must run before its trace is snapshotted.
+         */
+        private long thresholdMs = 30_000;
+        /**
+         * How often in-flight traces are checked.
+         */
+        private long scanIntervalMs = 1_000;
+        /**
+         * The maximum number of snapshots per trace; each follows once the running time has doubled.
+         */
+        private int maxSnapshots = 5;
+        /**
+         * The number of top frames of the root thread's Java stack included in a snapshot.
+         */
+        private int maxStackDepth = 64;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getThresholdMs() {
+            return thresholdMs;
+        }
+
+        public void setThresholdMs(long thresholdMs) {
+            this.thresholdMs = thresholdMs;
+        }
+
+        public long getScanIntervalMs() {
+            return scanIntervalMs;
+        }
+
+        public void setScanIntervalMs(long scanIntervalMs) {
+            this.scanIntervalMs = scanIntervalMs;
+        }
+
+        public int getMaxSnapshots() {
+            return maxSnapshots;
+        }
+
+        public void setMaxSnapshots(int maxSnapshots) {
+            this.maxSnapshots = maxSnapshots;
+        }
+
+        public int getMaxStackDepth() {
+            return maxStackDepth;
+        }
+
+        public void setMaxStackDepth(int maxStackDepth) {
+            this.maxStackDepth = maxStackDepth;
+        }
+    }
+
+    /**
+     * Configuration for {@link io.oi.core.store.RecentTraceStore}, which keeps recently completed
+     * traces in memory for the trace endpoints.
+     */
+    public static class StoreProperties {
+        /**
+         * Keep recently completed traces in memory.
+         * Off by default: the store encodes traces on a thread of its own and takes up to {@code maxBytes}.
+         */
+        private boolean enabled = false;
+        /**
+         * The memory the traces of the {@code memory} store may take; the oldest are evicted beyond it.
+         */
+        private long maxBytes = 8 * 1024 * 1024;
+        /**
+         * The maximum number of traces kept by the {@code memory} store.
+         */
+        private int maxTraces = 1_000;
+        /**
+         * The number of completed traces that may wait to be stored before further ones are dropped.
+         */
+        private int queueSize = 256;
+        /**
+         * Where stored traces are kept: {@code memory} on the heap, or {@code mapped} in a ring of
+         * off-heap segments with only an index on the heap.
+         */
+        private String type = "memory";
+        /**
+         * The file the {@code mapped} store's segments are mapped from; empty to allocate them as
+         * direct buffers instead.
+         */
+        private String path = "";
+        /**
+         * The number of segments of the {@code mapped} store.
+         */
+        private int segments = 16;
+        /**
+         * The size of each segment of the {@code mapped} store, which is also the largest trace it keeps.
+         */
+        private int segmentBytes = 16 * 1024 * 1024;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getMaxBytes() {
+            return maxBytes;
+        }
+
+        public void setMaxBytes(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        public int getMaxTraces() {
+            return maxTraces;
+        }
+
+        public void setMaxTraces(int maxTraces) {
+            this.maxTraces = maxTraces;
+        }
+
+        public int getQueueSize() {
+            return queueSize;
+        }
+
+        public void setQueueSize(int queueSize) {
+            this.queueSize = queueSize;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public void setType(String type) {
+            this.type = type;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public void setPath(String path) {
+            this.path = path;
+        }
+
+        public int getSegments() {
+            return segments;
+        }
+
+        public void setSegments(int segments) {
+            this.segments = segments;
+        }
+
+        public int getSegmentBytes() {
+            return segmentBytes;
+        }
+
+        public void setSegmentBytes(int segmentBytes) {
+            this.segmentBytes = segmentBytes;
+        }
+    }
+
+    /**
+     * Configuration for {@link io.oi.core.management.OiAgentControl}, the MBean exposing the
+     * agent's own counters and runtime switches.
+     */
+    public static class JmxProperties {
+        /**
+         * Register the MBean with the platform MBean server when the agent starts.
+         */
+        private boolean enabled = true;
+        /**
+         * Measure the time spent in the trace entry and exit hooks, at the cost of two clock
+         * reads per call.
+         */
+        private boolean hookTiming = false;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public boolean isHookTiming() {
+            return hookTiming;
+        }
+
+        public void setHookTiming(boolean hookTiming) {
+            this.hookTiming = hookTiming;
+        }
+    }
+}
\ No newline at end of file
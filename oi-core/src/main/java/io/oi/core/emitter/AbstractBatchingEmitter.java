@@ -0,0 +1,198 @@
+package io.oi.core.emitter;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.oi.core.management.AgentStats;
+import io.oi.core.model.FlowTree;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The part of an emitter that writes trees as newline-delimited JSON in batches.
+ * <p>
+ * Trees are handed over through a bounded queue and serialised by a single daemon thread, in
+ * batches of whatever has accumulated, up to a maximum; when the queue is full, trees are dropped
+ * and counted. Each tree is serialised into the batch buffer on its own, so a tree that fails to
+ * serialise is cut from the buffer again and dropped without affecting the others. Subclasses
+ * decide where a serialised batch goes, and may refuse batches before they are serialised while
+ * their destination is unavailable.
+ */
+public abstract class AbstractBatchingEmitter implements FlowEmitter, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(AbstractBatchingEmitter.class);
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS)
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    private final int maxBatch;
+    private final BlockingQueue<FlowTree> queue;
+    private final LongAdder droppedTrees = new LongAdder();
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    AbstractBatchingEmitter(String threadName, int queueSize, int maxBatch) {
+        this.maxBatch = Math.max(1, maxBatch);
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueSize));
+        this.worker = new Thread(this::run, threadName);
+        this.worker.setDaemon(true);
+    }
+
+    /**
+     * Starts the worker; called by subclasses once they are initialised.
+     */
+    final void start() {
+        worker.start();
+    }
+
+    /**
+     * Whether a batch can be written now; if not, it is dropped without being serialised.
+     * Called on the worker thread only.
+     */
+    boolean ready() {
+        return true;
+    }
+
+    /**
+     * Writes a serialised batch. Called on the worker thread only.
+     *
+     * @param batch The trees as newline-delimited JSON.
+     * @param trees The number of trees in the batch.
+     */
+    abstract void write(ByteBuffer batch, int trees);
+
+    /**
+     * Releases whatever {@link #write} holds open. Called on the worker thread when it stops.
+     */
+    abstract void release();
+
+    @Override
+    public void emit(FlowTree tree) {
+        if (tree == null) {
+            log.warn("Attempted to emit a null FlowTree.");
+            return;
+        }
+        if (!running || !queue.offer(tree)) {
+            droppedTrees.increment();
+        }
+    }
+
+    /**
+     * @return The number of trees dropped because the queue was full or they could not be written.
+     */
+    @Override
+    public long getDroppedTrees() {
+        return droppedTrees.sum();
+    }
+
+    @Override
+    public long getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Counts trees that were dropped by {@link #write}.
+     */
+    void dropped(int trees) {
+        droppedTrees.add(trees);
+    }
+
+    /**
+     * Writes the trees still queued and releases the destination.
+     */
+    @Override
+    public void close() {
+        running = false;
+        // Not interrupted: an interrupt would close a channel in the middle of a write
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<FlowTree> batch = new ArrayList<>(maxBatch);
+        BatchBuffer buffer = new BatchBuffer();
+        try {
+            while (running) {
+                FlowTree tree;
+                try {
+                    tree = queue.poll(100, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    break;
+                }
+                if (tree == null) {
+                    continue;
+                }
+                batch.add(tree);
+                queue.drainTo(batch, maxBatch - 1);
+                process(batch, buffer);
+            }
+            // Flush what was queued before stopping
+            while (queue.drainTo(batch, maxBatch) > 0) {
+                process(batch, buffer);
+            }
+        } finally {
+            release();
+        }
+    }
+
+    private void process(List<FlowTree> batch, BatchBuffer buffer) {
+        if (!ready()) {
+            droppedTrees.add(batch.size());
+            batch.clear();
+            return;
+        }
+        long started = System.nanoTime();
+        buffer.reset();
+        int trees = 0;
+        for (FlowTree tree : batch) {
+            int mark = buffer.size();
+            try {
+                objectMapper.writeValue(buffer, tree);
+                buffer.write('\n');
+                trees++;
+            } catch (IOException | RuntimeException e) {
+                buffer.truncate(mark);
+                droppedTrees.increment();
+                log.warn("Failed to serialise FlowTree {}: {}", tree.getTraceId(), e.getMessage());
+            }
+        }
+        batch.clear();
+        AgentStats.recordSerialization(System.nanoTime() - started);
+        if (trees > 0) {
+            write(buffer.contents(), trees);
+        }
+    }
+
+    /**
+     * A byte array stream that can be cut back to an earlier size and read without a copy.
+     */
+    private static final class BatchBuffer extends ByteArrayOutputStream {
+
+        BatchBuffer() {
+            super(64 * 1024);
+        }
+
+        void truncate(int size) {
+            count = size;
+        }
+
+        ByteBuffer contents() {
+            return ByteBuffer.wrap(buf, 0, count);
+        }
+    }
+}
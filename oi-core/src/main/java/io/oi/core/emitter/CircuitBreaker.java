@@ -0,0 +1,95 @@
+package io.oi.core.emitter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Stops trace delivery to a collector that keeps failing, so that no CPU is spent serialising
+ * trees that cannot be delivered.
+ * <p>
+ * After {@code failureThreshold} consecutive failures the breaker opens and rejects every
+ * request for {@code openMillis}. Then a single probe request is let through (half-open): if it
+ * succeeds the breaker closes, otherwise it opens again.
+ */
+public final class CircuitBreaker {
+
+    /**
+     * The states of the breaker.
+     */
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final LongSupplier clock;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAtNanos;
+    private long opened;
+
+    public CircuitBreaker(int failureThreshold, long openMillis) {
+        this(failureThreshold, openMillis, System::nanoTime);
+    }
+
+    CircuitBreaker(int failureThreshold, long openMillis, LongSupplier clock) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0L, openMillis));
+        this.clock = clock;
+    }
+
+    /**
+     * @return Whether a request may be made now. Once the open period has passed, this is true
+     * for exactly one caller, whose request is the probe.
+     */
+    public synchronized boolean allowRequest() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (clock.getAsLong() - openedAtNanos >= openNanos) {
+                    state = State.HALF_OPEN;
+                    return true;
+                }
+                return false;
+            default:
+                // A probe is in flight
+                return false;
+        }
+    }
+
+    /**
+     * Gives back a request allowed by {@link #allowRequest()} that was not made after all, so
+     * that a probe is not lost.
+     */
+    public synchronized void release() {
+        if (state == State.HALF_OPEN) {
+            state = State.OPEN;
+            openedAtNanos = clock.getAsLong() - openNanos;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        state = State.CLOSED;
+    }
+
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            state = State.OPEN;
+            openedAtNanos = clock.getAsLong();
+            opened++;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * @return How often the breaker has opened.
+     */
+    public synchronized long getOpened() {
+        return opened;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,59 @@
+package io.oi.core.emitter;
+
+import io.oi.core.model.FlowTree;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * Emits every tree to several emitters. A failing emitter does not keep the tree from the others.
+ */
+public class CompositeFlowEmitter implements FlowEmitter, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(CompositeFlowEmitter.class);
+
+    private final List<FlowEmitter> emitters;
+
+    public CompositeFlowEmitter(List<FlowEmitter> emitters) {
+        this.emitters = List.copyOf(emitters);
+    }
+
+    @Override
+    public void emit(FlowTree tree) {
+        for (FlowEmitter emitter : emitters) {
+            try {
+                emitter.emit(tree);
+            } catch (Exception e) {
+                log.warn("Emitter {} failed: {}", emitter.getClass().getSimpleName(), e.getMessage());
+            }
+        }
+    }
+
+    public List<FlowEmitter> getEmitters() {
+        return emitters;
+    }
+
+    @Override
+    public long getQueueDepth() {
+        long depth = 0L;
+        for (FlowEmitter emitter : emitters) {
+            depth += emitter.getQueueDepth();
+        }
+        return depth;
+    }
+
+    @Override
+    public long getDroppedTrees() {
+        long dropped = 0L;
+        for (FlowEmitter emitter : emitters) {
+            dropped += emitter.getDroppedTrees();
+        }
+        return dropped;
+    }
+
+    @Override
+    public void close() {
+        EmitterFactory.closeAll(emitters);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,124 @@
+package io.oi.core.emitter;
+
+import io.oi.core.config.OiCoreProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.Set;
+
+/**
+ * Creates the emitter configured in {@code emitter}: one emitter per name in {@code emitter.types},
+ * created by the {@link FlowEmitterProvider} of that name, combined by a {@link RoutingFlowEmitter}
+ * if {@code emitter.routes} are configured and by a {@link CompositeFlowEmitter} otherwise.
+ * Emitters that fail to be created are left out.
+ */
+public final class EmitterFactory {
+
+    private static final Logger log = LoggerFactory.getLogger(EmitterFactory.class);
+
+    private EmitterFactory() {
+        // Static utility class
+    }
+
+    /**
+     * @return The providers on the class path, by name.
+     */
+    public static Map<String, FlowEmitterProvider> providers() {
+        Map<String, FlowEmitterProvider> providers = new LinkedHashMap<>();
+        ServiceLoader<FlowEmitterProvider> loader =
+                ServiceLoader.load(FlowEmitterProvider.class, EmitterFactory.class.getClassLoader());
+        for (var iterator = loader.iterator(); ; ) {
+            try {
+                if (!iterator.hasNext()) {
+                    break;
+                }
+                FlowEmitterProvider provider = iterator.next();
+                providers.putIfAbsent(provider.name(), provider);
+            } catch (ServiceConfigurationError e) {
+                log.warn("Failed to load an emitter provider: {}", e.getMessage());
+            }
+        }
+        return providers;
+    }
+
+    /**
+     * @return The configured emitter, or null if none could be created.
+     */
+    public static FlowEmitter create(OiCoreProperties.EmitterProperties config) {
+        List<RoutingFlowEmitter.Route> routes = new ArrayList<>();
+        for (String rule : config.getRoutes()) {
+            if (rule.isBlank()) {
+                continue;
+            }
+            try {
+                routes.add(RoutingFlowEmitter.Route.parse(rule));
+            } catch (RuntimeException e) {
+                log.warn("Ignoring emitter route '{}': {}", rule, e.getMessage());
+            }
+        }
+        Set<String> names = new LinkedHashSet<>();
+        for (String type : config.getTypes()) {
+            if (!type.isBlank()) {
+                names.add(type.trim());
+            }
+        }
+        routes.forEach(route -> names.add(route.target()));
+
+        Map<String, FlowEmitterProvider> providers = providers();
+        Map<String, FlowEmitter> emitters = new LinkedHashMap<>();
+        for (String name : names) {
+            FlowEmitterProvider provider = providers.get(name);
+            if (provider == null) {
+                log.warn("No emitter provider named '{}'; available: {}", name, providers.keySet());
+                continue;
+            }
+            try {
+                emitters.put(name, provider.create(config));
+            } catch (Exception e) {
+                log.warn("Failed to create the '{}' emitter: {}", name, e.getMessage());
+            }
+        }
+
+        if (!routes.isEmpty()) {
+            List<RoutingFlowEmitter.Route> resolved = new ArrayList<>(routes.size());
+            for (RoutingFlowEmitter.Route route : routes) {
+                FlowEmitter emitter = emitters.get(route.target());
+                if (emitter != null) {
+                    resolved.add(route.withEmitter(emitter));
+                }
+            }
+            log.info("Routing traces to emitters {} by {}", emitters.keySet(), config.getRoutes());
+            return new RoutingFlowEmitter(resolved, emitters.values());
+        }
+        if (emitters.isEmpty()) {
+            return null;
+        }
+        log.info("Emitting traces to {}", emitters.keySet());
+        return emitters.size() == 1
+                ? emitters.values().iterator().next()
+                : new CompositeFlowEmitter(new ArrayList<>(emitters.values()));
+    }
+
+    /**
+     * Closes the emitters that hold resources, logging failures.
+     */
+    static void closeAll(Collection<FlowEmitter> emitters) {
+        for (FlowEmitter emitter : emitters) {
+            if (emitter instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    log.warn("Failed to close emitter {}: {}", emitter.getClass().getSimpleName(), e.getMessage());
+                }
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,128 @@
+package io.oi.core.emitter;
+
+import io.oi.core.config.OiCoreProperties;
+import io.oi.core.management.AgentStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Writes trees as newline-delimited JSON to rolling files, for local log shippers to pick up.
+ * <p>
+ * Trees are queued and serialised as described in {@link AbstractBatchingEmitter}, with one
+ * channel write per batch. A new file ({@code <prefix>-<yyyyMMdd-HHmmss-SSS>-<sequence>.ndjson},
+ * the time in UTC and the sequence number zero-padded, so that names sort in the order the files
+ * were started) is begun once the current one reaches {@code emitter.fileMaxBytes} or is
+ * {@code emitter.fileRotateMinutes} old, and the oldest files beyond {@code emitter.fileMaxFiles}
+ * are deleted. Only files named exactly like that count, not those of emitters with a longer
+ * prefix in the same directory.
+ */
+public class FileFlowEmitter extends AbstractBatchingEmitter {
+
+    private static final Logger log = LoggerFactory.getLogger(FileFlowEmitter.class);
+
+    private static final int MAX_BATCH = 512;
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS", Locale.ROOT)
+            .withZone(ZoneOffset.UTC);
+    private static final int SEQUENCE_MODULUS = 1_000_000;
+
+    private final Path directory;
+    private final String prefix;
+    private final long maxBytes;
+    private final long rotateMillis;
+    private final int maxFiles;
+    private final Pattern fileName;
+    private FileChannel channel;
+    private int sequence;
+    private long written;
+    private long openedAtMillis;
+
+    public FileFlowEmitter(OiCoreProperties.EmitterProperties config) throws IOException {
+        super("oi-file-emitter", config.getQueueSize(), MAX_BATCH);
+        this.directory = Path.of(config.getFileDirectory());
+        this.prefix = config.getFilePrefix();
+        this.maxBytes = Math.max(1L, config.getFileMaxBytes());
+        this.rotateMillis = TimeUnit.MINUTES.toMillis(Math.max(1L, config.getFileRotateMinutes()));
+        this.maxFiles = Math.max(1, config.getFileMaxFiles());
+        this.fileName = Pattern.compile(Pattern.quote(prefix) + "-\\d{8}-\\d{6}-\\d{3}-\\d{6}\\.ndjson");
+        Files.createDirectories(directory);
+        start();
+    }
+
+    @Override
+    void write(ByteBuffer batch, int trees) {
+        int size = batch.remaining();
+        try {
+            if (channel == null || written >= maxBytes || System.currentTimeMillis() - openedAtMillis >= rotateMillis) {
+                rotate();
+            }
+            while (batch.hasRemaining()) {
+                written += channel.write(batch);
+            }
+            AgentStats.recordBytesSent(size);
+        } catch (IOException e) {
+            log.warn("Failed to write traces to {}: {}", directory, e.getMessage());
+            dropped(trees);
+            closeChannel();
+        }
+    }
+
+    @Override
+    void release() {
+        closeChannel();
+    }
+
+    private void rotate() throws IOException {
+        closeChannel();
+        String name = prefix + "-" + FILE_TIME.format(Instant.now());
+        while (channel == null) {
+            Path file = directory.resolve(String.format(Locale.ROOT, "%s-%06d.ndjson", name, sequence));
+            sequence = (sequence + 1) % SEQUENCE_MODULUS;
+            try {
+                channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            } catch (FileAlreadyExistsException e) {
+                // Left by an earlier emitter with the same prefix within the same millisecond
+            }
+        }
+        written = 0L;
+        openedAtMillis = System.currentTimeMillis();
+        deleteOldFiles();
+    }
+
+    private void deleteOldFiles() throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(file -> fileName.matcher(file.getFileName().toString()).matches())
+                    .sorted().toList();
+        }
+        for (int i = 0; i < files.size() - maxFiles; i++) {
+            Files.deleteIfExists(files.get(i));
+        }
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Failed to close trace file: {}", e.getMessage());
+            }
+            channel = null;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,21 @@
+package io.oi.core.emitter;
+
+import io.oi.core.config.OiCoreProperties;
+
+import java.io.IOException;
+
+/**
+ * Provides the {@link FileFlowEmitter} as {@code file}.
+ */
+public class FileFlowEmitterProvider implements FlowEmitterProvider {
+
+    @Override
+    public String name() {
+        return "file";
+    }
+
+    @Override
+    public FlowEmitter create(OiCoreProperties.EmitterProperties config) throws IOException {
+        return new FileFlowEmitter(config);
+    }
+}
\ No newline at end of file
@@ -16,4 +16,19 @@ public interface FlowEmitter {
      * @param tree The completed {@link FlowTree} to emit.
      */
     void emit(FlowTree tree);
+
+    /**
+     * @return The number of trees accepted but not yet written or sent; 0 for emitters
+     * without a queue.
+     */
+    default long getQueueDepth() {
+        return 0L;
+    }
+
+    /**
+     * @return The number of trees dropped instead of being written or sent.
+     */
+    default long getDroppedTrees() {
+        return 0L;
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,23 @@
+package io.oi.core.emitter;
+
+import io.oi.core.config.OiCoreProperties;
+
+/**
+ * Creates {@link FlowEmitter}s of one kind. Providers are discovered with {@link java.util.ServiceLoader},
+ * so further emitters can be added by placing a jar listing its provider in
+ * {@code META-INF/services/io.oi.core.emitter.FlowEmitterProvider} on the class path.
+ * <p>
+ * Which emitters are created is configured by name in {@code emitter.types}; see {@link EmitterFactory}.
+ */
+public interface FlowEmitterProvider {
+
+    /**
+     * @return The name the emitter is selected by in {@code emitter.types} and {@code emitter.routes}.
+     */
+    String name();
+
+    /**
+     * Creates an emitter. Emitters that hold resources should implement {@link AutoCloseable}.
+     */
+    FlowEmitter create(OiCoreProperties.EmitterProperties config) throws Exception;
+}
\ No newline at end of file
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import io.oi.core.config.OiCoreProperties;
+import io.oi.core.management.AgentStats;
 import io.oi.core.model.FlowTree;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,8 +16,22 @@ import java.net.http.HttpResponse;
 import java.time.Duration;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
-public class HttpFlowEmitter implements FlowEmitter {
+/**
+ * POSTs each tree as JSON to {@code emitter.url}, on a virtual thread per tree.
+ * <p>
+ * Failed deliveries (connection errors, timeouts, 408, 429 and 5xx responses) are retried per
+ * the {@link RetryPolicy}. Failures also feed a {@link CircuitBreaker}: while it is open, trees
+ * are handed to the spill emitter ({@code emitter.spill}) or dropped, before being serialised,
+ * and no task is started for them.
+ * <p>
+ * At most {@code emitter.queueSize} trees are being serialised or delivered at a time, retries
+ * included; trees beyond that are spilled or dropped the same way, so that a slow collector that
+ * does not fail often enough to open the breaker cannot make held trees grow without bound.
+ */
+public class HttpFlowEmitter implements FlowEmitter, AutoCloseable {
 
     private static final Logger log = LoggerFactory.getLogger(HttpFlowEmitter.class);
 
@@ -24,8 +39,23 @@ public class HttpFlowEmitter implements FlowEmitter {
     private final HttpClient httpClient;
     private final ExecutorService executorService;
     private final ObjectMapper objectMapper;
+    private final RetryPolicy retryPolicy;
+    private final CircuitBreaker circuitBreaker;
+    private final FlowEmitter spill;
+    private final LongAdder droppedTrees = new LongAdder();
+    private final LongAdder spilledTrees = new LongAdder();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final int maxPending;
 
     public HttpFlowEmitter(OiCoreProperties.EmitterProperties config) {
+        this(config, null);
+    }
+
+    /**
+     * @param spill Receives the trees that are not delivered while the circuit breaker is open,
+     *              or null to drop them.
+     */
+    public HttpFlowEmitter(OiCoreProperties.EmitterProperties config, FlowEmitter spill) {
         this.config = config;
         this.executorService = Executors.newVirtualThreadPerTaskExecutor();
         this.httpClient = HttpClient.newBuilder()
@@ -35,6 +65,10 @@ public class HttpFlowEmitter implements FlowEmitter {
         this.objectMapper = new ObjectMapper()
                 .registerModule(new JavaTimeModule())
                 .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS);
+        this.retryPolicy = new RetryPolicy(config.getMaxAttempts(), config.getInitialBackoffMs(), config.getMaxBackoffMs());
+        this.circuitBreaker = new CircuitBreaker(config.getBreakerFailureThreshold(), config.getBreakerOpenMs());
+        this.spill = spill;
+        this.maxPending = Math.max(1, config.getQueueSize());
     }
 
     @Override
@@ -43,38 +77,138 @@ public class HttpFlowEmitter implements FlowEmitter {
             log.warn("Attempted to emit a null FlowTree.");
             return;
         }
+        if (!circuitBreaker.allowRequest()) {
+            divert(tree);
+            return;
+        }
+        if (pending.incrementAndGet() > maxPending) {
+            pending.decrementAndGet();
+            circuitBreaker.release();
+            divert(tree);
+            return;
+        }
 
         executorService.submit(() -> {
             try {
-                String jsonBody = objectMapper.writeValueAsString(tree);
-                HttpRequest request = HttpRequest.newBuilder()
-                        .uri(URI.create(config.getUrl()))
-                        .timeout(Duration.ofMillis(config.getTimeoutMs()))
-                        .header("Content-Type", "application/json")
-                        .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
-                        .build();
-
-                httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
-                        .thenAccept(response -> {
-                            if (response.statusCode() >= 200 && response.statusCode() < 300) {
-                                log.debug("Successfully emitted FlowTree with traceId: {}", tree.getTraceId());
-                            } else {
-                                log.error("Failed to emit FlowTree. Status: {}, Body: {}", response.statusCode(), response.body());
-                            }
-                        })
-                        .exceptionally(ex -> {
-                            log.error("Exception while emitting FlowTree", ex);
-                            return null;
-                        });
+                long started = System.nanoTime();
+                byte[] body;
+                try {
+                    body = objectMapper.writeValueAsBytes(tree);
+                } catch (Exception e) {
+                    log.error("Failed to serialize FlowTree", e);
+                    circuitBreaker.release();
+                    return;
+                }
+                AgentStats.recordSerialization(System.nanoTime() - started);
+                deliver(tree, body);
+            } finally {
+                pending.decrementAndGet();
+            }
+        });
+    }
 
+    private void deliver(FlowTree tree, byte[] body) {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(config.getUrl()))
+                .timeout(Duration.ofMillis(config.getTimeoutMs()))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+        for (int attempt = 1; ; attempt++) {
+            boolean retryable;
+            try {
+                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() >= 200 && response.statusCode() < 300) {
+                    circuitBreaker.onSuccess();
+                    AgentStats.recordBytesSent(body.length);
+                    log.debug("Successfully emitted FlowTree with traceId: {}", tree.getTraceId());
+                    return;
+                }
+                retryable = RetryPolicy.isRetryable(response.statusCode());
+                log.warn("Failed to emit FlowTree {} (attempt {}). Status: {}, Body: {}",
+                        tree.getTraceId(), attempt, response.statusCode(), response.body());
+            } catch (InterruptedException e) {
+                circuitBreaker.release();
+                Thread.currentThread().interrupt();
+                return;
             } catch (Exception e) {
-                log.error("Failed to serialize or send FlowTree", e);
+                retryable = true;
+                log.warn("Exception while emitting FlowTree {} (attempt {}): {}", tree.getTraceId(), attempt, e.toString());
             }
-        });
+            circuitBreaker.onFailure();
+            if (!retryable || attempt >= retryPolicy.maxAttempts()) {
+                log.error("Giving up on FlowTree {} after {} attempts.", tree.getTraceId(), attempt);
+                droppedTrees.increment();
+                return;
+            }
+            try {
+                Thread.sleep(retryPolicy.backoffMillis(attempt - 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (!circuitBreaker.allowRequest()) {
+                divert(tree);
+                return;
+            }
+        }
+    }
+
+    private void divert(FlowTree tree) {
+        if (spill == null) {
+            droppedTrees.increment();
+            return;
+        }
+        spilledTrees.increment();
+        try {
+            spill.emit(tree);
+        } catch (Exception e) {
+            log.warn("Spill emitter failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return The number of trees that were not delivered and not spilled.
+     */
+    @Override
+    public long getDroppedTrees() {
+        return droppedTrees.sum();
+    }
+
+    /**
+     * @return The number of trees being serialised or delivered, including retries; at most
+     * {@code emitter.queueSize}.
+     */
+    @Override
+    public long getQueueDepth() {
+        return pending.get();
+    }
+
+    /**
+     * @return The number of trees handed to the spill emitter.
+     */
+    public long getSpilledTrees() {
+        return spilledTrees.sum();
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
     }
 
     public void shutdown() {
         log.info("Shutting down HttpFlowEmitter's executor service.");
         executorService.shutdown();
     }
-} 
\ No newline at end of file
+
+    @Override
+    public void close() {
+        shutdown();
+        if (spill instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                log.warn("Failed to close the spill emitter: {}", e.getMessage());
+            }
+        }
+    }
+}
\ No newline at end of file
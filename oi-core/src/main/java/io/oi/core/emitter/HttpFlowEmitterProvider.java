@@ -0,0 +1,28 @@
+package io.oi.core.emitter;
+
+import io.oi.core.config.OiCoreProperties;
+
+/**
+ * Provides the {@link HttpFlowEmitter} as {@code http}, with the emitter named in
+ * {@code emitter.spill}, if any, as its spill emitter.
+ */
+public class HttpFlowEmitterProvider implements FlowEmitterProvider {
+
+    @Override
+    public String name() {
+        return "http";
+    }
+
+    @Override
+    public FlowEmitter create(OiCoreProperties.EmitterProperties config) throws Exception {
+        String spill = config.getSpill() == null ? "" : config.getSpill().trim();
+        if (spill.isEmpty() || spill.equals(name())) {
+            return new HttpFlowEmitter(config);
+        }
+        FlowEmitterProvider spillProvider = EmitterFactory.providers().get(spill);
+        if (spillProvider == null) {
+            throw new IllegalArgumentException("No emitter provider named '" + spill + "' to spill to");
+        }
+        return new HttpFlowEmitter(config, spillProvider.create(config));
+    }
+}
\ No newline at end of file
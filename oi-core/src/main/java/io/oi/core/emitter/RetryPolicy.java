@@ -0,0 +1,41 @@
+package io.oi.core.emitter;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * How often and after which delays failed deliveries are retried: up to {@code maxAttempts}
+ * attempts in total, with exponential backoff and full jitter, i.e. a random delay between 0 and
+ * {@code min(maxBackoffMillis, initialBackoffMillis * 2^retry)}, so that many agents recovering
+ * from the same outage do not retry in lockstep.
+ *
+ * @param maxAttempts          The attempts per delivery, including the first.
+ * @param initialBackoffMillis The upper bound of the first delay.
+ * @param maxBackoffMillis     The upper bound of any delay.
+ */
+public record RetryPolicy(int maxAttempts, long initialBackoffMillis, long maxBackoffMillis) {
+
+    public RetryPolicy {
+        maxAttempts = Math.max(1, maxAttempts);
+        initialBackoffMillis = Math.max(0L, initialBackoffMillis);
+        maxBackoffMillis = Math.max(initialBackoffMillis, maxBackoffMillis);
+    }
+
+    /**
+     * @param retry The number of the retry, starting at 0 for the delay after the first attempt.
+     * @return The delay before that retry.
+     */
+    public long backoffMillis(int retry) {
+        long bound = initialBackoffMillis << Math.min(retry, 30);
+        if (bound <= 0L || bound > maxBackoffMillis) {
+            bound = maxBackoffMillis;
+        }
+        return bound == 0L ? 0L : ThreadLocalRandom.current().nextLong(bound + 1);
+    }
+
+    /**
+     * @return Whether a response with this HTTP status is worth retrying: 408, 429 and 5xx.
+     */
+    public static boolean isRetryable(int status) {
+        return status == 408 || status == 429 || status >= 500;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,137 @@
+package io.oi.core.emitter;
+
+import io.oi.core.model.FlowCallNode;
+import io.oi.core.model.FlowTree;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Emits each tree to the emitter of the first {@link Route} it matches, or drops it if it
+ * matches none or is not sampled by its route.
+ */
+public class RoutingFlowEmitter implements FlowEmitter, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(RoutingFlowEmitter.class);
+
+    /**
+     * Which trees match a route.
+     */
+    public enum Condition { ALL, FAILED, INCOMPLETE, SLOW }
+
+    /**
+     * One routing rule, written {@code condition->emitter[@sampleRate]}.
+     *
+     * @param condition  Which trees match.
+     * @param slowNanos  For {@link Condition#SLOW}, the root duration from which trees match.
+     * @param target     The name of the emitter matching trees go to.
+     * @param sampleRate The fraction of matching trees emitted.
+     * @param emitter    The emitter matching trees go to.
+     */
+    public record Route(Condition condition, long slowNanos, String target, double sampleRate, FlowEmitter emitter) {
+
+        /**
+         * Parses a rule such as {@code failed->file}, {@code slow:500->http@0.5} or {@code *->http@0.1},
+         * leaving its emitter unset.
+         *
+         * @throws IllegalArgumentException If the rule cannot be parsed.
+         */
+        public static Route parse(String rule) {
+            int arrow = rule.indexOf("->");
+            if (arrow < 0) {
+                throw new IllegalArgumentException("Expected condition->emitter in route '" + rule + "'");
+            }
+            String condition = rule.substring(0, arrow).trim().toLowerCase(Locale.ROOT);
+            String target = rule.substring(arrow + 2).trim();
+            double sampleRate = 1.0;
+            int at = target.indexOf('@');
+            if (at >= 0) {
+                sampleRate = Double.parseDouble(target.substring(at + 1).trim());
+                target = target.substring(0, at).trim();
+            }
+            if (condition.equals("*")) {
+                return new Route(Condition.ALL, 0L, target, sampleRate, null);
+            }
+            if (condition.startsWith("slow:")) {
+                long slowNanos = TimeUnit.MILLISECONDS.toNanos(Long.parseLong(condition.substring(5).trim()));
+                return new Route(Condition.SLOW, slowNanos, target, sampleRate, null);
+            }
+            return new Route(Condition.valueOf(condition.toUpperCase(Locale.ROOT)), 0L, target, sampleRate, null);
+        }
+
+        public Route withEmitter(FlowEmitter emitter) {
+            return new Route(condition, slowNanos, target, sampleRate, emitter);
+        }
+
+        boolean matches(FlowTree tree) {
+            FlowCallNode root = tree.getRootNode();
+            return switch (condition) {
+                case ALL -> true;
+                case FAILED -> root != null && root.getException() != null;
+                case INCOMPLETE -> tree.getIncomplete() != null;
+                case SLOW -> root != null && root.getExecutionDetails().getEndNanos() != 0L
+                        && root.getExecutionDetails().getEndNanos() - root.getExecutionDetails().getStartNanos() >= slowNanos;
+            };
+        }
+    }
+
+    private final List<Route> routes;
+    private final Collection<FlowEmitter> emitters;
+
+    /**
+     * @param routes   The rules, each with its emitter set.
+     * @param emitters All emitters the routes refer to, closed with this one.
+     */
+    public RoutingFlowEmitter(List<Route> routes, Collection<FlowEmitter> emitters) {
+        this.routes = List.copyOf(routes);
+        this.emitters = List.copyOf(emitters);
+    }
+
+    @Override
+    public void emit(FlowTree tree) {
+        for (Route route : routes) {
+            if (route.matches(tree)) {
+                if (route.sampleRate() >= 1.0 || ThreadLocalRandom.current().nextDouble() < route.sampleRate()) {
+                    try {
+                        route.emitter().emit(tree);
+                    } catch (Exception e) {
+                        log.warn("Emitter {} failed: {}", route.target(), e.getMessage());
+                    }
+                }
+                return;
+            }
+        }
+    }
+
+    public List<Route> getRoutes() {
+        return routes;
+    }
+
+    @Override
+    public long getQueueDepth() {
+        long depth = 0L;
+        for (FlowEmitter emitter : emitters) {
+            depth += emitter.getQueueDepth();
+        }
+        return depth;
+    }
+
+    @Override
+    public long getDroppedTrees() {
+        long dropped = 0L;
+        for (FlowEmitter emitter : emitters) {
+            dropped += emitter.getDroppedTrees();
+        }
+        return dropped;
+    }
+
+    @Override
+    public void close() {
+        EmitterFactory.closeAll(emitters);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,111 @@
+package io.oi.core.emitter;
+
+import io.oi.core.config.OiCoreProperties;
+import io.oi.core.management.AgentStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+
+/**
+ * Sends trees to a collector on the same host over a Unix domain socket, without HTTP framing
+ * or the TCP loopback.
+ * <p>
+ * Trees are queued and serialised as described in {@link AbstractBatchingEmitter}, in batches of
+ * up to {@code emitter.socketMaxBatch}. Each batch is one frame: a 4-byte big-endian length
+ * followed by the trees as newline-delimited JSON, written with a single gathering write. When
+ * the connection fails it is re-established before the next batch, waiting between attempts for
+ * up to {@value #MAX_RECONNECT_DELAY_MILLIS} ms; batches that cannot be sent meanwhile are
+ * dropped and counted, without being serialised.
+ */
+public class UnixSocketFlowEmitter extends AbstractBatchingEmitter {
+
+    private static final Logger log = LoggerFactory.getLogger(UnixSocketFlowEmitter.class);
+
+    static final long MIN_RECONNECT_DELAY_MILLIS = 100;
+    static final long MAX_RECONNECT_DELAY_MILLIS = 5_000;
+
+    private final UnixDomainSocketAddress address;
+    private SocketChannel channel;
+    private long reconnectDelayMillis;
+    private long nextConnectMillis;
+
+    public UnixSocketFlowEmitter(OiCoreProperties.EmitterProperties config) {
+        super("oi-socket-emitter", config.getQueueSize(), config.getSocketMaxBatch());
+        this.address = UnixDomainSocketAddress.of(Path.of(config.getSocketPath()));
+        start();
+    }
+
+    @Override
+    boolean ready() {
+        return connect();
+    }
+
+    @Override
+    void write(ByteBuffer batch, int trees) {
+        int size = batch.remaining();
+        ByteBuffer[] frame = {ByteBuffer.allocate(4).putInt(0, size), batch};
+        try {
+            while (batch.hasRemaining()) {
+                channel.write(frame);
+            }
+            AgentStats.recordBytesSent(4L + size);
+        } catch (IOException e) {
+            log.warn("Lost the connection to the collector at {}: {}", address.getPath(), e.getMessage());
+            dropped(trees);
+            disconnect();
+        }
+    }
+
+    @Override
+    void release() {
+        disconnect();
+    }
+
+    private boolean connect() {
+        if (channel != null) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        if (now < nextConnectMillis) {
+            return false;
+        }
+        try {
+            SocketChannel connected = SocketChannel.open(StandardProtocolFamily.UNIX);
+            try {
+                connected.connect(address);
+            } catch (IOException e) {
+                connected.close();
+                throw e;
+            }
+            channel = connected;
+            reconnectDelayMillis = 0L;
+            log.info("Connected to the collector at {}", address.getPath());
+            return true;
+        } catch (IOException e) {
+            reconnectDelayMillis = reconnectDelayMillis == 0L
+                    ? MIN_RECONNECT_DELAY_MILLIS
+                    : Math.min(reconnectDelayMillis * 2, MAX_RECONNECT_DELAY_MILLIS);
+            nextConnectMillis = now + reconnectDelayMillis;
+            log.debug("Failed to connect to the collector at {}, retrying in {} ms: {}",
+                    address.getPath(), reconnectDelayMillis, e.getMessage());
+            return false;
+        }
+    }
+
+    private void disconnect() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.debug("Failed to close the collector connection: {}", e.getMessage());
+            }
+            channel = null;
+        }
+    }
+}
\ No newline at end of file
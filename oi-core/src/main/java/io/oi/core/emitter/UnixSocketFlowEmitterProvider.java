@@ -0,0 +1,19 @@
+package io.oi.core.emitter;
+
+import io.oi.core.config.OiCoreProperties;
+
+/**
+ * Provides the {@link UnixSocketFlowEmitter} as {@code unix}.
+ */
+public class UnixSocketFlowEmitterProvider implements FlowEmitterProvider {
+
+    @Override
+    public String name() {
+        return "unix";
+    }
+
+    @Override
+    public FlowEmitter create(OiCoreProperties.EmitterProperties config) {
+        return new UnixSocketFlowEmitter(config);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,225 @@
+package io.oi.core.emitter.otlp;
+
+import io.oi.core.config.OiCoreProperties;
+import io.oi.core.emitter.CircuitBreaker;
+import io.oi.core.emitter.FlowEmitter;
+import io.oi.core.emitter.RetryPolicy;
+import io.oi.core.management.AgentStats;
+import io.oi.core.model.FlowTree;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exports trees as OTLP/HTTP protobuf spans, e.g. to an OpenTelemetry collector's
+ * {@code /v1/traces} endpoint. See {@link OtlpTraceEncoder} for how nodes are mapped.
+ * <p>
+ * Trees are queued and sent by a daemon thread in batches of at most
+ * {@code emitter.otlpMaxBatchSpans} spans, or whatever has accumulated after
+ * {@code emitter.otlpFlushMs}; a tree with more spans than that is sent on its own. Requests are
+ * gzip-compressed if {@code emitter.otlpGzip} is set. Failed requests are retried per the
+ * {@link RetryPolicy}; while the {@link CircuitBreaker} is open, batches are dropped without
+ * being encoded. Dropped trees are counted, as are trees arriving while the queue is full.
+ * <p>
+ * Snapshots of traces that have not completed, emitted by the stuck-trace watchdog, are not
+ * exported: their spans would get new IDs and be shown again once the completed tree, which
+ * has the same trace ID, is exported.
+ */
+public class OtlpFlowEmitter implements FlowEmitter, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(OtlpFlowEmitter.class);
+
+    private final URI endpoint;
+    private final Duration timeout;
+    private final boolean gzip;
+    private final int maxBatchSpans;
+    private final long flushNanos;
+    private final OtlpTraceEncoder encoder;
+    private final HttpClient httpClient;
+    private final BlockingQueue<FlowTree> queue;
+    private final RetryPolicy retryPolicy;
+    private final CircuitBreaker circuitBreaker;
+    private final LongAdder droppedTrees = new LongAdder();
+    private final LongAdder failedRequests = new LongAdder();
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    public OtlpFlowEmitter(OiCoreProperties.EmitterProperties config) {
+        this.endpoint = URI.create(config.getOtlpEndpoint());
+        this.timeout = Duration.ofMillis(Math.max(1, config.getTimeoutMs()));
+        this.gzip = config.isOtlpGzip();
+        this.maxBatchSpans = Math.max(1, config.getOtlpMaxBatchSpans());
+        this.flushNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1L, config.getOtlpFlushMs()));
+        this.encoder = new OtlpTraceEncoder(config.getOtlpServiceName());
+        this.httpClient = HttpClient.newBuilder().connectTimeout(timeout).build();
+        this.retryPolicy = new RetryPolicy(config.getMaxAttempts(), config.getInitialBackoffMs(), config.getMaxBackoffMs());
+        this.circuitBreaker = new CircuitBreaker(config.getBreakerFailureThreshold(), config.getBreakerOpenMs());
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, config.getQueueSize()));
+        this.worker = new Thread(this::run, "oi-otlp-emitter");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    @Override
+    public void emit(FlowTree tree) {
+        if (tree == null) {
+            log.warn("Attempted to emit a null FlowTree.");
+            return;
+        }
+        if (tree.getIncomplete() != null) {
+            return;
+        }
+        if (!running || !queue.offer(tree)) {
+            droppedTrees.increment();
+        }
+    }
+
+    /**
+     * @return The number of trees dropped because the exporter could not keep up or deliver them.
+     */
+    @Override
+    public long getDroppedTrees() {
+        return droppedTrees.sum();
+    }
+
+    @Override
+    public long getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * @return The number of export attempts that failed or were rejected.
+     */
+    public long getFailedRequests() {
+        return failedRequests.sum();
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * Sends the trees still queued.
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<FlowTree> batch = new ArrayList<>();
+        int batchSpans = 0;
+        long batchStarted = 0L;
+        while (running || !queue.isEmpty() || !batch.isEmpty()) {
+            FlowTree tree = null;
+            try {
+                tree = running ? queue.poll(10, TimeUnit.MILLISECONDS) : queue.poll();
+            } catch (InterruptedException e) {
+                running = false;
+            }
+            if (tree != null) {
+                int spans = OtlpTraceEncoder.spanCount(tree);
+                if (!batch.isEmpty() && batchSpans + spans > maxBatchSpans) {
+                    send(batch);
+                    batchSpans = 0;
+                }
+                if (batch.isEmpty()) {
+                    batchStarted = System.nanoTime();
+                }
+                batch.add(tree);
+                batchSpans += spans;
+            }
+            if (!batch.isEmpty() && (batchSpans >= maxBatchSpans || tree == null
+                    && (!running || System.nanoTime() - batchStarted >= flushNanos))) {
+                send(batch);
+                batchSpans = 0;
+            }
+        }
+    }
+
+    private void send(List<FlowTree> batch) {
+        try {
+            if (!circuitBreaker.allowRequest()) {
+                droppedTrees.add(batch.size());
+                return;
+            }
+            long started = System.nanoTime();
+            byte[] body = encoder.encode(batch);
+            HttpRequest.Builder request = HttpRequest.newBuilder(endpoint)
+                    .timeout(timeout)
+                    .header("Content-Type", "application/x-protobuf");
+            if (gzip) {
+                body = gzip(body);
+                request.header("Content-Encoding", "gzip");
+            }
+            AgentStats.recordSerialization(System.nanoTime() - started);
+            HttpRequest post = request.POST(HttpRequest.BodyPublishers.ofByteArray(body)).build();
+            for (int attempt = 1; ; attempt++) {
+                boolean retryable;
+                try {
+                    HttpResponse<String> response = httpClient.send(post, HttpResponse.BodyHandlers.ofString());
+                    if (response.statusCode() >= 200 && response.statusCode() < 300) {
+                        circuitBreaker.onSuccess();
+                        AgentStats.recordBytesSent(body.length);
+                        log.debug("Exported {} traces ({} bytes) to {}", batch.size(), body.length, endpoint);
+                        return;
+                    }
+                    retryable = RetryPolicy.isRetryable(response.statusCode());
+                    log.warn("Failed to export traces (attempt {}). Status: {}, Body: {}",
+                            attempt, response.statusCode(), response.body());
+                } catch (IOException e) {
+                    retryable = true;
+                    log.warn("Exception while exporting traces to {} (attempt {}): {}", endpoint, attempt, e.toString());
+                }
+                failedRequests.increment();
+                circuitBreaker.onFailure();
+                if (!retryable || attempt >= retryPolicy.maxAttempts()) {
+                    droppedTrees.add(batch.size());
+                    return;
+                }
+                Thread.sleep(retryPolicy.backoffMillis(attempt - 1));
+                if (!circuitBreaker.allowRequest()) {
+                    droppedTrees.add(batch.size());
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            circuitBreaker.release();
+            droppedTrees.add(batch.size());
+            running = false;
+        } catch (Exception e) {
+            circuitBreaker.release();
+            droppedTrees.add(batch.size());
+            log.error("Failed to export traces to {}: {}", endpoint, e.getMessage());
+        } finally {
+            batch.clear();
+        }
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(body);
+        }
+        return bytes.toByteArray();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,21 @@
+package io.oi.core.emitter.otlp;
+
+import io.oi.core.config.OiCoreProperties;
+import io.oi.core.emitter.FlowEmitter;
+import io.oi.core.emitter.FlowEmitterProvider;
+
+/**
+ * Provides the {@link OtlpFlowEmitter} as {@code otlp}.
+ */
+public class OtlpFlowEmitterProvider implements FlowEmitterProvider {
+
+    @Override
+    public String name() {
+        return "otlp";
+    }
+
+    @Override
+    public FlowEmitter create(OiCoreProperties.EmitterProperties config) {
+        return new OtlpFlowEmitter(config);
+    }
+}
\ No newline at end of file
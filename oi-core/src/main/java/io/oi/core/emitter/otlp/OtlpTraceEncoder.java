@@ -0,0 +1,257 @@
+package io.oi.core.emitter.otlp;
+
+import io.oi.core.model.ExceptionInfo;
+import io.oi.core.model.ExecutionDetails;
+import io.oi.core.model.FlowCallNode;
+import io.oi.core.model.FlowTree;
+import io.oi.core.model.FoldedCalls;
+import io.oi.core.model.MethodDetails;
+import io.oi.core.model.ThreadInfo;
+import io.oi.core.model.event.DbQueryEvent;
+import io.oi.core.model.event.HttpClientEvent;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Encodes trees as an OTLP {@code ExportTraceServiceRequest}: one span per node, parented like the
+ * tree, with the node's DB queries, HTTP calls, branches, loops and exception as span events.
+ * <p>
+ * Node times are {@link System#nanoTime()} values; they are shifted to the epoch by the offset
+ * between the wall clock and {@code nanoTime} when the batch is encoded. Events are not timed
+ * individually by the agent, so they carry the start time of their node. A node that has not
+ * completed yet is encoded as a zero-length span flagged {@code oi.incomplete}.
+ * <p>
+ * Not thread-safe; the writers are reused between batches.
+ */
+final class OtlpTraceEncoder {
+
+    // opentelemetry/proto/trace/v1/trace.proto and common/v1/common.proto field numbers
+    private static final int REQUEST_RESOURCE_SPANS = 1;
+    private static final int RESOURCE_SPANS_RESOURCE = 1;
+    private static final int RESOURCE_SPANS_SCOPE_SPANS = 2;
+    private static final int RESOURCE_ATTRIBUTES = 1;
+    private static final int SCOPE_SPANS_SCOPE = 1;
+    private static final int SCOPE_SPANS_SPANS = 2;
+    private static final int SCOPE_NAME = 1;
+    private static final int SPAN_TRACE_ID = 1;
+    private static final int SPAN_SPAN_ID = 2;
+    private static final int SPAN_PARENT_SPAN_ID = 4;
+    private static final int SPAN_NAME = 5;
+    private static final int SPAN_KIND = 6;
+    private static final int SPAN_START_TIME = 7;
+    private static final int SPAN_END_TIME = 8;
+    private static final int SPAN_ATTRIBUTES = 9;
+    private static final int SPAN_EVENTS = 11;
+    private static final int SPAN_STATUS = 15;
+    private static final int EVENT_TIME = 1;
+    private static final int EVENT_NAME = 2;
+    private static final int EVENT_ATTRIBUTES = 3;
+    private static final int STATUS_MESSAGE = 2;
+    private static final int STATUS_CODE = 3;
+    private static final int KEY_VALUE_KEY = 1;
+    private static final int KEY_VALUE_VALUE = 2;
+    private static final int ANY_STRING = 1;
+    private static final int ANY_BOOL = 2;
+    private static final int ANY_INT = 3;
+
+    private static final int SPAN_KIND_INTERNAL = 1;
+    private static final int STATUS_CODE_ERROR = 2;
+
+    private final String serviceName;
+    private final ProtoWriter request = new ProtoWriter(64 * 1024);
+    private final ProtoWriter resourceSpans = new ProtoWriter(64 * 1024);
+    private final ProtoWriter scopeSpans = new ProtoWriter(64 * 1024);
+    private final ProtoWriter resource = new ProtoWriter(256);
+    private final ProtoWriter scope = new ProtoWriter(64);
+    private final ProtoWriter span = new ProtoWriter(1024);
+    private final ProtoWriter event = new ProtoWriter(512);
+    private final ProtoWriter status = new ProtoWriter(256);
+    private final ProtoWriter keyValue = new ProtoWriter(256);
+    private final ProtoWriter anyValue = new ProtoWriter(256);
+    private long epochOffsetNanos;
+
+    OtlpTraceEncoder(String serviceName) {
+        this.serviceName = serviceName;
+    }
+
+    /**
+     * @return The number of spans {@code tree} is encoded as.
+     */
+    static int spanCount(FlowTree tree) {
+        return tree.getRootNode() == null ? 0 : spanCount(tree.getRootNode());
+    }
+
+    private static int spanCount(FlowCallNode node) {
+        int count = 1;
+        for (FlowCallNode child : node.getChildren()) {
+            count += spanCount(child);
+        }
+        return count;
+    }
+
+    byte[] encode(List<FlowTree> trees) {
+        epochOffsetNanos = System.currentTimeMillis() * 1_000_000L - System.nanoTime();
+
+        attribute(resource, RESOURCE_ATTRIBUTES, "service.name", serviceName);
+        attribute(resource, RESOURCE_ATTRIBUTES, "telemetry.sdk.name", "oi-core");
+        attribute(resource, RESOURCE_ATTRIBUTES, "telemetry.sdk.language", "java");
+        resourceSpans.message(RESOURCE_SPANS_RESOURCE, resource);
+
+        scope.string(SCOPE_NAME, "io.oi.core");
+        scopeSpans.message(SCOPE_SPANS_SCOPE, scope);
+        for (FlowTree tree : trees) {
+            if (tree.getRootNode() != null) {
+                byte[] traceId = traceId(tree.getTraceId());
+                writeSpan(tree, tree.getRootNode(), traceId, null);
+            }
+        }
+        resourceSpans.message(RESOURCE_SPANS_SCOPE_SPANS, scopeSpans);
+        request.message(REQUEST_RESOURCE_SPANS, resourceSpans);
+        byte[] encoded = request.toByteArray();
+        request.reset();
+        return encoded;
+    }
+
+    private void writeSpan(FlowTree tree, FlowCallNode node, byte[] traceId, byte[] parentSpanId) {
+        byte[] spanId = spanId();
+        MethodDetails method = node.getMethodDetails();
+        ExecutionDetails execution = node.getExecutionDetails();
+        boolean incomplete = execution.getEndNanos() == 0L;
+        long start = execution.getStartNanos() + epochOffsetNanos;
+        long end = incomplete ? start : execution.getEndNanos() + epochOffsetNanos;
+
+        span.bytes(SPAN_TRACE_ID, traceId);
+        span.bytes(SPAN_SPAN_ID, spanId);
+        if (parentSpanId != null) {
+            span.bytes(SPAN_PARENT_SPAN_ID, parentSpanId);
+        }
+        String className = method.className().replace('/', '.');
+        span.string(SPAN_NAME, className.substring(className.lastIndexOf('.') + 1) + "." + method.methodName());
+        span.int64(SPAN_KIND, SPAN_KIND_INTERNAL);
+        span.fixed64(SPAN_START_TIME, start);
+        span.fixed64(SPAN_END_TIME, end);
+
+        attribute(span, SPAN_ATTRIBUTES, "code.namespace", className);
+        attribute(span, SPAN_ATTRIBUTES, "code.function", method.methodName());
+        ThreadInfo thread = execution.getThreadInfo();
+        if (thread != null) {
+            attribute(span, SPAN_ATTRIBUTES, "thread.id", thread.threadId());
+            attribute(span, SPAN_ATTRIBUTES, "thread.name", thread.threadName());
+        }
+        if (execution.getQueueWaitNanos() > 0L) {
+            attribute(span, SPAN_ATTRIBUTES, "oi.queue_wait_ns", execution.getQueueWaitNanos());
+        }
+        FoldedCalls folded = node.getFolded();
+        if (folded != null) {
+            attribute(span, SPAN_ATTRIBUTES, "oi.folded.count", folded.getCount());
+            attribute(span, SPAN_ATTRIBUTES, "oi.folded.error_count", folded.getErrorCount());
+            attribute(span, SPAN_ATTRIBUTES, "oi.folded.total_ns", folded.getTotalNanos());
+        }
+        if (incomplete) {
+            attribute(span, SPAN_ATTRIBUTES, "oi.incomplete", true);
+        }
+
+        for (DbQueryEvent query : node.getDbEvents()) {
+            attribute(event, EVENT_ATTRIBUTES, "db.statement", query.sql());
+            attribute(event, EVENT_ATTRIBUTES, "db.fingerprint", query.fingerprint());
+            attribute(event, EVENT_ATTRIBUTES, "db.rows", query.rowCount());
+            attribute(event, EVENT_ATTRIBUTES, "oi.duration_ns", query.durationNanos());
+            if (query.batchSize() > 0) {
+                attribute(event, EVENT_ATTRIBUTES, "db.batch_size", query.batchSize());
+            }
+            writeEvent("db.query", start);
+        }
+        for (HttpClientEvent call : node.getHttpEvents()) {
+            attribute(event, EVENT_ATTRIBUTES, "http.request.method", call.method());
+            attribute(event, EVENT_ATTRIBUTES, "server.address", call.host());
+            attribute(event, EVENT_ATTRIBUTES, "url.path", call.path());
+            attribute(event, EVENT_ATTRIBUTES, "http.response.status_code", call.status());
+            attribute(event, EVENT_ATTRIBUTES, "oi.duration_ns", call.durationNanos());
+            writeEvent("http.client", start);
+        }
+        for (String branch : node.getBranchesTaken()) {
+            attribute(event, EVENT_ATTRIBUTES, "oi.branch", branch);
+            writeEvent("branch", start);
+        }
+        for (String loop : node.getLoopsEntered()) {
+            attribute(event, EVENT_ATTRIBUTES, "oi.loop", loop);
+            writeEvent("loop", start);
+        }
+        ExceptionInfo exception = node.getException();
+        if (exception != null) {
+            attribute(event, EVENT_ATTRIBUTES, "exception.type", exception.type());
+            attribute(event, EVENT_ATTRIBUTES, "exception.message", exception.message());
+            List<String> stack = exception.stackHash() == null ? null : tree.getStacks().get(exception.stackHash());
+            if (stack != null) {
+                attribute(event, EVENT_ATTRIBUTES, "exception.stacktrace",
+                        exception.type() + "\n\tat " + String.join("\n\tat ", stack));
+            }
+            writeEvent("exception", end);
+            status.string(STATUS_MESSAGE, exception.message());
+            status.int64(STATUS_CODE, STATUS_CODE_ERROR);
+            span.message(SPAN_STATUS, status);
+        }
+        scopeSpans.message(SCOPE_SPANS_SPANS, span);
+
+        for (FlowCallNode child : node.getChildren()) {
+            writeSpan(tree, child, traceId, spanId);
+        }
+    }
+
+    private void writeEvent(String name, long time) {
+        event.fixed64(EVENT_TIME, time);
+        event.string(EVENT_NAME, name);
+        span.message(SPAN_EVENTS, event);
+    }
+
+    private void attribute(ProtoWriter target, int field, String key, String value) {
+        if (value == null) {
+            return;
+        }
+        anyValue.string(ANY_STRING, value);
+        writeKeyValue(target, field, key);
+    }
+
+    private void attribute(ProtoWriter target, int field, String key, long value) {
+        anyValue.int64Always(ANY_INT, value);
+        writeKeyValue(target, field, key);
+    }
+
+    private void attribute(ProtoWriter target, int field, String key, boolean value) {
+        anyValue.int64Always(ANY_BOOL, value ? 1L : 0L);
+        writeKeyValue(target, field, key);
+    }
+
+    private void writeKeyValue(ProtoWriter target, int field, String key) {
+        keyValue.string(KEY_VALUE_KEY, key);
+        keyValue.message(KEY_VALUE_VALUE, anyValue);
+        target.message(field, keyValue);
+    }
+
+    /**
+     * @return The 16 bytes of a UUID trace ID, or of a hash of any other ID.
+     */
+    static byte[] traceId(String traceId) {
+        ByteBuffer bytes = ByteBuffer.allocate(16);
+        try {
+            UUID uuid = UUID.fromString(traceId);
+            bytes.putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits());
+        } catch (RuntimeException e) {
+            UUID hashed = UUID.nameUUIDFromBytes(String.valueOf(traceId).getBytes(StandardCharsets.UTF_8));
+            bytes.putLong(hashed.getMostSignificantBits()).putLong(hashed.getLeastSignificantBits());
+        }
+        return bytes.array();
+    }
+
+    private static byte[] spanId() {
+        long id;
+        do {
+            id = ThreadLocalRandom.current().nextLong();
+        } while (id == 0L);
+        return ByteBuffer.allocate(8).putLong(id).array();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,108 @@
+package io.oi.core.emitter.otlp;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A minimal protocol buffers encoder for the handful of wire types OTLP uses, so the agent does
+ * not need the protobuf runtime and generated classes on the application's class path.
+ * <p>
+ * A nested message is written into a writer of its own, which is then appended to its parent
+ * with {@link #message(int, ProtoWriter)} and reset, so writers can be reused per nesting level.
+ */
+final class ProtoWriter {
+
+    private static final int VARINT = 0;
+    private static final int FIXED64 = 1;
+    private static final int LENGTH_DELIMITED = 2;
+
+    private byte[] buffer;
+    private int size;
+
+    ProtoWriter(int capacity) {
+        this.buffer = new byte[Math.max(16, capacity)];
+    }
+
+    void string(int field, String value) {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        bytes(field, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    void bytes(int field, byte[] value) {
+        tag(field, LENGTH_DELIMITED);
+        varint(value.length);
+        ensure(value.length);
+        System.arraycopy(value, 0, buffer, size, value.length);
+        size += value.length;
+    }
+
+    /**
+     * Appends {@code nested} as field {@code field} and resets it.
+     */
+    void message(int field, ProtoWriter nested) {
+        tag(field, LENGTH_DELIMITED);
+        varint(nested.size);
+        ensure(nested.size);
+        System.arraycopy(nested.buffer, 0, buffer, size, nested.size);
+        size += nested.size;
+        nested.reset();
+    }
+
+    void int64(int field, long value) {
+        if (value != 0L) {
+            int64Always(field, value);
+        }
+    }
+
+    /**
+     * Writes a varint field even if it is 0, as members of a {@code oneof} must be.
+     */
+    void int64Always(int field, long value) {
+        tag(field, VARINT);
+        varint(value);
+    }
+
+    void fixed64(int field, long value) {
+        if (value == 0L) {
+            return;
+        }
+        tag(field, FIXED64);
+        ensure(8);
+        for (int i = 0; i < 8; i++) {
+            buffer[size++] = (byte) (value >>> (8 * i));
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    void reset() {
+        size = 0;
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    private void tag(int field, int wireType) {
+        varint((long) field << 3 | wireType);
+    }
+
+    private void varint(long value) {
+        ensure(10);
+        while ((value & ~0x7FL) != 0L) {
+            buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[size++] = (byte) value;
+    }
+
+    private void ensure(int additional) {
+        if (size + additional > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + additional));
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,93 @@
+package io.oi.core.exception;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide counts of thrown exceptions, per exception type and throwing site (the top
+ * frame of the stack). An exception is counted once where it was first recorded, not again
+ * for every method it propagates through.
+ * <p>
+ * To keep memory and metric cardinality bounded, at most {@value #MAX_SITES} type and site
+ * pairs are tracked individually; further pairs are counted under {@value #OTHER}.
+ */
+public final class ExceptionStatistics {
+
+    static final int MAX_SITES = 256;
+    static final String OTHER = "(other)";
+    static final String UNKNOWN_SITE = "(unknown)";
+
+    private record Key(String type, String site) {
+    }
+
+    /**
+     * The live count of one exception type and site.
+     */
+    public static final class Metrics {
+        private final LongAdder count = new LongAdder();
+
+        public long getCount() {
+            return count.sum();
+        }
+    }
+
+    /**
+     * A point-in-time copy of one exception type's count at one site.
+     *
+     * @param type  The exception's class name.
+     * @param site  The throwing frame as {@code class.method:line}.
+     * @param count The number of exceptions thrown.
+     */
+    public record Snapshot(
+        String type,
+        String site,
+        long count
+    ) {
+    }
+
+    private static final Map<Key, Metrics> metrics = new ConcurrentHashMap<>();
+
+    private ExceptionStatistics() {
+        // Static utility class
+    }
+
+    /**
+     * Counts one thrown exception.
+     *
+     * @param type The exception's class name.
+     * @param site The throwing frame, or null if the exception had no stack trace.
+     */
+    public static void record(String type, String site) {
+        Key key = new Key(type, site == null ? UNKNOWN_SITE : site);
+        Metrics entry = metrics.get(key);
+        if (entry == null) {
+            entry = metrics.computeIfAbsent(metrics.size() >= MAX_SITES ? new Key(OTHER, OTHER) : key,
+                    k -> new Metrics());
+        }
+        entry.count.increment();
+    }
+
+    /**
+     * @return The live count of an exception type at a site, or null if none was recorded.
+     */
+    public static Metrics get(String type, String site) {
+        return metrics.get(new Key(type, site));
+    }
+
+    /**
+     * @param reset Whether to reset the counts while reading them.
+     * @return One snapshot per exception type and site seen.
+     */
+    public static List<Snapshot> snapshot(boolean reset) {
+        List<Snapshot> snapshots = new ArrayList<>(metrics.size());
+        for (Map.Entry<Key, Metrics> entry : metrics.entrySet()) {
+            LongAdder count = entry.getValue().count;
+            snapshots.add(new Snapshot(entry.getKey().type(), entry.getKey().site(),
+                    reset ? count.sumThenReset() : count.sum()));
+        }
+        return snapshots;
+    }
+}
\ No newline at end of file
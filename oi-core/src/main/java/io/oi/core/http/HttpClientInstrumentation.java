@@ -0,0 +1,132 @@
+package io.oi.core.http;
+
+import io.oi.core.model.FlowCallNode;
+import io.oi.core.model.event.HttpClientEvent;
+import io.oi.core.trace.Tracer;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Static entry points for outbound HTTP calls.
+ * <p>
+ * Calls to {@code java.net.http.HttpClient.send} and {@code sendAsync} in instrumented
+ * classes are redirected to the methods of the same name here, which delegate to the
+ * client and record an {@link HttpClientEvent}. Framework integrations (e.g. the Spring
+ * adapter's {@code RestTemplate}/{@code RestClient} interceptor) use {@link #begin()} and
+ * {@link #end(String, URI, int, long, long)} directly.
+ * <p>
+ * As for JDBC, only the outermost call on a thread is recorded, so an intercepted
+ * {@code RestTemplate} call backed by an instrumented {@code HttpClient} counts once.
+ * An asynchronous call is attached to the node that started it; with the {@code jfr}
+ * backend it only counts in the {@link HttpClientStatistics}.
+ */
+public final class HttpClientInstrumentation {
+
+    private static final ThreadLocal<int[]> depth = ThreadLocal.withInitial(() -> new int[1]);
+
+    private HttpClientInstrumentation() {
+        // Static utility class
+    }
+
+    /**
+     * Replaces {@code client.send(request, handler)}.
+     */
+    public static <T> HttpResponse<T> send(HttpClient client, HttpRequest request,
+                                           HttpResponse.BodyHandler<T> handler)
+            throws IOException, InterruptedException {
+        long start = begin();
+        HttpResponse<T> response = null;
+        try {
+            response = client.send(request, handler);
+            return response;
+        } finally {
+            end(request, response, start);
+        }
+    }
+
+    /**
+     * Replaces {@code client.sendAsync(request, handler)}.
+     */
+    public static <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpClient client, HttpRequest request,
+                                                                   HttpResponse.BodyHandler<T> handler) {
+        return track(client.sendAsync(request, handler), request);
+    }
+
+    /**
+     * Replaces {@code client.sendAsync(request, handler, pushPromiseHandler)}.
+     */
+    public static <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpClient client, HttpRequest request,
+                                                                   HttpResponse.BodyHandler<T> handler,
+                                                                   HttpResponse.PushPromiseHandler<T> pushPromiseHandler) {
+        return track(client.sendAsync(request, handler, pushPromiseHandler), request);
+    }
+
+    /**
+     * Marks the start of a blocking call.
+     *
+     * @return The start time, to be passed back to {@code end}.
+     */
+    public static long begin() {
+        depth.get()[0]++;
+        return System.nanoTime();
+    }
+
+    /**
+     * Completes a blocking call started with {@link #begin()}.
+     *
+     * @param method        The HTTP method.
+     * @param uri           The request URI.
+     * @param status        The response status, or -1 if the call failed.
+     * @param responseBytes The response body size, or -1 if not known.
+     * @param start         The value returned by {@link #begin()}.
+     */
+    public static void end(String method, URI uri, int status, long responseBytes, long start) {
+        long duration = System.nanoTime() - start;
+        int[] current = depth.get();
+        current[0] = Math.max(0, current[0] - 1);
+        if (current[0] == 0) {
+            Tracer.recordHttpClientCall(event(method, uri, status, responseBytes, duration));
+        }
+    }
+
+    private static void end(HttpRequest request, HttpResponse<?> response, long start) {
+        end(request.method(), request.uri(), response == null ? -1 : response.statusCode(),
+                responseBytes(response), start);
+    }
+
+    private static <T> CompletableFuture<HttpResponse<T>> track(CompletableFuture<HttpResponse<T>> future,
+                                                                HttpRequest request) {
+        if (depth.get()[0] > 0) {
+            return future;
+        }
+        long start = System.nanoTime();
+        FlowCallNode node = Tracer.peekCurrentNode();
+        // The returned stage is the client's own future, so cancellation still reaches the exchange.
+        future.whenComplete((response, failure) -> Tracer.recordHttpClientCall(node, event(request.method(),
+                request.uri(), response == null ? -1 : response.statusCode(), responseBytes(response),
+                System.nanoTime() - start)));
+        return future;
+    }
+
+    private static HttpClientEvent event(String method, URI uri, int status, long responseBytes, long durationNanos) {
+        return new HttpClientEvent(method, HttpRoutes.host(uri), HttpRoutes.template(uri), status,
+                responseBytes, durationNanos);
+    }
+
+    private static long responseBytes(HttpResponse<?> response) {
+        if (response == null) {
+            return -1;
+        }
+        if (response.body() instanceof byte[] body) {
+            return body.length;
+        }
+        HttpHeaders headers = response.headers();
+        return headers == null ? -1 : headers.firstValueAsLong("Content-Length").orElse(-1L);
+    }
+}
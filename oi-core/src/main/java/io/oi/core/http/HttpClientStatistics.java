@@ -0,0 +1,154 @@
+package io.oi.core.http;
+
+import io.oi.core.metrics.HistogramSnapshot;
+import io.oi.core.metrics.LatencyHistogram;
+import io.oi.core.model.event.HttpClientEvent;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide latency distributions of outbound HTTP calls, per host and route.
+ * <p>
+ * To keep memory and metric cardinality bounded, at most {@value #MAX_HOSTS} hosts and
+ * {@value #MAX_ROUTES} routes are tracked individually. Calls to further hosts are counted
+ * under {@value #OTHER_HOSTS}, and further routes of a known host under {@value #OTHER_ROUTES}.
+ */
+public final class HttpClientStatistics {
+
+    static final int MAX_HOSTS = 64;
+    static final int MAX_ROUTES = 512;
+    static final String OTHER_HOSTS = "(other hosts)";
+    static final String OTHER_ROUTES = "(other routes)";
+
+    private record Key(String host, String route) {
+    }
+
+    /**
+     * The live statistics of one host and route.
+     */
+    public static final class Metrics {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getFailures() {
+            return failures.sum();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        /**
+         * @return The latency distribution, without resetting it.
+         */
+        public HistogramSnapshot getLatency() {
+            return latency.snapshot(false);
+        }
+    }
+
+    /**
+     * A point-in-time copy of one host's or route's statistics.
+     *
+     * @param host       The target host.
+     * @param route      The method and templated path, or null for all routes of the host.
+     * @param count      The number of calls.
+     * @param failures   The number of calls without a response or with a 5xx status.
+     * @param totalNanos The summed duration of all calls.
+     * @param latency    The distribution of durations, in nanoseconds.
+     */
+    public record Snapshot(
+        String host,
+        String route,
+        long count,
+        long failures,
+        long totalNanos,
+        HistogramSnapshot latency
+    ) {
+    }
+
+    private static final Map<Key, Metrics> metrics = new ConcurrentHashMap<>();
+    private static final Map<String, Boolean> hosts = new ConcurrentHashMap<>();
+
+    private HttpClientStatistics() {
+        // Static utility class
+    }
+
+    /**
+     * Records one completed call.
+     */
+    public static void record(HttpClientEvent event) {
+        Key key = new Key(event.host(), event.route());
+        Metrics entry = metrics.get(key);
+        if (entry == null) {
+            entry = metrics.computeIfAbsent(boundedKey(key), k -> new Metrics());
+        }
+        entry.count.increment();
+        if (event.failed()) {
+            entry.failures.increment();
+        }
+        entry.totalNanos.add(event.durationNanos());
+        entry.latency.record(event.durationNanos());
+    }
+
+    private static Key boundedKey(Key key) {
+        String host = key.host();
+        if (!hosts.containsKey(host)) {
+            if (hosts.size() >= MAX_HOSTS) {
+                return new Key(OTHER_HOSTS, OTHER_ROUTES);
+            }
+            hosts.putIfAbsent(host, Boolean.TRUE);
+        }
+        return metrics.size() >= MAX_ROUTES ? new Key(host, OTHER_ROUTES) : key;
+    }
+
+    /**
+     * @return The live statistics of a host and route, or null if none was recorded.
+     */
+    public static Metrics get(String host, String route) {
+        return metrics.get(new Key(host, route));
+    }
+
+    /**
+     * @param reset Whether to reset the statistics while reading them.
+     * @return One snapshot per host and route seen.
+     */
+    public static List<Snapshot> snapshot(boolean reset) {
+        List<Snapshot> snapshots = new ArrayList<>(metrics.size());
+        for (Map.Entry<Key, Metrics> entry : metrics.entrySet()) {
+            Metrics value = entry.getValue();
+            snapshots.add(new Snapshot(entry.getKey().host(), entry.getKey().route(),
+                    reset ? value.count.sumThenReset() : value.count.sum(),
+                    reset ? value.failures.sumThenReset() : value.failures.sum(),
+                    reset ? value.totalNanos.sumThenReset() : value.totalNanos.sum(),
+                    value.latency.snapshot(reset)));
+        }
+        return snapshots;
+    }
+
+    /**
+     * Folds per-route snapshots into one snapshot per host, with a null route.
+     *
+     * @param routes Snapshots as returned by {@link #snapshot(boolean)}.
+     */
+    public static List<Snapshot> byHost(List<Snapshot> routes) {
+        Map<String, Snapshot> byHost = new LinkedHashMap<>();
+        for (Snapshot route : routes) {
+            byHost.merge(route.host(), new Snapshot(route.host(), null, route.count(), route.failures(),
+                            route.totalNanos(), route.latency()),
+                    (a, b) -> new Snapshot(a.host(), null, a.count() + b.count(), a.failures() + b.failures(),
+                            a.totalNanos() + b.totalNanos(), a.latency().merge(b.latency())));
+        }
+        return new ArrayList<>(byHost.values());
+    }
+}
@@ -0,0 +1,108 @@
+package io.oi.core.http;
+
+import java.net.URI;
+
+/**
+ * Derives low-cardinality host and route names from request URIs, so that calls to
+ * {@code /users/17} and {@code /users/42} share one route, {@code /users/{id}}.
+ * <p>
+ * A path segment is replaced by {@code {id}} when it is a number, a UUID, a hexadecimal
+ * string of at least 16 characters, or any segment longer than 32 characters containing
+ * a digit (tokens, hashes). Query strings and fragments are dropped.
+ */
+public final class HttpRoutes {
+
+    static final String ID = "{id}";
+    static final int MAX_PATH_LENGTH = 128;
+
+    private HttpRoutes() {
+        // Static utility class
+    }
+
+    /**
+     * @return The URI's host, with the port if one is given explicitly, or {@code "unknown"}.
+     */
+    public static String host(URI uri) {
+        if (uri == null || uri.getHost() == null) {
+            return "unknown";
+        }
+        return uri.getPort() < 0 ? uri.getHost() : uri.getHost() + ":" + uri.getPort();
+    }
+
+    /**
+     * @return The URI's path with identifier segments templated.
+     */
+    public static String template(URI uri) {
+        return uri == null ? "/" : template(uri.getRawPath());
+    }
+
+    /**
+     * @param path A raw request path, possibly with a query string.
+     * @return The path with identifier segments templated, at most {@value #MAX_PATH_LENGTH} characters.
+     */
+    public static String template(String path) {
+        if (path == null || path.isEmpty()) {
+            return "/";
+        }
+        int end = path.length();
+        int query = path.indexOf('?');
+        if (query >= 0) {
+            end = query;
+        }
+        int fragment = path.indexOf('#');
+        if (fragment >= 0 && fragment < end) {
+            end = fragment;
+        }
+
+        StringBuilder out = new StringBuilder(Math.min(end, MAX_PATH_LENGTH) + 8).append('/');
+        int start = path.charAt(0) == '/' ? 1 : 0;
+        while (start < end && out.length() < MAX_PATH_LENGTH) {
+            int slash = path.indexOf('/', start);
+            if (slash < 0 || slash > end) {
+                slash = end;
+            }
+            if (slash > start && isIdentifier(path, start, slash)) {
+                out.append(ID);
+            } else {
+                out.append(path, start, slash);
+            }
+            if (slash < end) {
+                out.append('/');
+            }
+            start = slash + 1;
+        }
+        if (out.length() > MAX_PATH_LENGTH) {
+            out.setLength(MAX_PATH_LENGTH);
+        }
+        return out.toString();
+    }
+
+    static boolean isIdentifier(String path, int start, int end) {
+        int length = end - start;
+        boolean digits = true;
+        boolean hex = true;
+        boolean anyDigit = false;
+        int dashes = 0;
+        for (int i = start; i < end; i++) {
+            char c = path.charAt(i);
+            boolean digit = c >= '0' && c <= '9';
+            anyDigit |= digit;
+            digits &= digit;
+            if (c == '-') {
+                dashes++;
+            } else {
+                hex &= digit || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+            }
+        }
+        if (digits) {
+            return true;
+        }
+        if (hex && dashes == 4 && length == 36) {
+            return true;
+        }
+        if (hex && dashes == 0 && length >= 16) {
+            return true;
+        }
+        return length > 32 && anyDigit;
+    }
+}
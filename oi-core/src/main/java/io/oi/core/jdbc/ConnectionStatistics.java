@@ -0,0 +1,125 @@
+package io.oi.core.jdbc;
+
+import io.oi.core.metrics.HistogramSnapshot;
+import io.oi.core.metrics.LatencyHistogram;
+import io.oi.core.model.event.ConnectionEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide latency distributions of JDBC connection operations: connection acquisition
+ * per data source (the pool wait, when the data source is a pool), and commit and rollback.
+ * <p>
+ * At most {@value #MAX_DATA_SOURCES} data sources are tracked individually; acquisitions
+ * from further data sources are counted under a null data source.
+ */
+public final class ConnectionStatistics {
+
+    static final int MAX_DATA_SOURCES = 32;
+
+    private record Key(ConnectionEvent.Operation operation, String dataSource) {
+    }
+
+    /**
+     * The live statistics of one operation and data source.
+     */
+    public static final class Metrics {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getFailures() {
+            return failures.sum();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        /**
+         * @return The latency distribution, without resetting it.
+         */
+        public HistogramSnapshot getLatency() {
+            return latency.snapshot(false);
+        }
+    }
+
+    /**
+     * A point-in-time copy of one operation's statistics.
+     *
+     * @param operation  The operation.
+     * @param dataSource The data source for {@code ACQUIRE}; null for commit, rollback and overflow.
+     * @param count      The number of operations.
+     * @param failures   The number of operations that ended with an exception.
+     * @param totalNanos The summed duration of all operations.
+     * @param latency    The distribution of durations, in nanoseconds.
+     */
+    public record Snapshot(
+        ConnectionEvent.Operation operation,
+        String dataSource,
+        long count,
+        long failures,
+        long totalNanos,
+        HistogramSnapshot latency
+    ) {
+    }
+
+    private static final Map<Key, Metrics> metrics = new ConcurrentHashMap<>();
+
+    private ConnectionStatistics() {
+        // Static utility class
+    }
+
+    /**
+     * Records one operation.
+     */
+    public static void record(ConnectionEvent.Operation operation, String dataSource, long durationNanos, boolean failed) {
+        Key key = new Key(operation, dataSource);
+        Metrics entry = metrics.get(key);
+        if (entry == null) {
+            if (dataSource != null && metrics.size() >= MAX_DATA_SOURCES + 2) {
+                key = new Key(operation, null);
+            }
+            entry = metrics.computeIfAbsent(key, k -> new Metrics());
+        }
+        entry.count.increment();
+        if (failed) {
+            entry.failures.increment();
+        }
+        entry.totalNanos.add(durationNanos);
+        entry.latency.record(durationNanos);
+    }
+
+    /**
+     * @return The live statistics of an operation and data source, or null if none was recorded.
+     */
+    public static Metrics get(ConnectionEvent.Operation operation, String dataSource) {
+        return metrics.get(new Key(operation, dataSource));
+    }
+
+    /**
+     * @param reset Whether to reset the statistics while reading them.
+     * @return One snapshot per operation and data source seen.
+     */
+    public static List<Snapshot> snapshot(boolean reset) {
+        List<Snapshot> snapshots = new ArrayList<>(metrics.size());
+        for (Map.Entry<Key, Metrics> entry : metrics.entrySet()) {
+            Metrics value = entry.getValue();
+            snapshots.add(new Snapshot(entry.getKey().operation(), entry.getKey().dataSource(),
+                    reset ? value.count.sumThenReset() : value.count.sum(),
+                    reset ? value.failures.sumThenReset() : value.failures.sum(),
+                    reset ? value.totalNanos.sumThenReset() : value.totalNanos.sum(),
+                    value.latency.snapshot(reset)));
+        }
+        return snapshots;
+    }
+}
@@ -0,0 +1,144 @@
+package io.oi.core.jdbc;
+
+import io.oi.core.model.event.ConnectionEvent;
+import io.oi.core.trace.Tracer;
+
+/**
+ * Static entry points called from bytecode woven into JDBC drivers and connection pools.
+ * <p>
+ * The SQL of a {@code PreparedStatement} is captured when it is created by
+ * {@code Connection.prepareStatement}/{@code prepareCall} and looked up when the
+ * statement is executed. Connection acquisition from a {@code javax.sql.DataSource} and
+ * {@code Connection.commit}/{@code rollback} are timed as {@link ConnectionEvent}s.
+ * <p>
+ * Operations are timed once per thread: a pool's proxy and the driver object it delegates
+ * to are both instrumented, and only the outermost call is recorded. Statements a pool
+ * runs while handing out a connection (validation queries) count towards the acquisition.
+ */
+public final class JdbcInstrumentation {
+
+    /** Recorded as the SQL of statements whose creation was not observed. */
+    static final String UNKNOWN_SQL = "(unknown statement)";
+
+    private static final StatementSqlRegistry statements = new StatementSqlRegistry();
+    private static final ThreadLocal<int[]> depth = ThreadLocal.withInitial(() -> new int[1]);
+
+    private JdbcInstrumentation() {
+        // Static utility class
+    }
+
+    /**
+     * Records the SQL a statement was created with. Called on return from
+     * {@code Connection.prepareStatement} and {@code prepareCall}.
+     */
+    public static void registerStatement(Object statement, String sql) {
+        if (statement != null && sql != null) {
+            statements.put(statement, sql);
+        }
+    }
+
+    /**
+     * Records the SQL added to a plain {@code Statement}'s batch, so that a later
+     * {@code executeBatch} can be attributed. Called on entry to {@code addBatch(String)}.
+     */
+    public static void addBatch(Object statement, String sql) {
+        registerStatement(statement, sql);
+    }
+
+    /**
+     * Marks the start of a statement execution.
+     *
+     * @return The start time, to be passed back to {@code end} or {@code endBatch}.
+     */
+    public static long begin() {
+        depth.get()[0]++;
+        return System.nanoTime();
+    }
+
+    /**
+     * Completes a single statement execution started with {@link #begin()}.
+     *
+     * @param rowCount  The update count, or -1 if not known (queries, failures).
+     * @param statement The statement that executed.
+     * @param sql       The SQL passed to the execute method, or null for prepared statements.
+     * @param start     The value returned by {@link #begin()}.
+     */
+    public static void end(long rowCount, Object statement, String sql, long start) {
+        long duration = System.nanoTime() - start;
+        if (exitOutermost()) {
+            Tracer.recordDbQuery(sqlOf(statement, sql), duration, clamp(rowCount), 0);
+        }
+    }
+
+    /**
+     * Completes an {@code executeBatch} or {@code executeLargeBatch} started with
+     * {@link #begin()}, recording the batch size and the summed update counts.
+     *
+     * @param updateCounts The {@code int[]} or {@code long[]} returned, or null if the call failed.
+     */
+    public static void endBatch(Object updateCounts, Object statement, long start) {
+        long duration = System.nanoTime() - start;
+        if (!exitOutermost()) {
+            return;
+        }
+        int batchSize = 0;
+        long rows = 0;
+        boolean rowsKnown = true;
+        if (updateCounts instanceof int[] counts) {
+            batchSize = counts.length;
+            for (int count : counts) {
+                rowsKnown &= count >= 0;
+                rows += Math.max(0, count);
+            }
+        } else if (updateCounts instanceof long[] counts) {
+            batchSize = counts.length;
+            for (long count : counts) {
+                rowsKnown &= count >= 0;
+                rows += Math.max(0L, count);
+            }
+        } else {
+            rowsKnown = false;
+        }
+        // Drivers may report SUCCESS_NO_INFO (-2) for some entries; the sum is then a lower bound.
+        int rowCount = rowsKnown || rows > 0 ? clamp(rows) : -1;
+        Tracer.recordDbQuery(sqlOf(statement, null), duration, rowCount, batchSize);
+    }
+
+    /**
+     * Completes a connection operation started with {@link #begin()}.
+     *
+     * @param operation The {@link ConnectionEvent.Operation} ordinal.
+     * @param source    The data source or connection the operation was called on.
+     * @param start     The value returned by {@link #begin()}.
+     * @param failed    Whether the operation ended with an exception.
+     */
+    public static void endConnection(int operation, Object source, long start, boolean failed) {
+        long duration = System.nanoTime() - start;
+        if (!exitOutermost()) {
+            return;
+        }
+        ConnectionEvent.Operation op = ConnectionEvent.Operation.values()[operation];
+        String dataSource = op == ConnectionEvent.Operation.ACQUIRE && source != null
+                ? source.getClass().getName() + "@" + Integer.toHexString(System.identityHashCode(source))
+                : null;
+        Tracer.recordConnectionEvent(op, dataSource, duration, failed);
+    }
+
+    private static boolean exitOutermost() {
+        int[] current = depth.get();
+        current[0] = Math.max(0, current[0] - 1);
+        return current[0] == 0;
+    }
+
+    private static String sqlOf(Object statement, String sql) {
+        if (sql != null) {
+            return sql;
+        }
+        String registered = statement == null ? null : statements.get(statement);
+        return registered != null ? registered : UNKNOWN_SQL;
+    }
+
+    private static int clamp(long value) {
+        return (int) Math.max(-1L, Math.min(Integer.MAX_VALUE, value));
+    }
+}
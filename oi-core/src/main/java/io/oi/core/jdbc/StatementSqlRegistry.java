@@ -0,0 +1,85 @@
+package io.oi.core.jdbc;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Associates JDBC statement instances with the SQL they were prepared with.
+ * <p>
+ * Keys are held weakly and compared by identity, so statements are never kept alive and
+ * their {@code equals}/{@code hashCode} (which may be proxied to a driver) are never
+ * called. The map is split into stripes by identity hash, each guarded by its own lock,
+ * so threads preparing statements concurrently rarely contend.
+ */
+final class StatementSqlRegistry {
+
+    private static final int STRIPES = 16;
+
+    private static final class Key extends WeakReference<Object> {
+        final int hash;
+
+        Key(Object statement, ReferenceQueue<Object> queue) {
+            super(statement, queue);
+            this.hash = System.identityHashCode(statement);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Key key) || key.hash != hash) {
+                return false;
+            }
+            Object referent = get();
+            return referent != null && referent == key.get();
+        }
+    }
+
+    private static final class Stripe {
+        final Map<Key, String> entries = new HashMap<>();
+        final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+
+        void expunge() {
+            Object cleared;
+            while ((cleared = queue.poll()) != null) {
+                entries.remove(cleared);
+            }
+        }
+    }
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    StatementSqlRegistry() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    void put(Object statement, String sql) {
+        Stripe stripe = stripeFor(statement);
+        synchronized (stripe) {
+            stripe.expunge();
+            stripe.entries.put(new Key(statement, stripe.queue), sql);
+        }
+    }
+
+    String get(Object statement) {
+        Stripe stripe = stripeFor(statement);
+        synchronized (stripe) {
+            return stripe.entries.get(new Key(statement, null));
+        }
+    }
+
+    private Stripe stripeFor(Object statement) {
+        int hash = System.identityHashCode(statement);
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+}
@@ -0,0 +1,42 @@
+package io.oi.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A JDBC connection acquisition, commit or rollback inside a traced method, the JFR
+ * counterpart of {@link io.oi.core.model.event.ConnectionEvent}.
+ */
+@Name(ConnectionExecutionEvent.NAME)
+@Label("OI JDBC Connection")
+@Category("OI")
+@StackTrace(false)
+public final class ConnectionExecutionEvent extends jdk.jfr.Event {
+
+    public static final String NAME = "io.oi.Connection";
+
+    @Label("Trace ID")
+    long traceId;
+
+    @Label("Depth")
+    @Description("Call depth of the method that performed the operation")
+    int depth;
+
+    @Label("Operation")
+    @Description("ACQUIRE, COMMIT or ROLLBACK")
+    String operation;
+
+    @Label("Operation Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    long durationNanos;
+
+    @Label("Failed")
+    boolean failed;
+
+    @Label("Data Source")
+    String dataSource;
+}
@@ -0,0 +1,42 @@
+package io.oi.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A JDBC statement executed inside a traced method, the JFR counterpart of
+ * {@link io.oi.core.model.event.DbQueryEvent}.
+ */
+@Name(DbQueryExecutionEvent.NAME)
+@Label("OI DB Query")
+@Category("OI")
+@StackTrace(false)
+public final class DbQueryExecutionEvent extends jdk.jfr.Event {
+
+    public static final String NAME = "io.oi.DbQuery";
+
+    @Label("Trace ID")
+    long traceId;
+
+    @Label("Depth")
+    @Description("Call depth of the method that executed the statement")
+    int depth;
+
+    @Label("SQL")
+    String sql;
+
+    @Label("Query Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    long durationNanos;
+
+    @Label("Row Count")
+    int rowCount;
+
+    @Label("Batch Size")
+    @Description("Number of batched executions, or 0 for a single execution")
+    int batchSize;
+}
\ No newline at end of file
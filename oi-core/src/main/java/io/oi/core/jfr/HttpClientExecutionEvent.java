@@ -0,0 +1,51 @@
+package io.oi.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * An outbound HTTP call made inside a traced method, the JFR counterpart of
+ * {@link io.oi.core.model.event.HttpClientEvent}.
+ */
+@Name(HttpClientExecutionEvent.NAME)
+@Label("OI HTTP Client Call")
+@Category("OI")
+@StackTrace(false)
+public final class HttpClientExecutionEvent extends jdk.jfr.Event {
+
+    public static final String NAME = "io.oi.HttpClient";
+
+    @Label("Trace ID")
+    long traceId;
+
+    @Label("Depth")
+    @Description("Call depth of the method that made the call")
+    int depth;
+
+    @Label("Method")
+    String method;
+
+    @Label("Host")
+    String host;
+
+    @Label("Path")
+    @Description("Request path with identifiers templated")
+    String path;
+
+    @Label("Status")
+    @Description("Response status, or -1 if no response was received")
+    int status;
+
+    @Label("Response Size")
+    @DataAmount
+    long responseBytes;
+
+    @Label("Call Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    long durationNanos;
+}
@@ -0,0 +1,203 @@
+package io.oi.core.jfr;
+
+import io.oi.core.metrics.MethodMetricsTable;
+import io.oi.core.trace.MethodRegistry;
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The JFR tracing backend. Instead of building {@link io.oi.core.model.FlowTree}s on the
+ * heap, each method execution is written as a compact {@link MethodExecutionEvent} into
+ * JFR's thread-local buffers, identified by trace ID, method ID and depth.
+ * {@link JfrTreeConverter} rebuilds the trees offline from a recording.
+ * <p>
+ * Events are only committed while a recording with these events enabled is running;
+ * otherwise the per-call cost is a depth counter update and the
+ * {@link MethodMetricsTable} update.
+ */
+public final class JfrTraceRecorder {
+
+    private static final EventType methodEventType = EventType.getEventType(MethodExecutionEvent.class);
+    private static final ThreadLocal<Frames> frames = new ThreadLocal<>();
+    private static boolean installed;
+
+    private JfrTraceRecorder() {
+        // Static utility class
+    }
+
+    /**
+     * Per-thread stack of open method events for the current trace.
+     */
+    private static final class Frames {
+        private final long traceId = ThreadLocalRandom.current().nextLong();
+        private MethodExecutionEvent[] events = new MethodExecutionEvent[16];
+        private int[] methodIds = new int[16];
+        private long[] startNanos = new long[16];
+        private int depth;
+
+        void push(MethodExecutionEvent event, int methodId) {
+            if (depth == events.length) {
+                events = Arrays.copyOf(events, depth * 2);
+                methodIds = Arrays.copyOf(methodIds, depth * 2);
+                startNanos = Arrays.copyOf(startNanos, depth * 2);
+            }
+            events[depth] = event;
+            methodIds[depth] = methodId;
+            startNanos[depth] = System.nanoTime();
+            depth++;
+        }
+
+        MethodExecutionEvent pop() {
+            MethodExecutionEvent event = events[--depth];
+            events[depth] = null;
+            return event;
+        }
+    }
+
+    /**
+     * Registers the periodic {@link MethodDefinitionEvent} hook. Safe to call repeatedly.
+     */
+    public static synchronized void install() {
+        if (installed) {
+            return;
+        }
+        FlightRecorder.addPeriodicEvent(MethodDefinitionEvent.class, JfrTraceRecorder::emitMethodDefinitions);
+        installed = true;
+    }
+
+    private static void emitMethodDefinitions() {
+        for (int id = 0; id < MethodRegistry.size(); id++) {
+            MethodRegistry.MethodInfo method = MethodRegistry.get(id);
+            MethodDefinitionEvent event = new MethodDefinitionEvent();
+            event.methodId = method.id();
+            event.className = method.className();
+            event.methodName = method.methodName();
+            event.methodDesc = method.methodDesc();
+            event.commit();
+        }
+    }
+
+    /**
+     * @return Whether a method is open on the calling thread.
+     */
+    public static boolean isTracing() {
+        return frames.get() != null;
+    }
+
+    /**
+     * Marks the entry of an instrumented method.
+     *
+     * @param methodId The {@link MethodRegistry} ID of the method.
+     */
+    public static void enter(int methodId) {
+        Frames current = frames.get();
+        if (current == null) {
+            current = new Frames();
+            frames.set(current);
+        }
+        MethodExecutionEvent event = null;
+        if (methodEventType.isEnabled()) {
+            event = new MethodExecutionEvent();
+            event.methodId = methodId;
+            event.begin();
+        }
+        current.push(event, methodId);
+    }
+
+    /**
+     * Marks the exit of an instrumented method.
+     *
+     * @param exception     The exception thrown by the method, or {@code null}.
+     * @param recordMetrics Whether to record the call in the {@link MethodMetricsTable}.
+     */
+    public static void exit(Throwable exception, boolean recordMetrics) {
+        Frames current = frames.get();
+        if (current == null) {
+            return;
+        }
+        if (recordMetrics) {
+            int top = current.depth - 1;
+            MethodMetricsTable.record(current.methodIds[top],
+                    System.nanoTime() - current.startNanos[top], exception != null);
+        }
+        MethodExecutionEvent event = current.pop();
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.traceId = current.traceId;
+                event.depth = current.depth;
+                event.exceptionType = exception == null ? null : exception.getClass().getName();
+                event.commit();
+            }
+        }
+        if (current.depth == 0) {
+            frames.remove();
+        }
+    }
+
+    /**
+     * Records a JDBC statement executed by the innermost open method.
+     */
+    public static void recordDbQuery(String sql, long durationNanos, int rowCount, int batchSize) {
+        Frames current = frames.get();
+        if (current == null || current.depth == 0) {
+            return;
+        }
+        DbQueryExecutionEvent event = new DbQueryExecutionEvent();
+        if (event.shouldCommit()) {
+            event.traceId = current.traceId;
+            event.depth = current.depth - 1;
+            event.sql = sql;
+            event.durationNanos = durationNanos;
+            event.rowCount = rowCount;
+            event.batchSize = batchSize;
+            event.commit();
+        }
+    }
+
+    /**
+     * Records a JDBC connection operation performed by the innermost open method.
+     */
+    public static void recordConnectionEvent(String operation, String dataSource, long durationNanos, boolean failed) {
+        Frames current = frames.get();
+        if (current == null || current.depth == 0) {
+            return;
+        }
+        ConnectionExecutionEvent event = new ConnectionExecutionEvent();
+        if (event.shouldCommit()) {
+            event.traceId = current.traceId;
+            event.depth = current.depth - 1;
+            event.operation = operation;
+            event.dataSource = dataSource;
+            event.durationNanos = durationNanos;
+            event.failed = failed;
+            event.commit();
+        }
+    }
+
+    /**
+     * Records an outbound HTTP call made by the innermost open method.
+     */
+    public static void recordHttpClientCall(String method, String host, String path, int status,
+                                            long responseBytes, long durationNanos) {
+        Frames current = frames.get();
+        if (current == null || current.depth == 0) {
+            return;
+        }
+        HttpClientExecutionEvent event = new HttpClientExecutionEvent();
+        if (event.shouldCommit()) {
+            event.traceId = current.traceId;
+            event.depth = current.depth - 1;
+            event.method = method;
+            event.host = host;
+            event.path = path;
+            event.status = status;
+            event.responseBytes = responseBytes;
+            event.durationNanos = durationNanos;
+            event.commit();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,209 @@
+package io.oi.core.jfr;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.oi.core.model.CodeAnalysis;
+import io.oi.core.model.ExecutionDetails;
+import io.oi.core.model.FlowCallNode;
+import io.oi.core.model.FlowTree;
+import io.oi.core.model.MethodDetails;
+import io.oi.core.model.ThreadInfo;
+import io.oi.core.model.event.ConnectionEvent;
+import io.oi.core.model.event.DbQueryEvent;
+import io.oi.core.model.event.HttpClientEvent;
+import io.oi.core.sql.RepeatedQueryDetector;
+import io.oi.core.sql.SqlNormalizer;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedThread;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rebuilds {@link FlowTree}s from a JFR recording written with the {@link JfrTraceRecorder}
+ * backend.
+ * <p>
+ * Method events are grouped by trace ID and nested by start time and depth. Timestamps in
+ * the rebuilt trees are epoch nanoseconds rather than {@link System#nanoTime()} values.
+ * Parameters, return values and code analysis are not recorded by the JFR backend and are
+ * left empty; thrown exceptions are only recorded by type, in the {@code exceptionType}
+ * field of the method event, and are not reattached to the rebuilt nodes.
+ * <p>
+ * Can be run from the command line to print one JSON tree per line:
+ * {@code java -cp oi-core.jar io.oi.core.jfr.JfrTreeConverter recording.jfr}
+ */
+public final class JfrTreeConverter {
+
+    /** The default of {@code oi-core.sql.repeatedQueryThreshold}; the recording does not carry the agent's setting. */
+    private static final int REPEATED_QUERY_THRESHOLD = 5;
+
+    private record MethodName(String className, String methodName, String methodDesc) {
+    }
+
+    private record PendingNode(RecordedEvent event, FlowCallNode node, int depth) {
+    }
+
+    private JfrTreeConverter() {
+        // Static utility class
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: JfrTreeConverter <recording.jfr>");
+            System.exit(1);
+        }
+        ObjectMapper objectMapper = new ObjectMapper().disable(SerializationFeature.FAIL_ON_EMPTY_BEANS);
+        for (FlowTree tree : convert(Path.of(args[0]))) {
+            System.out.println(objectMapper.writeValueAsString(tree));
+        }
+    }
+
+    /**
+     * Reads a recording and rebuilds every trace in it.
+     *
+     * @param recording The {@code .jfr} file.
+     * @return The rebuilt trees, ordered by start time.
+     */
+    public static List<FlowTree> convert(Path recording) throws IOException {
+        Map<Integer, MethodName> methods = new HashMap<>();
+        Map<Long, List<RecordedEvent>> methodEvents = new LinkedHashMap<>();
+        Map<Long, List<RecordedEvent>> dbEvents = new HashMap<>();
+
+        try (RecordingFile file = new RecordingFile(recording)) {
+            while (file.hasMoreEvents()) {
+                RecordedEvent event = file.readEvent();
+                switch (event.getEventType().getName()) {
+                    case MethodDefinitionEvent.NAME -> methods.put(event.getInt("methodId"), new MethodName(
+                            event.getString("className"), event.getString("methodName"), event.getString("methodDesc")));
+                    case MethodExecutionEvent.NAME -> methodEvents
+                            .computeIfAbsent(event.getLong("traceId"), k -> new ArrayList<>()).add(event);
+                    case DbQueryExecutionEvent.NAME, ConnectionExecutionEvent.NAME, HttpClientExecutionEvent.NAME -> dbEvents
+                            .computeIfAbsent(event.getLong("traceId"), k -> new ArrayList<>()).add(event);
+                    default -> { }
+                }
+            }
+        }
+
+        List<FlowTree> trees = new ArrayList<>();
+        for (Map.Entry<Long, List<RecordedEvent>> trace : methodEvents.entrySet()) {
+            FlowTree tree = buildTree(trace.getKey(), trace.getValue(),
+                    dbEvents.getOrDefault(trace.getKey(), List.of()), methods);
+            if (tree != null) {
+                trees.add(tree);
+            }
+        }
+        trees.sort(Comparator.comparingLong(FlowTree::getStartNanos));
+        return trees;
+    }
+
+    private static FlowTree buildTree(long traceId, List<RecordedEvent> events, List<RecordedEvent> queries,
+                                      Map<Integer, MethodName> methods) {
+        // Parents start no later than their children; on equal timestamps the shallower event comes first.
+        events.sort(Comparator.comparing(RecordedEvent::getStartTime).thenComparingInt(e -> e.getInt("depth")));
+
+        List<PendingNode> nodes = new ArrayList<>(events.size());
+        Deque<PendingNode> open = new ArrayDeque<>();
+        Map<Long, ThreadInfo> threads = new LinkedHashMap<>();
+        PendingNode root = null;
+        for (RecordedEvent event : events) {
+            int depth = event.getInt("depth");
+            while (!open.isEmpty() && open.peek().depth() >= depth) {
+                open.pop();
+            }
+            ThreadInfo thread = threadOf(event);
+            if (thread != null && !open.isEmpty() && sameThread(open.peek().event(), thread)) {
+                thread = null;
+            }
+            if (thread != null) {
+                threads.putIfAbsent(thread.threadId(), thread);
+            }
+            PendingNode pending = new PendingNode(event, toNode(event, depth, thread, methods), depth);
+            if (open.isEmpty()) {
+                if (root == null || depth < root.depth()) {
+                    root = pending;
+                }
+            } else {
+                open.peek().node().addChild(pending.node());
+            }
+            open.push(pending);
+            nodes.add(pending);
+        }
+        if (root == null) {
+            return null;
+        }
+
+        for (RecordedEvent query : queries) {
+            PendingNode owner = findOwner(nodes, query.getInt("depth"), query.getStartTime());
+            if (owner == null) {
+                continue;
+            }
+            switch (query.getEventType().getName()) {
+                case ConnectionExecutionEvent.NAME -> owner.node().addConnectionEvent(new ConnectionEvent(
+                        ConnectionEvent.Operation.valueOf(query.getString("operation")),
+                        query.getLong("durationNanos"), query.getBoolean("failed"), query.getString("dataSource")));
+                case HttpClientExecutionEvent.NAME -> owner.node().addHttpEvent(new HttpClientEvent(
+                        query.getString("method"), query.getString("host"), query.getString("path"),
+                        query.getInt("status"), query.getLong("responseBytes"), query.getLong("durationNanos")));
+                default -> {
+                    String sql = query.getString("sql");
+                    SqlNormalizer.Fingerprint fingerprint = SqlNormalizer.fingerprint(sql);
+                    owner.node().addDbEvent(new DbQueryEvent(sql, query.getLong("durationNanos"),
+                            query.getInt("rowCount"), fingerprint == null ? null : fingerprint.hex(),
+                            query.getInt("batchSize")));
+                }
+            }
+        }
+
+        return new FlowTree(Long.toHexString(traceId), root.node(),
+                epochNanos(root.event().getStartTime()), epochNanos(root.event().getEndTime()),
+                RepeatedQueryDetector.detect(root.node(), REPEATED_QUERY_THRESHOLD), null, null, threads, null);
+    }
+
+    private static PendingNode findOwner(List<PendingNode> nodes, int depth, Instant time) {
+        for (PendingNode pending : nodes) {
+            if (pending.depth() == depth
+                    && !time.isBefore(pending.event().getStartTime())
+                    && !time.isAfter(pending.event().getEndTime())) {
+                return pending;
+            }
+        }
+        return null;
+    }
+
+    private static ThreadInfo threadOf(RecordedEvent event) {
+        RecordedThread thread = event.getThread();
+        return thread == null ? null : new ThreadInfo(thread.getJavaThreadId(), thread.getJavaName(), thread.isVirtual());
+    }
+
+    private static boolean sameThread(RecordedEvent parent, ThreadInfo thread) {
+        RecordedThread parentThread = parent.getThread();
+        return parentThread != null && parentThread.getJavaThreadId() == thread.threadId();
+    }
+
+    private static FlowCallNode toNode(RecordedEvent event, int depth, ThreadInfo threadInfo,
+                                       Map<Integer, MethodName> methods) {
+        int methodId = event.getInt("methodId");
+        MethodName name = methods.getOrDefault(methodId, new MethodName("unknown", "method#" + methodId, ""));
+
+        FlowCallNode node = new FlowCallNode(
+                new MethodDetails(name.className(), name.methodName(), name.methodDesc(), Map.of()),
+                new ExecutionDetails(epochNanos(event.getStartTime()), epochNanos(event.getEndTime()), threadInfo, 0L),
+                new CodeAnalysis(0, 0, List.of()));
+        node.setCallDepth(depth);
+        return node;
+    }
+
+    private static long epochNanos(Instant instant) {
+        return instant.getEpochSecond() * 1_000_000_000L + instant.getNano();
+    }
+}
@@ -0,0 +1,33 @@
+package io.oi.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+
+/**
+ * Maps a method ID to its class and method name. Emitted for every registered method at
+ * the end of each chunk, so every chunk of a recording can be decoded on its own.
+ */
+@Name(MethodDefinitionEvent.NAME)
+@Label("OI Method Definition")
+@Category("OI")
+@Period("endChunk")
+@StackTrace(false)
+public final class MethodDefinitionEvent extends jdk.jfr.Event {
+
+    public static final String NAME = "io.oi.MethodDefinition";
+
+    @Label("Method ID")
+    int methodId;
+
+    @Label("Class Name")
+    String className;
+
+    @Label("Method Name")
+    String methodName;
+
+    @Label("Method Descriptor")
+    String methodDesc;
+}
@@ -0,0 +1,34 @@
+package io.oi.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One execution of an instrumented method. The event's start time and duration are the
+ * method's; the method itself is identified by {@link io.oi.core.trace.MethodRegistry} ID,
+ * resolved through the {@link MethodDefinitionEvent}s of the same chunk.
+ */
+@Name(MethodExecutionEvent.NAME)
+@Label("OI Method Execution")
+@Category("OI")
+@StackTrace(false)
+public final class MethodExecutionEvent extends jdk.jfr.Event {
+
+    public static final String NAME = "io.oi.MethodExecution";
+
+    @Label("Trace ID")
+    long traceId;
+
+    @Label("Method ID")
+    int methodId;
+
+    @Label("Depth")
+    @Description("Call depth within the trace, 0 for the root")
+    int depth;
+
+    @Label("Exception Type")
+    String exceptionType;
+}
@@ -0,0 +1,130 @@
+package io.oi.core.management;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the agent's own work and cost, updated by the tracer, the emitters and the class
+ * file transformer, and exposed through {@link OiAgentMXBean}.
+ * <p>
+ * The time spent in the trace entry and exit hooks is only measured while
+ * {@link #setHookTiming(boolean) hook timing} is on, as it costs two clock reads per call.
+ */
+public final class AgentStats {
+
+    private static final LongAdder tracesStarted = new LongAdder();
+    private static final LongAdder tracesCompleted = new LongAdder();
+    private static final LongAdder tracesUnsampled = new LongAdder();
+    private static final LongAdder nodesCreated = new LongAdder();
+    private static final LongAdder hookNanos = new LongAdder();
+    private static final LongAdder serializationNanos = new LongAdder();
+    private static final LongAdder bytesSent = new LongAdder();
+    private static final LongAdder classesTransformed = new LongAdder();
+    private static final LongAdder transformFailures = new LongAdder();
+    private static final LongAdder transformNanos = new LongAdder();
+    private static volatile boolean hookTiming;
+
+    private AgentStats() {
+    }
+
+    public static void onTraceStarted() {
+        tracesStarted.increment();
+    }
+
+    public static void onTraceCompleted() {
+        tracesCompleted.increment();
+    }
+
+    /**
+     * Counts a trace that was not recorded because it was not sampled or tracing was disabled.
+     */
+    public static void onTraceUnsampled() {
+        tracesUnsampled.increment();
+    }
+
+    public static void onNodeCreated() {
+        nodesCreated.increment();
+    }
+
+    public static void recordHook(long nanos) {
+        hookNanos.add(nanos);
+    }
+
+    public static void recordSerialization(long nanos) {
+        serializationNanos.add(nanos);
+    }
+
+    public static void recordBytesSent(long bytes) {
+        bytesSent.add(bytes);
+    }
+
+    /**
+     * @param nanos  The time the transformation took.
+     * @param failed Whether it failed and the class was left as it was.
+     */
+    public static void recordTransform(long nanos, boolean failed) {
+        transformNanos.add(nanos);
+        if (failed) {
+            transformFailures.increment();
+        } else {
+            classesTransformed.increment();
+        }
+    }
+
+    public static boolean isHookTiming() {
+        return hookTiming;
+    }
+
+    public static void setHookTiming(boolean enabled) {
+        hookTiming = enabled;
+    }
+
+    public static long getTracesStarted() {
+        return tracesStarted.sum();
+    }
+
+    public static long getTracesCompleted() {
+        return tracesCompleted.sum();
+    }
+
+    public static long getTracesUnsampled() {
+        return tracesUnsampled.sum();
+    }
+
+    public static long getNodesCreated() {
+        return nodesCreated.sum();
+    }
+
+    public static long getHookNanos() {
+        return hookNanos.sum();
+    }
+
+    public static long getSerializationNanos() {
+        return serializationNanos.sum();
+    }
+
+    public static long getBytesSent() {
+        return bytesSent.sum();
+    }
+
+    public static long getClassesTransformed() {
+        return classesTransformed.sum();
+    }
+
+    public static long getTransformFailures() {
+        return transformFailures.sum();
+    }
+
+    public static long getTransformNanos() {
+        return transformNanos.sum();
+    }
+
+    /**
+     * Sets every counter back to zero.
+     */
+    public static void reset() {
+        for (LongAdder counter : new LongAdder[]{tracesStarted, tracesCompleted, tracesUnsampled, nodesCreated,
+                hookNanos, serializationNanos, bytesSent, classesTransformed, transformFailures, transformNanos}) {
+            counter.reset();
+        }
+    }
+}
\ No newline at end of file
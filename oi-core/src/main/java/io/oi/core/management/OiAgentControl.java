@@ -0,0 +1,167 @@
+package io.oi.core.management;
+
+import io.oi.core.capture.ValueCapture;
+import io.oi.core.emitter.FlowEmitter;
+import io.oi.core.trace.Tracer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+
+/**
+ * Exposes {@link AgentStats} and the tracer's runtime switches over JMX, for JVMs without
+ * another control plane.
+ */
+public final class OiAgentControl implements OiAgentMXBean {
+
+    private static final Logger log = LoggerFactory.getLogger(OiAgentControl.class);
+
+    public static final String OBJECT_NAME = "io.oi.core:type=Agent";
+
+    /**
+     * Registers an instance with the platform MBean server, replacing one registered before.
+     *
+     * @return Whether it was registered.
+     */
+    public static boolean register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            try {
+                server.registerMBean(new OiAgentControl(), name);
+            } catch (InstanceAlreadyExistsException e) {
+                server.unregisterMBean(name);
+                server.registerMBean(new OiAgentControl(), name);
+            }
+            log.info("Registered the agent MBean as {}", OBJECT_NAME);
+            return true;
+        } catch (JMException | RuntimeException e) {
+            log.warn("Failed to register the agent MBean: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return Tracer.isEnabled();
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        Tracer.setEnabled(enabled);
+        log.info("Tracing {} over JMX", enabled ? "enabled" : "disabled");
+    }
+
+    @Override
+    public double getSamplingRate() {
+        return Tracer.getSampleRate();
+    }
+
+    @Override
+    public void setSamplingRate(double samplingRate) {
+        if (!(samplingRate >= 0.0 && samplingRate <= 1.0)) {
+            throw new IllegalArgumentException("The sampling rate must be between 0 and 1: " + samplingRate);
+        }
+        Tracer.setSampleRate(samplingRate);
+        log.info("Sampling rate set to {} over JMX", samplingRate);
+    }
+
+    @Override
+    public String getCaptureMode() {
+        return ValueCapture.getMode().name();
+    }
+
+    @Override
+    public void setCaptureMode(String captureMode) {
+        ValueCapture.setMode(ValueCapture.Mode.valueOf(captureMode.trim().toUpperCase(Locale.ROOT).replace('-', '_')));
+        log.info("Capture mode set to {} over JMX", ValueCapture.getMode());
+    }
+
+    @Override
+    public boolean isHookTimingEnabled() {
+        return AgentStats.isHookTiming();
+    }
+
+    @Override
+    public void setHookTimingEnabled(boolean hookTimingEnabled) {
+        AgentStats.setHookTiming(hookTimingEnabled);
+    }
+
+    @Override
+    public long getTracesStarted() {
+        return AgentStats.getTracesStarted();
+    }
+
+    @Override
+    public long getTracesCompleted() {
+        return AgentStats.getTracesCompleted();
+    }
+
+    @Override
+    public long getTracesUnsampled() {
+        return AgentStats.getTracesUnsampled();
+    }
+
+    @Override
+    public long getNodesCreated() {
+        return AgentStats.getNodesCreated();
+    }
+
+    @Override
+    public double getAverageNodesPerTrace() {
+        long traces = AgentStats.getTracesStarted();
+        return traces == 0L ? 0.0 : (double) AgentStats.getNodesCreated() / traces;
+    }
+
+    @Override
+    public long getHookNanos() {
+        return AgentStats.getHookNanos();
+    }
+
+    @Override
+    public long getEmitterQueueDepth() {
+        FlowEmitter emitter = Tracer.getEmitter();
+        return emitter == null ? 0L : emitter.getQueueDepth();
+    }
+
+    @Override
+    public long getEmitterDroppedTrees() {
+        FlowEmitter emitter = Tracer.getEmitter();
+        return emitter == null ? 0L : emitter.getDroppedTrees();
+    }
+
+    @Override
+    public long getBytesSent() {
+        return AgentStats.getBytesSent();
+    }
+
+    @Override
+    public long getSerializationNanos() {
+        return AgentStats.getSerializationNanos();
+    }
+
+    @Override
+    public long getClassesTransformed() {
+        return AgentStats.getClassesTransformed();
+    }
+
+    @Override
+    public long getTransformFailures() {
+        return AgentStats.getTransformFailures();
+    }
+
+    @Override
+    public long getTransformNanos() {
+        return AgentStats.getTransformNanos();
+    }
+
+    @Override
+    public void resetCounters() {
+        AgentStats.reset();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,75 @@
+package io.oi.core.management;
+
+/**
+ * The agent's management interface, registered as {@value OiAgentControl#OBJECT_NAME}.
+ * <p>
+ * Counters are cumulative since the agent started or {@link #resetCounters()} was called.
+ * The writable attributes take effect for traces starting after they are set.
+ */
+public interface OiAgentMXBean {
+
+    boolean isEnabled();
+
+    /**
+     * Turns tracing on or off without removing the instrumentation. While off, no trace is
+     * started; traces already running are completed.
+     */
+    void setEnabled(boolean enabled);
+
+    double getSamplingRate();
+
+    /**
+     * Sets the fraction of traces recorded, from 0 to 1. The decision is made once per trace,
+     * at its root.
+     */
+    void setSamplingRate(double samplingRate);
+
+    /**
+     * @return What is captured of parameters and return values: {@code SNAPSHOT},
+     * {@code TYPE_ONLY} or {@code NONE}.
+     */
+    String getCaptureMode();
+
+    void setCaptureMode(String captureMode);
+
+    boolean isHookTimingEnabled();
+
+    void setHookTimingEnabled(boolean hookTimingEnabled);
+
+    long getTracesStarted();
+
+    long getTracesCompleted();
+
+    long getTracesUnsampled();
+
+    long getNodesCreated();
+
+    double getAverageNodesPerTrace();
+
+    /**
+     * @return The time spent in the trace entry and exit hooks while hook timing was on.
+     */
+    long getHookNanos();
+
+    /**
+     * @return The trees waiting in the emitters' queues.
+     */
+    long getEmitterQueueDepth();
+
+    /**
+     * @return The trees the emitters dropped, because their queues were full or delivery failed.
+     */
+    long getEmitterDroppedTrees();
+
+    long getBytesSent();
+
+    long getSerializationNanos();
+
+    long getClassesTransformed();
+
+    long getTransformFailures();
+
+    long getTransformNanos();
+
+    void resetCounters();
+}
\ No newline at end of file
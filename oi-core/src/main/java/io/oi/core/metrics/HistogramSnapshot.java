@@ -0,0 +1,75 @@
+package io.oi.core.metrics;
+
+import java.util.Arrays;
+
+/**
+ * An immutable copy of a {@link LatencyHistogram}'s bucket counts, with percentile queries.
+ * Snapshots of different histograms can be merged.
+ */
+public final class HistogramSnapshot {
+
+    private static final HistogramSnapshot EMPTY = new HistogramSnapshot(new long[LatencyHistogram.BUCKETS]);
+
+    private final long[] counts;
+    private final long totalCount;
+
+    HistogramSnapshot(long[] counts) {
+        this.counts = counts;
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        this.totalCount = total;
+    }
+
+    public static HistogramSnapshot empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @return The number of recorded values.
+     */
+    public long count() {
+        return totalCount;
+    }
+
+    long countAt(int bucket) {
+        return counts[bucket];
+    }
+
+    /**
+     * Returns the value at the given percentile, reported as the upper bound of the bucket
+     * the percentile falls into, capped at the largest bucket's lower bound.
+     *
+     * @param percentile A percentile between 0 and 100, e.g. {@code 99.9}.
+     * @return The value, or 0 if the snapshot is empty.
+     */
+    public long valueAtPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0L;
+        }
+        long rank = (long) Math.ceil(Math.min(100.0, Math.max(0.0, percentile)) / 100.0 * totalCount);
+        rank = Math.max(1L, rank);
+        long seen = 0;
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                return bucket == counts.length - 1
+                        ? LatencyHistogram.bucketLowerBound(bucket)
+                        : LatencyHistogram.bucketUpperBound(bucket);
+            }
+        }
+        return LatencyHistogram.bucketLowerBound(counts.length - 1);
+    }
+
+    /**
+     * @return A new snapshot holding the counts of both snapshots.
+     */
+    public HistogramSnapshot merge(HistogramSnapshot other) {
+        long[] merged = Arrays.copyOf(counts, counts.length);
+        for (int bucket = 0; bucket < merged.length; bucket++) {
+            merged[bucket] += other.counts[bucket];
+        }
+        return new HistogramSnapshot(merged);
+    }
+}
@@ -0,0 +1,119 @@
+package io.oi.core.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size, lock-free, log-linear histogram of non-negative {@code long} values.
+ * <p>
+ * Each power-of-two range is split into {@value #SUB_BUCKETS} linear sub-buckets, which
+ * bounds the relative error of a reported value to about 6%. Values up to
+ * 2<sup>{@value #MAX_EXPONENT}</sup> are tracked (about 18 minutes in nanoseconds); larger
+ * values are counted in the last bucket.
+ * <p>
+ * Updates are spread over a small number of stripes, chosen by thread ID, so concurrent
+ * recorders rarely contend on the same counter. Reads merge the stripes.
+ */
+public final class LatencyHistogram {
+
+    static final int SUB_BUCKET_BITS = 3;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    static final int MAX_EXPONENT = 40;
+    /** Values below {@code SUB_BUCKETS} get one bucket each; every exponent above adds {@code SUB_BUCKETS}. */
+    static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private static final int STRIPES = Math.min(4, Integer.highestOneBit(Runtime.getRuntime().availableProcessors()));
+
+    private final int stripes;
+    private final AtomicLongArray counts;
+
+    public LatencyHistogram() {
+        this(STRIPES);
+    }
+
+    /**
+     * @param stripes The number of stripes; rounded down to a power of two. Use 1 for
+     *                histograms that are only updated under a lock or by a single thread.
+     */
+    public LatencyHistogram(int stripes) {
+        this.stripes = Integer.highestOneBit(Math.max(1, stripes));
+        this.counts = new AtomicLongArray(this.stripes * BUCKETS);
+    }
+
+    /**
+     * Records one occurrence of {@code value}. Negative values are recorded as zero.
+     */
+    public void record(long value) {
+        int stripe = (int) (Thread.currentThread().threadId() & (stripes - 1));
+        counts.getAndIncrement(stripe * BUCKETS + bucketIndex(value));
+    }
+
+    /**
+     * Records {@code count} occurrences of {@code value}.
+     */
+    public void record(long value, long count) {
+        if (count > 0) {
+            int stripe = (int) (Thread.currentThread().threadId() & (stripes - 1));
+            counts.getAndAdd(stripe * BUCKETS + bucketIndex(value), count);
+        }
+    }
+
+    /**
+     * Adds every value counted in {@code snapshot} to this histogram.
+     */
+    public void add(HistogramSnapshot snapshot) {
+        int offset = (int) (Thread.currentThread().threadId() & (stripes - 1)) * BUCKETS;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            long count = snapshot.countAt(bucket);
+            if (count != 0) {
+                counts.getAndAdd(offset + bucket, count);
+            }
+        }
+    }
+
+    /**
+     * Merges the stripes into a snapshot, optionally resetting the histogram. With
+     * {@code reset}, every recorded value is included in exactly one snapshot, even if
+     * recording continues concurrently.
+     */
+    public HistogramSnapshot snapshot(boolean reset) {
+        long[] merged = new long[BUCKETS];
+        for (int stripe = 0; stripe < stripes; stripe++) {
+            int offset = stripe * BUCKETS;
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                merged[bucket] += reset ? counts.getAndSet(offset + bucket, 0L) : counts.get(offset + bucket);
+            }
+        }
+        return new HistogramSnapshot(merged);
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) Math.max(0L, value);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * @return The smallest value that falls into {@code bucket}.
+     */
+    static long bucketLowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = bucket % SUB_BUCKETS;
+        return (1L << exponent) + (subBucket << (exponent - SUB_BUCKET_BITS));
+    }
+
+    /**
+     * @return The largest value that falls into {@code bucket}.
+     */
+    static long bucketUpperBound(int bucket) {
+        return bucket == BUCKETS - 1 ? Long.MAX_VALUE : bucketLowerBound(bucket + 1) - 1;
+    }
+}
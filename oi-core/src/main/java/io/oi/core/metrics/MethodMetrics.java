@@ -0,0 +1,73 @@
+package io.oi.core.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Call count, error count and latency distribution of a single instrumented method.
+ * All updates are lock-free.
+ */
+public final class MethodMetrics {
+
+    private final int methodId;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    MethodMetrics(int methodId) {
+        this.methodId = methodId;
+    }
+
+    void record(long durationNanos, boolean error) {
+        count.increment();
+        if (error) {
+            errors.increment();
+        }
+        totalNanos.add(durationNanos);
+        maxNanos.accumulate(durationNanos);
+        latency.record(durationNanos);
+    }
+
+    public int getMethodId() {
+        return methodId;
+    }
+
+    /**
+     * @return The number of completed calls since the last reset.
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * @return The number of calls that completed with an exception since the last reset.
+     */
+    public long getErrorCount() {
+        return errors.sum();
+    }
+
+    /**
+     * @return The summed duration of all completed calls since the last reset.
+     */
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    /**
+     * @return The latency distribution since the last reset, without resetting it.
+     */
+    public HistogramSnapshot getLatency() {
+        return latency.snapshot(false);
+    }
+
+    MethodMetricsSnapshot snapshot(boolean reset) {
+        if (reset) {
+            return new MethodMetricsSnapshot(methodId, count.sumThenReset(), errors.sumThenReset(),
+                    totalNanos.sumThenReset(), maxNanos.getThenReset(), latency.snapshot(true));
+        }
+        return new MethodMetricsSnapshot(methodId, count.sum(), errors.sum(),
+                totalNanos.sum(), maxNanos.get(), latency.snapshot(false));
+    }
+}
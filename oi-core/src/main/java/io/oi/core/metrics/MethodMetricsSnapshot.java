@@ -0,0 +1,38 @@
+package io.oi.core.metrics;
+
+import io.oi.core.trace.MethodRegistry;
+
+/**
+ * A point-in-time copy of one method's {@link MethodMetrics}.
+ *
+ * @param methodId   The {@link MethodRegistry} ID of the method.
+ * @param count      The number of completed calls.
+ * @param errorCount The number of calls that completed with an exception.
+ * @param totalNanos The summed duration of all calls.
+ * @param maxNanos   The longest call.
+ * @param latency    The distribution of call durations, in nanoseconds.
+ */
+public record MethodMetricsSnapshot(
+    int methodId,
+    long count,
+    long errorCount,
+    long totalNanos,
+    long maxNanos,
+    HistogramSnapshot latency
+) {
+    /**
+     * @return The method as {@code com.mycompany.OrderService.reprice}, or a placeholder if unknown.
+     */
+    public String methodName() {
+        MethodRegistry.MethodInfo method = MethodRegistry.get(methodId);
+        return method == null ? "method#" + methodId : method.qualifiedName();
+    }
+
+    public long percentileNanos(double percentile) {
+        return latency.valueAtPercentile(percentile);
+    }
+
+    public double errorRate() {
+        return count == 0 ? 0.0 : (double) errorCount / count;
+    }
+}
@@ -0,0 +1,94 @@
+package io.oi.core.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The global table of {@link MethodMetrics}, indexed by
+ * {@link io.oi.core.trace.MethodRegistry} method ID.
+ * <p>
+ * {@link io.oi.core.trace.Tracer} records every completed call here, whether or not the
+ * enclosing trace is kept, so method-level tail latencies are accurate at constant memory
+ * per method. Entries are created on a method's first completed call.
+ */
+public final class MethodMetricsTable {
+
+    private static volatile AtomicReferenceArray<MethodMetrics> entries = new AtomicReferenceArray<>(256);
+
+    private MethodMetricsTable() {
+        // Static utility class
+    }
+
+    /**
+     * Records one completed call.
+     *
+     * @param methodId      The method's ID; negative IDs are ignored.
+     * @param durationNanos The call's duration.
+     * @param error         Whether the call completed with an exception.
+     */
+    public static void record(int methodId, long durationNanos, boolean error) {
+        if (methodId < 0) {
+            return;
+        }
+        entryFor(methodId).record(durationNanos, error);
+    }
+
+    /**
+     * @return The live metrics of a method, or {@code null} if it has not completed a call yet.
+     */
+    public static MethodMetrics get(int methodId) {
+        AtomicReferenceArray<MethodMetrics> table = entries;
+        return methodId >= 0 && methodId < table.length() ? table.get(methodId) : null;
+    }
+
+    /**
+     * Takes a snapshot of every method that has completed at least one call.
+     *
+     * @param reset Whether to reset the counters and histograms after reading them, so the
+     *              next snapshot only covers calls completed after this one.
+     */
+    public static List<MethodMetricsSnapshot> snapshot(boolean reset) {
+        AtomicReferenceArray<MethodMetrics> table = entries;
+        List<MethodMetricsSnapshot> snapshots = new ArrayList<>();
+        for (int i = 0; i < table.length(); i++) {
+            MethodMetrics metrics = table.get(i);
+            if (metrics != null) {
+                snapshots.add(metrics.snapshot(reset));
+            }
+        }
+        return snapshots;
+    }
+
+    private static MethodMetrics entryFor(int methodId) {
+        AtomicReferenceArray<MethodMetrics> table = entries;
+        MethodMetrics metrics = methodId < table.length() ? table.get(methodId) : null;
+        return metrics != null ? metrics : create(methodId);
+    }
+
+    /**
+     * Creates an entry on a method's first call. Slots are only written under this lock,
+     * so growing the table can never lose a concurrently created entry.
+     */
+    private static synchronized MethodMetrics create(int methodId) {
+        AtomicReferenceArray<MethodMetrics> table = entries;
+        if (methodId >= table.length()) {
+            int length = table.length();
+            while (length <= methodId) {
+                length *= 2;
+            }
+            AtomicReferenceArray<MethodMetrics> grown = new AtomicReferenceArray<>(length);
+            for (int i = 0; i < table.length(); i++) {
+                grown.set(i, table.get(i));
+            }
+            entries = grown;
+            table = grown;
+        }
+        MethodMetrics metrics = table.get(methodId);
+        if (metrics == null) {
+            metrics = new MethodMetrics(methodId);
+            table.set(methodId, metrics);
+        }
+        return metrics;
+    }
+}
@@ -0,0 +1,48 @@
+package io.oi.core.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Describes an exception a method completed with, reduced when it was thrown so that a trace
+ * never holds the {@link Throwable} itself. The top of its stack is stored once per distinct
+ * stack in the tree's {@link FlowTree#getStacks() stacks} table, keyed by {@code stackHash}.
+ *
+ * @param type      The exception's class name.
+ * @param message   The start of the exception's message; null for rethrows.
+ * @param stackHash The key of the exception's top frames in the tree's stack table, or null if
+ *                  the exception had no stack trace.
+ * @param causeType The class name of the innermost cause, or null if the exception has none.
+ * @param rethrown  Whether the same exception was already recorded on a node below this one,
+ *                  i.e. it propagated through this method unchanged.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ExceptionInfo(
+    String type,
+    String message,
+    String stackHash,
+    String causeType,
+    boolean rethrown
+) {
+    @JsonCreator
+    public ExceptionInfo(
+            @JsonProperty("type") String type,
+            @JsonProperty("message") String message,
+            @JsonProperty("stackHash") String stackHash,
+            @JsonProperty("causeType") String causeType,
+            @JsonProperty("rethrown") boolean rethrown) {
+        this.type = type;
+        this.message = message;
+        this.stackHash = stackHash;
+        this.causeType = causeType;
+        this.rethrown = rethrown;
+    }
+
+    /**
+     * @return A reference to this exception for a node it propagated through.
+     */
+    public ExceptionInfo asRethrow() {
+        return rethrown ? this : new ExceptionInfo(type, null, stackHash, null, true);
+    }
+}
\ No newline at end of file
@@ -1,26 +1,51 @@
 package io.oi.core.model;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 public class ExecutionDetails {
     private final long startNanos;
     private long endNanos;
-    private final ThreadInfo threadInfo;
+    /**
+     * The thread the node ran on, or null if it ran on its parent's thread.
+     */
+    private ThreadInfo threadInfo;
+    private final long queueWaitNanos;
 
     public ExecutionDetails(ThreadInfo threadInfo) {
+        this(threadInfo, 0L);
+    }
+
+    /**
+     * Creates execution details for a node that was handed to another thread and
+     * waited {@code queueWaitNanos} between submission and the start of its execution.
+     */
+    public ExecutionDetails(ThreadInfo threadInfo, long queueWaitNanos) {
         this.startNanos = System.nanoTime();
         this.threadInfo = threadInfo;
+        this.queueWaitNanos = queueWaitNanos;
     }
 
+    public ExecutionDetails(long startNanos, long endNanos, ThreadInfo threadInfo, long queueWaitNanos) {
+        this.startNanos = startNanos;
+        this.endNanos = endNanos;
+        this.threadInfo = threadInfo;
+        this.queueWaitNanos = queueWaitNanos;
+    }
+
+    /**
+     * Creates execution details from their wire form, in which the thread is only referenced
+     * by ID; the {@link FlowTree} it belongs to resolves it from its thread table.
+     */
     @JsonCreator
     public ExecutionDetails(
             @JsonProperty("startNanos") long startNanos,
             @JsonProperty("endNanos") long endNanos,
-            @JsonProperty("threadInfo") ThreadInfo threadInfo) {
-        this.startNanos = startNanos;
-        this.endNanos = endNanos;
-        this.threadInfo = threadInfo;
+            @JsonProperty("threadId") Long threadId,
+            @JsonProperty("queueWaitNanos") long queueWaitNanos) {
+        this(startNanos, endNanos, threadId == null ? null : new ThreadInfo(threadId, null, false), queueWaitNanos);
     }
 
     public long getStartNanos() {
@@ -35,7 +60,28 @@ public class ExecutionDetails {
         this.endNanos = endNanos;
     }
 
+    /**
+     * @return The thread the node ran on, or null if it ran on its parent's thread.
+     */
+    @JsonIgnore
     public ThreadInfo getThreadInfo() {
         return threadInfo;
     }
-} 
\ No newline at end of file
+
+    void setThreadInfo(ThreadInfo threadInfo) {
+        this.threadInfo = threadInfo;
+    }
+
+    /**
+     * @return The ID of the thread the node ran on, listed in the tree's
+     * {@link FlowTree#getThreads() threads}; null if it ran on its parent's thread.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public Long getThreadId() {
+        return threadInfo == null ? null : threadInfo.threadId();
+    }
+
+    public long getQueueWaitNanos() {
+        return queueWaitNanos;
+    }
+}
\ No newline at end of file
@@ -1,12 +1,20 @@
 package io.oi.core.model;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import io.oi.core.model.event.ConnectionEvent;
 import io.oi.core.model.event.DbQueryEvent;
+import io.oi.core.model.event.HttpClientEvent;
+import io.oi.core.trace.TraceBudget;
 
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class FlowCallNode {
@@ -15,11 +23,17 @@ public class FlowCallNode {
     private final CodeAnalysis codeAnalysis;
     private final List<FlowCallNode> children = new CopyOnWriteArrayList<>();
     private final List<DbQueryEvent> dbEvents = new CopyOnWriteArrayList<>();
+    private final List<ConnectionEvent> connectionEvents = new CopyOnWriteArrayList<>();
+    private final List<HttpClientEvent> httpEvents = new CopyOnWriteArrayList<>();
     private Object returnValue;
-    private Throwable exception;
+    private ExceptionInfo exception;
     private final List<String> branchesTaken = new CopyOnWriteArrayList<>();
     private final List<String> loopsEntered = new CopyOnWriteArrayList<>();
     private int callDepth = 0;
+    private int methodId = -1;
+    private FoldedCalls folded;
+    private TraceBudget budget;
+    private volatile Map<Integer, FlowCallNode> foldedChildren;
 
     public FlowCallNode(MethodDetails methodDetails, ExecutionDetails executionDetails, CodeAnalysis codeAnalysis) {
         this.methodDetails = methodDetails;
@@ -34,11 +48,14 @@ public class FlowCallNode {
             @JsonProperty("codeAnalysis") CodeAnalysis codeAnalysis,
             @JsonProperty("children") List<FlowCallNode> children,
             @JsonProperty("dbEvents") List<DbQueryEvent> dbEvents,
+            @JsonProperty("connectionEvents") List<ConnectionEvent> connectionEvents,
+            @JsonProperty("httpEvents") List<HttpClientEvent> httpEvents,
             @JsonProperty("returnValue") Object returnValue,
-            @JsonProperty("exception") Throwable exception,
+            @JsonProperty("exception") ExceptionInfo exception,
             @JsonProperty("branchesTaken") List<String> branchesTaken,
             @JsonProperty("loopsEntered") List<String> loopsEntered,
-            @JsonProperty("callDepth") int callDepth) {
+            @JsonProperty("callDepth") int callDepth,
+            @JsonProperty("folded") FoldedCalls folded) {
         this.methodDetails = methodDetails;
         this.executionDetails = executionDetails;
         this.codeAnalysis = codeAnalysis;
@@ -48,11 +65,18 @@ public class FlowCallNode {
         if (dbEvents != null) {
             this.dbEvents.addAll(dbEvents);
         }
+        if (connectionEvents != null) {
+            this.connectionEvents.addAll(connectionEvents);
+        }
+        if (httpEvents != null) {
+            this.httpEvents.addAll(httpEvents);
+        }
         this.returnValue = returnValue;
         this.exception = exception;
         if (branchesTaken != null) this.branchesTaken.addAll(branchesTaken);
         if (loopsEntered != null) this.loopsEntered.addAll(loopsEntered);
         this.callDepth = callDepth;
+        this.folded = folded;
     }
 
 
@@ -60,20 +84,69 @@ public class FlowCallNode {
         children.add(child);
     }
 
+    public void removeChild(FlowCallNode child) {
+        children.remove(child);
+    }
+
     public void addDbEvent(DbQueryEvent event) {
         dbEvents.add(event);
     }
 
-    public void complete(Object returnValue, Throwable exception) {
+    public void addConnectionEvent(ConnectionEvent event) {
+        connectionEvents.add(event);
+    }
+
+    public void addHttpEvent(HttpClientEvent event) {
+        httpEvents.add(event);
+    }
+
+    public void complete(Object returnValue, ExceptionInfo exception) {
         this.returnValue = returnValue;
         this.exception = exception;
         this.executionDetails.setEndNanos(System.nanoTime());
     }
 
+    /**
+     * Returns the aggregate child that calls to {@code methodId} are folded into, creating
+     * and attaching it with {@code factory} on first use.
+     *
+     * @return The aggregate child, or null if it did not exist and {@code factory} returned null.
+     */
+    public FlowCallNode foldedChild(int methodId, Supplier<FlowCallNode> factory) {
+        Map<Integer, FlowCallNode> map = foldedChildren;
+        if (map == null) {
+            synchronized (this) {
+                if (foldedChildren == null) {
+                    foldedChildren = new ConcurrentHashMap<>();
+                }
+                map = foldedChildren;
+            }
+        }
+        return map.computeIfAbsent(methodId, id -> {
+            FlowCallNode child = factory.get();
+            if (child != null) {
+                children.add(child);
+            }
+            return child;
+        });
+    }
+
     public void addBranchTaken(String branch) { branchesTaken.add(branch); }
     public void addLoopEntered(String loop) { loopsEntered.add(loop); }
     public void setCallDepth(int depth) { this.callDepth = depth; }
     public int getCallDepth() { return callDepth; }
+    public void setMethodId(int methodId) { this.methodId = methodId; }
+    /** The {@link io.oi.core.trace.MethodRegistry} ID of the method, or -1 if unknown. Not serialized. */
+    @JsonIgnore
+    public int getMethodId() { return methodId; }
+    /** The statistics of the calls folded into this aggregate node, or null for a regular node. */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public FoldedCalls getFolded() { return folded; }
+    public void setFolded(FoldedCalls folded) { this.folded = folded; }
+    /** The size limits of the trace this node belongs to. Not serialized. */
+    @JsonIgnore
+    public TraceBudget getBudget() { return budget; }
+    public void setBudget(TraceBudget budget) { this.budget = budget; }
     public List<String> getBranchesTaken() { return new ArrayList<>(branchesTaken); }
     public List<String> getLoopsEntered() { return new ArrayList<>(loopsEntered); }
 
@@ -99,11 +172,19 @@ public class FlowCallNode {
         return new ArrayList<>(dbEvents);
     }
 
+    public List<ConnectionEvent> getConnectionEvents() {
+        return new ArrayList<>(connectionEvents);
+    }
+
+    public List<HttpClientEvent> getHttpEvents() {
+        return new ArrayList<>(httpEvents);
+    }
+
     public Object getReturnValue() {
         return returnValue;
     }
 
-    public Throwable getException() {
+    public ExceptionInfo getException() {
         return exception;
     }
 } 
\ No newline at end of file
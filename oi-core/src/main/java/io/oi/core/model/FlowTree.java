@@ -1,13 +1,31 @@
 package io.oi.core.model;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import java.util.List;
+import java.util.Map;
+
 public class FlowTree {
     private final String traceId;
     private final FlowCallNode rootNode;
     private final long startNanos;
     private long endNanos;
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private long startEpochMillis;
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private List<RepeatedQuery> repeatedQueries = List.of();
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private TraceTruncation truncation;
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private Map<String, List<String>> stacks = Map.of();
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private Map<Long, ThreadInfo> threads = Map.of();
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private IncompleteTrace incomplete;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String linkedTraceId;
 
     public FlowTree(String traceId, FlowCallNode rootNode) {
         this.traceId = traceId;
@@ -19,11 +37,45 @@ public class FlowTree {
     public FlowTree(@JsonProperty("traceId") String traceId,
                     @JsonProperty("rootNode") FlowCallNode rootNode,
                     @JsonProperty("startNanos") long startNanos,
-                    @JsonProperty("endNanos") long endNanos) {
+                    @JsonProperty("endNanos") long endNanos,
+                    @JsonProperty("repeatedQueries") List<RepeatedQuery> repeatedQueries,
+                    @JsonProperty("truncation") TraceTruncation truncation,
+                    @JsonProperty("stacks") Map<String, List<String>> stacks,
+                    @JsonProperty("threads") Map<Long, ThreadInfo> threads,
+                    @JsonProperty("incomplete") IncompleteTrace incomplete) {
         this.traceId = traceId;
         this.rootNode = rootNode;
         this.startNanos = startNanos;
         this.endNanos = endNanos;
+        if (repeatedQueries != null) {
+            this.repeatedQueries = repeatedQueries;
+        }
+        this.truncation = truncation;
+        if (stacks != null) {
+            this.stacks = stacks;
+        }
+        if (threads != null) {
+            this.threads = threads;
+            resolveThreads(rootNode);
+        }
+        this.incomplete = incomplete;
+    }
+
+    /**
+     * Replaces the ID-only threads of deserialised nodes with the entries of the thread table.
+     */
+    private void resolveThreads(FlowCallNode node) {
+        if (node == null) {
+            return;
+        }
+        ExecutionDetails details = node.getExecutionDetails();
+        ThreadInfo thread = details == null ? null : details.getThreadInfo();
+        if (thread != null && threads.containsKey(thread.threadId())) {
+            details.setThreadInfo(threads.get(thread.threadId()));
+        }
+        for (FlowCallNode child : node.getChildren()) {
+            resolveThreads(child);
+        }
     }
 
     public void complete() {
@@ -49,4 +101,85 @@ public class FlowTree {
     public void setEndNanos(long endNanos) {
         this.endNanos = endNanos;
     }
-} 
\ No newline at end of file
+
+    /**
+     * @return The wall-clock time the root started, taken when it started; 0 if unknown.
+     */
+    public long getStartEpochMillis() {
+        return startEpochMillis;
+    }
+
+    public void setStartEpochMillis(long startEpochMillis) {
+        this.startEpochMillis = startEpochMillis;
+    }
+
+    /**
+     * @return Statements executed repeatedly under one parent node (likely N+1 queries).
+     */
+    public List<RepeatedQuery> getRepeatedQueries() {
+        return repeatedQueries;
+    }
+
+    public void setRepeatedQueries(List<RepeatedQuery> repeatedQueries) {
+        this.repeatedQueries = repeatedQueries;
+    }
+
+    /**
+     * @return The detail lost to the trace's size limits, or null if none was hit.
+     */
+    public TraceTruncation getTruncation() {
+        return truncation;
+    }
+
+    public void setTruncation(TraceTruncation truncation) {
+        this.truncation = truncation;
+    }
+
+    /**
+     * @return The top frames of each distinct exception stack in the trace, keyed by the
+     * {@link ExceptionInfo#stackHash()} the nodes refer to them with.
+     */
+    public Map<String, List<String>> getStacks() {
+        return stacks;
+    }
+
+    public void setStacks(Map<String, List<String>> stacks) {
+        this.stacks = stacks;
+    }
+
+    /**
+     * @return Every thread the trace ran on, by ID. A node's thread is the one its
+     * {@link ExecutionDetails#getThreadId()} refers to, or else its parent's.
+     */
+    public Map<Long, ThreadInfo> getThreads() {
+        return threads;
+    }
+
+    public void setThreads(Map<Long, ThreadInfo> threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * @return Why and where the trace was still running, if this is a snapshot of a trace in
+     * flight; null for a completed trace.
+     */
+    public IncompleteTrace getIncomplete() {
+        return incomplete;
+    }
+
+    public void setIncomplete(IncompleteTrace incomplete) {
+        this.incomplete = incomplete;
+    }
+
+    /**
+     * @return The ID of the trace that handed off the task this trace's root ran, if that
+     * trace had already completed when the task started; null otherwise.
+     */
+    public String getLinkedTraceId() {
+        return linkedTraceId;
+    }
+
+    public void setLinkedTraceId(String linkedTraceId) {
+        this.linkedTraceId = linkedTraceId;
+    }
+}
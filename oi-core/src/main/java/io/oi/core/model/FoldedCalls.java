@@ -0,0 +1,68 @@
+package io.oi.core.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * The statistics of an aggregate node: repeated calls to one method under one parent that
+ * were folded into a single {@link FlowCallNode} after the trace reached its node limit.
+ * <p>
+ * Calls can be folded from several threads at once, so updates are synchronized.
+ */
+public class FoldedCalls {
+    private long count;
+    private long errorCount;
+    private long totalNanos;
+    private long minNanos = Long.MAX_VALUE;
+    private long maxNanos;
+
+    public FoldedCalls() {
+    }
+
+    @JsonCreator
+    public FoldedCalls(
+            @JsonProperty("count") long count,
+            @JsonProperty("errorCount") long errorCount,
+            @JsonProperty("totalNanos") long totalNanos,
+            @JsonProperty("minNanos") long minNanos,
+            @JsonProperty("maxNanos") long maxNanos) {
+        this.count = count;
+        this.errorCount = errorCount;
+        this.totalNanos = totalNanos;
+        this.minNanos = minNanos;
+        this.maxNanos = maxNanos;
+    }
+
+    /**
+     * Adds one folded call.
+     */
+    public synchronized void record(long durationNanos, boolean failed) {
+        count++;
+        if (failed) {
+            errorCount++;
+        }
+        totalNanos += durationNanos;
+        minNanos = Math.min(minNanos, durationNanos);
+        maxNanos = Math.max(maxNanos, durationNanos);
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized long getErrorCount() {
+        return errorCount;
+    }
+
+    public synchronized long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public synchronized long getMinNanos() {
+        return count == 0 ? 0 : minNanos;
+    }
+
+    public synchronized long getMaxNanos() {
+        return maxNanos;
+    }
+}
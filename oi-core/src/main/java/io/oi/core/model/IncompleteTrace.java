@@ -0,0 +1,49 @@
+package io.oi.core.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Marks a {@link FlowTree} as a snapshot of a trace that had not completed yet, taken because
+ * its root ran for longer than {@code stuck.thresholdMs}. The complete tree, with the same
+ * trace ID and without this marker, follows if the root ever returns.
+ *
+ * @param snapshot     The number of this snapshot of the trace, starting at 1.
+ * @param elapsedNanos The time the root had been running for.
+ * @param openStack    The open calls of the trace as {@code class.method}, from the root to the innermost.
+ * @param threadState  The state of the root's thread, e.g. {@code BLOCKED} or {@code WAITING}.
+ * @param lockName     The monitor or synchronizer the thread was waiting for, if any.
+ * @param lockOwner    The name of the thread holding that lock, if known.
+ * @param javaStack    The top frames of the thread's Java stack as {@code class.method:line}.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record IncompleteTrace(
+    int snapshot,
+    long elapsedNanos,
+    List<String> openStack,
+    String threadState,
+    String lockName,
+    String lockOwner,
+    List<String> javaStack
+) {
+    @JsonCreator
+    public IncompleteTrace(
+            @JsonProperty("snapshot") int snapshot,
+            @JsonProperty("elapsedNanos") long elapsedNanos,
+            @JsonProperty("openStack") List<String> openStack,
+            @JsonProperty("threadState") String threadState,
+            @JsonProperty("lockName") String lockName,
+            @JsonProperty("lockOwner") String lockOwner,
+            @JsonProperty("javaStack") List<String> javaStack) {
+        this.snapshot = snapshot;
+        this.elapsedNanos = elapsedNanos;
+        this.openStack = openStack;
+        this.threadState = threadState;
+        this.lockName = lockName;
+        this.lockOwner = lockOwner;
+        this.javaStack = javaStack;
+    }
+}
\ No newline at end of file
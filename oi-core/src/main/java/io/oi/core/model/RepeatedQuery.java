@@ -0,0 +1,36 @@
+package io.oi.core.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * A statement executed repeatedly under one parent node within a single trace, the
+ * typical shape of an N+1 query (e.g. a lazy-loaded relation read in a loop).
+ *
+ * @param fingerprint   The statement's fingerprint, matching {@code DbQueryEvent.fingerprint}.
+ * @param normalizedSql The normalised statement text.
+ * @param parentMethod  The deepest node under which all the repetitions occurred.
+ * @param count         The number of executions under that node.
+ * @param totalNanos    The summed duration of those executions.
+ */
+public record RepeatedQuery(
+    String fingerprint,
+    String normalizedSql,
+    String parentMethod,
+    int count,
+    long totalNanos
+) {
+    @JsonCreator
+    public RepeatedQuery(
+            @JsonProperty("fingerprint") String fingerprint,
+            @JsonProperty("normalizedSql") String normalizedSql,
+            @JsonProperty("parentMethod") String parentMethod,
+            @JsonProperty("count") int count,
+            @JsonProperty("totalNanos") long totalNanos) {
+        this.fingerprint = fingerprint;
+        this.normalizedSql = normalizedSql;
+        this.parentMethod = parentMethod;
+        this.count = count;
+        this.totalNanos = totalNanos;
+    }
+}
\ No newline at end of file
@@ -1,29 +1,67 @@
 package io.oi.core.model;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+/**
+ * Identifies the thread a node ran on. For virtual threads, {@code carrierThreadName}
+ * names the platform thread the virtual thread was mounted on when the node started;
+ * it is {@code null} for platform threads.
+ * <p>
+ * Trees list each thread once, in {@link FlowTree#getThreads()}; nodes refer to it by
+ * {@link ExecutionDetails#getThreadId() ID} only where the thread differs from their parent's.
+ */
 public record ThreadInfo(
     long threadId,
     String threadName,
-    boolean isVirtual
+    boolean isVirtual,
+    @JsonInclude(JsonInclude.Include.NON_NULL) String carrierThreadName
 ) {
     @JsonCreator
     public ThreadInfo(
             @JsonProperty("threadId") long threadId,
             @JsonProperty("threadName") String threadName,
-            @JsonProperty("isVirtual") boolean isVirtual) {
+            @JsonProperty("isVirtual") boolean isVirtual,
+            @JsonProperty("carrierThreadName") String carrierThreadName) {
         this.threadId = threadId;
         this.threadName = threadName;
         this.isVirtual = isVirtual;
+        this.carrierThreadName = carrierThreadName;
     }
 
+    private static final ThreadLocal<ThreadInfo> CURRENT = new ThreadLocal<>();
+
+    public ThreadInfo(long threadId, String threadName, boolean isVirtual) {
+        this(threadId, threadName, isVirtual, null);
+    }
+
+    /**
+     * Returns the current thread's identity. For platform threads this is cached until the
+     * thread is renamed; virtual threads are short-lived and change carriers, so theirs is
+     * created on every call.
+     */
     public static ThreadInfo current() {
         Thread currentThread = Thread.currentThread();
-        return new ThreadInfo(
-            currentThread.threadId(),
-            currentThread.getName(),
-            currentThread.isVirtual()
-        );
+        if (currentThread.isVirtual()) {
+            return new ThreadInfo(currentThread.threadId(), currentThread.getName(), true, carrierOf(currentThread));
+        }
+        ThreadInfo cached = CURRENT.get();
+        String name = currentThread.getName();
+        if (cached == null || !cached.threadName.equals(name)) {
+            cached = new ThreadInfo(currentThread.threadId(), name, false, null);
+            CURRENT.set(cached);
+        }
+        return cached;
+    }
+
+    /**
+     * The JDK exposes the carrier of a mounted virtual thread only through its string form,
+     * e.g. {@code VirtualThread[#21]/runnable@ForkJoinPool-1-worker-1}.
+     */
+    private static String carrierOf(Thread virtualThread) {
+        String description = virtualThread.toString();
+        int at = description.lastIndexOf('@');
+        return at < 0 ? null : description.substring(at + 1);
     }
 } 
\ No newline at end of file
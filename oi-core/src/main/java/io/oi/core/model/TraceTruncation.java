@@ -0,0 +1,33 @@
+package io.oi.core.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Counts the detail a trace lost to its size limits. Attached to a {@link FlowTree} only
+ * when at least one limit was hit.
+ *
+ * @param foldedCalls    Calls recorded only in an aggregate node's {@link FoldedCalls}.
+ * @param collapsedCalls Directly recursive calls merged into the calling node.
+ * @param droppedCalls   Calls beyond the depth limit, or beyond the node limit with no room
+ *                       left for aggregate nodes; their events went to the nearest recorded ancestor.
+ * @param droppedEvents  DB, connection, HTTP, branch and loop events beyond the event limit.
+ */
+public record TraceTruncation(
+    long foldedCalls,
+    long collapsedCalls,
+    long droppedCalls,
+    long droppedEvents
+) {
+    @JsonCreator
+    public TraceTruncation(
+            @JsonProperty("foldedCalls") long foldedCalls,
+            @JsonProperty("collapsedCalls") long collapsedCalls,
+            @JsonProperty("droppedCalls") long droppedCalls,
+            @JsonProperty("droppedEvents") long droppedEvents) {
+        this.foldedCalls = foldedCalls;
+        this.collapsedCalls = collapsedCalls;
+        this.droppedCalls = droppedCalls;
+        this.droppedEvents = droppedEvents;
+    }
+}
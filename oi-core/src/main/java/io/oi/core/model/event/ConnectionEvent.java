@@ -0,0 +1,40 @@
+package io.oi.core.model.event;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Represents a JDBC connection lifecycle operation captured during an execution: acquiring
+ * a connection from a {@code javax.sql.DataSource} (for a pool, the time spent waiting for
+ * a free connection), or committing or rolling back a transaction.
+ *
+ * @param operation     The operation.
+ * @param durationNanos The time the operation took, including any wait.
+ * @param failed        Whether the operation ended with an exception, e.g. a pool timeout.
+ * @param dataSource    The data source a connection was acquired from; null for commit and rollback.
+ */
+public record ConnectionEvent(
+    Operation operation,
+    long durationNanos,
+    boolean failed,
+    @JsonInclude(JsonInclude.Include.NON_NULL) String dataSource
+) {
+    public enum Operation {
+        ACQUIRE,
+        COMMIT,
+        ROLLBACK
+    }
+
+    @JsonCreator
+    public ConnectionEvent(
+            @JsonProperty("operation") Operation operation,
+            @JsonProperty("durationNanos") long durationNanos,
+            @JsonProperty("failed") boolean failed,
+            @JsonProperty("dataSource") String dataSource) {
+        this.operation = operation;
+        this.durationNanos = durationNanos;
+        this.failed = failed;
+        this.dataSource = dataSource;
+    }
+}
\ No newline at end of file
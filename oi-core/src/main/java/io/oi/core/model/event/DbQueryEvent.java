@@ -1,23 +1,38 @@
 package io.oi.core.model.event;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 /**
  * Represents a single database query event captured during an execution.
+ * The fingerprint identifies the normalised statement (see {@link io.oi.core.sql.SqlNormalizer}),
+ * so executions that differ only in literal values share it. For {@code executeBatch},
+ * {@code batchSize} is the number of batched executions and {@code rowCount} their summed
+ * update counts; it is 0 for single executions.
  */
 public record DbQueryEvent(
     String sql,
     long durationNanos,
-    int rowCount
+    int rowCount,
+    @JsonInclude(JsonInclude.Include.NON_NULL) String fingerprint,
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT) int batchSize
 ) {
     @JsonCreator
     public DbQueryEvent(
             @JsonProperty("sql") String sql,
             @JsonProperty("durationNanos") long durationNanos,
-            @JsonProperty("rowCount") int rowCount) {
+            @JsonProperty("rowCount") int rowCount,
+            @JsonProperty("fingerprint") String fingerprint,
+            @JsonProperty("batchSize") int batchSize) {
         this.sql = sql;
         this.durationNanos = durationNanos;
         this.rowCount = rowCount;
+        this.fingerprint = fingerprint;
+        this.batchSize = batchSize;
     }
-} 
\ No newline at end of file
+
+    public DbQueryEvent(String sql, long durationNanos, int rowCount) {
+        this(sql, durationNanos, rowCount, null, 0);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,54 @@
+package io.oi.core.model.event;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Represents an outbound HTTP call made during an execution, e.g. through
+ * {@code java.net.http.HttpClient} or Spring's {@code RestTemplate}/{@code RestClient}.
+ *
+ * @param method        The HTTP method.
+ * @param host          The target host, with the port if it is not the scheme's default.
+ * @param path          The request path with identifiers replaced by {@code {id}}, without the query.
+ * @param status        The response status, or -1 if no response was received.
+ * @param responseBytes The response body size from {@code Content-Length}, or -1 if not known.
+ * @param durationNanos The time the call took, including reading the body where the client does so.
+ */
+public record HttpClientEvent(
+    String method,
+    String host,
+    String path,
+    int status,
+    long responseBytes,
+    long durationNanos
+) {
+    @JsonCreator
+    public HttpClientEvent(
+            @JsonProperty("method") String method,
+            @JsonProperty("host") String host,
+            @JsonProperty("path") String path,
+            @JsonProperty("status") int status,
+            @JsonProperty("responseBytes") long responseBytes,
+            @JsonProperty("durationNanos") long durationNanos) {
+        this.method = method;
+        this.host = host;
+        this.path = path;
+        this.status = status;
+        this.responseBytes = responseBytes;
+        this.durationNanos = durationNanos;
+    }
+
+    /**
+     * @return Whether the call failed: no response, or a 5xx status.
+     */
+    public boolean failed() {
+        return status < 0 || status >= 500;
+    }
+
+    /**
+     * @return The method and templated path, e.g. {@code GET /users/{id}}.
+     */
+    public String route() {
+        return method + " " + path;
+    }
+}
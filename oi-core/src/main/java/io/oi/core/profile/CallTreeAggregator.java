@@ -0,0 +1,261 @@
+package io.oi.core.profile;
+
+import io.oi.core.metrics.HistogramSnapshot;
+import io.oi.core.metrics.LatencyHistogram;
+import io.oi.core.model.ExecutionDetails;
+import io.oi.core.model.FlowCallNode;
+import io.oi.core.model.FlowTree;
+import io.oi.core.model.FoldedCalls;
+import io.oi.core.trace.MethodRegistry;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Merges completed {@link FlowTree}s into a calling context tree (CCT): one node per
+ * distinct path of method IDs from the root, holding the number of calls on that path,
+ * their total and self time, and their latency distribution.
+ * <p>
+ * Memory is bounded by {@code maxNodes}. When the tree grows past it, the coldest leaves
+ * (by total time) are pruned and their time is folded into their parent's self time, so
+ * totals are preserved while detail is lost only on cold paths.
+ * <p>
+ * Not thread-safe; {@link CallTreeProfiler} confines each aggregator to its worker thread.
+ */
+public final class CallTreeAggregator {
+
+    static final class Node {
+        final int methodId;
+        final Node parent;
+        final Map<Integer, Node> children = new HashMap<>(4);
+        long count;
+        long totalNanos;
+        long selfNanos;
+        final LatencyHistogram latency = new LatencyHistogram(1);
+
+        Node(int methodId, Node parent) {
+            this.methodId = methodId;
+            this.parent = parent;
+        }
+
+        void add(long calls, long total, long self) {
+            count += calls;
+            totalNanos += total;
+            selfNanos += self;
+        }
+    }
+
+    private final int maxNodes;
+    private final Node root = new Node(-1, null);
+    private int nodeCount;
+    private long prunedNodes;
+    private long treeCount;
+
+    public CallTreeAggregator(int maxNodes) {
+        this.maxNodes = Math.max(16, maxNodes);
+    }
+
+    /**
+     * Merges one completed tree.
+     */
+    public void add(FlowTree tree) {
+        if (tree.getRootNode() == null) {
+            return;
+        }
+        treeCount++;
+        merge(root, tree.getRootNode());
+        if (nodeCount > maxNodes) {
+            prune();
+        }
+    }
+
+    /**
+     * Merges another aggregator's tree into this one.
+     */
+    public void addAll(CallTreeAggregator other) {
+        treeCount += other.treeCount;
+        prunedNodes += other.prunedNodes;
+        mergeAggregated(root, other.root);
+        if (nodeCount > maxNodes) {
+            prune();
+        }
+    }
+
+    private void merge(Node parent, FlowCallNode call) {
+        Node node = child(parent, call.getMethodId());
+        long total = totalNanos(call);
+        long childTotal = 0;
+        for (FlowCallNode child : call.getChildren()) {
+            childTotal += totalNanos(child);
+            merge(node, child);
+        }
+        // Children handed to other threads can overlap their parent, so self time is clamped.
+        long self = Math.max(0L, total - childTotal);
+        FoldedCalls folded = call.getFolded();
+        if (folded == null) {
+            node.add(1, total, self);
+            node.latency.record(total);
+        } else {
+            node.add(folded.getCount(), total, self);
+            recordFolded(node.latency, folded);
+        }
+    }
+
+    private static long totalNanos(FlowCallNode call) {
+        if (call.getFolded() != null) {
+            return call.getFolded().getTotalNanos();
+        }
+        ExecutionDetails execution = call.getExecutionDetails();
+        return Math.max(0L, execution.getEndNanos() - execution.getStartNanos());
+    }
+
+    /**
+     * Approximates an aggregate node's latency distribution from its minimum, maximum and mean.
+     */
+    private static void recordFolded(LatencyHistogram latency, FoldedCalls folded) {
+        long count = folded.getCount();
+        if (count == 0) {
+            return;
+        }
+        latency.record(folded.getMinNanos());
+        if (count > 1) {
+            latency.record(folded.getMaxNanos());
+        }
+        if (count > 2) {
+            long rest = folded.getTotalNanos() - folded.getMinNanos() - folded.getMaxNanos();
+            latency.record(rest / (count - 2), count - 2);
+        }
+    }
+
+    private void mergeAggregated(Node target, Node source) {
+        for (Node sourceChild : source.children.values()) {
+            Node targetChild = child(target, sourceChild.methodId);
+            targetChild.add(sourceChild.count, sourceChild.totalNanos, sourceChild.selfNanos);
+            targetChild.latency.add(sourceChild.latency.snapshot(false));
+            mergeAggregated(targetChild, sourceChild);
+        }
+    }
+
+    private Node child(Node parent, int methodId) {
+        Node node = parent.children.get(methodId);
+        if (node == null) {
+            node = new Node(methodId, parent);
+            parent.children.put(methodId, node);
+            nodeCount++;
+        }
+        return node;
+    }
+
+    /**
+     * Removes the coldest leaves until the tree is 10% below its budget, so pruning does
+     * not run again on the very next merge.
+     */
+    private void prune() {
+        int target = maxNodes - maxNodes / 10;
+        while (nodeCount > target) {
+            List<Node> leaves = new ArrayList<>();
+            collectLeaves(root, leaves);
+            if (leaves.isEmpty()) {
+                return;
+            }
+            leaves.sort(Comparator.comparingLong(node -> node.totalNanos));
+            int toRemove = Math.min(leaves.size(), nodeCount - target);
+            for (int i = 0; i < toRemove; i++) {
+                Node leaf = leaves.get(i);
+                leaf.parent.selfNanos += leaf.totalNanos;
+                leaf.parent.children.remove(leaf.methodId);
+                nodeCount--;
+                prunedNodes++;
+            }
+        }
+    }
+
+    private static void collectLeaves(Node node, List<Node> leaves) {
+        for (Node child : node.children.values()) {
+            if (child.children.isEmpty()) {
+                leaves.add(child);
+            } else {
+                collectLeaves(child, leaves);
+            }
+        }
+    }
+
+    /**
+     * Writes the tree in collapsed-stack ("folded") format, as read by flame graph tools:
+     * one line per path with non-zero self time, frames separated by {@code ;}, followed by
+     * the path's self time in microseconds.
+     */
+    public String toFoldedStacks() {
+        StringBuilder out = new StringBuilder();
+        appendFolded(root, new StringBuilder(), out);
+        return out.toString();
+    }
+
+    private static void appendFolded(Node node, StringBuilder path, StringBuilder out) {
+        for (Node child : node.children.values()) {
+            int mark = path.length();
+            if (mark > 0) {
+                path.append(';');
+            }
+            path.append(frameName(child.methodId));
+            long selfMicros = child.selfNanos / 1_000;
+            if (selfMicros > 0) {
+                out.append(path).append(' ').append(selfMicros).append('\n');
+            }
+            appendFolded(child, path, out);
+            path.setLength(mark);
+        }
+    }
+
+    private static String frameName(int methodId) {
+        MethodRegistry.MethodInfo method = MethodRegistry.get(methodId);
+        return method == null ? "unknown" : method.qualifiedName();
+    }
+
+    /**
+     * One path of the calling context tree, for programmatic consumers.
+     *
+     * @param path       The frames from the root, outermost first.
+     * @param count      The number of calls on this path.
+     * @param totalNanos The summed duration of those calls, including callees.
+     * @param selfNanos  The summed duration of those calls, excluding callees.
+     * @param latency    The distribution of call durations.
+     */
+    public record PathStats(List<String> path, long count, long totalNanos, long selfNanos, HistogramSnapshot latency) {
+    }
+
+    /**
+     * @return Every path in the tree, hottest (by total time) first.
+     */
+    public List<PathStats> paths() {
+        List<PathStats> paths = new ArrayList<>();
+        collectPaths(root, new ArrayList<>(), paths);
+        paths.sort(Comparator.comparingLong(PathStats::totalNanos).reversed());
+        return paths;
+    }
+
+    private static void collectPaths(Node node, List<String> prefix, List<PathStats> out) {
+        for (Node child : node.children.values()) {
+            prefix.add(frameName(child.methodId));
+            out.add(new PathStats(List.copyOf(prefix), child.count, child.totalNanos, child.selfNanos,
+                    child.latency.snapshot(false)));
+            collectPaths(child, prefix, out);
+            prefix.remove(prefix.size() - 1);
+        }
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public long getPrunedNodes() {
+        return prunedNodes;
+    }
+
+    public long getTreeCount() {
+        return treeCount;
+    }
+}
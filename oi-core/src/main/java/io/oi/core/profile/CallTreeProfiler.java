@@ -0,0 +1,176 @@
+package io.oi.core.profile;
+
+import io.oi.core.emitter.FlowEmitter;
+import io.oi.core.model.FlowTree;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A continuous profile built from completed traces, enabled with {@code profile.enabled}.
+ * <p>
+ * Trees are handed over through a bounded queue and merged by a single daemon thread, so
+ * request threads never wait on the aggregation; when the queue is full, trees are dropped
+ * and counted. Time is divided into fixed slots, each with its own
+ * {@link CallTreeAggregator}; queries merge the slots that cover the requested window.
+ * Queries reach the worker through a channel of their own, so they are answered between two
+ * trees even while the tree queue is full.
+ */
+public final class CallTreeProfiler implements FlowEmitter, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(CallTreeProfiler.class);
+    private static final int QUEUE_CAPACITY = 1024;
+    /** How long the idle worker waits for a tree before looking for queries again. */
+    private static final long QUERY_POLL_MILLIS = 10;
+    private static final long QUERY_TIMEOUT_SECONDS = 5;
+
+    private final int maxNodes;
+    private final long slotNanos;
+    private final CallTreeAggregator[] slots;
+    private final long[] slotStarts;
+    private final BlockingQueue<FlowTree> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final ConcurrentLinkedQueue<Query> queries = new ConcurrentLinkedQueue<>();
+    private final LongAdder droppedTrees = new LongAdder();
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    /**
+     * @param maxNodes    The node budget of each slot's calling context tree.
+     * @param slotSeconds The length of one time slot.
+     * @param slotCount   The number of slots kept; older slots are discarded.
+     */
+    public CallTreeProfiler(int maxNodes, int slotSeconds, int slotCount) {
+        this.maxNodes = maxNodes;
+        this.slotNanos = TimeUnit.SECONDS.toNanos(Math.max(1, slotSeconds));
+        this.slots = new CallTreeAggregator[Math.max(1, slotCount)];
+        this.slotStarts = new long[slots.length];
+        this.worker = new Thread(this::run, "oi-call-tree-profiler");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    @Override
+    public void emit(FlowTree flowTree) {
+        if (running && !queue.offer(flowTree)) {
+            droppedTrees.increment();
+        }
+    }
+
+    /**
+     * Merges the slots overlapping the last {@code window} into one tree. The query runs on
+     * the worker thread between two trees; trees still queued are not included.
+     *
+     * @param window How far back to look; rounded up to whole slots.
+     * @return The merged tree, or an empty tree if the profiler has been closed.
+     * @throws IllegalStateException If the worker did not answer within {@value #QUERY_TIMEOUT_SECONDS} seconds.
+     */
+    public CallTreeAggregator aggregate(Duration window) {
+        if (!running) {
+            return new CallTreeAggregator(maxNodes);
+        }
+        Query query = new Query(window.toNanos());
+        queries.add(query);
+        try {
+            return query.result.get(QUERY_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            queries.remove(query);
+            throw new IllegalStateException("The call tree profile did not answer within "
+                    + QUERY_TIMEOUT_SECONDS + " seconds", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while aggregating the call tree profile", e);
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to aggregate the call tree profile", e);
+        }
+    }
+
+    /**
+     * @return The calling context tree of the last {@code window} in collapsed-stack format.
+     * @see CallTreeAggregator#toFoldedStacks()
+     */
+    public String foldedStacks(Duration window) {
+        return aggregate(window).toFoldedStacks();
+    }
+
+    /**
+     * @return The number of trees dropped because the worker could not keep up.
+     */
+    public long getDroppedTrees() {
+        return droppedTrees.sum();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        worker.interrupt();
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                try {
+                    FlowTree tree = queue.poll(QUERY_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (tree != null) {
+                        currentSlot(System.nanoTime()).add(tree);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception e) {
+                    log.warn("Failed to merge trace into call tree profile: {}", e.getMessage());
+                }
+                for (Query query; (query = queries.poll()) != null; ) {
+                    try {
+                        query.result.complete(merge(query.windowNanos));
+                    } catch (Exception e) {
+                        query.result.completeExceptionally(e);
+                    }
+                }
+            }
+        } finally {
+            for (Query query; (query = queries.poll()) != null; ) {
+                query.result.complete(new CallTreeAggregator(maxNodes));
+            }
+        }
+    }
+
+    private CallTreeAggregator currentSlot(long now) {
+        int index = (int) Math.floorMod(now / slotNanos, (long) slots.length);
+        long start = now - Math.floorMod(now, slotNanos);
+        if (slots[index] == null || slotStarts[index] != start) {
+            slots[index] = new CallTreeAggregator(maxNodes);
+            slotStarts[index] = start;
+        }
+        return slots[index];
+    }
+
+    private CallTreeAggregator merge(long windowNanos) {
+        long now = System.nanoTime();
+        long oldest = now - Math.max(0L, windowNanos) - slotNanos;
+        long horizon = now - (long) slots.length * slotNanos;
+        CallTreeAggregator result = new CallTreeAggregator(maxNodes);
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] != null && slotStarts[i] > oldest && slotStarts[i] > horizon) {
+                result.addAll(slots[i]);
+            }
+        }
+        return result;
+    }
+
+    private static final class Query {
+        final long windowNanos;
+        final CompletableFuture<CallTreeAggregator> result = new CompletableFuture<>();
+
+        Query(long windowNanos) {
+            this.windowNanos = windowNanos;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package io.oi.core.sql;
+
+import io.oi.core.model.FlowCallNode;
+import io.oi.core.model.MethodDetails;
+import io.oi.core.model.RepeatedQuery;
+import io.oi.core.model.event.DbQueryEvent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds statements executed repeatedly under one parent node of a completed tree (N+1
+ * queries).
+ * <p>
+ * Executions are counted per fingerprint over each node's subtree. A statement is reported
+ * at the deepest node whose subtree holds at least {@code threshold} executions of it, so
+ * a loop in a service method is attributed to that method rather than to the controller
+ * above it, and each repetition is reported once.
+ */
+public final class RepeatedQueryDetector {
+
+    private static final class Tally {
+        String sql;
+        int count;
+        long totalNanos;
+        boolean reported;
+    }
+
+    private RepeatedQueryDetector() {
+        // Static utility class
+    }
+
+    /**
+     * @return The repeated statements in the tree rooted at {@code root}, most executions first.
+     */
+    public static List<RepeatedQuery> detect(FlowCallNode root, int threshold) {
+        List<RepeatedQuery> findings = new ArrayList<>();
+        if (root != null && threshold > 1) {
+            visit(root, Math.max(2, threshold), findings);
+            findings.sort((a, b) -> Integer.compare(b.count(), a.count()));
+        }
+        return findings;
+    }
+
+    private static Map<String, Tally> visit(FlowCallNode node, int threshold, List<RepeatedQuery> findings) {
+        Map<String, Tally> tallies = null;
+        for (FlowCallNode child : node.getChildren()) {
+            Map<String, Tally> childTallies = visit(child, threshold, findings);
+            if (childTallies == null) {
+                continue;
+            }
+            if (tallies == null) {
+                tallies = childTallies;
+                continue;
+            }
+            for (Map.Entry<String, Tally> entry : childTallies.entrySet()) {
+                Tally source = entry.getValue();
+                Tally target = tallies.get(entry.getKey());
+                if (target == null) {
+                    tallies.put(entry.getKey(), source);
+                } else {
+                    target.count += source.count;
+                    target.totalNanos += source.totalNanos;
+                    target.reported |= source.reported;
+                }
+            }
+        }
+
+        for (DbQueryEvent event : node.getDbEvents()) {
+            if (event.sql() == null) {
+                continue;
+            }
+            String fingerprint = event.fingerprint() != null
+                    ? event.fingerprint()
+                    : SqlNormalizer.fingerprint(event.sql()).hex();
+            if (tallies == null) {
+                tallies = new HashMap<>();
+            }
+            Tally tally = tallies.computeIfAbsent(fingerprint, key -> new Tally());
+            tally.sql = event.sql();
+            tally.count++;
+            tally.totalNanos += event.durationNanos();
+        }
+
+        if (tallies != null) {
+            for (Map.Entry<String, Tally> entry : tallies.entrySet()) {
+                Tally tally = entry.getValue();
+                if (!tally.reported && tally.count >= threshold) {
+                    tally.reported = true;
+                    findings.add(new RepeatedQuery(entry.getKey(), SqlNormalizer.fingerprint(tally.sql).normalizedSql(),
+                            methodName(node.getMethodDetails()), tally.count, tally.totalNanos));
+                }
+            }
+        }
+        return tallies;
+    }
+
+    private static String methodName(MethodDetails method) {
+        return method == null ? "unknown" : method.className().replace('/', '.') + "." + method.methodName();
+    }
+}
@@ -0,0 +1,250 @@
+package io.oi.core.sql;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reduces SQL statements to a canonical shape so that executions of the same statement
+ * with different literal values can be grouped.
+ * <p>
+ * Normalisation removes comments, replaces string and numeric literals with {@code ?},
+ * collapses parenthesised lists of placeholders (e.g. {@code IN (?, ?, ?)}) to
+ * {@code (?+)} (and repeated rows of a multi-row {@code VALUES} list to one), lowercases everything outside quoted identifiers, and collapses
+ * whitespace. The fingerprint is a 64-bit FNV-1a hash of the normalised text.
+ * <p>
+ * Applications typically execute a small set of distinct statement strings, so results
+ * are cached by the raw SQL. The cache is cleared when it reaches {@value #CACHE_LIMIT}
+ * entries, which bounds memory for applications that inline literals.
+ */
+public final class SqlNormalizer {
+
+    /**
+     * A normalised statement and its fingerprint.
+     */
+    public record Fingerprint(long hash, String normalizedSql) {
+
+        /**
+         * @return The hash as a fixed-width hexadecimal string, as written to trace events.
+         */
+        public String hex() {
+            return String.format("%016x", hash);
+        }
+    }
+
+    private static final int CACHE_LIMIT = 4096;
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static final Map<String, Fingerprint> cache = new ConcurrentHashMap<>();
+
+    private SqlNormalizer() {
+        // Static utility class
+    }
+
+    /**
+     * @return The fingerprint of {@code sql}, or null if {@code sql} is null.
+     */
+    public static Fingerprint fingerprint(String sql) {
+        if (sql == null) {
+            return null;
+        }
+        Fingerprint cached = cache.get(sql);
+        if (cached != null) {
+            return cached;
+        }
+        String normalized = normalize(sql);
+        Fingerprint fingerprint = new Fingerprint(hash(normalized), normalized);
+        if (cache.size() >= CACHE_LIMIT) {
+            cache.clear();
+        }
+        cache.put(sql, fingerprint);
+        return fingerprint;
+    }
+
+    /**
+     * @return The normalised form of {@code sql}.
+     */
+    public static String normalize(String sql) {
+        StringBuilder out = new StringBuilder(sql.length());
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (c == '\'') {
+                i = skipQuoted(sql, i, '\'');
+                appendToken(out, "?");
+            } else if (c == '"' || c == '`') {
+                int end = skipQuoted(sql, i, c);
+                appendToken(out, sql.substring(i, end));
+                i = end;
+            } else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                int end = sql.indexOf('\n', i);
+                i = end < 0 ? length : end;
+            } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+            } else if (c == '?') {
+                appendToken(out, "?");
+                i++;
+            } else if (Character.isWhitespace(c)) {
+                i++;
+            } else if (isNumberStart(sql, i, out)) {
+                i = skipNumber(sql, i);
+                appendToken(out, "?");
+            } else if (isWordChar(c)) {
+                int end = i;
+                while (end < length && isWordChar(sql.charAt(end))) {
+                    end++;
+                }
+                appendToken(out, sql.substring(i, end).toLowerCase(Locale.ROOT));
+                i = end;
+            } else {
+                appendPunctuation(out, c);
+                i++;
+            }
+        }
+        trimTrailingSpace(out);
+        return out.toString();
+    }
+
+    private static int skipQuoted(String sql, int start, char quote) {
+        int i = start + 1;
+        while (i < sql.length()) {
+            if (sql.charAt(i) == quote) {
+                // A doubled quote is an escaped quote inside the literal.
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == quote) {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return sql.length();
+    }
+
+    private static boolean isNumberStart(String sql, int i, StringBuilder out) {
+        char c = sql.charAt(i);
+        boolean digit = Character.isDigit(c)
+                || ((c == '-' || c == '.') && i + 1 < sql.length() && Character.isDigit(sql.charAt(i + 1)));
+        if (!digit) {
+            return false;
+        }
+        if (c == '-' && !out.isEmpty()) {
+            // A minus directly after an operand is subtraction, not a sign.
+            char previous = out.charAt(out.length() - 1);
+            if (isWordChar(previous) || previous == '?' || previous == ')') {
+                return false;
+            }
+        }
+        // Digits inside identifiers (e.g. "t1") never get here; they are consumed with their word.
+        return true;
+    }
+
+    private static int skipNumber(String sql, int start) {
+        int i = start + 1;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            if (Character.isLetterOrDigit(c) || c == '.') {
+                i++;
+            } else if ((c == '+' || c == '-') && (sql.charAt(i - 1) == 'e' || sql.charAt(i - 1) == 'E')) {
+                i++;
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '@' || c == ':' || c == '#';
+    }
+
+    private static void appendToken(StringBuilder out, String token) {
+        if (!out.isEmpty()) {
+            char previous = out.charAt(out.length() - 1);
+            if (previous != '(' && previous != '.' && previous != ' ') {
+                out.append(' ');
+            }
+        }
+        out.append(token);
+    }
+
+    private static void appendPunctuation(StringBuilder out, char c) {
+        if (c == ')' && collapsePlaceholderList(out)) {
+            return;
+        }
+        if (c == ',' || c == ')' || c == '.') {
+            trimTrailingSpace(out);
+            out.append(c);
+            return;
+        }
+        if (c == '(') {
+            out.append(c);
+            return;
+        }
+        if (!out.isEmpty() && out.charAt(out.length() - 1) != ' ' && out.charAt(out.length() - 1) != '(') {
+            out.append(' ');
+        }
+        out.append(c);
+        out.append(' ');
+    }
+
+    /**
+     * Rewrites a trailing {@code (?, ?, ...} to {@code (?+)} when it holds more than one
+     * placeholder.
+     *
+     * @return true if the closing parenthesis was consumed.
+     */
+    private static boolean collapsePlaceholderList(StringBuilder out) {
+        trimTrailingSpace(out);
+        int open = out.lastIndexOf("(");
+        if (open < 0) {
+            return false;
+        }
+        int placeholders = 0;
+        for (int i = open + 1; i < out.length(); i++) {
+            char c = out.charAt(i);
+            if (c == '?') {
+                placeholders++;
+            } else if (c != ',' && c != ' ') {
+                return false;
+            }
+        }
+        if (placeholders < 2) {
+            return false;
+        }
+        out.setLength(open + 1);
+        out.append("?+)");
+        // Multi-row VALUES lists collapse to a single row.
+        while (endsWith(out, "(?+),(?+)")) {
+            out.setLength(out.length() - "(?+),(?+)".length());
+            out.append("(?+)");
+        }
+        return true;
+    }
+
+    private static boolean endsWith(StringBuilder out, String suffix) {
+        return out.length() >= suffix.length()
+                && out.indexOf(suffix, out.length() - suffix.length()) >= 0;
+    }
+
+    private static void trimTrailingSpace(StringBuilder out) {
+        while (!out.isEmpty() && out.charAt(out.length() - 1) == ' ') {
+            out.setLength(out.length() - 1);
+        }
+    }
+
+    private static long hash(String normalized) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            hash ^= (c & 0xff);
+            hash *= FNV_PRIME;
+            hash ^= (c >>> 8);
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+}
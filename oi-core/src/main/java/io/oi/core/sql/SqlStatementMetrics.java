@@ -0,0 +1,43 @@
+package io.oi.core.sql;
+
+import io.oi.core.metrics.LatencyHistogram;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Execution count, latency distribution and row-count distribution of one normalised SQL
+ * statement. All updates are lock-free.
+ */
+final class SqlStatementMetrics {
+
+    private final SqlNormalizer.Fingerprint fingerprint;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LatencyHistogram rows = new LatencyHistogram();
+
+    SqlStatementMetrics(SqlNormalizer.Fingerprint fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * @param rowCount The number of rows returned or affected, or -1 if not known.
+     */
+    void record(long durationNanos, int rowCount) {
+        count.increment();
+        totalNanos.add(durationNanos);
+        latency.record(durationNanos);
+        if (rowCount >= 0) {
+            rows.record(rowCount);
+        }
+    }
+
+    SqlStatementSnapshot snapshot(boolean reset) {
+        if (reset) {
+            return new SqlStatementSnapshot(fingerprint.hex(), fingerprint.normalizedSql(), count.sumThenReset(),
+                    totalNanos.sumThenReset(), latency.snapshot(true), rows.snapshot(true));
+        }
+        return new SqlStatementSnapshot(fingerprint.hex(), fingerprint.normalizedSql(), count.sum(),
+                totalNanos.sum(), latency.snapshot(false), rows.snapshot(false));
+    }
+}
@@ -0,0 +1,27 @@
+package io.oi.core.sql;
+
+import io.oi.core.metrics.HistogramSnapshot;
+
+/**
+ * A point-in-time copy of one statement's execution statistics.
+ *
+ * @param fingerprint   The statement's fingerprint, as written to trace events.
+ * @param normalizedSql The normalised statement text.
+ * @param count         The number of executions.
+ * @param totalNanos    The summed duration of all executions.
+ * @param latency       The distribution of execution durations, in nanoseconds.
+ * @param rows          The distribution of returned or affected row counts, over the executions
+ *                      whose row count is known.
+ */
+public record SqlStatementSnapshot(
+    String fingerprint,
+    String normalizedSql,
+    long count,
+    long totalNanos,
+    HistogramSnapshot latency,
+    HistogramSnapshot rows
+) {
+    public long percentileNanos(double percentile) {
+        return latency.valueAtPercentile(percentile);
+    }
+}
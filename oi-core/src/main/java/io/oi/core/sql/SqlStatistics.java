@@ -0,0 +1,54 @@
+package io.oi.core.sql;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide execution statistics per SQL fingerprint.
+ * <p>
+ * At most {@code maxStatements} distinct fingerprints are tracked; executions of further
+ * statements are counted under a single {@value #OVERFLOW_SQL} entry, so applications
+ * that inline literals the normaliser cannot recognise do not grow the table without bound.
+ */
+public final class SqlStatistics {
+
+    static final String OVERFLOW_SQL = "(other statements)";
+
+    private static final SqlNormalizer.Fingerprint OVERFLOW = new SqlNormalizer.Fingerprint(0L, OVERFLOW_SQL);
+    private static final Map<Long, SqlStatementMetrics> statements = new ConcurrentHashMap<>();
+    private static volatile int maxStatements = 500;
+
+    private SqlStatistics() {
+        // Static utility class
+    }
+
+    public static void setMaxStatements(int max) {
+        maxStatements = Math.max(1, max);
+    }
+
+    /**
+     * Records one execution of the statement identified by {@code fingerprint}.
+     */
+    public static void record(SqlNormalizer.Fingerprint fingerprint, long durationNanos, int rowCount) {
+        SqlStatementMetrics metrics = statements.get(fingerprint.hash());
+        if (metrics == null) {
+            SqlNormalizer.Fingerprint key = statements.size() < maxStatements ? fingerprint : OVERFLOW;
+            metrics = statements.computeIfAbsent(key.hash(), hash -> new SqlStatementMetrics(key));
+        }
+        metrics.record(durationNanos, rowCount);
+    }
+
+    /**
+     * @param reset Whether to reset every statement's statistics while reading them.
+     * @return One snapshot per statement that has been executed.
+     */
+    public static List<SqlStatementSnapshot> snapshot(boolean reset) {
+        List<SqlStatementSnapshot> snapshots = new ArrayList<>(statements.size());
+        for (SqlStatementMetrics metrics : statements.values()) {
+            snapshots.add(metrics.snapshot(reset));
+        }
+        return snapshots;
+    }
+}
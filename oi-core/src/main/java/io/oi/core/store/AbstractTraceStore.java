@@ -0,0 +1,142 @@
+package io.oi.core.store;
+
+import io.oi.core.emitter.FlowEmitter;
+import io.oi.core.model.ExecutionDetails;
+import io.oi.core.model.FlowCallNode;
+import io.oi.core.model.FlowTree;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The part of a {@link TraceStore} that receives completed trees as a listener.
+ * <p>
+ * Trees are handed over through a bounded queue and encoded with the {@link FlowTreeCodec} by a
+ * single daemon thread, so request threads never wait on the encoding; when the queue is full,
+ * trees are dropped and counted. Stored traces are indexed in a {@link TraceIndex}, guarded by
+ * the store's monitor; subclasses decide where the encoded trees are kept and when they are evicted.
+ */
+public abstract class AbstractTraceStore implements TraceStore, FlowEmitter, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(AbstractTraceStore.class);
+
+    final TraceIndex index = new TraceIndex();
+    private final FlowTreeCodec codec = new FlowTreeCodec();
+    private final BlockingQueue<FlowTree> queue;
+    private final LongAdder droppedTrees = new LongAdder();
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    AbstractTraceStore(int queueSize) {
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueSize));
+        this.worker = new Thread(this::run, "oi-trace-store");
+        this.worker.setDaemon(true);
+    }
+
+    /**
+     * Starts the worker; called by subclasses once they are initialised.
+     */
+    final void start() {
+        worker.start();
+    }
+
+    /**
+     * Keeps an encoded tree and adds it to the {@link #index}, evicting older trees as needed.
+     * Called on the worker thread only, holding the store's monitor.
+     */
+    abstract void store(TraceSummary summary, String[] terms, byte[] encoded);
+
+    /**
+     * @return The encoded tree of a stored trace. Called holding the store's monitor.
+     */
+    abstract byte[] read(TraceIndex.Slot slot);
+
+    @Override
+    public void emit(FlowTree tree) {
+        if (running && tree.getIncomplete() == null && !queue.offer(tree)) {
+            droppedTrees.increment();
+        }
+    }
+
+    /**
+     * Encodes and stores a tree on the calling thread.
+     */
+    void add(FlowTree tree) throws Exception {
+        FlowCallNode root = tree.getRootNode();
+        if (root == null) {
+            return;
+        }
+        byte[] encoded = codec.encode(tree);
+        ExecutionDetails execution = root.getExecutionDetails();
+        long durationNanos = Math.max(0L, execution.getEndNanos() - execution.getStartNanos());
+        // Only trees not built by the tracer lack their start time; estimating it here is off by the queueing delay
+        long startEpochMillis = tree.getStartEpochMillis() != 0L
+                ? tree.getStartEpochMillis()
+                : System.currentTimeMillis() - durationNanos / 1_000_000;
+        TraceSummary summary = new TraceSummary(tree.getTraceId(),
+                root.getMethodDetails().className().replace('/', '.') + "." + root.getMethodDetails().methodName(),
+                startEpochMillis, durationNanos, root.getException() != null, encoded.length);
+        String[] terms = TraceIndex.terms(tree);
+        synchronized (this) {
+            store(summary, terms, encoded);
+        }
+    }
+
+    @Override
+    public synchronized List<TraceSummary> query(TraceQuery query) {
+        return index.query(query);
+    }
+
+    @Override
+    public synchronized int size() {
+        return index.size();
+    }
+
+    @Override
+    public FlowTree get(String traceId) {
+        byte[] encoded;
+        synchronized (this) {
+            TraceIndex.Slot slot = index.get(traceId);
+            if (slot == null) {
+                return null;
+            }
+            encoded = read(slot);
+        }
+        try {
+            return codec.decode(encoded);
+        } catch (Exception e) {
+            log.warn("Failed to decode stored trace {}: {}", traceId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @return The number of trees dropped because the worker could not keep up.
+     */
+    public long getDroppedTrees() {
+        return droppedTrees.sum();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        worker.interrupt();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                add(queue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.warn("Failed to store trace: {}", e.getMessage());
+            }
+        }
+    }
+}
\ No newline at end of file
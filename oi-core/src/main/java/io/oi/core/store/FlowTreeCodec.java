@@ -0,0 +1,42 @@
+package io.oi.core.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.oi.core.model.FlowTree;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Encodes trees as deflated JSON, typically a tenth of the size of the JSON and a small
+ * fraction of the live object graph.
+ */
+public final class FlowTreeCodec {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS);
+
+    public byte[] encode(FlowTree tree) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DeflaterOutputStream out = new DeflaterOutputStream(bytes, deflater, 4096)) {
+            objectMapper.writeValue(out, tree);
+        } finally {
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+
+    public FlowTree decode(byte[] encoded) throws IOException {
+        try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(encoded))) {
+            return objectMapper.readValue(in, FlowTree.class);
+        }
+    }
+}
\ No newline at end of file
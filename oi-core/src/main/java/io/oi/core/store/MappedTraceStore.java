@@ -0,0 +1,111 @@
+package io.oi.core.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Keeps encoded trees outside the heap, in a ring of fixed-size segments that are either
+ * mapped from a file or allocated as direct buffers. Only a small index entry per trace (its
+ * {@link TraceSummary} and location) stays on the heap, so hours of traces can be retained
+ * without adding to GC work; trees are decoded from the segments on demand.
+ * <p>
+ * Trees are appended to the current segment. When one does not fit, writing moves on to the
+ * next segment of the ring, and the traces stored in it, which are the oldest, are dropped
+ * from the index before it is overwritten. Trees larger than a segment are not stored.
+ */
+public final class MappedTraceStore extends AbstractTraceStore {
+
+    private static final Logger log = LoggerFactory.getLogger(MappedTraceStore.class);
+
+    private record Location(int segment, int offset) {
+    }
+
+    private final ByteBuffer[] segments;
+    private final int segmentBytes;
+    private final FileChannel channel;
+    private int segment;
+    private int position;
+    private long storedBytes;
+
+    /**
+     * @param path         The file to map the segments from, or null to allocate them off-heap.
+     *                     An existing file is overwritten.
+     * @param segments     The number of segments in the ring.
+     * @param segmentBytes The size of each segment, which is also the largest tree stored.
+     * @param queueSize    The number of completed trees that may wait to be encoded.
+     */
+    public MappedTraceStore(Path path, int segments, int segmentBytes, int queueSize) throws IOException {
+        super(queueSize);
+        this.segments = new ByteBuffer[Math.max(2, segments)];
+        this.segmentBytes = Math.max(1024, segmentBytes);
+        if (path != null) {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            for (int i = 0; i < this.segments.length; i++) {
+                this.segments[i] = channel.map(FileChannel.MapMode.READ_WRITE,
+                        (long) i * this.segmentBytes, this.segmentBytes);
+            }
+        } else {
+            this.channel = null;
+            for (int i = 0; i < this.segments.length; i++) {
+                this.segments[i] = ByteBuffer.allocateDirect(this.segmentBytes);
+            }
+        }
+        start();
+    }
+
+    @Override
+    void store(TraceSummary summary, String[] terms, byte[] encoded) {
+        if (encoded.length > segmentBytes) {
+            log.debug("Trace {} takes {} bytes, more than a segment; not storing it.", summary.traceId(), encoded.length);
+            return;
+        }
+        if (position + encoded.length > segmentBytes) {
+            segment = (segment + 1) % segments.length;
+            position = 0;
+            // Traces are indexed in write order, so those in the segment about to be overwritten come first
+            while (index.size() > 0 && ((Location) index.oldest().location()).segment() == segment) {
+                storedBytes -= index.removeOldest().summary().encodedBytes();
+            }
+        }
+        segments[segment].put(position, encoded);
+        index.add(summary, terms, new Location(segment, position));
+        position += encoded.length;
+        storedBytes += encoded.length;
+    }
+
+    @Override
+    byte[] read(TraceIndex.Slot slot) {
+        Location location = (Location) slot.location();
+        byte[] encoded = new byte[slot.summary().encodedBytes()];
+        segments[location.segment()].get(location.offset(), encoded);
+        return encoded;
+    }
+
+    /**
+     * @return The size of the stored, encoded trees; the segments themselves take
+     * {@code segments * segmentBytes} regardless.
+     */
+    @Override
+    public synchronized long getStoredBytes() {
+        return storedBytes;
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Failed to close the trace store file: {}", e.getMessage());
+            }
+        }
+    }
+}
\ No newline at end of file
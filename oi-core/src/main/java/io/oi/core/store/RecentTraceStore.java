@@ -0,0 +1,52 @@
+package io.oi.core.store;
+
+/**
+ * Keeps the most recently completed trees on the heap, encoded with the {@link FlowTreeCodec}
+ * rather than as live object graphs.
+ * <p>
+ * The oldest traces are evicted once more than {@code maxTraces} are stored or their encoded
+ * size exceeds {@code maxBytes}. For retaining more traces than the heap should hold, see
+ * {@link MappedTraceStore}.
+ */
+public final class RecentTraceStore extends AbstractTraceStore {
+
+    /**
+     * The approximate heap taken by one entry besides its encoded tree.
+     */
+    static final int ENTRY_OVERHEAD = 160;
+
+    private final long maxBytes;
+    private final int maxTraces;
+    private long storedBytes;
+
+    /**
+     * @param maxBytes  The memory the stored traces may take.
+     * @param maxTraces The maximum number of traces stored.
+     * @param queueSize The number of completed trees that may wait to be encoded.
+     */
+    public RecentTraceStore(long maxBytes, int maxTraces, int queueSize) {
+        super(queueSize);
+        this.maxBytes = Math.max(0L, maxBytes);
+        this.maxTraces = Math.max(1, maxTraces);
+        start();
+    }
+
+    @Override
+    void store(TraceSummary summary, String[] terms, byte[] encoded) {
+        index.add(summary, terms, encoded);
+        storedBytes += encoded.length + ENTRY_OVERHEAD;
+        while (index.size() > maxTraces || (storedBytes > maxBytes && index.size() > 0)) {
+            storedBytes -= index.removeOldest().summary().encodedBytes() + ENTRY_OVERHEAD;
+        }
+    }
+
+    @Override
+    byte[] read(TraceIndex.Slot slot) {
+        return (byte[]) slot.location();
+    }
+
+    @Override
+    public synchronized long getStoredBytes() {
+        return storedBytes;
+    }
+}
\ No newline at end of file
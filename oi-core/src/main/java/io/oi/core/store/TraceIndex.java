@@ -0,0 +1,251 @@
+package io.oi.core.store;
+
+import io.oi.core.model.FlowCallNode;
+import io.oi.core.model.FlowTree;
+import io.oi.core.model.event.DbQueryEvent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The on-heap index of a {@link TraceStore}: the stored traces in the order they were stored,
+ * and inverted indexes from the methods, SQL fingerprints and exception types in them to the
+ * traces containing them.
+ * <p>
+ * Every stored trace gets the next sequence number and a slot in a ring of slots. Each term
+ * has a posting list of the sequence numbers of the traces containing it: a {@code long[]}
+ * that is appended to as traces arrive and consumed from the front as they are evicted, which
+ * stores always do oldest first. A slot references the posting lists of its terms rather than
+ * the terms themselves, so each distinct term string is held once, as its posting map key, and
+ * the heap taken per stored trace does not grow with the trace's contents beyond one reference
+ * per term. Queries naming several terms intersect their posting lists,
+ * starting from the shortest, so their cost depends on how selective the terms are rather
+ * than on the number of stored traces.
+ * <p>
+ * Not thread-safe; stores guard it with their own lock.
+ */
+final class TraceIndex {
+
+    /**
+     * One stored trace.
+     *
+     * @param location Where the store keeps the encoded tree.
+     */
+    record Slot(long seq, TraceSummary summary, PostingList[] postings, Object location) {
+    }
+
+    /**
+     * A growable list of ascending sequence numbers, consumed from the front.
+     */
+    static final class PostingList {
+        private final String term;
+        private long[] values = new long[4];
+        private int start;
+        private int end;
+
+        PostingList(String term) {
+            this.term = term;
+        }
+
+        void add(long seq) {
+            if (end == values.length) {
+                if (start > values.length / 2) {
+                    System.arraycopy(values, start, values, 0, end - start);
+                } else {
+                    values = Arrays.copyOf(values, values.length * 2);
+                    System.arraycopy(values, start, values, 0, end - start);
+                }
+                end -= start;
+                start = 0;
+            }
+            values[end++] = seq;
+        }
+
+        /**
+         * Removes {@code seq} if it is the first entry.
+         */
+        void removeFirst(long seq) {
+            if (start < end && values[start] == seq) {
+                start++;
+            }
+        }
+
+        int size() {
+            return end - start;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOfRange(values, start, end);
+        }
+
+        boolean contains(long seq) {
+            return Arrays.binarySearch(values, start, end, seq) >= 0;
+        }
+    }
+
+    private Slot[] slots = new Slot[64];
+    private int head;
+    private int count;
+    private long nextSeq;
+    private final Map<String, Slot> byTraceId = new HashMap<>();
+    private final Map<String, PostingList> postings = new HashMap<>();
+
+    /**
+     * @return The terms a tree is indexed under: {@code method:class.method} for every node,
+     * {@code sql:fingerprint} for every statement and {@code exception:type} for every exception.
+     */
+    static String[] terms(FlowTree tree) {
+        Set<String> terms = new LinkedHashSet<>();
+        collect(tree.getRootNode(), terms);
+        return terms.toArray(new String[0]);
+    }
+
+    private static void collect(FlowCallNode node, Set<String> terms) {
+        terms.add(methodTerm(node.getMethodDetails().className().replace('/', '.') + "." + node.getMethodDetails().methodName()));
+        for (DbQueryEvent event : node.getDbEvents()) {
+            if (event.fingerprint() != null) {
+                terms.add(sqlTerm(event.fingerprint()));
+            }
+        }
+        if (node.getException() != null) {
+            terms.add(exceptionTerm(node.getException().type()));
+        }
+        for (FlowCallNode child : node.getChildren()) {
+            collect(child, terms);
+        }
+    }
+
+    static String methodTerm(String method) {
+        return "method:" + method;
+    }
+
+    static String sqlTerm(String fingerprint) {
+        return "sql:" + fingerprint;
+    }
+
+    static String exceptionTerm(String type) {
+        return "exception:" + type;
+    }
+
+    Slot add(TraceSummary summary, String[] terms, Object location) {
+        if (count == slots.length) {
+            Slot[] grown = new Slot[slots.length * 2];
+            for (int i = 0; i < count; i++) {
+                grown[i] = slots[(head + i) % slots.length];
+            }
+            slots = grown;
+            head = 0;
+        }
+        long seq = nextSeq++;
+        PostingList[] lists = new PostingList[terms.length];
+        for (int i = 0; i < terms.length; i++) {
+            lists[i] = postings.computeIfAbsent(terms[i], PostingList::new);
+            lists[i].add(seq);
+        }
+        Slot slot = new Slot(seq, summary, lists, location);
+        slots[(head + count++) % slots.length] = slot;
+        byTraceId.put(summary.traceId(), slot);
+        return slot;
+    }
+
+    /**
+     * @return The oldest stored trace, or null if there is none.
+     */
+    Slot oldest() {
+        return count == 0 ? null : slots[head];
+    }
+
+    /**
+     * Removes the oldest stored trace from the index.
+     *
+     * @return The removed trace, or null if there is none.
+     */
+    Slot removeOldest() {
+        if (count == 0) {
+            return null;
+        }
+        Slot slot = slots[head];
+        slots[head] = null;
+        head = (head + 1) % slots.length;
+        count--;
+        byTraceId.remove(slot.summary().traceId(), slot);
+        for (PostingList list : slot.postings()) {
+            list.removeFirst(slot.seq());
+            if (list.size() == 0) {
+                postings.remove(list.term, list);
+            }
+        }
+        return slot;
+    }
+
+    Slot get(String traceId) {
+        return byTraceId.get(traceId);
+    }
+
+    int size() {
+        return count;
+    }
+
+    /**
+     * @return The number of distinct terms indexed.
+     */
+    int terms() {
+        return postings.size();
+    }
+
+    /**
+     * @return Summaries of the traces matching {@code query}, most recent first.
+     */
+    List<TraceSummary> query(TraceQuery query) {
+        List<TraceSummary> result = new ArrayList<>();
+        List<String> terms = query.terms();
+        if (terms.isEmpty()) {
+            for (int i = count - 1; i >= 0 && result.size() < query.limit(); i--) {
+                TraceSummary summary = slots[(head + i) % slots.length].summary();
+                if (query.matches(summary)) {
+                    result.add(summary);
+                }
+            }
+            return result;
+        }
+        long[] seqs = intersect(terms);
+        long firstSeq = count == 0 ? 0L : slots[head].seq();
+        for (int i = seqs.length - 1; i >= 0 && result.size() < query.limit(); i--) {
+            TraceSummary summary = slots[(int) ((head + seqs[i] - firstSeq) % slots.length)].summary();
+            if (query.matches(summary)) {
+                result.add(summary);
+            }
+        }
+        return result;
+    }
+
+    private long[] intersect(List<String> terms) {
+        List<PostingList> lists = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            PostingList list = postings.get(term);
+            if (list == null) {
+                return new long[0];
+            }
+            lists.add(list);
+        }
+        lists.sort((a, b) -> Integer.compare(a.size(), b.size()));
+        long[] candidates = lists.get(0).toArray();
+        int matched = candidates.length;
+        for (int l = 1; l < lists.size() && matched > 0; l++) {
+            PostingList list = lists.get(l);
+            int kept = 0;
+            for (int i = 0; i < matched; i++) {
+                if (list.contains(candidates[i])) {
+                    candidates[kept++] = candidates[i];
+                }
+            }
+            matched = kept;
+        }
+        return Arrays.copyOf(candidates, matched);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,64 @@
+package io.oi.core.store;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Selects stored traces. Null criteria match every trace.
+ *
+ * @param entryPoint       A substring of the root's {@code class.method}.
+ * @param minDurationNanos The minimum duration of the root.
+ * @param failed           Whether the root completed with an exception.
+ * @param fromEpochMillis  The earliest start time, inclusive.
+ * @param toEpochMillis    The latest start time, exclusive.
+ * @param limit            The maximum number of traces returned.
+ * @param method           A method, as {@code class.method}, called anywhere in the trace.
+ * @param sqlFingerprint   The fingerprint of a statement executed anywhere in the trace.
+ * @param exceptionType    The class name of an exception thrown anywhere in the trace.
+ */
+public record TraceQuery(
+    String entryPoint,
+    Long minDurationNanos,
+    Boolean failed,
+    Long fromEpochMillis,
+    Long toEpochMillis,
+    int limit,
+    String method,
+    String sqlFingerprint,
+    String exceptionType
+) {
+
+    public TraceQuery(String entryPoint, Long minDurationNanos, Boolean failed, Long fromEpochMillis,
+                      Long toEpochMillis, int limit) {
+        this(entryPoint, minDurationNanos, failed, fromEpochMillis, toEpochMillis, limit, null, null, null);
+    }
+
+    /**
+     * @return Whether the summary of a trace matches the criteria other than those answered by
+     * the {@link TraceIndex}.
+     */
+    public boolean matches(TraceSummary summary) {
+        return (entryPoint == null || summary.entryPoint().contains(entryPoint))
+                && (minDurationNanos == null || summary.durationNanos() >= minDurationNanos)
+                && (failed == null || summary.failed() == failed)
+                && (fromEpochMillis == null || summary.startEpochMillis() >= fromEpochMillis)
+                && (toEpochMillis == null || summary.startEpochMillis() < toEpochMillis);
+    }
+
+    /**
+     * @return The index terms every matching trace contains.
+     */
+    List<String> terms() {
+        List<String> terms = new ArrayList<>(3);
+        if (method != null) {
+            terms.add(TraceIndex.methodTerm(method));
+        }
+        if (sqlFingerprint != null) {
+            terms.add(TraceIndex.sqlTerm(sqlFingerprint));
+        }
+        if (exceptionType != null) {
+            terms.add(TraceIndex.exceptionTerm(exceptionType));
+        }
+        return terms;
+    }
+}
\ No newline at end of file
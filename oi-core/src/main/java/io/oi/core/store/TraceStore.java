@@ -0,0 +1,32 @@
+package io.oi.core.store;
+
+import io.oi.core.model.FlowTree;
+
+import java.util.List;
+
+/**
+ * Keeps recently completed trees in the application so they can be looked at when the
+ * central collector is unavailable or did not keep the trace of interest.
+ */
+public interface TraceStore {
+
+    /**
+     * @return Summaries of the stored traces matching {@code query}, most recent first.
+     */
+    List<TraceSummary> query(TraceQuery query);
+
+    /**
+     * @return The stored tree with the given ID, or null if it is not (or no longer) stored.
+     */
+    FlowTree get(String traceId);
+
+    /**
+     * @return The number of traces stored.
+     */
+    int size();
+
+    /**
+     * @return The memory the stored traces take, in bytes.
+     */
+    long getStoredBytes();
+}
\ No newline at end of file
@@ -0,0 +1,21 @@
+package io.oi.core.store;
+
+/**
+ * Describes one stored trace without decoding it.
+ *
+ * @param traceId          The trace's ID.
+ * @param entryPoint       The root method as {@code class.method}.
+ * @param startEpochMillis The wall-clock time the root started.
+ * @param durationNanos    The root's duration.
+ * @param failed           Whether the root completed with an exception.
+ * @param encodedBytes     The size of the stored, encoded tree.
+ */
+public record TraceSummary(
+    String traceId,
+    String entryPoint,
+    long startEpochMillis,
+    long durationNanos,
+    boolean failed,
+    int encodedBytes
+) {
+}
\ No newline at end of file
@@ -0,0 +1,254 @@
+package io.oi.core.trace;
+
+import io.oi.core.model.ExecutionDetails;
+import io.oi.core.model.FlowCallNode;
+import io.oi.core.model.FlowTree;
+import io.oi.core.model.MethodDetails;
+import io.oi.core.model.ThreadInfo;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The traces currently in flight on all threads, so that requests that are stuck, and where,
+ * can be seen from outside the threads running them.
+ * <p>
+ * A trace is registered when its root node starts and removed when the root completes; that
+ * is two updates of a {@link ConcurrentHashMap}, whose locking is striped per bin, per trace.
+ * The open call stack of a live trace is read from its tree: starting at the root, the last
+ * child that has not completed yet is followed down. Children lists are copy-on-write, so a
+ * snapshot never fails, but it may miss a call that started or ended while it was being taken.
+ * <p>
+ * At most {@value #MAX_ACTIVE} traces are tracked. Traces whose thread died without completing
+ * their root, and traces older than {@link #MAX_AGE_NANOS}, whose root was most likely left open
+ * on a pooled thread that lives on, are pruned when snapshots are taken and when the registry
+ * is full.
+ */
+public final class ActiveTraceRegistry {
+
+    static final int MAX_ACTIVE = 10_000;
+    static final long MAX_AGE_NANOS = TimeUnit.HOURS.toNanos(6);
+
+    /**
+     * One open call of a live trace.
+     *
+     * @param className    The class of the called method.
+     * @param methodName   The called method.
+     * @param elapsedNanos The time since the call started.
+     */
+    public record Frame(
+        String className,
+        String methodName,
+        long elapsedNanos
+    ) {
+    }
+
+    /**
+     * A point-in-time view of one live trace.
+     *
+     * @param traceId          The ID the trace will be emitted with.
+     * @param threadId         The ID of the thread running the root.
+     * @param threadName       The name of that thread.
+     * @param startEpochMillis The wall-clock time the root started.
+     * @param elapsedNanos     The time since the root started.
+     * @param stack            The open calls, from the root to the innermost.
+     */
+    public record Snapshot(
+        String traceId,
+        long threadId,
+        String threadName,
+        long startEpochMillis,
+        long elapsedNanos,
+        List<Frame> stack
+    ) {
+    }
+
+    /**
+     * The registration of one trace. The snapshot fields are only used by the {@link StuckTraceWatchdog}.
+     */
+    static final class ActiveTrace {
+        private final String traceId;
+        private final FlowCallNode root;
+        private final Thread thread;
+        private final long startEpochMillis;
+        int snapshots;
+        long nextSnapshotNanos;
+
+        ActiveTrace(String traceId, FlowCallNode root, Thread thread, long startEpochMillis) {
+            this.traceId = traceId;
+            this.root = root;
+            this.thread = thread;
+            this.startEpochMillis = startEpochMillis;
+        }
+
+        String traceId() {
+            return traceId;
+        }
+
+        FlowCallNode root() {
+            return root;
+        }
+
+        Thread thread() {
+            return thread;
+        }
+
+        long startEpochMillis() {
+            return startEpochMillis;
+        }
+
+        long elapsedNanos(long now) {
+            return now - root.getExecutionDetails().getStartNanos();
+        }
+    }
+
+    private static final Map<FlowCallNode, ActiveTrace> active = new ConcurrentHashMap<>();
+
+    private ActiveTraceRegistry() {
+        // Static utility class
+    }
+
+    /**
+     * Registers a trace whose root node just started on the current thread, assigning it
+     * the ID it will be emitted with.
+     */
+    static void register(FlowCallNode root) {
+        if (active.size() >= MAX_ACTIVE) {
+            prune(System.nanoTime());
+        }
+        if (active.size() < MAX_ACTIVE) {
+            TraceBudget budget = root.getBudget();
+            active.put(root, new ActiveTrace(UUID.randomUUID().toString(), root, Thread.currentThread(),
+                    budget != null ? budget.startEpochMillis() : System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * Removes the trace of a completed root node.
+     *
+     * @return The trace's ID, or null if it was not registered.
+     */
+    static String unregister(FlowCallNode root) {
+        ActiveTrace trace = active.remove(root);
+        return trace == null ? null : trace.traceId();
+    }
+
+    /**
+     * @return The registrations of the traces in flight; a live view.
+     */
+    static Collection<ActiveTrace> active() {
+        return active.values();
+    }
+
+    /**
+     * @return The number of traces in flight.
+     */
+    public static int size() {
+        return active.size();
+    }
+
+    /**
+     * @return A snapshot of every trace in flight, longest running first.
+     */
+    public static List<Snapshot> snapshot() {
+        long now = System.nanoTime();
+        prune(now);
+        List<Snapshot> snapshots = new ArrayList<>(active.size());
+        for (ActiveTrace trace : active.values()) {
+            snapshots.add(snapshot(trace, now));
+        }
+        snapshots.sort(Comparator.comparingLong(Snapshot::elapsedNanos).reversed());
+        return snapshots;
+    }
+
+    /**
+     * @return A snapshot of the trace in flight with the given ID, or null if there is none.
+     */
+    public static Snapshot snapshot(String traceId) {
+        ActiveTrace trace = find(traceId);
+        return trace == null ? null : snapshot(trace, System.nanoTime());
+    }
+
+    /**
+     * Returns the live tree of a trace in flight. Its nodes keep changing while the trace runs,
+     * and its {@code endNanos} is not set.
+     *
+     * @return The trace's tree, or null if no trace with that ID is in flight.
+     */
+    public static FlowTree liveTree(String traceId) {
+        ActiveTrace trace = find(traceId);
+        return trace == null ? null : liveTree(trace);
+    }
+
+    /**
+     * @return The live tree of the most recently started trace not running on the current
+     * thread, or null if there is none.
+     */
+    public static FlowTree latestTree() {
+        Thread current = Thread.currentThread();
+        ActiveTrace latest = null;
+        for (ActiveTrace trace : active.values()) {
+            if (trace.thread() != current && (latest == null || trace.startEpochMillis() > latest.startEpochMillis())) {
+                latest = trace;
+            }
+        }
+        return latest == null ? null : liveTree(latest);
+    }
+
+    /**
+     * Removes the traces whose thread died, or that are older than {@link #MAX_AGE_NANOS}.
+     */
+    private static void prune(long now) {
+        active.values().removeIf(trace -> !trace.thread().isAlive() || trace.elapsedNanos(now) > MAX_AGE_NANOS);
+    }
+
+    private static ActiveTrace find(String traceId) {
+        for (ActiveTrace trace : active.values()) {
+            if (trace.traceId().equals(traceId)) {
+                return trace;
+            }
+        }
+        return null;
+    }
+
+    static FlowTree liveTree(ActiveTrace trace) {
+        FlowCallNode root = trace.root();
+        TraceBudget budget = root.getBudget();
+        FlowTree tree = new FlowTree(trace.traceId(), root, root.getExecutionDetails().getStartNanos(), 0L,
+                null, budget == null ? null : budget.truncation(), null, budget == null ? null : budget.threads(), null);
+        tree.setStartEpochMillis(trace.startEpochMillis());
+        return tree;
+    }
+
+    static Snapshot snapshot(ActiveTrace trace, long now) {
+        List<Frame> stack = new ArrayList<>();
+        for (FlowCallNode node = trace.root(); node != null; node = innermostOpenChild(node)) {
+            MethodDetails method = node.getMethodDetails();
+            stack.add(new Frame(method.className(), method.methodName(),
+                    now - node.getExecutionDetails().getStartNanos()));
+        }
+        ExecutionDetails root = trace.root().getExecutionDetails();
+        ThreadInfo thread = root.getThreadInfo();
+        return new Snapshot(trace.traceId(), trace.thread().threadId(),
+                thread != null ? thread.threadName() : trace.thread().getName(),
+                trace.startEpochMillis(), trace.elapsedNanos(now), stack);
+    }
+
+    private static FlowCallNode innermostOpenChild(FlowCallNode node) {
+        List<FlowCallNode> children = node.getChildren();
+        for (int i = children.size() - 1; i >= 0; i--) {
+            FlowCallNode child = children.get(i);
+            // Aggregate nodes of folded calls are never open themselves
+            if (child.getFolded() == null && child.getExecutionDetails().getEndNanos() == 0L) {
+                return child;
+            }
+        }
+        return null;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,131 @@
+package io.oi.core.trace;
+
+import io.oi.core.model.FlowCallNode;
+
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * A task that was handed off to another thread while a trace was active.
+ * <p>
+ * The wrapper captures the submitting thread's current {@link FlowCallNode} and the
+ * submission time. When the task runs, the worker-side execution is attached to the
+ * captured node as a child, with the time spent queued recorded on that child. If the
+ * submitting trace has completed by then, the task starts a trace of its own linked to it
+ * instead; if the submitting trace is not recorded, neither is the task.
+ * Instances are created by {@link Tracer#wrap(Runnable)} and its overloads.
+ */
+abstract class AsyncTask {
+
+    /**
+     * The worker-side state of a running task: the frame pushed for it, whether its node is
+     * the root of a linked trace, and the call stack the worker thread held before the task started.
+     */
+    record Scope(CallStackCarrier carrier, Object previous, CallFrame frame, boolean root) {
+    }
+
+    private final FlowCallNode parent;
+    private final long submitNanos;
+
+    /**
+     * @param parent The submitting node, or null if the submitting trace is not recorded.
+     */
+    AsyncTask(FlowCallNode parent) {
+        this.parent = parent;
+        this.submitNanos = System.nanoTime();
+    }
+
+    abstract Object delegate();
+
+    Scope begin(String methodName, String methodDesc) {
+        return Tracer.beginAsync(parent, submitNanos, delegate().getClass().getName(), methodName, methodDesc);
+    }
+
+    void end(Scope scope, Throwable exception) {
+        Tracer.endAsync(scope, exception);
+    }
+
+    static final class OfRunnable extends AsyncTask implements Runnable {
+        private final Runnable task;
+
+        OfRunnable(Runnable task, FlowCallNode parent) {
+            super(parent);
+            this.task = task;
+        }
+
+        @Override
+        Object delegate() {
+            return task;
+        }
+
+        @Override
+        public void run() {
+            Scope scope = begin("run", "()V");
+            Throwable failure = null;
+            try {
+                task.run();
+            } catch (Throwable t) {
+                failure = t;
+                throw t;
+            } finally {
+                end(scope, failure);
+            }
+        }
+    }
+
+    static final class OfCallable<V> extends AsyncTask implements Callable<V> {
+        private final Callable<V> task;
+
+        OfCallable(Callable<V> task, FlowCallNode parent) {
+            super(parent);
+            this.task = task;
+        }
+
+        @Override
+        Object delegate() {
+            return task;
+        }
+
+        @Override
+        public V call() throws Exception {
+            Scope scope = begin("call", "()Ljava/lang/Object;");
+            Throwable failure = null;
+            try {
+                return task.call();
+            } catch (Throwable t) {
+                failure = t;
+                throw t;
+            } finally {
+                end(scope, failure);
+            }
+        }
+    }
+
+    static final class OfSupplier<V> extends AsyncTask implements Supplier<V> {
+        private final Supplier<V> task;
+
+        OfSupplier(Supplier<V> task, FlowCallNode parent) {
+            super(parent);
+            this.task = task;
+        }
+
+        @Override
+        Object delegate() {
+            return task;
+        }
+
+        @Override
+        public V get() {
+            Scope scope = begin("get", "()Ljava/lang/Object;");
+            Throwable failure = null;
+            try {
+                return task.get();
+            } catch (Throwable t) {
+                failure = t;
+                throw t;
+            } finally {
+                end(scope, failure);
+            }
+        }
+    }
+}
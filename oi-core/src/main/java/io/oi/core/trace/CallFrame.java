@@ -0,0 +1,67 @@
+package io.oi.core.trace;
+
+import io.oi.core.model.FlowCallNode;
+
+/**
+ * An entry of a {@link CallStackCarrier}: one open call on the executing thread.
+ * <p>
+ * The frame of a recorded call holds the call's node. A call in a trace that is not recorded,
+ * or beyond its trace's size limits, gets no node; its frame only keeps what the call's
+ * {@link io.oi.core.metrics.MethodMetrics} need when it ends and, within a recorded trace,
+ * the node its events and child calls are attributed to.
+ */
+final class CallFrame {
+
+    enum Kind {
+        /** A call with a node of its own. */
+        RECORDED,
+        /** A call in a trace that is not recorded. */
+        UNSAMPLED,
+        /** Folded into {@link CallFrame#node}, an aggregate node holding {@code FoldedCalls}. */
+        FOLDED,
+        /** A direct recursion, merged into the recursing node {@link CallFrame#node}. */
+        COLLAPSED,
+        /** Beyond the limits; only attributed to the nearest recorded ancestor {@link CallFrame#node}. */
+        DROPPED
+    }
+
+    /**
+     * The node events and child calls go to, or null in a trace that is not recorded.
+     */
+    final FlowCallNode node;
+    final int methodId;
+    /**
+     * The time the call started, for frames without a node of their own; 0 otherwise.
+     */
+    final long startNanos;
+    final Kind kind;
+
+    private CallFrame(FlowCallNode node, int methodId, long startNanos, Kind kind) {
+        this.node = node;
+        this.methodId = methodId;
+        this.startNanos = startNanos;
+        this.kind = kind;
+    }
+
+    /**
+     * @return The frame of a call recorded as {@code node}.
+     */
+    static CallFrame recorded(FlowCallNode node) {
+        return new CallFrame(node, node.getMethodId(), 0L, Kind.RECORDED);
+    }
+
+    /**
+     * @return The frame of a call to {@code methodId} in a trace that is not recorded, starting now.
+     */
+    static CallFrame unsampled(int methodId) {
+        return new CallFrame(null, methodId, System.nanoTime(), Kind.UNSAMPLED);
+    }
+
+    /**
+     * @return The frame of a call to {@code methodId} beyond its trace's limits, starting now
+     * and attributed to {@code target} as {@code kind} says.
+     */
+    static CallFrame standIn(FlowCallNode target, int methodId, Kind kind) {
+        return new CallFrame(target, methodId, System.nanoTime(), kind);
+    }
+}
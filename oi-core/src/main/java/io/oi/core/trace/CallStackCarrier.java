@@ -0,0 +1,44 @@
+package io.oi.core.trace;
+
+import java.util.Deque;
+
+/**
+ * Holds the stack of open calls, as {@link CallFrame}s, for the executing thread.
+ * <p>
+ * The carrier is selected once via {@code context.carrier} and used by {@link Tracer}
+ * for every push and pop. Implementations only ever touch the current thread's state.
+ */
+interface CallStackCarrier {
+
+    /**
+     * @return The innermost open call, or {@code null} if no trace is active on this thread.
+     */
+    CallFrame peek();
+
+    void push(CallFrame frame);
+
+    /**
+     * @return The frame that was removed, or {@code null} if the stack was already empty.
+     */
+    CallFrame pop();
+
+    boolean isEmpty();
+
+    /**
+     * @return A copy of the open calls, innermost first.
+     */
+    Deque<CallFrame> snapshot();
+
+    /**
+     * Detaches and returns this thread's state, leaving the thread with an empty stack.
+     *
+     * @return An opaque handle to pass back to {@link #resume(Object)}, possibly {@code null}.
+     */
+    Object suspend();
+
+    /**
+     * Re-installs state previously returned by {@link #suspend()}, replacing whatever the
+     * thread currently holds.
+     */
+    void resume(Object state);
+}
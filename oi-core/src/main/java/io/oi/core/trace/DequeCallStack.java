@@ -0,0 +1,73 @@
+package io.oi.core.trace;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * The default carrier: a {@link ThreadLocal} {@link ArrayDeque} per thread.
+ * <p>
+ * The deque is created on the first push and removed again when the stack empties, so
+ * threads that only ever query the stack do not retain one.
+ */
+final class DequeCallStack implements CallStackCarrier {
+
+    private final ThreadLocal<Deque<CallFrame>> stack = new ThreadLocal<>();
+
+    @Override
+    public CallFrame peek() {
+        Deque<CallFrame> current = stack.get();
+        return current == null ? null : current.peek();
+    }
+
+    @Override
+    public void push(CallFrame frame) {
+        Deque<CallFrame> current = stack.get();
+        if (current == null) {
+            current = new ArrayDeque<>();
+            stack.set(current);
+        }
+        current.push(frame);
+    }
+
+    @Override
+    public CallFrame pop() {
+        Deque<CallFrame> current = stack.get();
+        if (current == null) {
+            return null;
+        }
+        CallFrame frame = current.poll();
+        if (current.isEmpty()) {
+            stack.remove();
+        }
+        return frame;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        Deque<CallFrame> current = stack.get();
+        return current == null || current.isEmpty();
+    }
+
+    @Override
+    public Deque<CallFrame> snapshot() {
+        Deque<CallFrame> current = stack.get();
+        return current == null ? new ArrayDeque<>() : new ArrayDeque<>(current);
+    }
+
+    @Override
+    public Object suspend() {
+        Deque<CallFrame> current = stack.get();
+        stack.remove();
+        return current;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void resume(Object state) {
+        if (state == null) {
+            stack.remove();
+        } else {
+            stack.set((Deque<CallFrame>) state);
+        }
+    }
+}
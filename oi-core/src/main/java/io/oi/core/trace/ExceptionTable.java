@@ -0,0 +1,115 @@
+package io.oi.core.trace;
+
+import io.oi.core.exception.ExceptionStatistics;
+import io.oi.core.model.ExceptionInfo;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reduces the exceptions thrown within one trace to {@link ExceptionInfo}s and collects the
+ * trace's distinct stacks, keyed by a hash of their top frames.
+ * <p>
+ * An exception propagating up the tree completes one node per method it passes through; only
+ * the first of them gets the full description, the others a {@link ExceptionInfo#asRethrow()
+ * reference}. Only the last recorded exception is remembered for this, which covers unchanged
+ * propagation; an exception caught and rethrown after another one was thrown is described again.
+ */
+final class ExceptionTable {
+
+    /**
+     * The maximum number of distinct stacks kept per trace; further exceptions still get a
+     * {@code stackHash}, but their frames are not stored.
+     */
+    static final int MAX_STACKS = 64;
+
+    private final int maxStackDepth;
+    private final int maxMessageLength;
+    private final boolean countSites;
+    private Map<String, List<String>> stacks;
+    private Throwable last;
+    private ExceptionInfo lastInfo;
+
+    /**
+     * @param maxStackDepth    The number of top frames hashed and stored per stack.
+     * @param maxMessageLength The number of message characters kept.
+     * @param countSites       Whether to count new exceptions in {@link ExceptionStatistics}.
+     */
+    ExceptionTable(int maxStackDepth, int maxMessageLength, boolean countSites) {
+        this.maxStackDepth = Math.max(0, maxStackDepth);
+        this.maxMessageLength = Math.max(0, maxMessageLength);
+        this.countSites = countSites;
+    }
+
+    synchronized ExceptionInfo record(Throwable exception) {
+        if (exception == last) {
+            return lastInfo.asRethrow();
+        }
+        StackTraceElement[] trace = exception.getStackTrace();
+        int depth = Math.min(trace.length, maxStackDepth);
+        String stackHash = null;
+        String site = null;
+        if (depth > 0) {
+            List<String> frames = new ArrayList<>(depth);
+            long hash = 1125899906842597L;
+            for (int i = 0; i < depth; i++) {
+                String frame = frame(trace[i]);
+                frames.add(frame);
+                hash = 31 * hash + frame.hashCode();
+            }
+            stackHash = Long.toHexString(hash);
+            site = frames.get(0);
+            if (stacks == null) {
+                stacks = new LinkedHashMap<>();
+            }
+            if (stacks.size() < MAX_STACKS) {
+                stacks.putIfAbsent(stackHash, frames);
+            }
+        }
+        String type = exception.getClass().getName();
+        Throwable cause = rootCause(exception);
+        ExceptionInfo info = new ExceptionInfo(type, truncate(exception.getMessage()), stackHash,
+                cause == null ? null : cause.getClass().getName(), false);
+        if (countSites) {
+            ExceptionStatistics.record(type, site);
+        }
+        last = exception;
+        lastInfo = info;
+        return info;
+    }
+
+    /**
+     * @return The distinct stacks recorded so far, by hash.
+     */
+    synchronized Map<String, List<String>> stacks() {
+        return stacks == null ? Map.of() : new LinkedHashMap<>(stacks);
+    }
+
+    private String truncate(String message) {
+        if (message == null || message.length() <= maxMessageLength) {
+            return message;
+        }
+        return message.substring(0, maxMessageLength) + "...";
+    }
+
+    private static String frame(StackTraceElement element) {
+        return element.getClassName() + "." + element.getMethodName() + ":" + element.getLineNumber();
+    }
+
+    private static Throwable rootCause(Throwable exception) {
+        Throwable cause = null;
+        Throwable current = exception.getCause();
+        // Bounded, as cause chains can be cyclic
+        for (int i = 0; current != null && current != exception && i < 16; i++) {
+            cause = current;
+            Throwable next = current.getCause();
+            if (next == current) {
+                break;
+            }
+            current = next;
+        }
+        return cause;
+    }
+}
\ No newline at end of file
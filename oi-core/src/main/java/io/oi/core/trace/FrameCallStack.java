@@ -0,0 +1,77 @@
+package io.oi.core.trace;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * A carrier for virtual-thread workloads, where hundreds of thousands of short-lived
+ * threads each run a small part of a trace.
+ * <p>
+ * Instead of a per-thread {@link ArrayDeque} (and its backing array), the open calls form
+ * an immutable linked chain of {@link Frame}s. The thread-local slot holds only the
+ * innermost frame while a trace is active and is cleared when the outermost call pops, so
+ * an idle virtual thread carries no tracing state at all. Because frames are immutable, a
+ * suspended chain can be handed to another thread without copying.
+ */
+final class FrameCallStack implements CallStackCarrier {
+
+    private record Frame(CallFrame call, Frame parent) {
+    }
+
+    private final ThreadLocal<Frame> top = new ThreadLocal<>();
+
+    @Override
+    public CallFrame peek() {
+        Frame frame = top.get();
+        return frame == null ? null : frame.call();
+    }
+
+    @Override
+    public void push(CallFrame call) {
+        top.set(new Frame(call, top.get()));
+    }
+
+    @Override
+    public CallFrame pop() {
+        Frame frame = top.get();
+        if (frame == null) {
+            return null;
+        }
+        if (frame.parent() == null) {
+            top.remove();
+        } else {
+            top.set(frame.parent());
+        }
+        return frame.call();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return top.get() == null;
+    }
+
+    @Override
+    public Deque<CallFrame> snapshot() {
+        Deque<CallFrame> copy = new ArrayDeque<>();
+        for (Frame frame = top.get(); frame != null; frame = frame.parent()) {
+            copy.addLast(frame.call());
+        }
+        return copy;
+    }
+
+    @Override
+    public Object suspend() {
+        Frame frame = top.get();
+        top.remove();
+        return frame;
+    }
+
+    @Override
+    public void resume(Object state) {
+        if (state == null) {
+            top.remove();
+        } else {
+            top.set((Frame) state);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package io.oi.core.trace;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Assigns a stable, dense integer ID to every instrumented method.
+ * <p>
+ * IDs are assigned at transformation time by the {@link io.oi.core.agent.OiMethodAdapter}
+ * and woven into the {@code startTrace} and {@code enter} calls as a constant, so the hot path can index
+ * per-method state directly instead of hashing class and method names on every call.
+ * IDs are never reused for the lifetime of the JVM.
+ */
+public final class MethodRegistry {
+
+    /**
+     * The identity of a registered method. {@code className} is in internal form
+     * (e.g. {@code com/mycompany/OrderService}).
+     */
+    public record MethodInfo(int id, String className, String methodName, String methodDesc) {
+
+        /**
+         * @return The method as {@code com.mycompany.OrderService.reprice}.
+         */
+        public String qualifiedName() {
+            return className.replace('/', '.') + "." + methodName;
+        }
+    }
+
+    private static final Map<String, Integer> idsByKey = new ConcurrentHashMap<>();
+    private static volatile MethodInfo[] methods = new MethodInfo[256];
+    private static volatile int count;
+
+    private MethodRegistry() {
+        // Static utility class
+    }
+
+    /**
+     * Returns the ID for a method, registering it if it has not been seen before.
+     */
+    public static int register(String className, String methodName, String methodDesc) {
+        String key = className + "#" + methodName + "#" + methodDesc;
+        Integer id = idsByKey.get(key);
+        if (id != null) {
+            return id;
+        }
+        synchronized (MethodRegistry.class) {
+            id = idsByKey.get(key);
+            if (id != null) {
+                return id;
+            }
+            int newId = count;
+            MethodInfo[] table = methods;
+            if (newId == table.length) {
+                table = Arrays.copyOf(table, table.length * 2);
+            }
+            table[newId] = new MethodInfo(newId, className, methodName, methodDesc);
+            methods = table;
+            count = newId + 1;
+            idsByKey.put(key, newId);
+            return newId;
+        }
+    }
+
+    /**
+     * @return The method registered under {@code id}, or {@code null} if there is none.
+     */
+    public static MethodInfo get(int id) {
+        int registered = count;
+        return id >= 0 && id < registered ? methods[id] : null;
+    }
+
+    /**
+     * @return The number of registered methods; valid IDs are {@code 0} to {@code size() - 1}.
+     */
+    public static int size() {
+        return count;
+    }
+}
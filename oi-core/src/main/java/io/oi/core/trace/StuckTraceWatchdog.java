@@ -0,0 +1,119 @@
+package io.oi.core.trace;
+
+import io.oi.core.config.OiCoreProperties;
+import io.oi.core.emitter.FlowEmitter;
+import io.oi.core.model.FlowTree;
+import io.oi.core.model.IncompleteTrace;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Emits snapshots of traces whose root has been running for longer than
+ * {@code stuck.thresholdMs}, so hung requests show up before they complete, or even if they
+ * never do.
+ * <p>
+ * A daemon thread scans the {@link ActiveTraceRegistry} every {@code stuck.scanIntervalMs}.
+ * The first snapshot of a trace is emitted once it crosses the threshold, each further one
+ * after its running time has doubled, up to {@code stuck.maxSnapshots}. Snapshots are the live
+ * tree with an {@link IncompleteTrace} marker holding the open call stack and the state, lock
+ * and Java stack of the root's thread. They go to the emitter only, not to the listeners,
+ * which expect completed trees.
+ */
+public final class StuckTraceWatchdog implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(StuckTraceWatchdog.class);
+
+    private final long thresholdNanos;
+    private final int maxSnapshots;
+    private final int maxStackDepth;
+    private final Supplier<FlowEmitter> emitter;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "oi-stuck-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Starts scanning.
+     *
+     * @param emitter Supplies the emitter at the time of each snapshot, or null to skip it.
+     */
+    StuckTraceWatchdog(OiCoreProperties.StuckProperties config, Supplier<FlowEmitter> emitter) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1L, config.getThresholdMs()));
+        this.maxSnapshots = Math.max(1, config.getMaxSnapshots());
+        this.maxStackDepth = Math.max(0, config.getMaxStackDepth());
+        this.emitter = emitter;
+        long interval = Math.max(10L, config.getScanIntervalMs());
+        scheduler.scheduleWithFixedDelay(this::scan, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Emits a snapshot of every trace that is due for one.
+     */
+    void scan() {
+        try {
+            FlowEmitter target = emitter.get();
+            if (target == null) {
+                return;
+            }
+            long now = System.nanoTime();
+            for (ActiveTraceRegistry.ActiveTrace trace : ActiveTraceRegistry.active()) {
+                long elapsed = trace.elapsedNanos(now);
+                if (trace.snapshots >= maxSnapshots || elapsed < Math.max(thresholdNanos, trace.nextSnapshotNanos)) {
+                    continue;
+                }
+                trace.snapshots++;
+                trace.nextSnapshotNanos = elapsed * 2;
+                FlowTree tree = ActiveTraceRegistry.liveTree(trace);
+                tree.setIncomplete(describe(trace, trace.snapshots, now));
+                log.debug("Trace {} has been running for {} ms, emitting snapshot {}.",
+                        trace.traceId(), TimeUnit.NANOSECONDS.toMillis(elapsed), trace.snapshots);
+                target.emit(tree);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to scan for stuck traces: {}", e.getMessage());
+        }
+    }
+
+    private IncompleteTrace describe(ActiveTraceRegistry.ActiveTrace trace, int snapshot, long now) {
+        List<String> openStack = new ArrayList<>();
+        for (ActiveTraceRegistry.Frame frame : ActiveTraceRegistry.snapshot(trace, now).stack()) {
+            openStack.add(frame.className().replace('/', '.') + "." + frame.methodName());
+        }
+        Thread thread = trace.thread();
+        String state = thread.getState().name();
+        String lockName = null;
+        String lockOwner = null;
+        if (!thread.isVirtual()) {
+            // Virtual threads are not visible through the ThreadMXBean
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            java.lang.management.ThreadInfo info = threads.getThreadInfo(thread.threadId(), 0);
+            if (info != null) {
+                state = info.getThreadState().name();
+                lockName = info.getLockName();
+                lockOwner = info.getLockOwnerName();
+            }
+        }
+        StackTraceElement[] elements = thread.getStackTrace();
+        List<String> javaStack = new ArrayList<>(Math.min(elements.length, maxStackDepth));
+        for (int i = 0; i < elements.length && i < maxStackDepth; i++) {
+            javaStack.add(elements[i].getClassName() + "." + elements[i].getMethodName()
+                    + ":" + elements[i].getLineNumber());
+        }
+        return new IncompleteTrace(snapshot, trace.elapsedNanos(now), openStack, state, lockName, lockOwner, javaStack);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,233 @@
+package io.oi.core.trace;
+
+import io.oi.core.model.FlowCallNode;
+import io.oi.core.model.ThreadInfo;
+import io.oi.core.model.TraceTruncation;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The size limits of one trace and how much of them has been used. Created with the root
+ * node and shared by every node of the trace, including nodes completed on other threads,
+ * so all counters are atomic.
+ * <p>
+ * Besides {@code maxNodes} regular nodes, a trace may hold up to a tenth as many (at least
+ * 16) aggregate nodes that repeated calls are folded into once the regular limit is hit.
+ * The budget also carries the trace's {@link ExceptionTable} and thread table, being the
+ * one object all of its nodes share.
+ * <p>
+ * Once the root completes, the budget records the ID the trace was emitted with, so that
+ * tasks handed off from it and started afterwards do not attach to the emitted tree. Tasks
+ * still running by then are detached from it, to be emitted as linked traces of their own.
+ * Changes to the tree from threads other than the root's are made while holding the budget's
+ * lock, which completing the trace takes as well, so that none reaches the emitted tree.
+ */
+public final class TraceBudget {
+
+    private final int maxNodes;
+    private final int maxFoldedNodes;
+    private final int maxEvents;
+    private final AtomicInteger nodes = new AtomicInteger(1);
+    private final AtomicInteger foldedNodes = new AtomicInteger();
+    private final AtomicInteger events = new AtomicInteger();
+    private final AtomicLong foldedCalls = new AtomicLong();
+    private final AtomicLong collapsedCalls = new AtomicLong();
+    private final AtomicLong droppedCalls = new AtomicLong();
+    private final AtomicLong droppedEvents = new AtomicLong();
+    private final ExceptionTable exceptions;
+    private final Map<Long, ThreadInfo> threads = new ConcurrentHashMap<>(4);
+    private final String linkedTraceId;
+    private final long startEpochMillis = System.currentTimeMillis();
+    private volatile String completedTraceId;
+    /** The running tasks attached to the tree, by their parent; guarded by {@code this}. */
+    private Map<FlowCallNode, FlowCallNode> openTasks;
+    /** The tasks detached from the tree when it was emitted; guarded by {@code this}. */
+    private Set<FlowCallNode> detachedTasks;
+
+    TraceBudget(int maxNodes, int maxEvents, ExceptionTable exceptions) {
+        this(maxNodes, maxEvents, exceptions, null);
+    }
+
+    /**
+     * @param linkedTraceId The ID of the completed trace whose task started this one, or null.
+     */
+    TraceBudget(int maxNodes, int maxEvents, ExceptionTable exceptions, String linkedTraceId) {
+        this.maxNodes = Math.max(1, maxNodes);
+        this.maxFoldedNodes = Math.max(16, this.maxNodes / 10);
+        this.maxEvents = Math.max(0, maxEvents);
+        this.exceptions = exceptions;
+        this.linkedTraceId = linkedTraceId;
+    }
+
+    /**
+     * @return The wall-clock time the trace's root started, taken when the budget was created.
+     */
+    long startEpochMillis() {
+        return startEpochMillis;
+    }
+
+    /**
+     * @return The ID of the completed trace whose task started this one, or null.
+     */
+    String linkedTraceId() {
+        return linkedTraceId;
+    }
+
+    /**
+     * Records that the trace's root completed and the trace is emitted with {@code traceId},
+     * and detaches the tasks still running from the tree.
+     */
+    synchronized void complete(String traceId) {
+        completedTraceId = traceId;
+        if (openTasks != null) {
+            for (Map.Entry<FlowCallNode, FlowCallNode> task : openTasks.entrySet()) {
+                task.getValue().removeChild(task.getKey());
+                if (detachedTasks == null) {
+                    detachedTasks = Collections.newSetFromMap(new IdentityHashMap<>());
+                }
+                detachedTasks.add(task.getKey());
+            }
+            openTasks = null;
+        }
+    }
+
+    /**
+     * Attaches the node of a task started on another thread to {@code parent}, unless the
+     * trace has been emitted.
+     *
+     * @return Whether the task was attached.
+     */
+    synchronized boolean attachTask(FlowCallNode parent, FlowCallNode task) {
+        if (completedTraceId != null) {
+            return false;
+        }
+        if (openTasks == null) {
+            openTasks = new IdentityHashMap<>();
+        }
+        openTasks.put(task, parent);
+        parent.addChild(task);
+        return true;
+    }
+
+    /**
+     * Records that an attached task completed.
+     *
+     * @return Whether the trace was emitted while the task ran, detaching it from the tree.
+     */
+    synchronized boolean finishTask(FlowCallNode task) {
+        if (detachedTasks != null && detachedTasks.remove(task)) {
+            return true;
+        }
+        if (openTasks != null) {
+            openTasks.remove(task);
+        }
+        return false;
+    }
+
+    /**
+     * Makes a change to the tree from a thread other than the root's, unless the trace has
+     * been emitted.
+     *
+     * @return Whether the change was made.
+     */
+    synchronized boolean changeIfOpen(Runnable change) {
+        if (completedTraceId != null) {
+            return false;
+        }
+        change.run();
+        return true;
+    }
+
+    /**
+     * @return The ID the trace was emitted with, or null while its root is still running.
+     */
+    String completedTraceId() {
+        return completedTraceId;
+    }
+
+    ExceptionTable exceptions() {
+        return exceptions;
+    }
+
+    /**
+     * Adds a thread the trace runs on to its thread table.
+     */
+    void addThread(ThreadInfo thread) {
+        threads.putIfAbsent(thread.threadId(), thread);
+    }
+
+    /**
+     * @return Every thread added so far, by ID.
+     */
+    Map<Long, ThreadInfo> threads() {
+        return Map.copyOf(threads);
+    }
+
+    /**
+     * @return Whether another regular node fits; if so, it is counted.
+     */
+    boolean tryAddNode() {
+        return tryAcquire(nodes, maxNodes);
+    }
+
+    /**
+     * @return Whether another aggregate node fits; if so, it is counted.
+     */
+    boolean tryAddFoldedNode() {
+        return tryAcquire(foldedNodes, maxFoldedNodes);
+    }
+
+    /**
+     * @return Whether another event fits; if not, it is counted as dropped.
+     */
+    boolean tryAddEvent() {
+        if (tryAcquire(events, maxEvents)) {
+            return true;
+        }
+        droppedEvents.incrementAndGet();
+        return false;
+    }
+
+    void onFolded() {
+        foldedCalls.incrementAndGet();
+    }
+
+    void onCollapsed() {
+        collapsedCalls.incrementAndGet();
+    }
+
+    void onDropped() {
+        droppedCalls.incrementAndGet();
+    }
+
+    /**
+     * @return The detail lost so far, or null if no limit was hit.
+     */
+    public TraceTruncation truncation() {
+        long folded = foldedCalls.get();
+        long collapsed = collapsedCalls.get();
+        long dropped = droppedCalls.get();
+        long lostEvents = droppedEvents.get();
+        if (folded == 0 && collapsed == 0 && dropped == 0 && lostEvents == 0) {
+            return null;
+        }
+        return new TraceTruncation(folded, collapsed, dropped, lostEvents);
+    }
+
+    private static boolean tryAcquire(AtomicInteger counter, int limit) {
+        int current;
+        do {
+            current = counter.get();
+            if (current >= limit) {
+                return false;
+            }
+        } while (!counter.compareAndSet(current, current + 1));
+        return true;
+    }
+}
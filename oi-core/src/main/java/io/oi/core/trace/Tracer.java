@@ -1,37 +1,99 @@
 package io.oi.core.trace;
 
 import io.oi.core.analysis.AnalysisService;
+import io.oi.core.capture.ValueCapture;
+import io.oi.core.config.OiCoreProperties;
 import io.oi.core.emitter.FlowEmitter;
+import io.oi.core.http.HttpClientStatistics;
+import io.oi.core.jfr.JfrTraceRecorder;
+import io.oi.core.metrics.MethodMetricsTable;
 import io.oi.core.model.*;
+import io.oi.core.jdbc.ConnectionStatistics;
+import io.oi.core.management.AgentStats;
+import io.oi.core.model.event.ConnectionEvent;
 import io.oi.core.model.event.DbQueryEvent;
+import io.oi.core.model.event.HttpClientEvent;
+import io.oi.core.profile.CallTreeProfiler;
+import io.oi.core.sql.RepeatedQueryDetector;
+import io.oi.core.sql.SqlNormalizer;
+import io.oi.core.sql.SqlStatistics;
+import io.oi.core.store.AbstractTraceStore;
+import io.oi.core.store.MappedTraceStore;
+import io.oi.core.store.RecentTraceStore;
+import io.oi.core.store.TraceStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.lang.reflect.Method;
+import java.nio.file.Path;
 import java.util.ArrayDeque;
 import java.util.Arrays;
 import java.util.Deque;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 /**
  * The central static class for managing the lifecycle of traces.
  * <p>
- * This class uses a {@link ThreadLocal} to maintain a call stack for each thread,
- * allowing it to build a hierarchical {@link FlowTree} that represents a single
- * execution flow (e.g., an HTTP request).
+ * This class uses a {@link CallStackCarrier} (by default a {@link ThreadLocal} deque) to
+ * maintain a call stack for each thread, allowing it to build a hierarchical {@link FlowTree}
+ * that represents a single execution flow (e.g., an HTTP request).
  * <p>
  * The static methods {@code startTrace} and {@code endTrace} are designed to be called
- * from bytecode injected by the {@link io.oi.core.agent.OiMethodAdapter}.
+ * from bytecode injected by the {@link io.oi.core.agent.OiMethodAdapter}. With the
+ * {@code jfr} backend they delegate to {@link JfrTraceRecorder} and no trees are built.
+ * <p>
+ * Work handed to other threads is wrapped at submission time via the {@code wrap}
+ * methods, so that its execution is attached to the submitting node instead of
+ * starting an unrelated tree on the worker thread.
+ * <p>
+ * Besides the emitter, completed trees are passed to any registered in-process
+ * listeners, such as the {@link CallTreeProfiler} and the {@link RecentTraceStore}.
+ * With {@code stuck.enabled}, traces still running after {@code stuck.thresholdMs} are
+ * additionally emitted as snapshots by the {@link StuckTraceWatchdog}. The profiler, the
+ * store and the watchdog each run on a daemon thread of their own and are only started
+ * when enabled.
+ * <p>
+ * Each trace is bounded by a {@link TraceBudget}. Calls beyond its limits get no node of
+ * their own; a {@link CallFrame} pointing to the node they are attributed to stands in for
+ * them on the call stack instead.
+ * <p>
+ * Whether a trace is recorded at all is decided once, at its root, from the sample rate and
+ * the enabled switch, both of which can be changed at runtime. The calls of a trace that is
+ * not recorded push a {@link CallFrame} without a node, so that none of them starts a trace
+ * while their per-method metrics are still recorded.
  */
 public final class Tracer {
 
     private static final Logger log = LoggerFactory.getLogger(Tracer.class);
-    private static final ThreadLocal<Deque<FlowCallNode>> callStack = ThreadLocal.withInitial(ArrayDeque::new);
-    private static FlowEmitter emitter;
+    private static volatile CallStackCarrier carrier = new DequeCallStack();
+    private static volatile boolean jfrBackend;
+    private static volatile boolean metricsEnabled = true;
+    private static volatile int repeatedQueryThreshold = 5;
+    private static volatile int maxNodes = 10_000;
+    private static volatile int maxDepth = 128;
+    private static volatile int maxEventsPerTrace = 10_000;
+    private static volatile boolean collapseRecursion = true;
+    private static volatile int maxStackDepth = 16;
+    private static volatile int maxMessageLength = 256;
+    private static volatile boolean enabled = true;
+    private static volatile double sampleRate = 1.0;
+    private static volatile FlowEmitter emitter;
+    private static final List<FlowEmitter> listeners = new CopyOnWriteArrayList<>();
+    private static CallTreeProfiler profiler;
+    private static StuckTraceWatchdog watchdog;
+    private static AbstractTraceStore store;
     private static final Map<String, Method> methodCache = new ConcurrentHashMap<>();
+    private static final Object[] NO_ARGUMENTS = new Object[0];
 
     private Tracer() {
         // Static utility class
@@ -48,13 +110,229 @@ public final class Tracer {
     }
 
     /**
-     * Gets the current call stack for the executing thread.
+     * Applies the tracer-level settings from the agent configuration.
+     * This should be called once during agent initialization, before any trace starts.
+     * The existing carrier is kept unless a carrier of another type is configured, and
+     * neither the carrier nor the backend is switched while traces are known to be open,
+     * as their open stacks would be discarded.
+     *
+     * @param properties The agent configuration.
+     */
+    public static synchronized void configure(OiCoreProperties properties) {
+        boolean tracesOpen = tracesOpen();
+        boolean frames = "frames".equalsIgnoreCase(properties.getContext().getCarrier());
+        if (carrier.getClass() != (frames ? FrameCallStack.class : DequeCallStack.class)) {
+            if (tracesOpen) {
+                log.warn("Keeping the {} call stack carrier while traces are open.", carrier.getClass().getSimpleName());
+            } else {
+                carrier = frames ? new FrameCallStack() : new DequeCallStack();
+                log.debug("Using {} call stack carrier.", carrier.getClass().getSimpleName());
+            }
+        }
+
+        boolean jfr = "jfr".equalsIgnoreCase(properties.getBackend());
+        if (jfr != jfrBackend) {
+            if (tracesOpen) {
+                log.warn("Keeping the {} tracing backend while traces are open.", jfrBackend ? "jfr" : "tree");
+            } else {
+                jfrBackend = jfr;
+            }
+        }
+        if (jfrBackend) {
+            JfrTraceRecorder.install();
+            log.info("Using JFR tracing backend; FlowTrees will not be built or emitted.");
+        }
+        apply(properties, group -> true);
+    }
+
+    /**
+     * @return The carrier holding the call stacks.
+     */
+    static CallStackCarrier carrier() {
+        return carrier;
+    }
+
+    /**
+     * @return Whether a trace is open on the calling thread, or any trace is registered as in flight.
+     */
+    private static boolean tracesOpen() {
+        return !carrier.isEmpty() || JfrTraceRecorder.isTracing() || ActiveTraceRegistry.size() > 0;
+    }
+
+    /**
+     * Applies a reloaded configuration while traces are running. Only the settings in the
+     * {@code changed} top-level groups are applied, so that e.g. the trace store is not
+     * recreated, and a sampling rate set at runtime is kept, unless their configuration
+     * changed. The carrier and the backend are kept until the next restart.
+     *
+     * @param properties The reloaded configuration.
+     * @param changed    The names of the top-level properties that differ from the last
+     *                   configuration applied, e.g. {@code sampleRate} or {@code capture}.
+     */
+    public static synchronized void reconfigure(OiCoreProperties properties, Set<String> changed) {
+        if (changed.contains("backend") || changed.contains("context")) {
+            log.warn("The tracing backend and the call stack carrier only change on restart.");
+        }
+        apply(properties, changed::contains);
+    }
+
+    private static void apply(OiCoreProperties properties, Predicate<String> changed) {
+        if (changed.test("enabled")) {
+            enabled = properties.isEnabled();
+        }
+        if (changed.test("sampleRate")) {
+            sampleRate = properties.getSampleRate();
+        }
+        if (changed.test("metrics")) {
+            metricsEnabled = properties.getMetrics().isEnabled();
+        }
+        if (changed.test("sql")) {
+            repeatedQueryThreshold = properties.getSql().getRepeatedQueryThreshold();
+            SqlStatistics.setMaxStatements(properties.getSql().getMaxStatements());
+        }
+        if (changed.test("limits")) {
+            maxNodes = properties.getLimits().getMaxNodes();
+            maxDepth = properties.getLimits().getMaxDepth();
+            maxEventsPerTrace = properties.getLimits().getMaxEventsPerTrace();
+            collapseRecursion = properties.getLimits().isCollapseRecursion();
+        }
+        if (changed.test("capture")) {
+            ValueCapture.configure(properties.getCapture());
+            maxStackDepth = properties.getCapture().getMaxStackDepth();
+            maxMessageLength = properties.getCapture().getMaxStringLength();
+        }
+        if (changed.test("profile")) {
+            configureProfiler(properties.getProfile());
+        }
+        if (changed.test("stuck")) {
+            configureWatchdog(properties.getStuck());
+        }
+        if (changed.test("store")) {
+            configureStore(properties.getStore());
+        }
+    }
+
+    private static synchronized void configureStore(OiCoreProperties.StoreProperties config) {
+        if (store != null) {
+            removeListener(store);
+            store.close();
+            store = null;
+        }
+        if (!config.isEnabled() || jfrBackend) {
+            return;
+        }
+        if ("mapped".equalsIgnoreCase(config.getType())) {
+            Path path = config.getPath() == null || config.getPath().isBlank() ? null : Path.of(config.getPath());
+            try {
+                store = new MappedTraceStore(path, config.getSegments(), config.getSegmentBytes(), config.getQueueSize());
+            } catch (IOException | RuntimeException e) {
+                log.warn("Failed to create the mapped trace store at {}, keeping traces on the heap: {}",
+                        path, e.getMessage());
+            }
+        }
+        if (store == null) {
+            store = new RecentTraceStore(config.getMaxBytes(), config.getMaxTraces(), config.getQueueSize());
+        }
+        addListener(store);
+    }
+
+    private static synchronized void configureWatchdog(OiCoreProperties.StuckProperties stuck) {
+        if (watchdog != null) {
+            watchdog.close();
+            watchdog = null;
+        }
+        if (stuck.isEnabled() && !jfrBackend) {
+            watchdog = new StuckTraceWatchdog(stuck, () -> emitter);
+        }
+    }
+
+    private static synchronized void configureProfiler(OiCoreProperties.ProfileProperties profile) {
+        if (profiler != null) {
+            removeListener(profiler);
+            profiler.close();
+            profiler = null;
+        }
+        if (profile.isEnabled() && !jfrBackend) {
+            profiler = new CallTreeProfiler(profile.getMaxNodes(), profile.getSlotSeconds(), profile.getSlots());
+            addListener(profiler);
+        }
+    }
+
+    /**
+     * @return The continuous call tree profile, or null if profiling is disabled.
+     */
+    public static synchronized CallTreeProfiler getProfiler() {
+        return profiler;
+    }
+
+    /**
+     * @return The store of recently completed traces, or null if it is disabled.
+     */
+    public static synchronized TraceStore getTraceStore() {
+        return store;
+    }
+
+    /**
+     * @return The emitter completed trees are sent to, or null if none is set.
+     */
+    public static FlowEmitter getEmitter() {
+        return emitter;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Turns the recording of new traces on or off. Traces already running are completed.
+     */
+    public static void setEnabled(boolean tracing) {
+        enabled = tracing;
+    }
+
+    public static double getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * Sets the fraction of traces recorded, decided at each root. The {@code jfr} backend
+     * records every call regardless.
+     */
+    public static void setSampleRate(double rate) {
+        sampleRate = rate;
+    }
+
+    private static boolean sampled() {
+        double rate = sampleRate;
+        return enabled && (rate >= 1.0 || ThreadLocalRandom.current().nextDouble() < rate);
+    }
+
+    /**
+     * Registers an in-process listener that receives every completed tree after the emitter.
+     * Listeners run on the thread that completed the trace and must return quickly.
+     */
+    public static void addListener(FlowEmitter listener) {
+        listeners.add(listener);
+    }
+
+    public static void removeListener(FlowEmitter listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Gets a copy of the current call stack for the executing thread, innermost node first.
      * This is intended for diagnostic endpoints and should be used with caution.
      *
      * @return A deque of the current call nodes, or an empty deque if none.
      */
     public static Deque<FlowCallNode> getCurrentCallStack() {
-        return callStack.get();
+        Deque<FlowCallNode> stack = new ArrayDeque<>();
+        for (CallFrame frame : carrier.snapshot()) {
+            if (frame.kind == CallFrame.Kind.RECORDED) {
+                stack.addLast(frame.node);
+            }
+        }
+        return stack;
     }
 
     private static void startTraceInternal(FlowCallNode node) {
@@ -63,35 +341,237 @@ public final class Tracer {
             return;
         }
 
-        Deque<FlowCallNode> stack = callStack.get();
-        if (!stack.isEmpty()) {
-            FlowCallNode parent = stack.peek();
-            if (parent != null) {
-                parent.addChild(node);
-                node.setCallDepth(parent.getCallDepth() + 1);
+        AgentStats.onNodeCreated();
+        FlowCallNode parent = peek();
+        if (parent != null) {
+            parent.addChild(node);
+            node.setCallDepth(parent.getCallDepth() + 1);
+            node.setBudget(parent.getBudget());
+        } else {
+            startRoot(node, null);
+        }
+        carrier.push(CallFrame.recorded(node));
+    }
+
+    /**
+     * Makes {@code node} the root of a new trace: gives it a fresh budget and registers it.
+     *
+     * @param linkedTraceId The ID of the completed trace whose task the root runs, or null.
+     */
+    private static void startRoot(FlowCallNode node, String linkedTraceId) {
+        node.setCallDepth(0);
+        TraceBudget budget = new TraceBudget(maxNodes, maxEventsPerTrace,
+                new ExceptionTable(maxStackDepth, maxMessageLength, metricsEnabled), linkedTraceId);
+        ThreadInfo thread = node.getExecutionDetails().getThreadInfo();
+        if (thread != null) {
+            budget.addThread(thread);
+        }
+        node.setBudget(budget);
+        ActiveTraceRegistry.register(node);
+        AgentStats.onTraceStarted();
+    }
+
+    /**
+     * Applies the sampling decision and the current trace's limits to a call about to start.
+     * If the call gets no node of its own, a {@link CallFrame} standing in for it is pushed.
+     *
+     * @return Whether a frame was pushed, in which case no node must be created.
+     */
+    private static boolean pushLimitedFrame(int methodId, String className, String methodName, String methodDesc) {
+        CallFrame top = emitter == null ? null : carrier.peek();
+        if (top == null) {
+            if (emitter != null && !sampled()) {
+                AgentStats.onTraceUnsampled();
+                carrier.push(CallFrame.unsampled(methodId));
+                return true;
             }
+            return false;
+        }
+        if (top.kind == CallFrame.Kind.UNSAMPLED) {
+            carrier.push(CallFrame.unsampled(methodId));
+            return true;
+        }
+        FlowCallNode parent = top.node;
+        TraceBudget budget = parent.getBudget();
+        if (budget == null) {
+            return false;
+        }
+        CallFrame frame;
+        if (collapseRecursion && methodId >= 0 && parent.getMethodId() == methodId) {
+            budget.onCollapsed();
+            frame = CallFrame.standIn(parent, methodId, CallFrame.Kind.COLLAPSED);
+        } else if (parent.getCallDepth() >= maxDepth) {
+            budget.onDropped();
+            frame = CallFrame.standIn(parent, methodId, CallFrame.Kind.DROPPED);
+        } else if (budget.tryAddNode()) {
+            return false;
         } else {
-            node.setCallDepth(0);
+            frame = foldedFrame(parent, methodId, className, methodName, methodDesc);
         }
-        stack.push(node);
+        carrier.push(frame);
+        return true;
+    }
+
+    /**
+     * Creates the frame of a call that is folded into its parent's aggregate child for the
+     * method, or dropped if no further aggregate nodes fit.
+     */
+    private static CallFrame foldedFrame(FlowCallNode parent, int methodId, String className,
+                                         String methodName, String methodDesc) {
+        TraceBudget budget = parent.getBudget();
+        FlowCallNode aggregate = parent.foldedChild(methodId, () -> {
+            if (!budget.tryAddFoldedNode()) {
+                return null;
+            }
+            FlowCallNode node = new FlowCallNode(new MethodDetails(className, methodName, methodDesc, Map.of()),
+                    new ExecutionDetails(null), new CodeAnalysis(0, 0, List.of()));
+            node.setMethodId(methodId);
+            node.setCallDepth(parent.getCallDepth() + 1);
+            node.setBudget(budget);
+            node.setFolded(new FoldedCalls());
+            AgentStats.onNodeCreated();
+            return node;
+        });
+        if (aggregate == null) {
+            budget.onDropped();
+            return CallFrame.standIn(parent, methodId, CallFrame.Kind.DROPPED);
+        }
+        budget.onFolded();
+        return CallFrame.standIn(aggregate, methodId, CallFrame.Kind.FOLDED);
+    }
+
+    /**
+     * Ends a call that got no node of its own.
+     */
+    private static void completeFrame(CallFrame frame, Throwable exception, boolean recordMetrics) {
+        long now = System.nanoTime();
+        long duration = now - frame.startNanos;
+        if (recordMetrics && metricsEnabled) {
+            MethodMetricsTable.record(frame.methodId, duration, exception != null);
+        }
+        if (frame.kind == CallFrame.Kind.FOLDED) {
+            // A folded task may end after its trace was emitted, which must not change any more
+            FlowCallNode aggregate = frame.node;
+            Runnable fold = () -> {
+                aggregate.getFolded().record(duration, exception != null);
+                aggregate.getExecutionDetails().setEndNanos(now);
+            };
+            TraceBudget budget = aggregate.getBudget();
+            if (budget == null) {
+                fold.run();
+            } else {
+                budget.changeIfOpen(fold);
+            }
+        }
+    }
+
+    /**
+     * @return The innermost open node, or the node a call without one is attributed to; null in
+     * a trace that is not recorded.
+     */
+    private static FlowCallNode peek() {
+        CallFrame top = carrier.peek();
+        return top == null ? null : top.node;
+    }
+
+    /**
+     * @return Whether {@code node}'s trace has room for another event; if not, the event is counted as dropped.
+     */
+    private static boolean acceptEvent(FlowCallNode node) {
+        TraceBudget budget = node.getBudget();
+        return budget == null || budget.tryAddEvent();
+    }
+
+    /**
+     * @return {@code exception} reduced to an {@link ExceptionInfo}, with its stack added to
+     * the trace's table; null if {@code exception} is null.
+     */
+    private static ExceptionInfo describe(FlowCallNode node, Throwable exception) {
+        if (exception == null) {
+            return null;
+        }
+        TraceBudget budget = node.getBudget();
+        ExceptionTable table = budget != null
+                ? budget.exceptions()
+                : new ExceptionTable(maxStackDepth, maxMessageLength, metricsEnabled);
+        return table.record(exception);
     }
 
     private static void endTraceInternal(Object returnValue, Throwable exception) {
-        Deque<FlowCallNode> stack = callStack.get();
-        if (stack.isEmpty()) {
+        CallFrame popped = carrier.pop();
+        if (popped == null) {
             // This can happen if instrumentation is misconfigured or applied partially.
             return;
         }
+        if (popped.kind != CallFrame.Kind.RECORDED) {
+            completeFrame(popped, exception, true);
+            return;
+        }
+        FlowCallNode node = popped.node;
+        node.complete(ValueCapture.capture(returnValue), describe(node, exception));
+        if (metricsEnabled) {
+            ExecutionDetails execution = node.getExecutionDetails();
+            MethodMetricsTable.record(node.getMethodId(),
+                    execution.getEndNanos() - execution.getStartNanos(), exception != null);
+        }
 
-        FlowCallNode node = stack.pop();
-        node.complete(returnValue, exception);
-
-        if (stack.isEmpty()) {
+        if (carrier.isEmpty()) {
             // This was the root node, so the trace for this thread is complete.
-            FlowTree tree = new FlowTree(UUID.randomUUID().toString(), node);
-            tree.complete();
-            emitter.emit(tree);
-            callStack.remove(); // Clean up ThreadLocal
+            emitTrace(node);
+        }
+    }
+
+    /**
+     * Builds the tree of a completed root node and hands it to the emitter and listeners.
+     */
+    private static void emitTrace(FlowCallNode node) {
+        String traceId = ActiveTraceRegistry.unregister(node);
+        FlowTree tree = new FlowTree(traceId != null ? traceId : UUID.randomUUID().toString(), node);
+        TraceBudget budget = node.getBudget();
+        if (budget != null) {
+            // Tasks handed off from here that start from now on begin linked traces, and those
+            // still running are detached, so the tree no longer changes
+            budget.complete(tree.getTraceId());
+            tree.setLinkedTraceId(budget.linkedTraceId());
+            tree.setStartEpochMillis(budget.startEpochMillis());
+        }
+        emit(tree, budget);
+    }
+
+    /**
+     * Emits the node of a task that was detached from its trace's tree because it outlived
+     * the root, as a trace linked to it.
+     */
+    private static void emitDetachedTask(FlowCallNode node, TraceBudget budget) {
+        FlowTree tree = new FlowTree(UUID.randomUUID().toString(), node);
+        tree.setLinkedTraceId(budget.completedTraceId());
+        long elapsedMillis = (System.nanoTime() - node.getExecutionDetails().getStartNanos()) / 1_000_000L;
+        tree.setStartEpochMillis(System.currentTimeMillis() - elapsedMillis);
+        emit(tree, budget);
+    }
+
+    private static void emit(FlowTree tree, TraceBudget budget) {
+        tree.complete();
+        List<RepeatedQuery> repeatedQueries = RepeatedQueryDetector.detect(tree.getRootNode(), repeatedQueryThreshold);
+        if (!repeatedQueries.isEmpty()) {
+            tree.setRepeatedQueries(repeatedQueries);
+        }
+        TraceTruncation truncation = budget == null ? null : budget.truncation();
+        if (truncation != null) {
+            log.debug("Trace {} exceeded its size limits: {}", tree.getTraceId(), truncation);
+            tree.setTruncation(truncation);
+        }
+        if (budget != null) {
+            tree.setStacks(budget.exceptions().stacks());
+            tree.setThreads(budget.threads());
+        }
+        AgentStats.onTraceCompleted();
+        FlowEmitter target = emitter;
+        if (target != null) {
+            target.emit(tree);
+        }
+        for (FlowEmitter listener : listeners) {
+            listener.emit(tree);
         }
     }
 
@@ -101,6 +581,7 @@ public final class Tracer {
      * This method is called from injected bytecode. It constructs a {@link FlowCallNode}
      * with all the method's metadata and pushes it onto the current thread's call stack.
      *
+     * @param methodId         The method's {@link MethodRegistry} ID, assigned at transformation time.
      * @param className        The FQDN name of the class.
      * @param methodName       The name of the method.
      * @param methodDesc       The method's signature in JVM descriptor format.
@@ -108,28 +589,53 @@ public final class Tracer {
      * @param maxLocals        The maximum number of local variables used by the method.
      * @param parameters       An array of the method's arguments.
      */
-    public static void startTrace(String className, String methodName, String methodDesc,
+    public static void startTrace(int methodId, String className, String methodName, String methodDesc,
                                   int instructionCount, int maxLocals, Object[] parameters) {
+        if (jfrBackend) {
+            JfrTraceRecorder.enter(methodId);
+            return;
+        }
+        long hookStarted = AgentStats.isHookTiming() ? System.nanoTime() : 0L;
         try {
+            if (pushLimitedFrame(methodId, className, methodName, methodDesc)) {
+                return;
+            }
             Method method = resolveMethod(className, methodName, methodDesc);
 
-            Map<String, Object> parameterMap = (method != null)
-                ? AnalysisService.getParameterMap(method, parameters)
+            Map<String, Object> parameterMap = (method != null && ValueCapture.getMode() != ValueCapture.Mode.NONE)
+                ? ValueCapture.captureAll(AnalysisService.getParameterMap(method, parameters))
                 : Map.of();
 
             List<String> conditionalBranches = AnalysisService.getConditionalBranches(className, methodName, methodDesc);
 
             CodeAnalysis codeAnalysis = new CodeAnalysis(instructionCount, maxLocals, conditionalBranches);
             MethodDetails methodDetails = new MethodDetails(className, methodName, methodDesc, parameterMap);
-            ExecutionDetails executionDetails = new ExecutionDetails(ThreadInfo.current());
+            // Only roots record their thread; nodes below them run on the same one
+            ExecutionDetails executionDetails = new ExecutionDetails(carrier.isEmpty() ? ThreadInfo.current() : null);
 
             FlowCallNode node = new FlowCallNode(methodDetails, executionDetails, codeAnalysis);
+            node.setMethodId(methodId);
             startTraceInternal(node);
         } catch (Exception e) {
             log.warn("Error starting trace in {}.{}: {}", className, methodName, e.getMessage());
+        } finally {
+            if (hookStarted != 0L) {
+                AgentStats.recordHook(System.nanoTime() - hookStarted);
+            }
         }
     }
 
+    /**
+     * Marks the entry of an instrumented method whose ID was not assigned at transformation time.
+     *
+     * @see #startTrace(int, String, String, String, int, int, Object[])
+     */
+    public static void startTrace(String className, String methodName, String methodDesc,
+                                  int instructionCount, int maxLocals, Object[] parameters) {
+        startTrace(MethodRegistry.register(className, methodName, methodDesc),
+                className, methodName, methodDesc, instructionCount, maxLocals, parameters);
+    }
+
     /**
      * Marks the exit of an instrumented method.
      * <p>
@@ -141,42 +647,195 @@ public final class Tracer {
      * @param exception   The exception thrown by the method, or null if it completed normally.
      */
     public static void endTrace(Object returnValue, Throwable exception) {
+        if (jfrBackend) {
+            JfrTraceRecorder.exit(exception, metricsEnabled);
+            return;
+        }
+        long hookStarted = AgentStats.isHookTiming() ? System.nanoTime() : 0L;
         try {
             endTraceInternal(returnValue, exception);
         } catch (Exception e) {
             log.warn("Error ending trace: {}", e.getMessage());
+        } finally {
+            if (hookStarted != 0L) {
+                AgentStats.recordHook(System.nanoTime() - hookStarted);
+            }
+        }
+    }
+
+    /**
+     * Whether the woven code should pass the method's arguments and return value, or make the
+     * lean {@link #enter(int)} and {@link #exit(Throwable)} calls instead.
+     * <p>
+     * This method is called from injected bytecode. It is false when nothing would be kept of
+     * the values: on the JFR backend, when the capture mode is {@code NONE}, and inside a trace
+     * that is not recorded. At a root it is true, because whether the trace is recorded has not
+     * been decided yet.
+     */
+    public static boolean isCapturing() {
+        if (jfrBackend || ValueCapture.getMode() == ValueCapture.Mode.NONE) {
+            return false;
         }
+        CallFrame top = carrier.peek();
+        return top == null || top.kind != CallFrame.Kind.UNSAMPLED;
+    }
+
+    /**
+     * Marks the entry of an instrumented method without its arguments.
+     * <p>
+     * This method is called from injected bytecode in place of
+     * {@link #startTrace(int, String, String, String, int, int, Object[])} when
+     * {@link #isCapturing()} is false, and on the JFR backend always. The method's names are
+     * looked up from its {@link MethodRegistry} ID, and its node carries no code analysis.
+     *
+     * @param methodId The method's {@link MethodRegistry} ID, assigned at transformation time.
+     */
+    public static void enter(int methodId) {
+        if (jfrBackend) {
+            JfrTraceRecorder.enter(methodId);
+            return;
+        }
+        MethodRegistry.MethodInfo method = MethodRegistry.get(methodId);
+        if (method == null) {
+            // Keep the stack balanced for the exit that follows
+            carrier.push(CallFrame.unsampled(methodId));
+            return;
+        }
+        startTrace(methodId, method.className(), method.methodName(), method.methodDesc(), 0, 0, NO_ARGUMENTS);
+    }
+
+    /**
+     * Marks the exit of an instrumented method without its return value.
+     *
+     * @param exception The exception thrown by the method, or null if it completed normally.
+     * @see #enter(int)
+     */
+    public static void exit(Throwable exception) {
+        endTrace(null, exception);
     }
 
     /**
      * Records a database query event that occurred during an instrumented method's execution.
      * <p>
      * This method is called from injected bytecode. It finds the current active
-     * {@link FlowCallNode} and attaches a {@link DbQueryEvent} to it.
+     * {@link FlowCallNode} and attaches a {@link DbQueryEvent} to it, and updates the
+     * statement's {@link SqlStatistics}.
      *
      * @param sql           The SQL query that was executed.
      * @param durationNanos The time taken to execute the query.
      * @param rowCount      The number of rows returned or affected.
      */
     public static void recordDbQuery(String sql, long durationNanos, int rowCount) {
-        Deque<FlowCallNode> stack = callStack.get();
-        if (stack.isEmpty()) {
+        recordDbQuery(sql, durationNanos, rowCount, 0);
+    }
+
+    /**
+     * Records a database statement execution, which may be a batch.
+     *
+     * @param batchSize The number of batched executions, or 0 for a single execution.
+     * @see #recordDbQuery(String, long, int)
+     */
+    public static void recordDbQuery(String sql, long durationNanos, int rowCount, int batchSize) {
+        SqlNormalizer.Fingerprint fingerprint = SqlNormalizer.fingerprint(sql);
+        if (metricsEnabled && fingerprint != null) {
+            SqlStatistics.record(fingerprint, durationNanos, rowCount);
+        }
+        if (jfrBackend) {
+            JfrTraceRecorder.recordDbQuery(sql, durationNanos, rowCount, batchSize);
+            return;
+        }
+        FlowCallNode currentNode = peek();
+        if (currentNode == null) {
             log.trace("DB query recorded but no active trace call stack found. Skipping.");
             return;
         }
-        FlowCallNode currentNode = stack.peek();
-        if (currentNode != null) {
-            currentNode.addDbEvent(new DbQueryEvent(sql, durationNanos, rowCount));
+        if (acceptEvent(currentNode)) {
+            currentNode.addDbEvent(new DbQueryEvent(sql, durationNanos, rowCount,
+                    fingerprint == null ? null : fingerprint.hex(), batchSize));
         }
     }
 
+    /**
+     * Records a JDBC connection acquisition, commit or rollback on the current node and in
+     * the global {@link ConnectionStatistics}.
+     *
+     * @param operation     The operation.
+     * @param dataSource    The data source a connection was acquired from, or null.
+     * @param durationNanos The time the operation took.
+     * @param failed        Whether the operation ended with an exception.
+     */
+    public static void recordConnectionEvent(ConnectionEvent.Operation operation, String dataSource,
+                                             long durationNanos, boolean failed) {
+        if (metricsEnabled) {
+            ConnectionStatistics.record(operation, dataSource, durationNanos, failed);
+        }
+        if (jfrBackend) {
+            JfrTraceRecorder.recordConnectionEvent(operation.name(), dataSource, durationNanos, failed);
+            return;
+        }
+        FlowCallNode currentNode = peek();
+        if (currentNode != null && acceptEvent(currentNode)) {
+            currentNode.addConnectionEvent(new ConnectionEvent(operation, durationNanos, failed, dataSource));
+        }
+    }
+
+    /**
+     * Records an outbound HTTP call on the current node and in the global
+     * {@link HttpClientStatistics}.
+     */
+    public static void recordHttpClientCall(HttpClientEvent event) {
+        if (jfrBackend) {
+            recordHttpClientCall(null, event);
+            return;
+        }
+        recordHttpClientCall(peek(), event);
+    }
+
+    /**
+     * Records an outbound HTTP call that completed on another thread, e.g. through
+     * {@code HttpClient.sendAsync}, on the node that started it. If that node's trace has
+     * been emitted by then, the call only counts in the {@link HttpClientStatistics}.
+     *
+     * @param node  The node returned by {@link #peekCurrentNode()} when the call started, or null.
+     * @param event The completed call.
+     */
+    public static void recordHttpClientCall(FlowCallNode node, HttpClientEvent event) {
+        if (metricsEnabled) {
+            HttpClientStatistics.record(event);
+        }
+        if (jfrBackend) {
+            JfrTraceRecorder.recordHttpClientCall(event.method(), event.host(), event.path(), event.status(),
+                    event.responseBytes(), event.durationNanos());
+        } else if (node != null) {
+            TraceBudget budget = node.getBudget();
+            if (budget == null) {
+                if (acceptEvent(node)) {
+                    node.addHttpEvent(event);
+                }
+            } else {
+                budget.changeIfOpen(() -> {
+                    if (acceptEvent(node)) {
+                        node.addHttpEvent(event);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * @return The innermost open node on this thread, or null if no trace is active.
+     */
+    public static FlowCallNode peekCurrentNode() {
+        return jfrBackend ? null : peek();
+    }
+
     /**
      * Records that a branch (e.g., if/else) was taken in the current method.
      */
     public static void recordBranchTaken(String branch) {
-        Deque<FlowCallNode> stack = callStack.get();
-        if (!stack.isEmpty()) {
-            stack.peek().addBranchTaken(branch);
+        FlowCallNode currentNode = peek();
+        if (currentNode != null && acceptEvent(currentNode)) {
+            currentNode.addBranchTaken(branch);
         }
     }
 
@@ -184,9 +843,9 @@ public final class Tracer {
      * Records that a loop (e.g., for/while) was entered in the current method.
      */
     public static void recordLoopEntered(String loop) {
-        Deque<FlowCallNode> stack = callStack.get();
-        if (!stack.isEmpty()) {
-            stack.peek().addLoopEntered(loop);
+        FlowCallNode currentNode = peek();
+        if (currentNode != null && acceptEvent(currentNode)) {
+            currentNode.addLoopEntered(loop);
         }
     }
 
@@ -194,9 +853,137 @@ public final class Tracer {
      * Sets the call depth for the current node.
      */
     public static void setCallDepth(int depth) {
-        Deque<FlowCallNode> stack = callStack.get();
-        if (!stack.isEmpty()) {
-            stack.peek().setCallDepth(depth);
+        CallFrame top = carrier.peek();
+        if (top != null && top.kind == CallFrame.Kind.RECORDED) {
+            top.node.setCallDepth(depth);
+        }
+    }
+
+    /**
+     * Wraps a task that is about to be handed to another thread.
+     * <p>
+     * This method is called from injected bytecode at executor, {@code CompletableFuture}
+     * and {@code Thread} call sites. If a trace is active on the calling thread, the
+     * returned task attaches its execution as a child of the current node, or keeps it
+     * unrecorded if the trace is not recorded; otherwise the task is returned unchanged.
+     *
+     * @param task The task being submitted.
+     * @return The wrapped task, or {@code task} itself if no trace is active.
+     */
+    public static Runnable wrap(Runnable task) {
+        if (task == null || task instanceof AsyncTask || !inTrace()) {
+            return task;
+        }
+        return new AsyncTask.OfRunnable(task, peek());
+    }
+
+    /**
+     * Wraps a {@link Callable} that is about to be handed to another thread.
+     *
+     * @see #wrap(Runnable)
+     */
+    public static <V> Callable<V> wrap(Callable<V> task) {
+        if (task == null || task instanceof AsyncTask || !inTrace()) {
+            return task;
+        }
+        return new AsyncTask.OfCallable<>(task, peek());
+    }
+
+    /**
+     * Wraps a {@link Supplier} that is about to be handed to another thread.
+     *
+     * @see #wrap(Runnable)
+     */
+    public static <V> Supplier<V> wrap(Supplier<V> task) {
+        if (task == null || task instanceof AsyncTask || !inTrace()) {
+            return task;
+        }
+        return new AsyncTask.OfSupplier<>(task, peek());
+    }
+
+    /**
+     * @return Whether a trace, recorded or not, is active on the calling thread.
+     */
+    private static boolean inTrace() {
+        return emitter != null && !jfrBackend && !carrier.isEmpty();
+    }
+
+    /**
+     * Starts the worker-side node of an {@link AsyncTask}. The node is attached to
+     * {@code parent} and becomes the bottom of a fresh call stack for this thread, so
+     * that it is never emitted as a root of its own. If {@code parent}'s trace has already
+     * completed, the node becomes the root of a new trace linked to it instead, as the
+     * emitted tree must not change any more; the budget checks this under the same lock
+     * the trace completes with. If {@code parent} is null, the task belongs to a trace
+     * that is not recorded and a frame without a node is pushed.
+     *
+     * @return The scope to pass to {@link #endAsync(AsyncTask.Scope, Throwable)}.
+     */
+    static AsyncTask.Scope beginAsync(FlowCallNode parent, long submitNanos, String taskClass,
+                                      String methodName, String methodDesc) {
+        int methodId = MethodRegistry.register(taskClass, methodName, methodDesc);
+        TraceBudget budget = parent == null ? null : parent.getBudget();
+        boolean open = budget != null && budget.completedTraceId() == null;
+        boolean root = false;
+        CallFrame frame;
+        if (parent == null) {
+            frame = CallFrame.unsampled(methodId);
+        } else if (open && parent.getCallDepth() >= maxDepth) {
+            budget.onDropped();
+            frame = CallFrame.standIn(parent, methodId, CallFrame.Kind.DROPPED);
+        } else if (open && !budget.tryAddNode()) {
+            frame = foldedFrame(parent, methodId, taskClass, methodName, methodDesc);
+        } else {
+            long queueWaitNanos = Math.max(0L, System.nanoTime() - submitNanos);
+            MethodDetails methodDetails = new MethodDetails(taskClass, methodName, methodDesc, Map.of());
+            // A task run inline by the submitting thread stays on the parent's thread
+            ThreadInfo thread = open && peek() == parent ? null : ThreadInfo.current();
+            ExecutionDetails executionDetails = new ExecutionDetails(thread, queueWaitNanos);
+            FlowCallNode node = new FlowCallNode(methodDetails, executionDetails, new CodeAnalysis(0, 0, List.of()));
+            node.setMethodId(methodId);
+            node.setCallDepth(parent.getCallDepth() + 1);
+            node.setBudget(budget);
+            if (budget == null) {
+                parent.addChild(node);
+            } else if (budget.attachTask(parent, node)) {
+                if (thread != null) {
+                    budget.addThread(thread);
+                }
+            } else {
+                root = true;
+                startRoot(node, budget.completedTraceId());
+            }
+            AgentStats.onNodeCreated();
+            frame = CallFrame.recorded(node);
+        }
+
+        CallStackCarrier current = carrier;
+        Object previous = current.suspend();
+        current.push(frame);
+        return new AsyncTask.Scope(current, previous, frame, root);
+    }
+
+    /**
+     * Completes the worker-side node of an {@link AsyncTask}, emitting it if it is the root
+     * of a linked trace or was detached because its trace completed first, and restores the
+     * call stack that was active before it started.
+     */
+    static void endAsync(AsyncTask.Scope scope, Throwable exception) {
+        try {
+            CallFrame frame = scope.frame();
+            if (frame.kind != CallFrame.Kind.RECORDED) {
+                completeFrame(frame, exception, false);
+            } else {
+                frame.node.complete(null, describe(frame.node, exception));
+                TraceBudget budget = frame.node.getBudget();
+                if (scope.root()) {
+                    emitTrace(frame.node);
+                } else if (budget != null && budget.finishTask(frame.node)) {
+                    emitDetachedTask(frame.node, budget);
+                }
+            }
+        } finally {
+            scope.carrier().resume(scope.previous());
         }
     }
 
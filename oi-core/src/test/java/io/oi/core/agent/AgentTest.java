@@ -2,6 +2,7 @@ package io.oi.core.agent;
 
 import io.oi.core.config.OiCoreProperties;
 import io.oi.core.emitter.FlowEmitter;
+import io.oi.core.model.FlowCallNode;
 import io.oi.core.model.FlowTree;
 import io.oi.core.trace.Tracer;
 import org.junit.jupiter.api.BeforeEach;
@@ -10,6 +11,8 @@ import org.junit.jupiter.api.AfterEach;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -26,6 +29,7 @@ public class AgentTest {
     @AfterEach
     void tearDown() {
         Tracer.setEmitter(null);
+        Tracer.configure(new OiCoreProperties());
     }
 
     @Test
@@ -88,6 +92,55 @@ public class AgentTest {
         assertArrayEquals(originalBytecode, transformedBytecode);
     }
 
+    @Test
+    void testWrappedTaskIsAttachedToSubmittingNode() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Tracer.startTrace("com/test/Handler", "handle", "()V", 0, 0, new Object[0]);
+            Runnable task = Tracer.wrap(() -> {
+                Tracer.startTrace("com/test/Worker", "work", "()V", 0, 0, new Object[0]);
+                Tracer.endTrace(null, null);
+            });
+            executor.submit(task).get();
+            Tracer.endTrace(null, null);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(1, testEmitter.getReceivedTrees().size());
+        FlowCallNode root = testEmitter.getReceivedTrees().get(0).getRootNode();
+        assertEquals(1, root.getChildren().size());
+        FlowCallNode asyncNode = root.getChildren().get(0);
+        assertEquals(1, asyncNode.getCallDepth());
+        assertTrue(asyncNode.getExecutionDetails().getQueueWaitNanos() >= 0);
+        assertEquals("work", asyncNode.getChildren().get(0).getMethodDetails().methodName());
+        assertTrue(Tracer.getCurrentCallStack().isEmpty());
+    }
+
+    @Test
+    void testFrameCarrierBuildsNestedTree() {
+        OiCoreProperties properties = new OiCoreProperties();
+        properties.getContext().setCarrier("frames");
+        Tracer.configure(properties);
+
+        Tracer.startTrace("com/test/Handler", "handle", "()V", 0, 0, new Object[0]);
+        Tracer.startTrace("com/test/Service", "call", "()V", 0, 0, new Object[0]);
+        assertEquals(2, Tracer.getCurrentCallStack().size());
+        Tracer.endTrace(null, null);
+        Tracer.endTrace(null, null);
+
+        assertTrue(Tracer.getCurrentCallStack().isEmpty());
+        assertEquals(1, testEmitter.getReceivedTrees().size());
+        FlowCallNode root = testEmitter.getReceivedTrees().get(0).getRootNode();
+        assertEquals("call", root.getChildren().get(0).getMethodDetails().methodName());
+    }
+
+    @Test
+    void testWrapWithoutActiveTraceReturnsTask() {
+        Runnable task = () -> { };
+        assertSame(task, Tracer.wrap(task));
+    }
+
     // A mock emitter to capture the FlowTree for assertions
     private static class TestFlowEmitter implements FlowEmitter {
         private final List<FlowTree> receivedTrees = new ArrayList<>();
@@ -0,0 +1,104 @@
+package io.oi.core.agent;
+
+import io.oi.core.capture.ValueCapture;
+import io.oi.core.config.OiCoreProperties;
+import io.oi.core.store.TraceStore;
+import io.oi.core.trace.Tracer;
+import io.oi.core.trace.TracerFixture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConfigWatcherTest {
+
+    @RegisterExtension
+    final TracerFixture tracer = new TracerFixture();
+
+    private Path directory;
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        directory = Files.createTempDirectory("oi-config");
+        file = directory.resolve("oi-core.properties");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(directory);
+    }
+
+    @Test
+    void testChangesAreReloadedAndOnlyChangedGroupsApplied() throws Exception {
+        Files.writeString(file, "oi-core.store.enabled=true\noi-core.sampleRate=1.0\n");
+        OiCoreProperties initial = OiAgent.loadProperties(null, file.toString());
+        Tracer.configure(initial);
+        TraceStore store = Tracer.getTraceStore();
+        assertNotNull(store);
+
+        OiClassFileTransformer transformer = new OiClassFileTransformer(initial);
+        try (ConfigWatcher watcher = new ConfigWatcher(file, null, initial, null, transformer)) {
+            Files.writeString(file, "oi-core.store.enabled=true\noi-core.sampleRate=0.25\noi-core.capture.mode=none\n");
+            // As the watcher does after the quiet period; a reload of unchanged content is a no-op
+            watcher.reload();
+
+            assertEquals(0.25, Tracer.getSampleRate());
+            assertEquals(ValueCapture.Mode.NONE, ValueCapture.getMode());
+            assertTrue(store == Tracer.getTraceStore(), "The unchanged store should be kept");
+            assertEquals(0.25, watcher.current().getSampleRate());
+            assertNotSame(initial, watcher.current());
+        }
+    }
+
+    @Test
+    void testChangedGroups() {
+        OiCoreProperties previous = new OiCoreProperties();
+        OiCoreProperties next = new OiCoreProperties();
+        next.getEmitter().setTimeoutMs(500);
+        next.getIncludePackages().add("com.acme");
+
+        assertEquals(Set.of("emitter", "includePackages"), ConfigWatcher.changedGroups(previous, next));
+        assertTrue(ConfigWatcher.changedGroups(previous, new OiCoreProperties()).isEmpty());
+    }
+
+    @Test
+    void testOnlyAffectedClassesAreRetransformed() throws Exception {
+        OiCoreProperties properties = new OiCoreProperties();
+        properties.setIncludePackages(new ArrayList<>(List.of("com.acme")));
+        OiClassFileTransformer transformer = new OiClassFileTransformer(properties);
+        byte[] bytes;
+        try (InputStream in = Sample.class.getResourceAsStream("ConfigWatcherTest$Sample.class")) {
+            bytes = in.readAllBytes();
+        }
+        assertNotSame(bytes, transformer.transform(getClass().getClassLoader(), "com/acme/Sample", null, null, bytes));
+
+        OiCoreProperties moved = new OiCoreProperties();
+        moved.setIncludePackages(new ArrayList<>(List.of("com.acme", "com.other")));
+        transformer.update(moved);
+        assertFalse(transformer.isAffected("com/acme/Sample", false), "Still instrumented the same way");
+        assertTrue(transformer.isAffected("com/other/Sample", false), "Newly included");
+        assertFalse(transformer.isAffected("com/unrelated/Sample", false));
+        assertTrue(transformer.isAffected("com/acme/Sample", true), "Instrumented differently");
+
+        transformer.update(new OiCoreProperties());
+        assertTrue(transformer.isAffected("com/acme/Sample", false), "No longer included");
+        assertFalse(transformer.isAffected("com/other/Sample", false));
+    }
+
+    static class Sample {
+        int run(int value) {
+            return value + 1;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,231 @@
+package io.oi.core.agent;
+
+import io.oi.core.config.OiCoreProperties;
+import io.oi.core.jdbc.ConnectionStatistics;
+import io.oi.core.model.event.ConnectionEvent;
+import io.oi.core.model.event.DbQueryEvent;
+import io.oi.core.trace.TracerFixture;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.commons.ClassRemapper;
+import org.objectweb.asm.commons.SimpleRemapper;
+
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+
+import static io.oi.core.trace.TracerFixture.enter;
+import static io.oi.core.trace.TracerFixture.exit;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JdbcInstrumentationTest {
+
+    /**
+     * Stands in for a driver statement. javac would require every {@code PreparedStatement}
+     * method, so {@link FixtureLoader} adds the interface to the class file instead.
+     */
+    public static class FakeStatement {
+        public ResultSet executeQuery() {
+            return null;
+        }
+
+        public int executeUpdate() {
+            return 3;
+        }
+
+        public boolean execute(String sql) {
+            // A nested execution, as when a pool proxy delegates to the driver
+            executeUpdate();
+            return false;
+        }
+
+        public long executeLargeUpdate() throws SQLException {
+            throw new SQLException("deadlock");
+        }
+
+        public void addBatch() {
+        }
+
+        public int[] executeBatch() {
+            return new int[] {1, 1, Statement.SUCCESS_NO_INFO, 2};
+        }
+    }
+
+    public static class FakeConnection {
+        public PreparedStatement prepareStatement(String sql) {
+            return (PreparedStatement) (Object) new FakeStatement();
+        }
+
+        public void commit() {
+        }
+
+        public void rollback() throws SQLException {
+            throw new SQLException("connection closed");
+        }
+    }
+
+    public static class FakeDataSource {
+        public Connection getConnection() throws SQLException {
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                throw new SQLException(e);
+            }
+            return (Connection) (Object) new FakeConnection();
+        }
+    }
+
+    @RegisterExtension
+    final TracerFixture tracer = new TracerFixture();
+
+    @Test
+    void testPreparedStatementsAndBatchesAreTimed() throws Exception {
+        FixtureLoader loader = new FixtureLoader();
+        Connection connection = (Connection) loader.loadClass("com.test.jdbc.FakeConnection")
+                .getDeclaredConstructor().newInstance();
+
+        enter("com/test/Repository", "save");
+        PreparedStatement select = connection.prepareStatement("select * from orders where id = ?");
+        assertNull(select.executeQuery());
+        PreparedStatement insert = connection.prepareStatement("insert into lines (id) values (?)");
+        insert.addBatch();
+        assertArrayEquals(new int[] {1, 1, Statement.SUCCESS_NO_INFO, 2}, insert.executeBatch());
+        assertThrows(SQLException.class, insert::executeLargeUpdate);
+        assertFalse(insert.execute("delete from lines"));
+        exit();
+
+        assertEquals(1, tracer.trees().size());
+        List<DbQueryEvent> events = tracer.trees().get(0).getRootNode().getDbEvents();
+        assertEquals(4, events.size(), events.toString());
+
+        assertEquals("select * from orders where id = ?", events.get(0).sql());
+        assertEquals(-1, events.get(0).rowCount());
+        assertEquals(0, events.get(0).batchSize());
+
+        assertEquals("insert into lines (id) values (?)", events.get(1).sql());
+        assertEquals(4, events.get(1).batchSize());
+        assertEquals(4, events.get(1).rowCount());
+        assertNotNull(events.get(1).fingerprint());
+
+        assertEquals(-1, events.get(2).rowCount());
+
+        // The nested executeUpdate is not recorded separately
+        assertEquals("delete from lines", events.get(3).sql());
+    }
+
+    @Test
+    void testConnectionAcquisitionAndTransactionsAreEvents() throws Exception {
+        FixtureLoader loader = new FixtureLoader();
+        DataSource dataSource = (DataSource) loader.loadClass("com.test.jdbc.FakeDataSource")
+                .getDeclaredConstructor().newInstance();
+        ConnectionStatistics.snapshot(true);
+
+        enter("com/test/Service", "transfer");
+        Connection connection = dataSource.getConnection();
+        connection.commit();
+        assertThrows(SQLException.class, connection::rollback);
+        exit();
+
+        List<ConnectionEvent> events = tracer.trees().get(0).getRootNode().getConnectionEvents();
+        assertEquals(3, events.size(), events.toString());
+        assertEquals(ConnectionEvent.Operation.ACQUIRE, events.get(0).operation());
+        assertTrue(events.get(0).durationNanos() >= 5_000_000);
+        assertTrue(events.get(0).dataSource().startsWith("com.test.jdbc.FakeDataSource@"));
+        assertEquals(ConnectionEvent.Operation.COMMIT, events.get(1).operation());
+        assertNull(events.get(1).dataSource());
+        assertEquals(ConnectionEvent.Operation.ROLLBACK, events.get(2).operation());
+        assertTrue(events.get(2).failed());
+
+        ConnectionStatistics.Snapshot acquire = ConnectionStatistics.snapshot(false).stream()
+                .filter(snapshot -> snapshot.operation() == ConnectionEvent.Operation.ACQUIRE)
+                .findFirst()
+                .orElseThrow();
+        assertEquals(1, acquire.count());
+        assertTrue(acquire.latency().valueAtPercentile(50) >= 5_000_000);
+    }
+
+    /**
+     * Loads the fixtures child-first under {@code com.test.jdbc} (the agent never weaves its
+     * own packages), adding the JDBC interface to each and passing it through the agent's
+     * transformer.
+     */
+    private static final class FixtureLoader extends ClassLoader {
+        private static final Map<String, String> FIXTURES = Map.of(
+                "com/test/jdbc/FakeStatement", "java/sql/PreparedStatement",
+                "com/test/jdbc/FakeConnection", "java/sql/Connection",
+                "com/test/jdbc/FakeDataSource", "javax/sql/DataSource");
+        private static final Map<String, Class<?>> SOURCES = Map.of(
+                "com/test/jdbc/FakeStatement", FakeStatement.class,
+                "com/test/jdbc/FakeConnection", FakeConnection.class,
+                "com/test/jdbc/FakeDataSource", FakeDataSource.class);
+        private static final SimpleRemapper REMAPPER = new SimpleRemapper(Map.of(
+                FakeStatement.class.getName().replace('.', '/'), "com/test/jdbc/FakeStatement",
+                FakeConnection.class.getName().replace('.', '/'), "com/test/jdbc/FakeConnection",
+                FakeDataSource.class.getName().replace('.', '/'), "com/test/jdbc/FakeDataSource"));
+
+        private final OiClassFileTransformer transformer = new OiClassFileTransformer(new OiCoreProperties());
+
+        FixtureLoader() {
+            super(JdbcInstrumentationTest.class.getClassLoader());
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            String internalName = name.replace('.', '/');
+            String jdbcInterface = FIXTURES.get(internalName);
+            if (jdbcInterface == null) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> loaded = findLoadedClass(name);
+                if (loaded != null) {
+                    return loaded;
+                }
+                String source = SOURCES.get(internalName).getName();
+                try (InputStream in = getParent().getResourceAsStream(source.replace('.', '/') + ".class")) {
+                    byte[] bytes = relocate(in.readAllBytes(), jdbcInterface);
+                    byte[] woven = transformer.transform(this, internalName, null, null, bytes);
+                    return defineClass(name, woven, 0, woven.length);
+                } catch (Exception e) {
+                    throw new ClassNotFoundException(name, e);
+                }
+            }
+        }
+
+        private static byte[] relocate(byte[] bytes, String jdbcInterface) {
+            ClassReader reader = new ClassReader(bytes);
+            ClassWriter writer = new ClassWriter(0);
+            ClassVisitor addInterface = new ClassVisitor(Opcodes.ASM9, writer) {
+                @Override
+                public void visit(int version, int access, String name, String signature, String superName,
+                                  String[] interfaces) {
+                    String[] extended = Arrays.copyOf(interfaces, interfaces.length + 1);
+                    extended[interfaces.length] = jdbcInterface;
+                    super.visit(version, access, name, signature, superName, extended);
+                }
+
+                @Override
+                public void visitInnerClass(String name, String outerName, String innerName, int access) {
+                    // The relocated fixtures are top-level classes
+                }
+
+                @Override
+                public void visitNestHost(String nestHost) {
+                }
+            };
+            reader.accept(new ClassRemapper(addInterface, REMAPPER), 0);
+            return writer.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package io.oi.core.agent;
+
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JdbcTypeResolverTest {
+
+    @Test
+    void testClassesWithOnlyJdkSupertypesAreNotLookedInto() {
+        RecordingLoader loader = new RecordingLoader(Map.of());
+
+        JdbcTypeResolver.JdbcType type = JdbcTypeResolver.resolve(loader,
+                classFile("com/test/Plain", "java/lang/Object", "java/io/Serializable", "java/lang/Runnable"));
+
+        assertEquals(JdbcTypeResolver.JdbcType.NONE, type);
+        assertTrue(loader.reads.isEmpty(), loader.reads.toString());
+        assertEquals(0, JdbcTypeResolver.cachedTypes(loader));
+    }
+
+    @Test
+    void testJdbcInterfacesAreFoundDirectlyAndThroughSupertypes() {
+        RecordingLoader loader = new RecordingLoader(Map.of(
+                "com/test/BaseStatement", classFile("com/test/BaseStatement", "java/lang/Object",
+                        "java/sql/PreparedStatement")));
+
+        assertEquals(JdbcTypeResolver.JdbcType.CONNECTION, JdbcTypeResolver.resolve(loader,
+                classFile("com/test/DriverConnection", "java/lang/Object", "java/sql/Connection")));
+        assertTrue(loader.reads.isEmpty(), loader.reads.toString());
+
+        byte[] subclass = classFile("com/test/DriverStatement", "com/test/BaseStatement");
+        assertEquals(JdbcTypeResolver.JdbcType.STATEMENT, JdbcTypeResolver.resolve(loader, subclass));
+        assertEquals(JdbcTypeResolver.JdbcType.STATEMENT, JdbcTypeResolver.resolve(loader, subclass));
+        assertEquals(List.of("com/test/BaseStatement.class"), loader.reads, "Supertypes are read once per loader");
+    }
+
+    @Test
+    void testTypesAreCachedPerLoader() {
+        byte[] base = classFile("com/test/Pool", "java/lang/Object", "javax/sql/DataSource");
+        RecordingLoader first = new RecordingLoader(Map.of("com/test/Pool", base));
+        RecordingLoader second = new RecordingLoader(Map.of(
+                "com/test/Pool", classFile("com/test/Pool", "java/lang/Object")));
+        byte[] subclass = classFile("com/test/TenantPool", "com/test/Pool");
+
+        assertEquals(JdbcTypeResolver.JdbcType.DATA_SOURCE, JdbcTypeResolver.resolve(first, subclass));
+        // Another deployment's class of the same name is resolved from its own bytes
+        assertEquals(JdbcTypeResolver.JdbcType.NONE, JdbcTypeResolver.resolve(second, subclass));
+        assertEquals(2, JdbcTypeResolver.cachedTypes(first));
+        assertEquals(2, JdbcTypeResolver.cachedTypes(second));
+    }
+
+    @Test
+    void testCacheIsBounded() {
+        RecordingLoader loader = new RecordingLoader(Map.of(
+                "com/test/Base", classFile("com/test/Base", "java/lang/Object")));
+
+        for (int i = 0; i <= JdbcTypeResolver.MAX_CACHED_PER_LOADER; i++) {
+            JdbcTypeResolver.resolve(loader, classFile("com/test/Generated" + i, "com/test/Base"));
+        }
+
+        assertTrue(JdbcTypeResolver.cachedTypes(loader) <= JdbcTypeResolver.MAX_CACHED_PER_LOADER);
+    }
+
+    private static byte[] classFile(String name, String superName, String... interfaces) {
+        ClassWriter writer = new ClassWriter(0);
+        writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, name, null, superName, interfaces);
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    /**
+     * Serves class files from memory and records which were read.
+     */
+    private static final class RecordingLoader extends ClassLoader {
+        private final Map<String, byte[]> classes;
+        private final List<String> reads = new ArrayList<>();
+
+        RecordingLoader(Map<String, byte[]> classes) {
+            super(null);
+            this.classes = classes;
+        }
+
+        @Override
+        public InputStream getResourceAsStream(String name) {
+            reads.add(name);
+            byte[] bytes = classes.get(name.substring(0, name.length() - ".class".length()));
+            return bytes == null ? null : new ByteArrayInputStream(bytes);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package io.oi.core.agent;
+
+import io.oi.core.config.OiCoreProperties;
+import io.oi.core.model.FlowCallNode;
+import io.oi.core.trace.TracerFixture;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.commons.ClassRemapper;
+import org.objectweb.asm.commons.SimpleRemapper;
+
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static io.oi.core.trace.TracerFixture.enter;
+import static io.oi.core.trace.TracerFixture.exit;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WovenCallTest {
+
+    public static class Greeter {
+        public String greet(String name) {
+            return "Hello, " + name;
+        }
+
+        public void fail() {
+            throw new IllegalStateException("boom");
+        }
+    }
+
+    private static final String FIXTURE = "com/test/woven/Greeter";
+
+    @RegisterExtension
+    final TracerFixture tracer = new TracerFixture();
+
+    @Test
+    void testReturnValueIsPassedWhenCaptured() throws Exception {
+        tracer.configure(properties -> properties.getIncludePackages().add("com.test.woven"));
+        Object greeter = load(tracer.properties());
+
+        enter("com/test/Controller", "handle");
+        assertEquals("Hello, Ada", greeter.getClass().getMethod("greet", String.class).invoke(greeter, "Ada"));
+        exit();
+
+        FlowCallNode greet = tracer.trees().get(0).getRootNode().getChildren().get(0);
+        assertEquals("greet", greet.getMethodDetails().methodName());
+        assertNotNull(greet.getReturnValue());
+    }
+
+    @Test
+    void testLeanCallsRecordTheTreeWhenNothingIsCaptured() throws Exception {
+        tracer.configure(properties -> {
+            properties.getIncludePackages().add("com.test.woven");
+            properties.getCapture().setMode("none");
+        });
+        Object greeter = load(tracer.properties());
+
+        enter("com/test/Controller", "handle");
+        assertEquals("Hello, Ada", greeter.getClass().getMethod("greet", String.class).invoke(greeter, "Ada"));
+        Method fail = greeter.getClass().getMethod("fail");
+        InvocationTargetException thrown = assertThrows(InvocationTargetException.class, () -> fail.invoke(greeter));
+        assertEquals("boom", thrown.getCause().getMessage());
+        exit();
+
+        List<FlowCallNode> calls = tracer.trees().get(0).getRootNode().getChildren();
+        assertEquals(2, calls.size());
+        assertEquals(FIXTURE, calls.get(0).getMethodDetails().className());
+        assertEquals("greet", calls.get(0).getMethodDetails().methodName());
+        assertTrue(calls.get(0).getMethodDetails().parameters().isEmpty());
+        assertNull(calls.get(0).getReturnValue());
+        assertEquals("fail", calls.get(1).getMethodDetails().methodName());
+        assertNotNull(calls.get(1).getException());
+    }
+
+    @Test
+    void testJfrBackendWeavesOnlyTheLeanCalls() throws Exception {
+        OiCoreProperties properties = new OiCoreProperties();
+        properties.getIncludePackages().add("com.test.woven");
+        properties.setBackend("jfr");
+        byte[] woven = weave(properties);
+
+        Set<String> calls = new HashSet<>();
+        new ClassReader(woven).accept(new ClassVisitor(Opcodes.ASM9) {
+            @Override
+            public MethodVisitor visitMethod(int access, String name, String descriptor, String signature,
+                                             String[] exceptions) {
+                return new MethodVisitor(Opcodes.ASM9) {
+                    @Override
+                    public void visitMethodInsn(int opcode, String owner, String method, String desc, boolean itf) {
+                        if (owner.equals("io/oi/core/trace/Tracer")) {
+                            calls.add(method);
+                        }
+                    }
+                };
+            }
+        }, 0);
+
+        assertEquals(Set.of("enter", "exit"), calls);
+    }
+
+    private static Object load(OiCoreProperties properties) throws Exception {
+        byte[] woven = weave(properties);
+        ClassLoader loader = new ClassLoader(WovenCallTest.class.getClassLoader()) {
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                if (!name.equals(FIXTURE.replace('/', '.'))) {
+                    throw new ClassNotFoundException(name);
+                }
+                return defineClass(name, woven, 0, woven.length);
+            }
+        };
+        return loader.loadClass(FIXTURE.replace('/', '.')).getDeclaredConstructor().newInstance();
+    }
+
+    /**
+     * Moves the fixture under {@code com.test.woven} (the agent never weaves its own packages)
+     * and passes it through the agent's transformer.
+     */
+    private static byte[] weave(OiCoreProperties properties) throws Exception {
+        String source = Greeter.class.getName().replace('.', '/');
+        byte[] bytes;
+        try (InputStream in = WovenCallTest.class.getClassLoader().getResourceAsStream(source + ".class")) {
+            bytes = in.readAllBytes();
+        }
+        ClassWriter writer = new ClassWriter(0);
+        ClassVisitor topLevel = new ClassVisitor(Opcodes.ASM9, writer) {
+            @Override
+            public void visitInnerClass(String name, String outerName, String innerName, int access) {
+                // The relocated fixture is a top-level class
+            }
+
+            @Override
+            public void visitNestHost(String nestHost) {
+            }
+        };
+        new ClassReader(bytes).accept(new ClassRemapper(topLevel, new SimpleRemapper(Map.of(source, FIXTURE))), 0);
+        return new OiClassFileTransformer(properties)
+                .transform(WovenCallTest.class.getClassLoader(), FIXTURE, null, null, writer.toByteArray());
+    }
+}
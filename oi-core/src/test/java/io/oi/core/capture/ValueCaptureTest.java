@@ -0,0 +1,90 @@
+package io.oi.core.capture;
+
+import io.oi.core.config.OiCoreProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ValueCaptureTest {
+
+    private final OiCoreProperties.CaptureProperties properties = new OiCoreProperties.CaptureProperties();
+
+    @AfterEach
+    void tearDown() {
+        ValueCapture.configure(new OiCoreProperties.CaptureProperties());
+        ValueCapture.removeRenderer(Order.class);
+    }
+
+    static class Order {
+        final long id = 42;
+        final String customer = "alice";
+        final List<String> lines = new ArrayList<>(List.of("a", "b", "c"));
+        final Order parent;
+
+        Order(Order parent) {
+            this.parent = parent;
+        }
+    }
+
+    @Test
+    void testScalarsAreKeptAndStringsTruncated() {
+        properties.setMaxStringLength(5);
+        ValueCapture.configure(properties);
+
+        assertEquals(7, ValueCapture.capture(7));
+        assertEquals("READ", ValueCapture.capture(java.nio.file.AccessMode.READ));
+        assertEquals("abcde... (10 chars)", ValueCapture.capture("abcdefghij"));
+        CapturedValue decimal = (CapturedValue) ValueCapture.capture(new BigDecimal("1.5"));
+        assertEquals("1.5", decimal.value());
+    }
+
+    @Test
+    void testCollectionsKeepSizeAndFirstElements() {
+        properties.setMaxCollectionElements(2);
+        ValueCapture.configure(properties);
+
+        List<Integer> live = new ArrayList<>(List.of(1, 2, 3, 4));
+        CapturedValue captured = (CapturedValue) ValueCapture.capture(live);
+        live.clear();
+
+        assertEquals(4, (int) captured.size());
+        assertEquals(List.of(1, 2), captured.elements());
+    }
+
+    @Test
+    void testObjectsAreCopiedFieldByFieldUpToMaxDepth() {
+        CapturedValue captured = (CapturedValue) ValueCapture.capture(new Order(new Order(null)));
+
+        assertEquals(Order.class.getName(), captured.type());
+        assertEquals(42L, captured.fields().get("id"));
+        assertEquals("alice", captured.fields().get("customer"));
+        CapturedValue lines = (CapturedValue) captured.fields().get("lines");
+        assertEquals(List.of("a", "b", "c"), lines.elements());
+        // The nested order's fields are the second level; its list is beyond the limit and keeps only its size
+        CapturedValue parent = (CapturedValue) captured.fields().get("parent");
+        CapturedValue parentLines = (CapturedValue) parent.fields().get("lines");
+        assertEquals(3, (int) parentLines.size());
+        assertNull(parentLines.elements());
+    }
+
+    @Test
+    void testRenderersAndModes() {
+        ValueCapture.registerRenderer(Order.class, order -> "order " + order.id);
+        assertEquals("order 42", ValueCapture.capture(new Order(null)));
+
+        properties.setMode("type-only");
+        ValueCapture.configure(properties);
+        assertEquals(String.class.getName(), ((CapturedValue) ValueCapture.capture("secret")).type());
+
+        properties.setMode("none");
+        ValueCapture.configure(properties);
+        assertNull(ValueCapture.capture("secret"));
+        assertTrue(ValueCapture.captureAll(Map.of("p", 1)).isEmpty(), "No parameters should be kept in NONE mode");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,156 @@
+package io.oi.core.emitter;
+
+import com.sun.net.httpserver.HttpServer;
+import io.oi.core.config.OiCoreProperties;
+import io.oi.core.model.FlowTree;
+import io.oi.core.trace.TracerFixture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CircuitBreakerTest {
+
+    @RegisterExtension
+    final TracerFixture tracer = new TracerFixture();
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private HttpServer server;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/ingest", exchange -> {
+            requests.incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void testBreakerOpensAndLetsOneProbeThrough() {
+        long[] now = {0L};
+        CircuitBreaker breaker = new CircuitBreaker(2, 100, () -> now[0]);
+
+        breaker.onFailure();
+        assertTrue(breaker.allowRequest());
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest());
+
+        now[0] = TimeUnit.MILLISECONDS.toNanos(100);
+        assertTrue(breaker.allowRequest(), "The first request after the open period is the probe");
+        assertFalse(breaker.allowRequest(), "Only one probe should be in flight");
+        breaker.release();
+        assertTrue(breaker.allowRequest(), "A released probe should be handed out again");
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(2, breaker.getOpened());
+
+        now[0] = TimeUnit.MILLISECONDS.toNanos(200);
+        assertTrue(breaker.allowRequest());
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void testBackoffIsBounded() {
+        RetryPolicy policy = new RetryPolicy(5, 100, 1_000);
+        for (int retry = 0; retry < 40; retry++) {
+            long bound = Math.min(1_000, 100L << Math.min(retry, 30));
+            for (int i = 0; i < 50; i++) {
+                long backoff = policy.backoffMillis(retry);
+                assertTrue(backoff >= 0 && backoff <= bound, "Backoff " + backoff + " exceeds " + bound);
+            }
+        }
+        assertTrue(RetryPolicy.isRetryable(503));
+        assertTrue(RetryPolicy.isRetryable(429));
+        assertFalse(RetryPolicy.isRetryable(400));
+    }
+
+    @Test
+    void testFailingCollectorIsRetriedThenTreesAreSpilled() throws Exception {
+        OiCoreProperties.EmitterProperties config = new OiCoreProperties.EmitterProperties();
+        config.setUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/ingest");
+        config.setTimeoutMs(2_000);
+        config.setMaxAttempts(3);
+        config.setInitialBackoffMs(1);
+        config.setMaxBackoffMs(5);
+        config.setBreakerFailureThreshold(3);
+        config.setBreakerOpenMs(60_000);
+        List<FlowTree> spilled = new CopyOnWriteArrayList<>();
+        try (HttpFlowEmitter emitter = new HttpFlowEmitter(config, spilled::add)) {
+            emitter.emit(tracer.trace("com/test/Job", "run"));
+            await(() -> emitter.getCircuitBreaker().getState() == CircuitBreaker.State.OPEN);
+            assertEquals(CircuitBreaker.State.OPEN, emitter.getCircuitBreaker().getState());
+            assertEquals(3, requests.get(), "The tree should have been sent once and retried twice");
+
+            emitter.emit(tracer.trace("com/test/Job", "run"));
+            emitter.emit(tracer.trace("com/test/Job", "run"));
+            assertEquals(2, spilled.size());
+            assertEquals(2, emitter.getSpilledTrees());
+            assertEquals(3, requests.get(), "Nothing should be sent while the breaker is open");
+        }
+    }
+
+    @Test
+    void testDeliveriesInFlightAreCapped() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        server.removeContext("/ingest");
+        server.createContext("/ingest", exchange -> {
+            requests.incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        OiCoreProperties.EmitterProperties config = new OiCoreProperties.EmitterProperties();
+        config.setUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/ingest");
+        config.setTimeoutMs(10_000);
+        config.setQueueSize(2);
+        List<FlowTree> spilled = new CopyOnWriteArrayList<>();
+        try (HttpFlowEmitter emitter = new HttpFlowEmitter(config, spilled::add)) {
+            for (int i = 0; i < 5; i++) {
+                emitter.emit(tracer.trace("com/test/Job", "run"));
+            }
+            assertEquals(2, emitter.getQueueDepth());
+            assertEquals(3, spilled.size(), "Trees beyond the cap should be spilled");
+            assertEquals(CircuitBreaker.State.CLOSED, emitter.getCircuitBreaker().getState());
+            release.countDown();
+            await(() -> emitter.getQueueDepth() == 0);
+            assertEquals(0, emitter.getQueueDepth());
+            assertEquals(0, emitter.getDroppedTrees());
+        }
+    }
+
+    /**
+     * Waits up to five seconds for {@code condition}, which deliveries on the emitter's threads bring about.
+     */
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+}
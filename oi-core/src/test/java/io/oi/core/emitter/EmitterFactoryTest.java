@@ -0,0 +1,174 @@
+package io.oi.core.emitter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.oi.core.config.OiCoreProperties;
+import io.oi.core.model.FlowTree;
+import io.oi.core.trace.TracerFixture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static io.oi.core.trace.TracerFixture.enter;
+import static io.oi.core.trace.TracerFixture.exit;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EmitterFactoryTest {
+
+    @RegisterExtension
+    final TracerFixture tracer = new TracerFixture();
+
+    private Path directory;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        directory = Files.createTempDirectory("oi-emitter");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Test
+    void testProvidersAreDiscoveredAndComposed() {
+        assertTrue(EmitterFactory.providers().keySet().containsAll(List.of("http", "file")),
+                "The built-in providers should be discovered");
+
+        OiCoreProperties.EmitterProperties config = fileConfig();
+        config.setTypes(new ArrayList<>(List.of("file", "http", "unknown")));
+        try (CompositeFlowEmitter composite = (CompositeFlowEmitter) EmitterFactory.create(config)) {
+            assertEquals(2, composite.getEmitters().size());
+        }
+    }
+
+    @Test
+    void testRoutesSendFailedTreesToTheirOwnSink() throws Exception {
+        List<FlowTree> failed = new ArrayList<>();
+        List<FlowTree> other = new ArrayList<>();
+        RoutingFlowEmitter routing = new RoutingFlowEmitter(List.of(
+                RoutingFlowEmitter.Route.parse("failed->errors").withEmitter(failed::add),
+                RoutingFlowEmitter.Route.parse("* -> sampled @ 0").withEmitter(other::add)), List.of());
+
+        routing.emit(trace(new IllegalStateException("boom")));
+        routing.emit(trace(null));
+
+        assertEquals(1, failed.size());
+        assertEquals(0, other.size());
+        assertEquals(RoutingFlowEmitter.Condition.SLOW, RoutingFlowEmitter.Route.parse("slow:500->file").condition());
+        assertThrows(IllegalArgumentException.class, () -> RoutingFlowEmitter.Route.parse("failed"));
+    }
+
+    @Test
+    void testFileEmitterWritesNdjsonAndRotates() throws Exception {
+        OiCoreProperties.EmitterProperties config = fileConfig();
+        config.setFileMaxBytes(1);
+        config.setFileMaxFiles(2);
+        // A file of an emitter whose prefix starts with this one's
+        Path other = Files.writeString(directory.resolve(config.getFilePrefix() + "-slow-20200101-000000-000-000000.ndjson"), "{}\n");
+        try (FileFlowEmitter emitter = new FileFlowEmitter(config)) {
+            for (int i = 0; i < 4; i++) {
+                FlowTree tree = trace(null);
+                emitter.emit(tree);
+                // Once the tree is written, the next one goes into a batch, and a file, of its own
+                awaitWritten(tree.getTraceId());
+            }
+        }
+
+        assertTrue(Files.exists(other), "Files of other emitters must be left alone");
+        Files.delete(other);
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.sorted().toList();
+        }
+        assertEquals(2, files.size());
+        assertTrue(files.get(0).getFileName().toString().matches("traces-\\d{8}-\\d{6}-\\d{3}-\\d{6}\\.ndjson"), files.toString());
+        ObjectMapper objectMapper = new ObjectMapper();
+        for (Path file : files) {
+            List<String> lines = Files.readAllLines(file);
+            assertEquals(1, lines.size());
+            assertEquals("run", objectMapper.readTree(lines.get(0)).path("rootNode").path("methodDetails").path("methodName").asText());
+        }
+        assertEquals(tracer.trees().get(2).getTraceId(),
+                objectMapper.readTree(Files.readAllLines(files.get(0)).get(0)).path("traceId").asText());
+        assertEquals(tracer.trees().get(3).getTraceId(),
+                objectMapper.readTree(Files.readAllLines(files.get(1)).get(0)).path("traceId").asText());
+    }
+
+    @Test
+    void testTreeFailingToSerialiseIsCutFromTheBatch() throws Exception {
+        FlowTree good = trace(null);
+        FlowTree bad = trace(null);
+        // A value whose serialisation fails after the tree's first fields have been written
+        bad.setStacks(Map.of("broken", new AbstractList<>() {
+            @Override
+            public String get(int index) {
+                throw new IllegalStateException("unreadable");
+            }
+
+            @Override
+            public int size() {
+                return 1;
+            }
+        }));
+        try (FileFlowEmitter emitter = new FileFlowEmitter(fileConfig())) {
+            emitter.emit(bad);
+            emitter.emit(good);
+            emitter.close();
+            assertEquals(1, emitter.getDroppedTrees());
+        }
+
+        List<String> lines;
+        try (Stream<Path> listing = Files.list(directory)) {
+            lines = Files.readAllLines(listing.findFirst().orElseThrow());
+        }
+        assertEquals(1, lines.size());
+        assertEquals(good.getTraceId(), new ObjectMapper().readTree(lines.get(0)).path("traceId").asText());
+    }
+
+    private void awaitWritten(String traceId) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            try (Stream<Path> listing = Files.list(directory)) {
+                for (Path file : listing.toList()) {
+                    try {
+                        if (Files.readString(file).contains(traceId)) {
+                            return;
+                        }
+                    } catch (NoSuchFileException e) {
+                        // Deleted by a rotation in the meantime
+                    }
+                }
+            }
+            Thread.onSpinWait();
+        }
+        fail("Tree " + traceId + " was not written");
+    }
+
+    private OiCoreProperties.EmitterProperties fileConfig() {
+        OiCoreProperties.EmitterProperties config = new OiCoreProperties.EmitterProperties();
+        config.setFileDirectory(directory.toString());
+        return config;
+    }
+
+    private FlowTree trace(Throwable failure) {
+        enter("com/test/Job", "run");
+        exit(failure);
+        return tracer.lastTree();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,112 @@
+package io.oi.core.emitter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.oi.core.config.OiCoreProperties;
+import io.oi.core.management.AgentStats;
+import io.oi.core.trace.TracerFixture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UnixSocketFlowEmitterTest {
+
+    @RegisterExtension
+    final TracerFixture tracer = new TracerFixture();
+
+    private Path socket;
+    private ServerSocketChannel server;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        socket = Files.createTempDirectory("oi-socket").resolve("collector.sock");
+        server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        server.bind(UnixDomainSocketAddress.of(socket));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        server.close();
+        Files.deleteIfExists(socket);
+        Files.deleteIfExists(socket.getParent());
+    }
+
+    @Test
+    void testBatchesAreFramedAndTheConnectionReestablished() throws Exception {
+        OiCoreProperties.EmitterProperties config = new OiCoreProperties.EmitterProperties();
+        config.setSocketPath(socket.toString());
+        try (UnixSocketFlowEmitter emitter = new UnixSocketFlowEmitter(config)) {
+            emitter.emit(tracer.trace("com/test/Job", "run"));
+            try (SocketChannel first = server.accept()) {
+                String frame = readFrame(first);
+                String traceId = new ObjectMapper().readTree(frame.lines().findFirst().orElseThrow()).path("traceId").asText();
+                assertEquals(tracer.trees().get(0).getTraceId(), traceId);
+            }
+
+            // The collector went away; keep emitting until the emitter has reconnected
+            BlockingQueue<String> frames = new LinkedBlockingQueue<>();
+            Thread collector = new Thread(() -> {
+                try (SocketChannel second = server.accept()) {
+                    frames.add(readFrame(second));
+                } catch (IOException e) {
+                    // Closed by tearDown
+                }
+            });
+            collector.start();
+            String frame = null;
+            for (int i = 0; i < 100 && frame == null; i++) {
+                emitter.emit(tracer.trace("com/test/Job", "run"));
+                frame = frames.poll(100, TimeUnit.MILLISECONDS);
+            }
+            assertNotNull(frame);
+            assertTrue(frame.contains("\"methodName\":\"run\""), "The frame should hold serialised trees");
+        }
+    }
+
+    @Test
+    void testBatchesAreDroppedUnserialisedWhileTheCollectorIsDown() throws Exception {
+        server.close();
+        OiCoreProperties.EmitterProperties config = new OiCoreProperties.EmitterProperties();
+        config.setSocketPath(socket.getParent().resolve("missing.sock").toString());
+        AgentStats.reset();
+        try (UnixSocketFlowEmitter emitter = new UnixSocketFlowEmitter(config)) {
+            for (int i = 0; i < 5; i++) {
+                emitter.emit(tracer.trace("com/test/Job", "run"));
+            }
+            emitter.close();
+            assertEquals(5, emitter.getDroppedTrees());
+        }
+        assertEquals(0L, AgentStats.getSerializationNanos());
+    }
+
+    private static String readFrame(SocketChannel channel) throws IOException {
+        ByteBuffer length = ByteBuffer.allocate(4);
+        readFully(channel, length);
+        ByteBuffer payload = ByteBuffer.allocate(length.getInt(0));
+        readFully(channel, payload);
+        return new String(payload.array(), StandardCharsets.UTF_8);
+    }
+
+    private static void readFully(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Connection closed");
+            }
+        }
+    }
+}
\ No newline at end of file
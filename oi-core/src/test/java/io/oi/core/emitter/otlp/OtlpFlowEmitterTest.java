@@ -0,0 +1,170 @@
+package io.oi.core.emitter.otlp;
+
+import com.sun.net.httpserver.HttpServer;
+import io.oi.core.config.OiCoreProperties;
+import io.oi.core.model.FlowTree;
+import io.oi.core.model.IncompleteTrace;
+import io.oi.core.trace.Tracer;
+import io.oi.core.trace.TracerFixture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import static io.oi.core.trace.TracerFixture.enter;
+import static io.oi.core.trace.TracerFixture.exit;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OtlpFlowEmitterTest {
+
+    @RegisterExtension
+    final TracerFixture tracer = new TracerFixture();
+
+    private final List<byte[]> requests = new CopyOnWriteArrayList<>();
+    private final List<String> encodings = new CopyOnWriteArrayList<>();
+    private final CountDownLatch received = new CountDownLatch(2);
+    private HttpServer receiver;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        receiver = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        receiver.createContext("/v1/traces", exchange -> {
+            String encoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+            try (InputStream body = "gzip".equals(encoding)
+                    ? new GZIPInputStream(exchange.getRequestBody())
+                    : exchange.getRequestBody()) {
+                requests.add(body.readAllBytes());
+            }
+            encodings.add(String.valueOf(encoding));
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+            received.countDown();
+        });
+        receiver.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        receiver.stop(0);
+    }
+
+    @Test
+    void testTreesAreExportedAsBatchedSpans() throws Exception {
+        OiCoreProperties.EmitterProperties config = new OiCoreProperties.EmitterProperties();
+        config.setOtlpEndpoint("http://127.0.0.1:" + receiver.getAddress().getPort() + "/v1/traces");
+        config.setOtlpServiceName("shop");
+        config.setOtlpMaxBatchSpans(3);
+        config.setOtlpFlushMs(50);
+        config.setTimeoutMs(2000);
+        try (OtlpFlowEmitter emitter = new OtlpFlowEmitter(config)) {
+            FlowTree snapshot = new FlowTree(trace(null).getTraceId(), tracer.trees().get(0).getRootNode());
+            snapshot.setIncomplete(new IncompleteTrace(1, 1_000L, List.of(), "RUNNABLE", null, null, List.of()));
+            emitter.emit(snapshot);
+            emitter.emit(trace(null));
+            emitter.emit(trace(new IllegalStateException("boom")));
+            assertTrue(received.await(5, TimeUnit.SECONDS), "Both batches should have been received");
+        }
+
+        // The snapshot is skipped; each tree has two spans, so two do not fit in one batch
+        assertEquals(List.of("gzip", "gzip"), encodings.subList(0, 2));
+        List<Map<Integer, List<Object>>> spans = new ArrayList<>();
+        for (byte[] request : requests) {
+            Map<Integer, List<Object>> resourceSpans = parse(first(parse(request), 1));
+            String serviceName = string(first(parse(first(parse(first(parse(first(resourceSpans, 1)), 1)), 2)), 1));
+            assertEquals("shop", serviceName);
+            for (Object span : parse(first(resourceSpans, 2)).get(2)) {
+                spans.add(parse((byte[]) span));
+            }
+        }
+        assertEquals(4, spans.size());
+
+        Map<Integer, List<Object>> root = spans.get(0);
+        Map<Integer, List<Object>> child = spans.get(1);
+        assertEquals("Shop.checkout", string(first(root, 5)));
+        assertNull(root.get(4));
+        assertArrayEquals((byte[]) first(root, 2), (byte[]) first(child, 4));
+        assertArrayEquals((byte[]) first(root, 1), (byte[]) first(child, 1));
+        assertEquals(1, child.get(11).size());
+        assertEquals("branch", string(first(parse((byte[]) child.get(11).get(0)), 2)));
+        assertTrue((Long) first(root, 8) >= (Long) first(root, 7), "The span should end after it started");
+
+        Map<Integer, List<Object>> failed = spans.get(2);
+        assertEquals(2L, first(parse(first(failed, 15)), 3));
+        assertEquals("exception", string(first(parse((byte[]) failed.get(11).get(0)), 2)));
+    }
+
+    private FlowTree trace(Throwable failure) {
+        enter("com/test/Shop", "checkout");
+        enter("com/test/Repository", "load");
+        Tracer.recordBranchTaken("if@12:true");
+        exit();
+        exit(failure);
+        return tracer.lastTree();
+    }
+
+    private static Object first(Map<Integer, List<Object>> message, int field) {
+        return message.get(field).get(0);
+    }
+
+    private static String string(Object bytes) {
+        return new String((byte[]) bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parses one protobuf message into its fields: varints and fixed values as Long,
+     * length-delimited values as byte[].
+     */
+    private static Map<Integer, List<Object>> parse(Object message) {
+        byte[] bytes = (byte[]) message;
+        Map<Integer, List<Object>> fields = new HashMap<>();
+        int[] position = {0};
+        while (position[0] < bytes.length) {
+            long tag = varint(bytes, position);
+            int field = (int) (tag >>> 3);
+            Object value;
+            switch ((int) (tag & 7)) {
+                case 0 -> value = varint(bytes, position);
+                case 1 -> {
+                    long fixed = 0L;
+                    for (int i = 0; i < 8; i++) {
+                        fixed |= (bytes[position[0]++] & 0xFFL) << (8 * i);
+                    }
+                    value = fixed;
+                }
+                case 2 -> {
+                    int length = (int) varint(bytes, position);
+                    byte[] nested = new byte[length];
+                    System.arraycopy(bytes, position[0], nested, 0, length);
+                    position[0] += length;
+                    value = nested;
+                }
+                default -> throw new IllegalStateException("Unexpected wire type in tag " + tag);
+            }
+            fields.computeIfAbsent(field, f -> new ArrayList<>()).add(value);
+        }
+        return fields;
+    }
+
+    private static long varint(byte[] bytes, int[] position) {
+        long value = 0L;
+        for (int shift = 0; ; shift += 7) {
+            byte b = bytes[position[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,115 @@
+package io.oi.core.http;
+
+import com.sun.net.httpserver.HttpServer;
+import io.oi.core.model.FlowCallNode;
+import io.oi.core.model.event.HttpClientEvent;
+import io.oi.core.trace.Tracer;
+import io.oi.core.trace.TracerFixture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static io.oi.core.trace.TracerFixture.enter;
+import static io.oi.core.trace.TracerFixture.exit;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HttpClientInstrumentationTest {
+
+    @RegisterExtension
+    final TracerFixture tracer = new TracerFixture();
+
+    private HttpServer server;
+    private URI base;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/users", exchange -> {
+            byte[] body = "{\"id\":42}".getBytes(StandardCharsets.UTF_8);
+            int status = exchange.getRequestURI().getPath().endsWith("/missing") ? 404 : 200;
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        base = URI.create("http://127.0.0.1:" + server.getAddress().getPort());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void testRoutesAreTemplated() {
+        assertEquals("/users/{id}/orders", HttpRoutes.template("/users/42/orders?expand=lines"));
+        assertEquals("/orders/{id}", HttpRoutes.template("/orders/3f2504e0-4f89-11d3-9a0c-0305e82c3301"));
+        assertEquals("/blobs/{id}/", HttpRoutes.template("/blobs/9f86d081884c7d65/"));
+        assertEquals("/api/v2/status", HttpRoutes.template("api/v2/status#top"));
+        assertEquals("/", HttpRoutes.template(""));
+        assertEquals("example.com", HttpRoutes.host(URI.create("https://example.com/a")));
+        assertEquals("localhost:8080", HttpRoutes.host(URI.create("http://localhost:8080/a")));
+    }
+
+    @Test
+    void testSendIsRecordedOnTheCallingNode() throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpClientStatistics.snapshot(true);
+
+        enter("com/test/Gateway", "lookup");
+        HttpResponse<String> found = HttpClientInstrumentation.send(client,
+                HttpRequest.newBuilder(base.resolve("/users/42")).build(), HttpResponse.BodyHandlers.ofString());
+        HttpResponse<byte[]> missing = HttpClientInstrumentation.sendAsync(client,
+                HttpRequest.newBuilder(base.resolve("/users/7/missing")).build(),
+                HttpResponse.BodyHandlers.ofByteArray()).get();
+        // The asynchronous call is recorded by a completion callback, which may still be running
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (Tracer.peekCurrentNode().getHttpEvents().size() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        exit();
+
+        assertEquals(200, found.statusCode());
+        assertEquals(404, missing.statusCode());
+        List<HttpClientEvent> events = tracer.trees().get(0).getRootNode().getHttpEvents();
+        assertEquals(2, events.size(), events.toString());
+        assertEquals("GET", events.get(0).method());
+        assertEquals("127.0.0.1:" + server.getAddress().getPort(), events.get(0).host());
+        assertEquals("/users/{id}", events.get(0).path());
+        assertEquals(200, events.get(0).status());
+        assertEquals(9, events.get(0).responseBytes());
+        assertEquals("/users/{id}/missing", events.get(1).path());
+        assertEquals(404, events.get(1).status());
+        assertFalse(events.get(1).failed());
+
+        List<HttpClientStatistics.Snapshot> routes = HttpClientStatistics.snapshot(false);
+        assertEquals(2, routes.stream().mapToLong(HttpClientStatistics.Snapshot::count).sum());
+        HttpClientStatistics.Snapshot host = HttpClientStatistics.byHost(routes).get(0);
+        assertNull(host.route());
+        assertEquals(2, host.latency().count());
+    }
+
+    @Test
+    void testCallCompletingAfterItsTraceIsOnlyCounted() {
+        HttpClientStatistics.snapshot(true);
+        enter("com/test/Gateway", "notify");
+        FlowCallNode node = Tracer.peekCurrentNode();
+        exit();
+
+        Tracer.recordHttpClientCall(node, new HttpClientEvent("POST", "hooks.example.com", "/events", 202, 0L, 1_000_000L));
+
+        assertTrue(tracer.trees().get(0).getRootNode().getHttpEvents().isEmpty(), "The emitted tree must not change");
+        assertEquals(1, HttpClientStatistics.get("hooks.example.com", "POST /events").getCount());
+    }
+}
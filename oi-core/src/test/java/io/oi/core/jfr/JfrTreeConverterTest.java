@@ -0,0 +1,60 @@
+package io.oi.core.jfr;
+
+import io.oi.core.config.OiCoreProperties;
+import io.oi.core.model.FlowCallNode;
+import io.oi.core.model.FlowTree;
+import io.oi.core.trace.Tracer;
+import jdk.jfr.Recording;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JfrTreeConverterTest {
+
+    @AfterEach
+    void tearDown() {
+        Tracer.configure(new OiCoreProperties());
+    }
+
+    @Test
+    void testRecordedTracesAreRebuilt(@TempDir Path dir) throws Exception {
+        OiCoreProperties properties = new OiCoreProperties();
+        properties.setBackend("jfr");
+        Tracer.configure(properties);
+
+        Path file = dir.resolve("trace.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(MethodExecutionEvent.class);
+            recording.enable(DbQueryExecutionEvent.class);
+            recording.enable(MethodDefinitionEvent.class);
+            recording.start();
+
+            Tracer.startTrace("com/test/Controller", "handle", "()V", 0, 0, new Object[0]);
+            Tracer.startTrace("com/test/Repository", "load", "()V", 0, 0, new Object[0]);
+            Tracer.recordDbQuery("select 1", 1_000L, 1);
+            Tracer.endTrace(null, null);
+            Tracer.startTrace("com/test/Repository", "save", "()V", 0, 0, new Object[0]);
+            Tracer.endTrace(null, null);
+            Tracer.endTrace(null, null);
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<FlowTree> trees = JfrTreeConverter.convert(file);
+        assertEquals(1, trees.size());
+        FlowCallNode root = trees.get(0).getRootNode();
+        assertEquals("handle", root.getMethodDetails().methodName());
+        assertEquals(2, root.getChildren().size());
+        FlowCallNode load = root.getChildren().get(0);
+        assertEquals("load", load.getMethodDetails().methodName());
+        assertEquals(1, load.getCallDepth());
+        assertEquals("select 1", load.getDbEvents().get(0).sql());
+        assertEquals("save", root.getChildren().get(1).getMethodDetails().methodName());
+    }
+}
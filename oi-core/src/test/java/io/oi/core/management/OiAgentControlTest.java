@@ -0,0 +1,89 @@
+package io.oi.core.management;
+
+import io.oi.core.capture.ValueCapture;
+import io.oi.core.trace.TracerFixture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static io.oi.core.trace.TracerFixture.enter;
+import static io.oi.core.trace.TracerFixture.exit;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OiAgentControlTest {
+
+    @RegisterExtension
+    final TracerFixture tracer = new TracerFixture();
+    private final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    private ObjectName name;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        AgentStats.reset();
+        name = new ObjectName(OiAgentControl.OBJECT_NAME);
+        assertTrue(OiAgentControl.register());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        server.unregisterMBean(name);
+        AgentStats.setHookTiming(false);
+    }
+
+    @Test
+    void testCountersAreExposed() throws Exception {
+        server.setAttribute(name, new Attribute("HookTimingEnabled", true));
+        trace();
+        trace();
+
+        assertEquals(2L, server.getAttribute(name, "TracesStarted"));
+        assertEquals(2L, server.getAttribute(name, "TracesCompleted"));
+        assertEquals(4L, server.getAttribute(name, "NodesCreated"));
+        assertEquals(2.0, (Double) server.getAttribute(name, "AverageNodesPerTrace"), 1e-9);
+        assertTrue((Long) server.getAttribute(name, "HookNanos") > 0L);
+        assertEquals(0L, server.getAttribute(name, "EmitterDroppedTrees"));
+
+        server.invoke(name, "resetCounters", null, null);
+        assertEquals(0L, server.getAttribute(name, "TracesStarted"));
+    }
+
+    @Test
+    void testSamplingAndEnabledApplyWithoutRestart() throws Exception {
+        server.setAttribute(name, new Attribute("SamplingRate", 0.0));
+        trace();
+        assertTrue(tracer.trees().isEmpty(), "No trace should be recorded at a sampling rate of 0");
+        assertEquals(1L, AgentStats.getTracesUnsampled());
+        assertEquals(0L, AgentStats.getNodesCreated(), "The nested call should not start a trace of its own");
+
+        server.setAttribute(name, new Attribute("SamplingRate", 1.0));
+        server.setAttribute(name, new Attribute("Enabled", false));
+        trace();
+        assertTrue(tracer.trees().isEmpty());
+
+        server.setAttribute(name, new Attribute("Enabled", true));
+        trace();
+        assertEquals(1, tracer.trees().size());
+        assertEquals(1, tracer.trees().get(0).getRootNode().getChildren().size());
+        assertThrows(Exception.class, () -> server.setAttribute(name, new Attribute("SamplingRate", 2.0)));
+    }
+
+    @Test
+    void testCaptureModeIsWritable() throws Exception {
+        server.setAttribute(name, new Attribute("CaptureMode", "type-only"));
+        assertEquals(ValueCapture.Mode.TYPE_ONLY, ValueCapture.getMode());
+        assertEquals("TYPE_ONLY", server.getAttribute(name, "CaptureMode"));
+    }
+
+    private void trace() {
+        enter("com/test/Job", "run");
+        enter("com/test/Job", "step");
+        exit();
+        exit();
+    }
+}
\ No newline at end of file
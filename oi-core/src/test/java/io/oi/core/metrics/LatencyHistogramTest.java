@@ -0,0 +1,83 @@
+package io.oi.core.metrics;
+
+import io.oi.core.trace.MethodRegistry;
+import io.oi.core.trace.Tracer;
+import io.oi.core.trace.TracerFixture;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+
+    @RegisterExtension
+    final TracerFixture tracer = new TracerFixture();
+
+    @Test
+    void testBucketsAreContiguous() {
+        for (int bucket = 1; bucket < LatencyHistogram.BUCKETS; bucket++) {
+            assertEquals(LatencyHistogram.bucketUpperBound(bucket - 1) + 1, LatencyHistogram.bucketLowerBound(bucket));
+            assertEquals(bucket, LatencyHistogram.bucketIndex(LatencyHistogram.bucketLowerBound(bucket)));
+        }
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucketIndex(Long.MAX_VALUE));
+        assertEquals(0, LatencyHistogram.bucketIndex(-5));
+    }
+
+    @Test
+    void testPercentilesAreWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 10_000; value++) {
+            histogram.record(value * 1_000);
+        }
+        HistogramSnapshot snapshot = histogram.snapshot(false);
+        assertEquals(10_000, snapshot.count());
+        assertEquals(5_000_000, snapshot.valueAtPercentile(50), 5_000_000 * 0.07);
+        assertEquals(9_900_000, snapshot.valueAtPercentile(99), 9_900_000 * 0.07);
+        assertTrue(snapshot.valueAtPercentile(100) >= 10_000_000);
+    }
+
+    @Test
+    void testSnapshotWithResetStartsOver() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(42);
+        assertEquals(1, histogram.snapshot(true).count());
+        assertEquals(0, histogram.snapshot(false).count());
+        assertEquals(0, HistogramSnapshot.empty().valueAtPercentile(99));
+    }
+
+    @Test
+    void testMethodMetricsTableRecordsCallsAndErrors() {
+        int methodId = MethodRegistry.register("com/test/Metrics", "call", "()V");
+        MethodMetricsTable.record(methodId, 1_000, false);
+        MethodMetricsTable.record(methodId, 3_000, true);
+
+        MethodMetricsSnapshot snapshot = MethodMetricsTable.snapshot(true).stream()
+                .filter(s -> s.methodId() == methodId)
+                .findFirst()
+                .orElseThrow();
+        assertEquals(2, snapshot.count());
+        assertEquals(1, snapshot.errorCount());
+        assertEquals(4_000, snapshot.totalNanos());
+        assertEquals(3_000, snapshot.maxNanos());
+        assertEquals("com.test.Metrics.call", snapshot.methodName());
+        assertEquals(0, MethodMetricsTable.get(methodId).getCount());
+    }
+
+    @Test
+    void testUnsampledCallsAreRecorded() {
+        tracer.configure(properties -> properties.setSampleRate(0.0));
+        int root = MethodRegistry.register("com/test/Unsampled", "handle", "()V");
+        int child = MethodRegistry.register("com/test/Unsampled", "load", "()V");
+        for (int i = 0; i < 3; i++) {
+            Tracer.startTrace(root, "com/test/Unsampled", "handle", "()V", 0, 0, new Object[0]);
+            Tracer.startTrace(child, "com/test/Unsampled", "load", "()V", 0, 0, new Object[0]);
+            Tracer.endTrace(null, new IllegalStateException());
+            Tracer.endTrace(null, null);
+        }
+
+        assertTrue(tracer.trees().isEmpty());
+        assertEquals(3, MethodMetricsTable.get(root).getCount());
+        assertEquals(3, MethodMetricsTable.get(child).getCount());
+        assertEquals(3, MethodMetricsTable.get(child).getErrorCount());
+    }
+}
@@ -0,0 +1,91 @@
+package io.oi.core.profile;
+
+import io.oi.core.config.OiCoreProperties;
+import io.oi.core.model.CodeAnalysis;
+import io.oi.core.model.ExecutionDetails;
+import io.oi.core.model.FlowCallNode;
+import io.oi.core.model.FlowTree;
+import io.oi.core.model.MethodDetails;
+import io.oi.core.model.ThreadInfo;
+import io.oi.core.trace.MethodRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CallTreeAggregatorTest {
+
+    private static final ThreadInfo THREAD = new ThreadInfo(1L, "main", false);
+
+    @Test
+    void testMergesPathsAndComputesSelfTime() {
+        CallTreeAggregator aggregator = new CallTreeAggregator(100);
+        for (int i = 0; i < 3; i++) {
+            FlowCallNode root = node("handle", 0, 10_000_000);
+            root.addChild(node("load", 1_000_000, 7_000_000));
+            aggregator.add(new FlowTree("t" + i, root));
+        }
+
+        assertEquals(3, aggregator.getTreeCount());
+        assertEquals(2, aggregator.getNodeCount());
+        Set<String> folded = Set.of(aggregator.toFoldedStacks().split("\n"));
+        assertEquals(Set.of("com.test.Profiled.handle 12000", "com.test.Profiled.handle;com.test.Profiled.load 18000"), folded);
+
+        CallTreeAggregator.PathStats hottest = aggregator.paths().get(0);
+        assertEquals(List.of("com.test.Profiled.handle"), hottest.path());
+        assertEquals(3, hottest.count());
+        assertEquals(30_000_000, hottest.totalNanos());
+        assertEquals(3, hottest.latency().count());
+    }
+
+    @Test
+    void testPruningKeepsHotPathsAndPreservesTime() {
+        CallTreeAggregator aggregator = new CallTreeAggregator(16);
+        FlowCallNode root = node("handle", 0, 100_000_000);
+        root.addChild(node("hot", 0, 50_000_000));
+        for (int i = 0; i < 30; i++) {
+            root.addChild(node("cold" + i, 0, 1_000));
+        }
+        aggregator.add(new FlowTree("t", root));
+
+        assertTrue(aggregator.getNodeCount() <= 16);
+        assertTrue(aggregator.getPrunedNodes() > 0);
+        Map<String, Long> totals = aggregator.paths().stream()
+                .collect(Collectors.toMap(p -> String.join(";", p.path()), CallTreeAggregator.PathStats::totalNanos));
+        assertEquals(50_000_000L, (long) totals.get("com.test.Profiled.handle;com.test.Profiled.hot"));
+
+        long selfMicros = aggregator.toFoldedStacks().lines()
+                .mapToLong(line -> Long.parseLong(line.substring(line.lastIndexOf(' ') + 1)))
+                .sum();
+        assertEquals(100_000, selfMicros);
+    }
+
+    @Test
+    void testProfilerAnswersQueriesWhileTreesAreQueued() {
+        assertFalse(new OiCoreProperties().getProfile().isEnabled(), "Profiling should be opt-in");
+        try (CallTreeProfiler profiler = new CallTreeProfiler(100, 60, 2)) {
+            for (int i = 0; i < 5_000; i++) {
+                FlowCallNode root = node("handle", 0, 10_000_000);
+                root.addChild(node("load", 1_000_000, 7_000_000));
+                profiler.emit(new FlowTree("t" + i, root));
+            }
+            CallTreeAggregator profile = profiler.aggregate(Duration.ofMinutes(1));
+            assertTrue(profile.getTreeCount() > 0);
+            assertEquals(2, profile.getNodeCount());
+        }
+    }
+
+    private static FlowCallNode node(String method, long start, long end) {
+        FlowCallNode node = new FlowCallNode(
+                new MethodDetails("com/test/Profiled", method, "()V", Map.of()),
+                new ExecutionDetails(start, end, THREAD, 0L),
+                new CodeAnalysis(0, 0, List.of()));
+        node.setMethodId(MethodRegistry.register("com/test/Profiled", method, "()V"));
+        return node;
+    }
+}
@@ -0,0 +1,82 @@
+package io.oi.core.sql;
+
+import io.oi.core.model.CodeAnalysis;
+import io.oi.core.model.ExecutionDetails;
+import io.oi.core.model.FlowCallNode;
+import io.oi.core.model.MethodDetails;
+import io.oi.core.model.RepeatedQuery;
+import io.oi.core.model.ThreadInfo;
+import io.oi.core.model.event.DbQueryEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SqlNormalizerTest {
+
+    @Test
+    void testLiteralsAndInListsShareFingerprint() {
+        SqlNormalizer.Fingerprint a = SqlNormalizer.fingerprint("SELECT * FROM orders WHERE id IN (1, 2, 3) AND note = 'it''s'");
+        SqlNormalizer.Fingerprint b = SqlNormalizer.fingerprint("select *\n  from ORDERS where id in (?,?) and note = ? -- retry");
+
+        assertEquals("select * from orders where id in(?+) and note = ?", a.normalizedSql());
+        assertEquals(a.normalizedSql(), b.normalizedSql());
+        assertEquals(a.hex(), b.hex());
+        assertEquals(16, a.hex().length());
+        assertNotEquals(a.hash(), SqlNormalizer.fingerprint("select * from orders where id = ?").hash());
+    }
+
+    @Test
+    void testIdentifiersAndOperatorsArePreserved() {
+        assertEquals("update t1 set n = n - ?, \"Name\" = ? where id = ?",
+                SqlNormalizer.normalize("UPDATE t1 SET n = n-1, \"Name\" = 'x' WHERE id = -42"));
+        assertEquals("insert into t(a, b) values(?+)",
+                SqlNormalizer.normalize("insert into t (a, b) values (1, 'x'), (2, 'y')"));
+    }
+
+    @Test
+    void testUnknownRowCountsAreLeftOutOfTheRowDistribution() {
+        SqlNormalizer.Fingerprint fingerprint = SqlNormalizer.fingerprint("delete from audit_log where id = 7");
+        SqlStatistics.record(fingerprint, 1_000_000L, -1);
+        SqlStatistics.record(fingerprint, 2_000_000L, 40);
+
+        SqlStatementSnapshot snapshot = SqlStatistics.snapshot(false).stream()
+                .filter(s -> s.fingerprint().equals(fingerprint.hex()))
+                .findFirst().orElseThrow();
+        assertEquals(2, snapshot.count());
+        assertEquals(1, snapshot.rows().count());
+        assertTrue(snapshot.rows().valueAtPercentile(50.0) >= 40, "The known row count should not be dragged down");
+    }
+
+    @Test
+    void testRepeatedQueryReportedAtDeepestCommonParent() {
+        FlowCallNode controller = node("OrderController", "list");
+        FlowCallNode service = node("OrderService", "loadLines");
+        controller.addChild(service);
+        controller.addDbEvent(new DbQueryEvent("select * from orders", 1_000, 10));
+        for (int i = 0; i < 6; i++) {
+            FlowCallNode repository = node("LineRepository", "findByOrder");
+            repository.addDbEvent(new DbQueryEvent("select * from lines where order_id = " + i, 2_000, 3));
+            service.addChild(repository);
+        }
+
+        List<RepeatedQuery> findings = RepeatedQueryDetector.detect(controller, 5);
+
+        assertEquals(1, findings.size());
+        RepeatedQuery finding = findings.get(0);
+        assertEquals("com.test.OrderService.loadLines", finding.parentMethod());
+        assertEquals(6, finding.count());
+        assertEquals(12_000, finding.totalNanos());
+        assertEquals("select * from lines where order_id = ?", finding.normalizedSql());
+        assertTrue(RepeatedQueryDetector.detect(controller, 7).isEmpty());
+    }
+
+    private static FlowCallNode node(String className, String method) {
+        return new FlowCallNode(
+                new MethodDetails("com/test/" + className, method, "()V", Map.of()),
+                new ExecutionDetails(new ThreadInfo(1L, "main", false)),
+                new CodeAnalysis(0, 0, List.of()));
+    }
+}
@@ -0,0 +1,63 @@
+package io.oi.core.store;
+
+import io.oi.core.model.FlowTree;
+import io.oi.core.trace.TracerFixture;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static io.oi.core.trace.TracerFixture.enter;
+import static io.oi.core.trace.TracerFixture.exit;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MappedTraceStoreTest {
+
+    @RegisterExtension
+    final TracerFixture tracer = new TracerFixture();
+
+    @Test
+    void testTreesAreDecodedFromTheMappedFile() throws Exception {
+        Path file = Files.createTempFile("oi-traces", ".ring");
+        try (MappedTraceStore store = new MappedTraceStore(file, 4, 64 * 1024, 16)) {
+            store.add(trace("checkout"));
+            store.add(trace("search"));
+
+            assertEquals(2, store.size());
+            assertEquals(4L * 64 * 1024, Files.size(file));
+            TraceSummary checkout = store.query(new TraceQuery("checkout", null, null, null, null, 10)).get(0);
+            FlowTree decoded = store.get(checkout.traceId());
+            assertEquals(tracer.trees().get(0).getTraceId(), decoded.getTraceId());
+            assertEquals("load", decoded.getRootNode().getChildren().get(0).getMethodDetails().methodName());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void testOldestSegmentIsOverwritten() throws Exception {
+        try (MappedTraceStore store = new MappedTraceStore(null, 2, 1024, 16)) {
+            FlowTree first = trace("call0");
+            store.add(first);
+            for (int i = 1; i < 100; i++) {
+                store.add(trace("call" + i));
+            }
+            assertNull(store.get(first.getTraceId()));
+            assertTrue(store.size() > 0 && store.size() < 100, "Only the traces of the newest segments should be kept");
+            assertTrue(store.getStoredBytes() <= 2 * 1024, "The stored traces should fit the ring");
+
+            TraceSummary newest = store.query(new TraceQuery(null, null, null, null, null, 1)).get(0);
+            assertEquals("com.test.Shop.call99", newest.entryPoint());
+            assertEquals("call99", store.get(newest.traceId()).getRootNode().getMethodDetails().methodName());
+        }
+    }
+
+    private FlowTree trace(String method) {
+        enter("com/test/Shop", method);
+        enter("com/test/Repository", "load");
+        exit();
+        exit();
+        return tracer.lastTree();
+    }
+}
\ No newline at end of file
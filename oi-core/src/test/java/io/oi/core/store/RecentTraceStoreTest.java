@@ -0,0 +1,84 @@
+package io.oi.core.store;
+
+import io.oi.core.model.FlowTree;
+import io.oi.core.trace.TracerFixture;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.util.List;
+
+import static io.oi.core.trace.TracerFixture.enter;
+import static io.oi.core.trace.TracerFixture.exit;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecentTraceStoreTest {
+
+    @RegisterExtension
+    final TracerFixture tracer = new TracerFixture();
+
+    @Test
+    void testQueryAndRoundTrip() throws Exception {
+        try (RecentTraceStore store = new RecentTraceStore(1 << 20, 100, 16)) {
+            store.add(trace("checkout", null));
+            store.add(trace("search", new IllegalStateException("boom")));
+
+            List<TraceSummary> all = store.query(new TraceQuery(null, null, null, null, null, 10));
+            assertEquals(List.of("com.test.Shop.search", "com.test.Shop.checkout"),
+                    all.stream().map(TraceSummary::entryPoint).toList());
+
+            List<TraceSummary> failed = store.query(new TraceQuery(null, null, true, null, null, 10));
+            assertEquals(1, failed.size());
+            assertEquals("com.test.Shop.search", failed.get(0).entryPoint());
+            assertEquals(1, store.query(new TraceQuery("checkout", null, null, null, null, 10)).size());
+            assertEquals(0, store.query(new TraceQuery(null, Long.MAX_VALUE, null, null, null, 10)).size());
+
+            FlowTree decoded = store.get(all.get(1).traceId());
+            assertEquals(tracer.trees().get(0).getTraceId(), decoded.getTraceId());
+            assertEquals("checkout", decoded.getRootNode().getMethodDetails().methodName());
+            assertEquals(1, decoded.getRootNode().getChildren().size());
+            assertNull(store.get("unknown"));
+        }
+    }
+
+    @Test
+    void testOldestTracesAreEvicted() throws Exception {
+        try (RecentTraceStore store = new RecentTraceStore(1 << 20, 3, 16)) {
+            for (int i = 0; i < 5; i++) {
+                store.add(trace("call" + i, null));
+            }
+            assertEquals(3, store.size());
+            assertEquals("com.test.Shop.call4",
+                    store.query(new TraceQuery(null, null, null, null, null, 1)).get(0).entryPoint());
+        }
+        try (RecentTraceStore store = new RecentTraceStore(1, 100, 16)) {
+            store.add(trace("large", null));
+            assertEquals(0, store.size());
+            assertEquals(0L, store.getStoredBytes());
+        }
+    }
+
+    @Test
+    void testStartTimeIsTakenWhenTheRootStarted() throws Exception {
+        long before = System.currentTimeMillis();
+        FlowTree tree = trace("checkout", null);
+        long after = System.currentTimeMillis();
+        assertTrue(tree.getStartEpochMillis() >= before && tree.getStartEpochMillis() <= after);
+
+        // Stored well after it started, as when the store's queue is backed up
+        tree.setStartEpochMillis(before - 60_000L);
+        try (RecentTraceStore store = new RecentTraceStore(1 << 20, 100, 16)) {
+            store.add(tree);
+            TraceSummary summary = store.query(new TraceQuery(null, null, null, null, null, 1)).get(0);
+            assertEquals(tree.getStartEpochMillis(), summary.startEpochMillis());
+            assertEquals(tree.getStartEpochMillis(), store.get(tree.getTraceId()).getStartEpochMillis());
+        }
+    }
+
+    private FlowTree trace(String method, Throwable failure) {
+        enter("com/test/Shop", method);
+        enter("com/test/Repository", "load");
+        exit();
+        exit(failure);
+        return tracer.lastTree();
+    }
+}
\ No newline at end of file
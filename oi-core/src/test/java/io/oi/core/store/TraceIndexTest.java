@@ -0,0 +1,87 @@
+package io.oi.core.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TraceIndexTest {
+
+    @Test
+    void testQueriesIntersectPostingLists() {
+        TraceIndex index = new TraceIndex();
+        for (int i = 0; i < 100_000; i++) {
+            String method = TraceIndex.methodTerm(i % 10 == 0 ? "com.shop.OrderService.reprice" : "com.shop.OrderService.list");
+            String[] terms = i % 1_000 == 0
+                    ? new String[]{method, TraceIndex.exceptionTerm("java.lang.IllegalStateException")}
+                    : new String[]{method, TraceIndex.sqlTerm("f" + (i % 7))};
+            index.add(summary("t" + i, i), terms, null);
+        }
+
+        List<TraceSummary> reprice = index.query(query("com.shop.OrderService.reprice", null, null, 100_000));
+        assertEquals(10_000, reprice.size());
+        assertEquals("t99990", reprice.get(0).traceId());
+
+        List<TraceSummary> failedReprices = index.query(query("com.shop.OrderService.reprice", null,
+                "java.lang.IllegalStateException", 100_000));
+        assertEquals(100, failedReprices.size());
+        assertTrue(failedReprices.stream().allMatch(s -> Integer.parseInt(s.traceId().substring(1)) % 1_000 == 0),
+                "Only traces with both terms should match");
+
+        List<TraceSummary> bySql = index.query(query("com.shop.OrderService.reprice", "f3", null, 100_000));
+        int expected = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (i % 10 == 0 && i % 7 == 3 && i % 1_000 != 0) {
+                expected++;
+            }
+        }
+        assertEquals(expected, bySql.size());
+        assertTrue(bySql.stream().map(s -> Integer.parseInt(s.traceId().substring(1))).allMatch(i -> i % 10 == 0 && i % 7 == 3),
+                "Only traces with both terms should match");
+
+        assertEquals(0, index.query(query("com.shop.Unknown.call", null, null, 10)).size());
+    }
+
+    @Test
+    void testSlotsShareTheirTermsPostingLists() {
+        TraceIndex index = new TraceIndex();
+        TraceIndex.Slot first = index.add(summary("a", 10), new String[]{TraceIndex.methodTerm("A.a")}, null);
+        TraceIndex.Slot second = index.add(summary("b", 20), new String[]{TraceIndex.methodTerm("A.a")}, null);
+        assertSame(first.postings()[0], second.postings()[0]);
+        assertEquals(1, index.terms());
+    }
+
+    @Test
+    void testEvictionRemovesPostings() {
+        TraceIndex index = new TraceIndex();
+        index.add(summary("a", 10), new String[]{TraceIndex.methodTerm("A.a"), TraceIndex.methodTerm("B.b")}, null);
+        index.add(summary("b", 20), new String[]{TraceIndex.methodTerm("B.b")}, null);
+        assertEquals(2, index.terms());
+
+        assertEquals("a", index.removeOldest().summary().traceId());
+        assertEquals(1, index.terms());
+        assertNull(index.get("a"));
+        assertEquals(0, index.query(query("A.a", null, null, 10)).size());
+        assertEquals(List.of("b"), index.query(query("B.b", null, null, 10)).stream().map(TraceSummary::traceId).toList());
+
+        // Slots keep resolving after the ring wrapped and grew
+        for (int i = 0; i < 200; i++) {
+            index.add(summary("c" + i, i), new String[]{TraceIndex.methodTerm("C.c")}, null);
+            if (i % 2 == 0) {
+                index.removeOldest();
+            }
+        }
+        List<TraceSummary> recent = index.query(query("C.c", null, null, 3));
+        assertEquals(List.of("c199", "c198", "c197"), recent.stream().map(TraceSummary::traceId).toList());
+        assertEquals(1, index.query(new TraceQuery(null, 150L, null, null, null, 1)).size());
+    }
+
+    private static TraceSummary summary(String traceId, long durationNanos) {
+        return new TraceSummary(traceId, "com.shop.OrderController.handle", 0L, durationNanos, false, 100);
+    }
+
+    private static TraceQuery query(String method, String sql, String exception, int limit) {
+        return new TraceQuery(null, null, null, null, null, limit, method, sql, exception);
+    }
+}
\ No newline at end of file
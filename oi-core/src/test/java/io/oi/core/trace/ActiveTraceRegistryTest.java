@@ -0,0 +1,79 @@
+package io.oi.core.trace;
+
+import io.oi.core.model.CodeAnalysis;
+import io.oi.core.model.ExecutionDetails;
+import io.oi.core.model.FlowCallNode;
+import io.oi.core.model.MethodDetails;
+import io.oi.core.model.ThreadInfo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static io.oi.core.trace.TracerFixture.enter;
+import static io.oi.core.trace.TracerFixture.exit;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ActiveTraceRegistryTest {
+
+    @RegisterExtension
+    final TracerFixture tracer = new TracerFixture();
+
+    @Test
+    void testInFlightTraceIsVisibleFromAnotherThread() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread request = new Thread(() -> {
+            enter("com/test/Stuck", "handle");
+            enter("com/test/Stuck", "validate");
+            exit();
+            enter("com/test/Stuck", "load");
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exit();
+            exit();
+        }, "oi-test-request");
+        request.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS), "The request should have started");
+
+        ActiveTraceRegistry.Snapshot snapshot = ActiveTraceRegistry.snapshot().stream()
+                .filter(s -> s.threadName().equals("oi-test-request"))
+                .findFirst().orElseThrow();
+        assertEquals(List.of("handle", "load"),
+                snapshot.stack().stream().map(ActiveTraceRegistry.Frame::methodName).toList());
+        assertEquals(snapshot.traceId(), ActiveTraceRegistry.latestTree().getTraceId());
+        assertEquals(2, ActiveTraceRegistry.liveTree(snapshot.traceId()).getRootNode().getChildren().size());
+
+        release.countDown();
+        request.join();
+        assertNull(ActiveTraceRegistry.snapshot(snapshot.traceId()));
+        assertEquals(snapshot.traceId(), tracer.trees().get(0).getTraceId());
+    }
+
+    @Test
+    void testRootsLeftOpenOnALiveThreadArePrunedOnceTooOld() {
+        long leakedAt = System.nanoTime() - ActiveTraceRegistry.MAX_AGE_NANOS - 1L;
+        for (int i = 0; i < ActiveTraceRegistry.MAX_ACTIVE; i++) {
+            ActiveTraceRegistry.register(root("leaked", leakedAt));
+        }
+        assertEquals(ActiveTraceRegistry.MAX_ACTIVE, ActiveTraceRegistry.size());
+
+        FlowCallNode current = root("current", System.nanoTime());
+        ActiveTraceRegistry.register(current);
+
+        assertEquals(1, ActiveTraceRegistry.size(), "The leaked roots should have made room for the new one");
+        assertNotNull(ActiveTraceRegistry.unregister(current));
+    }
+
+    private static FlowCallNode root(String methodName, long startNanos) {
+        return new FlowCallNode(new MethodDetails("com/test/Pool", methodName, "()V", Map.of()),
+                new ExecutionDetails(startNanos, 0L, (ThreadInfo) null, 0L), new CodeAnalysis(0, 0, List.of()));
+    }
+}
\ No newline at end of file
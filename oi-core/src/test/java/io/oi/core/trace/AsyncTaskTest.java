@@ -0,0 +1,97 @@
+package io.oi.core.trace;
+
+import io.oi.core.model.FlowCallNode;
+import io.oi.core.model.FlowTree;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static io.oi.core.trace.TracerFixture.enter;
+import static io.oi.core.trace.TracerFixture.exit;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AsyncTaskTest {
+
+    @RegisterExtension
+    final TracerFixture tracer = new TracerFixture();
+
+    @Test
+    void testTaskStartedAfterItsTraceCompletedStartsALinkedTrace() throws Exception {
+        List<FlowTree> trees = tracer.trees();
+        enter("com/test/Async", "handle");
+        Runnable task = Tracer.wrap(() -> {
+            enter("com/test/Async", "audit");
+            exit();
+        });
+        exit();
+        FlowTree request = trees.get(0);
+
+        Thread worker = new Thread(task);
+        worker.start();
+        worker.join();
+
+        assertTrue(request.getRootNode().getChildren().isEmpty(), "The emitted tree must not change");
+        assertEquals(2, trees.size());
+        FlowTree linked = trees.get(1);
+        assertNotEquals(request.getTraceId(), linked.getTraceId());
+        assertEquals(request.getTraceId(), linked.getLinkedTraceId());
+        FlowCallNode root = linked.getRootNode();
+        assertEquals("run", root.getMethodDetails().methodName());
+        assertEquals(worker.threadId(), (long) root.getExecutionDetails().getThreadId());
+        assertEquals("audit", root.getChildren().get(0).getMethodDetails().methodName());
+        assertNotEquals(0L, root.getChildren().get(0).getExecutionDetails().getEndNanos());
+        assertNull(request.getLinkedTraceId());
+    }
+
+    @Test
+    void testTaskOutlivingItsTraceIsEmittedAsALinkedTrace() throws Exception {
+        List<FlowTree> trees = tracer.trees();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch rootEnded = new CountDownLatch(1);
+        enter("com/test/Async", "handle");
+        Thread worker = new Thread(Tracer.wrap(() -> {
+            started.countDown();
+            try {
+                rootEnded.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            enter("com/test/Async", "audit");
+            exit();
+        }));
+        worker.start();
+        started.await();
+        exit();
+        FlowTree request = trees.get(0);
+        assertTrue(request.getRootNode().getChildren().isEmpty(), "A running task must be detached from the emitted tree");
+        rootEnded.countDown();
+        worker.join();
+
+        assertTrue(request.getRootNode().getChildren().isEmpty(), "The emitted tree must not change");
+        assertEquals(2, trees.size());
+        FlowTree linked = trees.get(1);
+        assertEquals(request.getTraceId(), linked.getLinkedTraceId());
+        FlowCallNode root = linked.getRootNode();
+        assertEquals("run", root.getMethodDetails().methodName());
+        assertEquals("audit", root.getChildren().get(0).getMethodDetails().methodName());
+        assertNotEquals(0L, root.getExecutionDetails().getEndNanos());
+    }
+
+    @Test
+    void testTaskOfAnUnsampledTraceIsNotRecorded() throws Exception {
+        tracer.configure(properties -> properties.setSampleRate(0.0));
+
+        enter("com/test/Async", "handle");
+        Thread worker = new Thread(Tracer.wrap(() -> {
+            enter("com/test/Async", "work");
+            exit();
+        }));
+        worker.start();
+        worker.join();
+        exit();
+
+        assertTrue(tracer.trees().isEmpty(), "The worker's calls should not start a trace of their own");
+    }
+}
@@ -0,0 +1,75 @@
+package io.oi.core.trace;
+
+import io.oi.core.exception.ExceptionStatistics;
+import io.oi.core.model.ExceptionInfo;
+import io.oi.core.model.FlowCallNode;
+import io.oi.core.model.FlowTree;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.util.List;
+
+import static io.oi.core.trace.TracerFixture.enter;
+import static io.oi.core.trace.TracerFixture.exit;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExceptionCaptureTest {
+
+    @RegisterExtension
+    final TracerFixture tracer = new TracerFixture();
+
+    @BeforeEach
+    void setUp() {
+        tracer.configure(properties -> {
+            properties.getCapture().setMaxStackDepth(3);
+            properties.getCapture().setMaxStringLength(10);
+        });
+    }
+
+    @Test
+    void testPropagatedExceptionIsRecordedOnceAndReferencedAbove() {
+        IllegalStateException failure = new IllegalStateException("order 42 could not be found",
+                new IllegalArgumentException("bad id"));
+
+        enter("com/test/Failing", "handle");
+        enter("com/test/Failing", "load");
+        exit(failure);
+        exit(failure);
+
+        FlowTree tree = tracer.trees().get(0);
+        FlowCallNode root = tree.getRootNode();
+        ExceptionInfo thrown = root.getChildren().get(0).getException();
+        assertEquals(IllegalStateException.class.getName(), thrown.type());
+        assertEquals("order 42 c...", thrown.message());
+        assertEquals(IllegalArgumentException.class.getName(), thrown.causeType());
+        assertFalse(thrown.rethrown());
+
+        ExceptionInfo rethrown = root.getException();
+        assertTrue(rethrown.rethrown(), "The root only propagated the exception");
+        assertNull(rethrown.message());
+        assertEquals(thrown.stackHash(), rethrown.stackHash());
+
+        List<String> frames = tree.getStacks().get(thrown.stackHash());
+        assertEquals(3, frames.size());
+        assertTrue(frames.get(0).startsWith(getClass().getName() + ".testPropagated"), frames.get(0));
+    }
+
+    @Test
+    void testThrowingSitesAreCountedOncePerException() {
+        for (int i = 0; i < 3; i++) {
+            enter("com/test/Failing", "handle");
+            enter("com/test/Failing", "load");
+            RuntimeException failure = new UnsupportedOperationException("nope");
+            exit(failure);
+            exit(failure);
+        }
+
+        long count = ExceptionStatistics.snapshot(false).stream()
+                .filter(s -> s.type().equals(UnsupportedOperationException.class.getName()))
+                .mapToLong(ExceptionStatistics.Snapshot::count)
+                .sum();
+        assertEquals(3L, count);
+        assertEquals(1, tracer.trees().get(2).getStacks().size());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,100 @@
+package io.oi.core.trace;
+
+import io.oi.core.model.FlowCallNode;
+import io.oi.core.model.FlowTree;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.util.List;
+
+import static io.oi.core.trace.TracerFixture.enter;
+import static io.oi.core.trace.TracerFixture.exit;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FrameCallStackTest {
+
+    @RegisterExtension
+    final TracerFixture tracer = new TracerFixture();
+
+    @Test
+    void testFramesArePoppedInReverseOrder() {
+        FrameCallStack stack = new FrameCallStack();
+        CallFrame outer = CallFrame.unsampled(1);
+        CallFrame inner = CallFrame.unsampled(2);
+
+        assertTrue(stack.isEmpty());
+        assertNull(stack.peek());
+        stack.push(outer);
+        stack.push(inner);
+
+        assertFalse(stack.isEmpty());
+        assertSame(inner, stack.peek());
+        assertEquals(List.of(inner, outer), List.copyOf(stack.snapshot()));
+        assertSame(inner, stack.pop());
+        assertSame(outer, stack.pop());
+        assertTrue(stack.isEmpty());
+        assertNull(stack.pop());
+    }
+
+    @Test
+    void testThreadLocalIsClearedOnceTheStackIsEmpty() {
+        FrameCallStack stack = new FrameCallStack();
+        stack.push(CallFrame.unsampled(1));
+        stack.push(CallFrame.unsampled(2));
+        stack.pop();
+        assertNotNull(stack.suspend(), "The outer frame is still open");
+
+        stack.resume(null);
+        stack.push(CallFrame.unsampled(1));
+        stack.pop();
+        assertNull(stack.suspend(), "No state should be left on the thread");
+    }
+
+    @Test
+    void testAsyncTaskSuspendsAndResumesTheWorkersChain() throws Exception {
+        tracer.configure(properties -> properties.getContext().setCarrier("frames"));
+        assertInstanceOf(FrameCallStack.class, Tracer.carrier());
+
+        enter("com/test/Frames", "handle");
+        Runnable task = Tracer.wrap(() -> {
+            enter("com/test/Frames", "work");
+            exit();
+        });
+        Thread worker = new Thread(() -> {
+            enter("com/test/Worker", "poll");
+            task.run();
+            exit();
+        });
+        worker.start();
+        worker.join();
+        exit();
+
+        List<FlowTree> trees = tracer.trees();
+        assertEquals(2, trees.size());
+        FlowCallNode poll = trees.get(0).getRootNode();
+        assertEquals("poll", poll.getMethodDetails().methodName());
+        assertTrue(poll.getChildren().isEmpty(), "The task should not attach to the worker's own trace");
+        FlowCallNode run = trees.get(1).getRootNode().getChildren().get(0);
+        assertEquals("run", run.getMethodDetails().methodName());
+        assertEquals("work", run.getChildren().get(0).getMethodDetails().methodName());
+        assertTrue(Tracer.carrier().isEmpty());
+    }
+
+    @Test
+    void testConfigureKeepsTheCarrierOfOpenTraces() {
+        tracer.configure(properties -> properties.getContext().setCarrier("frames"));
+        CallStackCarrier frames = Tracer.carrier();
+        tracer.configure(properties -> properties.setSampleRate(1.0));
+        assertSame(frames, Tracer.carrier(), "A carrier of the same type should be kept");
+
+        enter("com/test/Main", "main");
+        tracer.configure(properties -> properties.getContext().setCarrier("deque"));
+        assertSame(frames, Tracer.carrier(), "The carrier must not change while a trace is open");
+        enter("com/test/Main", "run");
+        exit();
+        exit();
+
+        assertEquals("run", tracer.lastTree().getRootNode().getChildren().get(0).getMethodDetails().methodName());
+        assertEquals(0, ActiveTraceRegistry.size());
+    }
+}
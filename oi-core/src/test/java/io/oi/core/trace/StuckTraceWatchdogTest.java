@@ -0,0 +1,73 @@
+package io.oi.core.trace;
+
+import io.oi.core.model.FlowTree;
+import io.oi.core.model.IncompleteTrace;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static io.oi.core.trace.TracerFixture.enter;
+import static io.oi.core.trace.TracerFixture.exit;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StuckTraceWatchdogTest {
+
+    @RegisterExtension
+    final TracerFixture tracer = new TracerFixture();
+
+    @BeforeEach
+    void setUp() {
+        tracer.configure(properties -> {
+            properties.getStuck().setEnabled(true);
+            properties.getStuck().setThresholdMs(50);
+            properties.getStuck().setScanIntervalMs(10);
+            properties.getStuck().setMaxSnapshots(2);
+        });
+    }
+
+    @Test
+    void testLongRunningTraceIsSnapshottedWithItsBlockingState() throws Exception {
+        Object lock = new Object();
+        CountDownLatch entered = new CountDownLatch(1);
+        Thread request = new Thread(() -> {
+            enter("com/test/Hung", "handle");
+            enter("com/test/Hung", "lockOrder");
+            entered.countDown();
+            synchronized (lock) {
+                // Blocked until the test releases the lock
+            }
+            exit();
+            exit();
+        }, "oi-test-hung");
+
+        synchronized (lock) {
+            request.start();
+            assertTrue(entered.await(5, TimeUnit.SECONDS), "The request should have started");
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (tracer.trees().size() < 2 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+        }
+        request.join();
+        List<FlowTree> trees = tracer.trees();
+
+        assertEquals(3, trees.size(), "Two snapshots and the completed tree");
+        IncompleteTrace first = trees.get(0).getIncomplete();
+        assertEquals(1, first.snapshot());
+        assertEquals(List.of("com.test.Hung.handle", "com.test.Hung.lockOrder"), first.openStack());
+        assertEquals("BLOCKED", first.threadState());
+        assertEquals(Thread.currentThread().getName(), first.lockOwner());
+        assertTrue(first.javaStack().get(0).contains("StuckTraceWatchdogTest"), first.javaStack().get(0));
+        assertEquals(2, trees.get(1).getIncomplete().snapshot());
+        assertTrue(trees.get(1).getIncomplete().elapsedNanos() >= 2 * first.elapsedNanos(),
+                "The second snapshot should follow once the running time doubled");
+
+        FlowTree complete = trees.get(2);
+        assertNull(complete.getIncomplete());
+        assertEquals(trees.get(0).getTraceId(), complete.getTraceId());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,48 @@
+package io.oi.core.trace;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.oi.core.model.FlowCallNode;
+import io.oi.core.model.FlowTree;
+import io.oi.core.model.ThreadInfo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import static io.oi.core.trace.TracerFixture.enter;
+import static io.oi.core.trace.TracerFixture.exit;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ThreadRecordingTest {
+
+    @RegisterExtension
+    final TracerFixture tracer = new TracerFixture();
+
+    @Test
+    void testThreadIsCachedAndRecordedOnlyWhereItChanges() throws Exception {
+        assertSame(ThreadInfo.current(), ThreadInfo.current());
+
+        enter("com/test/Threaded", "handle");
+        enter("com/test/Threaded", "load");
+        exit();
+        Thread worker = new Thread(Tracer.wrap(() -> {
+            enter("com/test/Threaded", "work");
+            exit();
+        }), "oi-test-worker");
+        worker.start();
+        worker.join();
+        exit();
+
+        FlowTree tree = tracer.trees().get(0);
+        FlowCallNode root = tree.getRootNode();
+        long mainId = Thread.currentThread().threadId();
+        assertEquals(mainId, (long) root.getExecutionDetails().getThreadId());
+        assertNull(root.getChildren().get(0).getExecutionDetails().getThreadInfo());
+        FlowCallNode task = root.getChildren().get(1);
+        assertEquals(worker.threadId(), (long) task.getExecutionDetails().getThreadId());
+        assertNull(task.getChildren().get(0).getExecutionDetails().getThreadInfo());
+        assertEquals(2, tree.getThreads().size());
+
+        FlowTree read = new ObjectMapper().readValue(new ObjectMapper().writeValueAsString(tree), FlowTree.class);
+        assertEquals("oi-test-worker",
+                read.getRootNode().getChildren().get(1).getExecutionDetails().getThreadInfo().threadName());
+    }
+}
\ No newline at end of file
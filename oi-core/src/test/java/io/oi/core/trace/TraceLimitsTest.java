@@ -0,0 +1,103 @@
+package io.oi.core.trace;
+
+import io.oi.core.model.FlowCallNode;
+import io.oi.core.model.FlowTree;
+import io.oi.core.model.TraceTruncation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.util.List;
+
+import static io.oi.core.trace.TracerFixture.enter;
+import static io.oi.core.trace.TracerFixture.exit;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TraceLimitsTest {
+
+    @RegisterExtension
+    final TracerFixture tracer = new TracerFixture();
+
+    @Test
+    void testRepeatedCallsBeyondMaxNodesAreFolded() {
+        tracer.configure(properties -> properties.getLimits().setMaxNodes(5));
+
+        enter("com/test/Limited", "batch");
+        for (int i = 0; i < 100; i++) {
+            enter("com/test/Limited", "step");
+            enter("com/test/Limited", "load");
+            exit();
+            exit();
+        }
+        exit();
+
+        FlowCallNode root = tracer.trees().get(0).getRootNode();
+        // Root, two regular step/load pairs, then one aggregate per method
+        List<FlowCallNode> children = root.getChildren();
+        assertEquals(3, children.size());
+        assertNull(children.get(0).getFolded());
+        FlowCallNode steps = children.get(2);
+        assertEquals("step", steps.getMethodDetails().methodName());
+        assertEquals(98, steps.getFolded().getCount());
+        assertTrue(steps.getFolded().getMinNanos() <= steps.getFolded().getMaxNanos());
+        FlowCallNode loads = steps.getChildren().get(0);
+        assertEquals(98, loads.getFolded().getCount());
+
+        TraceTruncation truncation = tracer.trees().get(0).getTruncation();
+        assertEquals(196, truncation.foldedCalls());
+        assertEquals(0, truncation.droppedCalls());
+    }
+
+    @Test
+    void testDirectRecursionIsCollapsed() {
+        enter("com/test/Limited", "walk");
+        for (int i = 0; i < 50; i++) {
+            enter("com/test/Limited", "walk");
+        }
+        Tracer.recordDbQuery("select 1", 10, 1);
+        for (int i = 0; i < 50; i++) {
+            exit();
+        }
+        exit();
+
+        FlowCallNode root = tracer.trees().get(0).getRootNode();
+        assertTrue(root.getChildren().isEmpty());
+        assertEquals(1, root.getDbEvents().size());
+        assertEquals(50, tracer.trees().get(0).getTruncation().collapsedCalls());
+    }
+
+    @Test
+    void testCallsBeyondMaxDepthAndEventsBeyondLimitAreCounted() {
+        tracer.configure(properties -> {
+            properties.getLimits().setMaxDepth(1);
+            properties.getLimits().setMaxEventsPerTrace(2);
+        });
+
+        enter("com/test/Limited", "handle");
+        enter("com/test/Limited", "service");
+        enter("com/test/Limited", "repository");
+        for (int i = 0; i < 3; i++) {
+            Tracer.recordDbQuery("select " + i, 10, 1);
+        }
+        exit();
+        exit();
+        exit();
+
+        FlowTree tree = tracer.trees().get(0);
+        FlowCallNode service = tree.getRootNode().getChildren().get(0);
+        assertTrue(service.getChildren().isEmpty());
+        // The repository's queries are attributed to the deepest recorded node
+        assertEquals(2, service.getDbEvents().size());
+        assertEquals(new TraceTruncation(0, 0, 1, 1), tree.getTruncation());
+    }
+
+    @Test
+    void testSmallTraceHasNoTruncation() {
+        enter("com/test/Limited", "handle");
+        enter("com/test/Limited", "service");
+        exit();
+        exit();
+
+        assertNull(tracer.trees().get(0).getTruncation());
+        assertEquals(1, tracer.trees().get(0).getRootNode().getChildren().size());
+    }
+}
@@ -0,0 +1,100 @@
+package io.oi.core.trace;
+
+import io.oi.core.config.OiCoreProperties;
+import io.oi.core.model.FlowTree;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Collects the trees the {@link Tracer} emits during each test, and restores its default
+ * configuration afterwards. Registered as a field:
+ * <pre>
+ * &#64;RegisterExtension
+ * final TracerFixture tracer = new TracerFixture();
+ * </pre>
+ * The tracer is configured with the defaults before each test; tests that need other
+ * settings {@link #configure(Consumer) change} them.
+ */
+public final class TracerFixture implements BeforeEachCallback, AfterEachCallback {
+
+    private final OiCoreProperties properties = new OiCoreProperties();
+    private final List<FlowTree> trees = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        Tracer.configure(properties);
+        Tracer.setEmitter(trees::add);
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        Tracer.setEmitter(null);
+        Tracer.configure(new OiCoreProperties());
+    }
+
+    /**
+     * Changes the test's configuration and applies it to the tracer.
+     */
+    public void configure(Consumer<OiCoreProperties> settings) {
+        settings.accept(properties);
+        Tracer.configure(properties);
+    }
+
+    /**
+     * @return The test's configuration, as last applied.
+     */
+    public OiCoreProperties properties() {
+        return properties;
+    }
+
+    /**
+     * @return The trees emitted so far, in order.
+     */
+    public List<FlowTree> trees() {
+        return trees;
+    }
+
+    /**
+     * @return The tree emitted last.
+     */
+    public FlowTree lastTree() {
+        return trees.get(trees.size() - 1);
+    }
+
+    /**
+     * Runs a call of {@code className.methodName} without nested calls and returns its tree.
+     */
+    public FlowTree trace(String className, String methodName) {
+        enter(className, methodName);
+        exit();
+        return lastTree();
+    }
+
+    /**
+     * Enters a method taking no arguments, as woven code does.
+     *
+     * @param className The class in internal form, e.g. {@code com/test/Shop}.
+     */
+    public static void enter(String className, String methodName) {
+        Tracer.startTrace(className, methodName, "()V", 0, 0, new Object[0]);
+    }
+
+    /**
+     * Returns from the innermost method.
+     */
+    public static void exit() {
+        Tracer.endTrace(null, null);
+    }
+
+    /**
+     * Throws {@code exception} out of the innermost method.
+     */
+    public static void exit(Throwable exception) {
+        Tracer.endTrace(null, exception);
+    }
+}
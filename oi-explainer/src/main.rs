@@ -72,10 +72,13 @@ fn filter_node(node: &model::FlowCallNode, exclude_packages: &[String]) -> model
         code_analysis: node.code_analysis.clone(),
         children: filtered_children,
         db_events: node.db_events.clone(),
+        connection_events: node.connection_events.clone(),
+        http_events: node.http_events.clone(),
         return_value: node.return_value.clone(),
         exception: node.exception.clone(),
         branches_taken: node.branches_taken.clone(),
         loops_entered: node.loops_entered.clone(),
+        folded: node.folded.clone(),
     }
 }
 
@@ -206,8 +209,55 @@ async fn ingest(tree: web::Json<FlowTree>) -> impl Responder {
     let spiral_svg = generate_spiral_svg(&filtered_tree);
 
     // 4. NL Narrative
-    let summary = generate_summary(&filtered_tree.root_node);
-    let steps = generate_steps(&filtered_tree.root_node, &mut 1);
+    let summary = match &filtered_tree.incomplete {
+        Some(incomplete) => format!(
+            "The request handled by `{}` in class `{}` was still running after {} ms (snapshot {}); its thread was {}{}.",
+            filtered_tree.root_node.method_details.method_name,
+            filtered_tree.root_node.method_details.class_name,
+            incomplete.elapsed_nanos / 1_000_000,
+            incomplete.snapshot,
+            incomplete.thread_state.as_deref().unwrap_or("in an unknown state"),
+            incomplete
+                .lock_name
+                .as_ref()
+                .map(|lock| format!(
+                    " waiting for `{}`{}",
+                    lock,
+                    incomplete.lock_owner.as_ref().map(|owner| format!(" held by `{}`", owner)).unwrap_or_default()
+                ))
+                .unwrap_or_default()
+        ),
+        None => generate_summary(&filtered_tree.root_node),
+    };
+    let mut steps = generate_steps(&filtered_tree.root_node, &filtered_tree.threads, "unknown", &mut 1);
+    steps.extend(generate_repeated_query_steps(&filtered_tree, steps.len() + 1));
+    if let Some(truncation) = &filtered_tree.truncation {
+        steps.push(Step {
+            step: steps.len() + 1,
+            description: format!(
+                "The trace hit its size limits: {} calls folded, {} recursive calls collapsed, {} calls and {} events dropped.",
+                truncation.folded_calls,
+                truncation.collapsed_calls,
+                truncation.dropped_calls,
+                truncation.dropped_events
+            ),
+        });
+    }
+
+    if let Some(incomplete) = &filtered_tree.incomplete {
+        if !incomplete.open_stack.is_empty() {
+            steps.push(Step {
+                step: steps.len() + 1,
+                description: format!("Open calls at the time of the snapshot: {}.", incomplete.open_stack.join(" → ")),
+            });
+        }
+        if let Some(top) = incomplete.java_stack.first() {
+            steps.push(Step {
+                step: steps.len() + 1,
+                description: format!("The thread was executing `{}`.", top),
+            });
+        }
+    }
 
     // 5. Response
     let response = ExplanationResponse {
@@ -221,7 +271,7 @@ async fn ingest(tree: web::Json<FlowTree>) -> impl Responder {
 }
 
 fn generate_summary(root: &model::FlowCallNode) -> String {
-    let duration_ms = (root.execution_details.end_nanos - root.execution_details.start_nanos) / 1_000_000;
+    let duration_ms = root.execution_details.end_nanos.saturating_sub(root.execution_details.start_nanos) / 1_000_000;
     let status = if root.exception.is_some() { "failed" } else { "completed successfully" };
     
     format!(
@@ -233,40 +283,142 @@ fn generate_summary(root: &model::FlowCallNode) -> String {
     )
 }
 
-fn generate_steps(node: &model::FlowCallNode, step_counter: &mut usize) -> Vec<Step> {
+fn generate_steps(
+    node: &model::FlowCallNode,
+    threads: &HashMap<String, model::ThreadInfo>,
+    parent_thread: &str,
+    step_counter: &mut usize,
+) -> Vec<Step> {
     let mut steps = Vec::new();
-    let duration = (node.execution_details.end_nanos - node.execution_details.start_nanos) / 1_000_000;
+    // Nodes only name their thread where it differs from their parent's
+    let thread_name = node
+        .execution_details
+        .thread_id
+        .and_then(|id| threads.get(&id.to_string()))
+        .map(|thread| thread.thread_name.as_str())
+        .unwrap_or(parent_thread);
+    let duration = node.execution_details.end_nanos.saturating_sub(node.execution_details.start_nanos) / 1_000_000;
     
-    let description = format!(
-        "Call to `{}` on thread `{}` took {} ms.",
-        node.method_details.method_name,
-        node.execution_details.thread_info.thread_name,
-        duration
-    );
+    let description = match &node.folded {
+        Some(folded) => format!(
+            "{1} further calls to `{0}` were folded, taking {2} ms in total ({3} to {4} ms per call).",
+            node.method_details.method_name,
+            folded.count,
+            folded.total_nanos / 1_000_000,
+            folded.min_nanos / 1_000_000,
+            folded.max_nanos / 1_000_000
+        ),
+        None => format!(
+            "Call to `{}` on thread `{}` took {} ms.",
+            node.method_details.method_name,
+            thread_name,
+            duration
+        ),
+    };
 
     steps.push(Step { step: *step_counter, description });
     *step_counter += 1;
 
+    // Display the exception the call ended with; rethrows only reference the original
+    if let Some(exception) = &node.exception {
+        let exception_description = if exception.rethrown {
+            format!("  └─ Propagated `{}` from a callee.", exception.r#type)
+        } else {
+            format!(
+                "  └─ Threw `{}`{}{}.",
+                exception.r#type,
+                exception.message.as_ref().map(|m| format!(": {}", m)).unwrap_or_default(),
+                exception.cause_type.as_ref().map(|c| format!(" (caused by `{}`)", c)).unwrap_or_default()
+            )
+        };
+        steps.push(Step { step: *step_counter, description: exception_description });
+        *step_counter += 1;
+    }
+
+    // Display connection acquisitions and transaction ends within this method call
+    for connection_event in &node.connection_events {
+        let action = match connection_event.operation.as_str() {
+            "ACQUIRE" => "Connection acquisition",
+            "COMMIT" => "Commit",
+            "ROLLBACK" => "Rollback",
+            other => other,
+        };
+        let connection_description = format!(
+            "  └─ {}{} took {} ms{}.",
+            action,
+            connection_event.data_source.as_ref().map(|ds| format!(" from `{}`", ds)).unwrap_or_default(),
+            connection_event.duration_nanos / 1_000_000,
+            if connection_event.failed { " and failed" } else { "" }
+        );
+        steps.push(Step { step: *step_counter, description: connection_description });
+        *step_counter += 1;
+    }
+
+    // Display outbound HTTP calls made within this method call
+    for http_event in &node.http_events {
+        let outcome = if http_event.status < 0 {
+            "failed without a response".to_string()
+        } else {
+            format!("returned {}", http_event.status)
+        };
+        let http_description = format!(
+            "  └─ HTTP {} {}{} {} after {} ms.",
+            http_event.method,
+            http_event.host,
+            http_event.path,
+            outcome,
+            http_event.duration_nanos / 1_000_000
+        );
+        steps.push(Step { step: *step_counter, description: http_description });
+        *step_counter += 1;
+    }
+
     // Display DB events that occurred within this method call
     for db_event in &node.db_events {
         let db_duration = db_event.duration_nanos / 1_000_000;
         let sql_snippet: String = db_event.sql.chars().take(80).collect();
-        let db_description = format!(
-            "  └─ DB query took {} ms. SQL: `{}...`",
-            db_duration,
-            sql_snippet
-        );
+        let db_description = if db_event.batch_size > 0 {
+            format!(
+                "  └─ DB batch of {} statements took {} ms. SQL: `{}...`",
+                db_event.batch_size,
+                db_duration,
+                sql_snippet
+            )
+        } else {
+            format!(
+                "  └─ DB query took {} ms. SQL: `{}...`",
+                db_duration,
+                sql_snippet
+            )
+        };
         steps.push(Step { step: *step_counter, description: db_description });
         *step_counter += 1;
     }
 
     for child in &node.children {
-        steps.extend(generate_steps(child, step_counter));
+        steps.extend(generate_steps(child, threads, thread_name, step_counter));
     }
 
     steps
 }
 
+fn generate_repeated_query_steps(tree: &FlowTree, first_step: usize) -> Vec<Step> {
+    tree.repeated_queries
+        .iter()
+        .enumerate()
+        .map(|(i, query)| Step {
+            step: first_step + i,
+            description: format!(
+                "Possible N+1: `{}` ran {} times under `{}`, taking {} ms in total.",
+                query.normalized_sql,
+                query.count,
+                query.parent_method,
+                query.total_nanos / 1_000_000
+            ),
+        })
+        .collect()
+}
+
 #[actix_web::main]
 async fn main() -> std::io::Result<()> {
     println!("Starting oi-explainer server at http://127.0.0.1:8081");
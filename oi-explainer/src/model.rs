@@ -8,6 +8,17 @@ pub struct FlowTree {
     pub root_node: FlowCallNode,
     pub start_nanos: u64,
     pub end_nanos: u64,
+    #[serde(default)]
+    pub repeated_queries: Vec<RepeatedQuery>,
+    #[serde(default)]
+    pub truncation: Option<TraceTruncation>,
+    #[serde(default)]
+    pub stacks: HashMap<String, Vec<String>>,
+    // Keyed by thread ID; nodes without a thread_id ran on their parent's thread
+    #[serde(default)]
+    pub threads: HashMap<String, ThreadInfo>,
+    #[serde(default)]
+    pub incomplete: Option<IncompleteTrace>,
 }
 
 #[derive(Debug, Deserialize, Clone)]
@@ -21,13 +32,19 @@ pub struct FlowCallNode {
     pub children: Vec<FlowCallNode>,
     #[serde(default)]
     pub db_events: Vec<DbQueryEvent>,
-    // returnValue and exception are tricky to type; we'll use serde_json::Value
+    #[serde(default)]
+    pub connection_events: Vec<ConnectionEvent>,
+    #[serde(default)]
+    pub http_events: Vec<HttpClientEvent>,
+    // returnValue is tricky to type; we'll use serde_json::Value
     pub return_value: Option<serde_json::Value>,
-    pub exception: Option<serde_json::Value>,
+    pub exception: Option<ExceptionInfo>,
     #[serde(default)]
     pub branches_taken: Vec<String>,
     #[serde(default)]
     pub loops_entered: Vec<String>,
+    #[serde(default)]
+    pub folded: Option<FoldedCalls>,
 }
 
 #[derive(Debug, Deserialize, Clone)]
@@ -45,7 +62,8 @@ pub struct MethodDetails {
 pub struct ExecutionDetails {
     pub start_nanos: u64,
     pub end_nanos: u64,
-    pub thread_info: ThreadInfo,
+    #[serde(default)]
+    pub thread_id: Option<u64>,
 }
 
 #[derive(Debug, Deserialize, Default, Clone)]
@@ -71,4 +89,95 @@ pub struct DbQueryEvent {
     pub sql: String,
     pub duration_nanos: u64,
     pub row_count: i32,
-} 
\ No newline at end of file
+    #[serde(default)]
+    pub fingerprint: Option<String>,
+    #[serde(default)]
+    pub batch_size: u32,
+}
+
+/// A JDBC connection acquisition, commit or rollback.
+#[derive(Debug, Deserialize, Clone)]
+#[serde(rename_all = "camelCase")]
+pub struct ConnectionEvent {
+    pub operation: String,
+    pub duration_nanos: u64,
+    #[serde(default)]
+    pub failed: bool,
+    #[serde(default)]
+    pub data_source: Option<String>,
+}
+
+/// An outbound HTTP call; `status` is -1 when no response was received.
+#[derive(Debug, Deserialize, Clone)]
+#[serde(rename_all = "camelCase")]
+pub struct HttpClientEvent {
+    pub method: String,
+    pub host: String,
+    pub path: String,
+    pub status: i32,
+    #[serde(default)]
+    pub response_bytes: i64,
+    pub duration_nanos: u64,
+}
+
+/// A statement executed repeatedly under one parent node (likely an N+1 query).
+#[derive(Debug, Deserialize, Clone)]
+#[serde(rename_all = "camelCase")]
+pub struct RepeatedQuery {
+    pub fingerprint: String,
+    pub normalized_sql: String,
+    pub parent_method: String,
+    pub count: u32,
+    pub total_nanos: u64,
+} 
+
+/// Statistics of an aggregate node into which repeated calls were folded.
+#[derive(Debug, Deserialize, Clone)]
+#[serde(rename_all = "camelCase")]
+pub struct FoldedCalls {
+    pub count: u64,
+    #[serde(default)]
+    pub error_count: u64,
+    pub total_nanos: u64,
+    pub min_nanos: u64,
+    pub max_nanos: u64,
+}
+
+/// Detail a trace lost to the agent's per-trace size limits.
+#[derive(Debug, Deserialize, Clone)]
+#[serde(rename_all = "camelCase")]
+pub struct TraceTruncation {
+    #[serde(default)]
+    pub folded_calls: u64,
+    #[serde(default)]
+    pub collapsed_calls: u64,
+    #[serde(default)]
+    pub dropped_calls: u64,
+    #[serde(default)]
+    pub dropped_events: u64,
+}
+
+#[derive(Debug, Deserialize, Clone)]
+#[serde(rename_all = "camelCase")]
+pub struct ExceptionInfo {
+    pub r#type: String,
+    pub message: Option<String>,
+    pub stack_hash: Option<String>,
+    pub cause_type: Option<String>,
+    #[serde(default)]
+    pub rethrown: bool,
+}
+
+#[derive(Debug, Deserialize, Clone)]
+#[serde(rename_all = "camelCase")]
+pub struct IncompleteTrace {
+    pub snapshot: u32,
+    pub elapsed_nanos: u64,
+    #[serde(default)]
+    pub open_stack: Vec<String>,
+    pub thread_state: Option<String>,
+    pub lock_name: Option<String>,
+    pub lock_owner: Option<String>,
+    #[serde(default)]
+    pub java_stack: Vec<String>,
+}
\ No newline at end of file
@@ -1,15 +1,25 @@
 package io.oi.spring.adapter.autoconfigure;
 
+import io.oi.core.agent.OiAgent;
 import io.oi.core.config.OiCoreProperties;
+import io.oi.core.emitter.EmitterFactory;
 import io.oi.core.emitter.FlowEmitter;
-import io.oi.core.emitter.HttpFlowEmitter;
 import io.oi.core.trace.Tracer;
 import io.oi.spring.adapter.aop.OiAspect;
+import io.oi.spring.adapter.metrics.OiMethodMeterBinder;
+import io.oi.spring.adapter.web.OiClientHttpRequestInterceptor;
+import io.oi.spring.adapter.web.OiMethodsEndpoint;
+import io.oi.spring.adapter.web.OiProfileEndpoint;
+import io.oi.spring.adapter.web.OiSqlEndpoint;
+import org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnAvailableEndpoint;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.client.RestClientCustomizer;
+import org.springframework.boot.web.client.RestTemplateCustomizer;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
 import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,24 +33,93 @@ public class OiAutoConfiguration {
     private static final Logger log = LoggerFactory.getLogger(OiAutoConfiguration.class);
 
     private final OiCoreProperties properties;
+    private FlowEmitter flowEmitter;
 
     public OiAutoConfiguration(OiCoreProperties properties) {
         this.properties = properties;
     }
 
+    /**
+     * The emitters configured in {@code oi-core.emitter}, see {@link EmitterFactory}. Spring closes
+     * it on shutdown, flushing emitters that buffer. Bean methods are not proxied here, so the
+     * instance is kept for {@link #initializeTracer()} rather than created twice.
+     */
     @Bean
-    public FlowEmitter flowEmitter() {
-        return new HttpFlowEmitter(properties.getEmitter());
+    public synchronized FlowEmitter flowEmitter() {
+        if (flowEmitter == null) {
+            FlowEmitter emitter = EmitterFactory.create(properties.getEmitter());
+            flowEmitter = emitter != null ? emitter : tree -> { };
+        }
+        return flowEmitter;
     }
 
     @Bean
     public OiAspect oiAspect() {
         return new OiAspect();
     }
+
+    @Bean
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    @ConditionalOnProperty(name = "oi-core.metrics.enabled", havingValue = "true", matchIfMissing = true)
+    public OiMethodMeterBinder oiMethodMeterBinder() {
+        return new OiMethodMeterBinder(properties.getMetrics());
+    }
+
+    @Bean
+    @ConditionalOnAvailableEndpoint
+    public OiMethodsEndpoint oiMethodsEndpoint() {
+        return new OiMethodsEndpoint();
+    }
+
+    @Bean
+    @ConditionalOnAvailableEndpoint
+    @ConditionalOnProperty(name = "oi-core.profile.enabled", havingValue = "true")
+    public OiProfileEndpoint oiProfileEndpoint() {
+        return new OiProfileEndpoint();
+    }
+
+    @Bean
+    @ConditionalOnAvailableEndpoint
+    public OiSqlEndpoint oiSqlEndpoint() {
+        return new OiSqlEndpoint();
+    }
     
+    /**
+     * Adds {@link OiClientHttpRequestInterceptor} to builder-created {@code RestTemplate}s and
+     * {@code RestClient}s. Nested so that a missing client class only skips its customizer.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(name = "oi-core.instrumentation.http-client", havingValue = "true", matchIfMissing = true)
+    static class HttpClientInterceptorConfiguration {
+
+        private final OiClientHttpRequestInterceptor interceptor = new OiClientHttpRequestInterceptor();
+
+        @Bean
+        @ConditionalOnClass(name = "org.springframework.web.client.RestTemplate")
+        public RestTemplateCustomizer oiRestTemplateCustomizer() {
+            return restTemplate -> restTemplate.getInterceptors().add(interceptor);
+        }
+
+        @Bean
+        @ConditionalOnClass(name = "org.springframework.web.client.RestClient")
+        public RestClientCustomizer oiRestClientCustomizer() {
+            return builder -> builder.requestInterceptor(interceptor);
+        }
+    }
+
+    /**
+     * Configures the tracer from the Spring properties, unless the agent is attached: it set up
+     * the tracer from its own configuration before the application started, and traces may
+     * already be open, e.g. in an instrumented {@code main}.
+     */
     @PostConstruct
     public void initializeTracer() {
+        if (OiAgent.isStarted()) {
+            log.info("OI-Core Agent is attached; keeping the Tracer configuration and FlowEmitter it set up.");
+            return;
+        }
         log.info("Initializing OI-Spring-Adapter and setting FlowEmitter for OI-Core Tracer.");
+        Tracer.configure(properties);
         Tracer.setEmitter(flowEmitter());
     }
 } 
\ No newline at end of file
@@ -0,0 +1,200 @@
+package io.oi.spring.adapter.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.oi.core.config.OiCoreProperties;
+import io.oi.core.exception.ExceptionStatistics;
+import io.oi.core.http.HttpClientStatistics;
+import io.oi.core.jdbc.ConnectionStatistics;
+import io.oi.core.metrics.MethodMetrics;
+import io.oi.core.metrics.MethodMetricsSnapshot;
+import io.oi.core.metrics.MethodMetricsTable;
+import io.oi.core.model.event.ConnectionEvent;
+import io.oi.core.trace.MethodRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Exposes the agent's {@link MethodMetricsTable} as Micrometer meters.
+ * <p>
+ * Each exported method gets an {@code oi.method.calls} function timer, an
+ * {@code oi.method.errors} counter and an {@code oi.method.latency.p99} gauge, tagged with
+ * {@code class} and {@code method}. To keep tag cardinality bounded, at most
+ * {@code metrics.maxTaggedMethods} methods are exported: the top methods by total time.
+ * The ranking is redone every {@code metrics.meterRefreshIntervalMs}; methods that have
+ * entered the top are registered, and the meters of methods that have fallen out of it
+ * are removed from the registry.
+ * <p>
+ * The agent's {@link ConnectionStatistics} are exported the same way, as an
+ * {@code oi.jdbc.connection} function timer, an {@code oi.jdbc.connection.failures} counter
+ * and an {@code oi.jdbc.connection.p99} gauge tagged with {@code operation} and
+ * {@code dataSource}; for {@code ACQUIRE} these are the pool wait. {@link HttpClientStatistics}
+ * become {@code oi.http.client} meters tagged with {@code host} and {@code route}, and
+ * {@link ExceptionStatistics} an {@code oi.exceptions} counter tagged with {@code exception}
+ * and {@code site}.
+ */
+public class OiMethodMeterBinder implements MeterBinder, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(OiMethodMeterBinder.class);
+
+    private final OiCoreProperties.MetricsProperties config;
+    private final Map<Integer, List<Meter>> registered = new ConcurrentHashMap<>();
+    private final Set<String> registeredConnections = ConcurrentHashMap.newKeySet();
+    private final Set<String> registeredRoutes = ConcurrentHashMap.newKeySet();
+    private final Set<String> registeredExceptions = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "oi-method-meters");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public OiMethodMeterBinder(OiCoreProperties.MetricsProperties config) {
+        this.config = config;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        refresh(registry);
+        long interval = Math.max(1_000L, config.getMeterRefreshIntervalMs());
+        scheduler.scheduleWithFixedDelay(() -> refresh(registry), interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    void refresh(MeterRegistry registry) {
+        try {
+            ConnectionStatistics.snapshot(false)
+                    .forEach(snapshot -> registerConnection(registry, snapshot.operation(), snapshot.dataSource()));
+            HttpClientStatistics.snapshot(false)
+                    .forEach(snapshot -> registerRoute(registry, snapshot.host(), snapshot.route()));
+            ExceptionStatistics.snapshot(false)
+                    .forEach(snapshot -> registerException(registry, snapshot.type(), snapshot.site()));
+            Set<Integer> top = MethodMetricsTable.snapshot(false).stream()
+                    .sorted(Comparator.comparingLong(MethodMetricsSnapshot::totalNanos).reversed())
+                    .limit(Math.max(0, config.getMaxTaggedMethods()))
+                    .map(MethodMetricsSnapshot::methodId)
+                    .collect(Collectors.toSet());
+            registered.keySet().stream()
+                    .filter(methodId -> !top.contains(methodId))
+                    .toList()
+                    .forEach(methodId -> deregister(registry, methodId));
+            top.forEach(methodId -> register(registry, methodId));
+        } catch (Exception e) {
+            log.warn("Failed to refresh OI method meters: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return The IDs of the methods whose meters are registered.
+     */
+    Set<Integer> registeredMethods() {
+        return Set.copyOf(registered.keySet());
+    }
+
+    private void register(MeterRegistry registry, int methodId) {
+        MethodMetrics metrics = MethodMetricsTable.get(methodId);
+        MethodRegistry.MethodInfo method = MethodRegistry.get(methodId);
+        if (metrics == null || method == null || registered.containsKey(methodId)) {
+            return;
+        }
+        Tags tags = Tags.of("class", method.className().replace('/', '.'), "method", method.methodName());
+
+        Meter calls = FunctionTimer.builder("oi.method.calls", metrics, MethodMetrics::getCount,
+                        MethodMetrics::getTotalNanos, TimeUnit.NANOSECONDS)
+                .tags(tags)
+                .description("Completed calls of an instrumented method")
+                .register(registry);
+        Meter errors = FunctionCounter.builder("oi.method.errors", metrics, MethodMetrics::getErrorCount)
+                .tags(tags)
+                .description("Calls of an instrumented method that completed with an exception")
+                .register(registry);
+        Meter p99 = TimeGauge.builder("oi.method.latency.p99", metrics, TimeUnit.NANOSECONDS,
+                        m -> m.getLatency().valueAtPercentile(99.0))
+                .tags(tags)
+                .description("99th percentile latency of an instrumented method")
+                .register(registry);
+        registered.put(methodId, List.of(calls, errors, p99));
+    }
+
+    private void deregister(MeterRegistry registry, int methodId) {
+        List<Meter> meters = registered.remove(methodId);
+        if (meters != null) {
+            meters.forEach(registry::remove);
+        }
+    }
+
+    private void registerConnection(MeterRegistry registry, ConnectionEvent.Operation operation, String dataSource) {
+        ConnectionStatistics.Metrics metrics = ConnectionStatistics.get(operation, dataSource);
+        if (metrics == null || !registeredConnections.add(operation + "|" + dataSource)) {
+            return;
+        }
+        Tags tags = Tags.of("operation", operation.name(), "dataSource", dataSource == null ? "none" : dataSource);
+
+        FunctionTimer.builder("oi.jdbc.connection", metrics, ConnectionStatistics.Metrics::getCount,
+                        ConnectionStatistics.Metrics::getTotalNanos, TimeUnit.NANOSECONDS)
+                .tags(tags)
+                .description("JDBC connection acquisitions, commits and rollbacks")
+                .register(registry);
+        FunctionCounter.builder("oi.jdbc.connection.failures", metrics, ConnectionStatistics.Metrics::getFailures)
+                .tags(tags)
+                .description("JDBC connection operations that ended with an exception")
+                .register(registry);
+        TimeGauge.builder("oi.jdbc.connection.p99", metrics, TimeUnit.NANOSECONDS,
+                        m -> m.getLatency().valueAtPercentile(99.0))
+                .tags(tags)
+                .description("99th percentile duration of a JDBC connection operation")
+                .register(registry);
+    }
+
+    private void registerRoute(MeterRegistry registry, String host, String route) {
+        HttpClientStatistics.Metrics metrics = HttpClientStatistics.get(host, route);
+        if (metrics == null || !registeredRoutes.add(host + "|" + route)) {
+            return;
+        }
+        Tags tags = Tags.of("host", host, "route", route);
+
+        FunctionTimer.builder("oi.http.client", metrics, HttpClientStatistics.Metrics::getCount,
+                        HttpClientStatistics.Metrics::getTotalNanos, TimeUnit.NANOSECONDS)
+                .tags(tags)
+                .description("Outbound HTTP calls")
+                .register(registry);
+        FunctionCounter.builder("oi.http.client.failures", metrics, HttpClientStatistics.Metrics::getFailures)
+                .tags(tags)
+                .description("Outbound HTTP calls without a response or with a 5xx status")
+                .register(registry);
+        TimeGauge.builder("oi.http.client.p99", metrics, TimeUnit.NANOSECONDS,
+                        m -> m.getLatency().valueAtPercentile(99.0))
+                .tags(tags)
+                .description("99th percentile duration of an outbound HTTP call")
+                .register(registry);
+    }
+
+    private void registerException(MeterRegistry registry, String type, String site) {
+        ExceptionStatistics.Metrics metrics = ExceptionStatistics.get(type, site);
+        if (metrics == null || !registeredExceptions.add(type + "|" + site)) {
+            return;
+        }
+        FunctionCounter.builder("oi.exceptions", metrics, ExceptionStatistics.Metrics::getCount)
+                .tags(Tags.of("exception", type, "site", site))
+                .description("Exceptions thrown in traced methods, counted once at the throwing site")
+                .register(registry);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
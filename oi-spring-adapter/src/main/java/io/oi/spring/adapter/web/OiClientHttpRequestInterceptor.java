@@ -0,0 +1,35 @@
+package io.oi.spring.adapter.web;
+
+import io.oi.core.http.HttpClientInstrumentation;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+
+/**
+ * Records calls made through {@code RestTemplate} and {@code RestClient} as
+ * {@link io.oi.core.model.event.HttpClientEvent}s on the active trace node.
+ * <p>
+ * The recorded duration ends when the response headers are available; reading the body
+ * happens after the interceptor chain returns.
+ */
+public class OiClientHttpRequestInterceptor implements ClientHttpRequestInterceptor {
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        long start = HttpClientInstrumentation.begin();
+        int status = -1;
+        long responseBytes = -1;
+        try {
+            ClientHttpResponse response = execution.execute(request, body);
+            status = response.getStatusCode().value();
+            responseBytes = response.getHeaders().getContentLength();
+            return response;
+        } finally {
+            HttpClientInstrumentation.end(request.getMethod().name(), request.getURI(), status, responseBytes, start);
+        }
+    }
+}
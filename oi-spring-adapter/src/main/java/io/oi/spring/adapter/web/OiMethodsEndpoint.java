@@ -0,0 +1,74 @@
+package io.oi.spring.adapter.web;
+
+import io.oi.core.metrics.MethodMetricsSnapshot;
+import io.oi.core.metrics.MethodMetricsTable;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Actuator endpoint ({@code /actuator/oimethods}) listing the top instrumented methods.
+ * <p>
+ * Methods are ranked by {@code sortBy}: {@code totalTime} (default), {@code p99} or
+ * {@code errorRate}. Figures are cumulative since the agent started; reading them does
+ * not reset the underlying metrics.
+ */
+@Endpoint(id = "oimethods")
+public class OiMethodsEndpoint {
+
+    private static final int DEFAULT_TOP = 20;
+
+    /**
+     * One row of the endpoint's response. Durations are in milliseconds.
+     */
+    public record MethodSummary(
+        String method,
+        long count,
+        long errorCount,
+        double errorRate,
+        double totalMs,
+        double meanMs,
+        double p50Ms,
+        double p99Ms,
+        double maxMs
+    ) {
+        static MethodSummary of(MethodMetricsSnapshot snapshot) {
+            return new MethodSummary(
+                    snapshot.methodName(),
+                    snapshot.count(),
+                    snapshot.errorCount(),
+                    snapshot.errorRate(),
+                    millis(snapshot.totalNanos()),
+                    snapshot.count() == 0 ? 0.0 : millis(snapshot.totalNanos() / snapshot.count()),
+                    millis(snapshot.percentileNanos(50.0)),
+                    millis(snapshot.percentileNanos(99.0)),
+                    millis(snapshot.maxNanos()));
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1_000_000.0;
+        }
+    }
+
+    @ReadOperation
+    public List<MethodSummary> methods(@Nullable Integer top, @Nullable String sortBy) {
+        return MethodMetricsTable.snapshot(false).stream()
+                .map(MethodSummary::of)
+                .sorted(comparator(sortBy).reversed())
+                .limit(top == null || top <= 0 ? DEFAULT_TOP : top)
+                .toList();
+    }
+
+    private static Comparator<MethodSummary> comparator(String sortBy) {
+        if ("p99".equalsIgnoreCase(sortBy)) {
+            return Comparator.comparingDouble(MethodSummary::p99Ms);
+        }
+        if ("errorRate".equalsIgnoreCase(sortBy)) {
+            return Comparator.comparingDouble(MethodSummary::errorRate);
+        }
+        return Comparator.comparingDouble(MethodSummary::totalMs);
+    }
+}
@@ -0,0 +1,33 @@
+package io.oi.spring.adapter.web;
+
+import io.oi.core.profile.CallTreeProfiler;
+import io.oi.core.trace.Tracer;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+
+/**
+ * Actuator endpoint ({@code /actuator/oiprofile}) serving the continuous call tree profile
+ * in collapsed-stack format, ready to be rendered as a flame graph.
+ * <p>
+ * {@code windowSeconds} selects how far back to look (default 300); it is rounded up to
+ * whole profile slots and capped by how many slots the agent keeps. Each line's value is
+ * self time in microseconds.
+ */
+@Endpoint(id = "oiprofile")
+public class OiProfileEndpoint {
+
+    private static final int DEFAULT_WINDOW_SECONDS = 300;
+
+    @ReadOperation(produces = "text/plain")
+    public String folded(@Nullable Integer windowSeconds) {
+        CallTreeProfiler profiler = Tracer.getProfiler();
+        if (profiler == null) {
+            return "";
+        }
+        int window = windowSeconds == null || windowSeconds <= 0 ? DEFAULT_WINDOW_SECONDS : windowSeconds;
+        return profiler.foldedStacks(Duration.ofSeconds(window));
+    }
+}
@@ -0,0 +1,60 @@
+package io.oi.spring.adapter.web;
+
+import io.oi.core.sql.SqlStatementSnapshot;
+import io.oi.core.sql.SqlStatistics;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Actuator endpoint ({@code /actuator/oisql}) listing the top SQL statements by total
+ * execution time, grouped by normalised statement. Figures are cumulative since the agent
+ * started.
+ */
+@Endpoint(id = "oisql")
+public class OiSqlEndpoint {
+
+    private static final int DEFAULT_TOP = 20;
+
+    /**
+     * One row of the endpoint's response. Durations are in milliseconds.
+     */
+    public record StatementSummary(
+        String fingerprint,
+        String sql,
+        long count,
+        double totalMs,
+        double p50Ms,
+        double p99Ms,
+        long p50Rows,
+        long p99Rows
+    ) {
+        static StatementSummary of(SqlStatementSnapshot snapshot) {
+            return new StatementSummary(
+                    snapshot.fingerprint(),
+                    snapshot.normalizedSql(),
+                    snapshot.count(),
+                    millis(snapshot.totalNanos()),
+                    millis(snapshot.percentileNanos(50.0)),
+                    millis(snapshot.percentileNanos(99.0)),
+                    snapshot.rows().valueAtPercentile(50.0),
+                    snapshot.rows().valueAtPercentile(99.0));
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1_000_000.0;
+        }
+    }
+
+    @ReadOperation
+    public List<StatementSummary> statements(@Nullable Integer top) {
+        return SqlStatistics.snapshot(false).stream()
+                .map(StatementSummary::of)
+                .sorted(Comparator.comparingDouble(StatementSummary::totalMs).reversed())
+                .limit(top == null || top <= 0 ? DEFAULT_TOP : top)
+                .toList();
+    }
+}
@@ -1,16 +1,21 @@
 package io.oi.spring.adapter.web;
 
 import io.oi.core.config.OiCoreProperties;
-import io.oi.core.model.FlowCallNode;
 import io.oi.core.model.FlowTree;
+import io.oi.core.store.TraceQuery;
+import io.oi.core.store.TraceStore;
+import io.oi.core.store.TraceSummary;
+import io.oi.core.trace.ActiveTraceRegistry;
 import io.oi.core.trace.Tracer;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.Deque;
-import java.util.UUID;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/oi/trace")
@@ -27,19 +32,75 @@ public class OiTraceController {
         return ResponseEntity.ok(properties);
     }
 
+    /**
+     * Returns the live tree of the most recently started trace in flight, other than the one
+     * serving this request.
+     */
     @GetMapping("/latest")
     public ResponseEntity<FlowTree> getLatestTrace() {
-        Deque<FlowCallNode> stack = Tracer.getCurrentCallStack();
-
-        if (stack.isEmpty()) {
+        FlowTree liveTree = ActiveTraceRegistry.latestTree();
+        if (liveTree == null) {
             return ResponseEntity.noContent().build();
         }
-
-        // The root of the trace is the last element in the deque
-        FlowCallNode rootNode = stack.getLast();
-        FlowTree liveTree = new FlowTree(UUID.randomUUID().toString(), rootNode);
-        
         // Note: The endNanos will not be set, as the trace is still in progress.
         return ResponseEntity.ok(liveTree);
     }
-} 
\ No newline at end of file
+
+    /**
+     * Lists the traces in flight with their open call stacks, longest running first.
+     *
+     * @param minElapsedMs Only list traces running for at least this long.
+     */
+    @GetMapping("/active")
+    public List<ActiveTraceRegistry.Snapshot> getActiveTraces(@RequestParam(defaultValue = "0") long minElapsedMs) {
+        long minElapsedNanos = TimeUnit.MILLISECONDS.toNanos(minElapsedMs);
+        return ActiveTraceRegistry.snapshot().stream()
+                .filter(snapshot -> snapshot.elapsedNanos() >= minElapsedNanos)
+                .toList();
+    }
+
+    @GetMapping("/active/{traceId}")
+    public ResponseEntity<FlowTree> getActiveTrace(@PathVariable String traceId) {
+        FlowTree liveTree = ActiveTraceRegistry.liveTree(traceId);
+        return liveTree == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(liveTree);
+    }
+
+    /**
+     * Lists the recently completed traces kept in memory, most recent first.
+     *
+     * @param entryPoint    Only traces whose root {@code class.method} contains this.
+     * @param minDurationMs Only traces that took at least this long.
+     * @param failed        Only traces whose root did, or did not, complete with an exception.
+     * @param from          Only traces started at or after this epoch millisecond.
+     * @param to            Only traces started before this epoch millisecond.
+     * @param method        Only traces calling this method, as {@code class.method}, anywhere.
+     * @param sql           Only traces executing the statement with this fingerprint.
+     * @param exception     Only traces throwing an exception of this class anywhere.
+     */
+    @GetMapping("/recent")
+    public ResponseEntity<List<TraceSummary>> getRecentTraces(
+            @RequestParam(required = false) String entryPoint,
+            @RequestParam(required = false) Long minDurationMs,
+            @RequestParam(required = false) Boolean failed,
+            @RequestParam(required = false) Long from,
+            @RequestParam(required = false) Long to,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) String method,
+            @RequestParam(required = false) String sql,
+            @RequestParam(required = false) String exception) {
+        TraceStore store = Tracer.getTraceStore();
+        if (store == null) {
+            return ResponseEntity.notFound().build();
+        }
+        Long minDurationNanos = minDurationMs == null ? null : TimeUnit.MILLISECONDS.toNanos(minDurationMs);
+        return ResponseEntity.ok(store.query(new TraceQuery(entryPoint, minDurationNanos, failed, from, to, limit,
+                method, sql, exception)));
+    }
+
+    @GetMapping("/recent/{traceId}")
+    public ResponseEntity<FlowTree> getRecentTrace(@PathVariable String traceId) {
+        TraceStore store = Tracer.getTraceStore();
+        FlowTree tree = store == null ? null : store.get(traceId);
+        return tree == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(tree);
+    }
+}
\ No newline at end of file
@@ -1,6 +1,9 @@
 package io.oi.spring.adapter;
 
 import io.oi.core.config.OiCoreProperties;
+import io.oi.core.metrics.MethodMetricsTable;
+import io.oi.core.trace.MethodRegistry;
+import io.oi.spring.adapter.web.OiMethodsEndpoint;
 import io.oi.spring.adapter.web.OiTraceController;
 import io.oi.spring.adapter.web.OiCoreHealthIndicator;
 import org.junit.jupiter.api.Test;
@@ -14,6 +17,8 @@ import org.springframework.http.MediaType;
 import org.springframework.boot.actuate.health.Health;
 import org.springframework.boot.actuate.health.Status;
 
+import java.util.List;
+
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
@@ -91,6 +96,27 @@ public class OiSpringAdapterTest {
         assertTrue(health.getDetails().containsKey("reason"));
     }
 
+    @Test
+    void testMethodsEndpointRanksByP99() {
+        // The table is shared with every other test, so only this test's methods are looked at
+        int fast = MethodRegistry.register("com/test/RankedEndpoint", "fast", "()V");
+        int slow = MethodRegistry.register("com/test/RankedEndpoint", "slow", "()V");
+        for (int i = 0; i < 100; i++) {
+            MethodMetricsTable.record(fast, 1_000_000L, false);
+        }
+        MethodMetricsTable.record(slow, 50_000_000L, true);
+
+        List<OiMethodsEndpoint.MethodSummary> summaries = new OiMethodsEndpoint().methods(Integer.MAX_VALUE, "p99").stream()
+                .filter(summary -> summary.method().startsWith("com.test.RankedEndpoint."))
+                .toList();
+
+        assertEquals(2, summaries.size());
+        assertEquals("com.test.RankedEndpoint.slow", summaries.get(0).method());
+        assertEquals(1.0, summaries.get(0).errorRate());
+        assertEquals("com.test.RankedEndpoint.fast", summaries.get(1).method());
+        assertEquals(1, new OiMethodsEndpoint().methods(1, "p99").size());
+    }
+
     private void assertNotNull(Object obj) {
         if (obj == null) {
             throw new AssertionError("Expected not null");
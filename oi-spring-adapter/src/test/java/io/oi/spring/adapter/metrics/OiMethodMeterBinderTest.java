@@ -0,0 +1,41 @@
+package io.oi.spring.adapter.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.oi.core.config.OiCoreProperties;
+import io.oi.core.metrics.MethodMetricsTable;
+import io.oi.core.trace.MethodRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OiMethodMeterBinderTest {
+
+    @Test
+    void testMethodsFallingOutOfTheTopLoseTheirMeters() {
+        OiCoreProperties.MetricsProperties config = new OiCoreProperties().getMetrics();
+        config.setMaxTaggedMethods(1);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        int first = MethodRegistry.register("com/test/Ranked", "first", "()V");
+        int second = MethodRegistry.register("com/test/Ranked", "second", "()V");
+
+        try (OiMethodMeterBinder binder = new OiMethodMeterBinder(config)) {
+            // Far above anything else recorded in this JVM
+            MethodMetricsTable.record(first, 1_000_000_000_000L, false);
+            binder.refresh(registry);
+            assertEquals(Set.of(first), binder.registeredMethods());
+            assertNotNull(registry.find("oi.method.calls").tag("method", "first").functionTimer());
+
+            MethodMetricsTable.record(second, 1_000_000_000_000L, false);
+            MethodMetricsTable.record(second, 1_000_000_000_000L, true);
+            binder.refresh(registry);
+
+            assertEquals(Set.of(second), binder.registeredMethods());
+            assertNull(registry.find("oi.method.calls").tag("method", "first").meter());
+            assertNull(registry.find("oi.method.errors").tag("method", "first").meter());
+            assertNull(registry.find("oi.method.latency.p99").tag("method", "first").meter());
+            assertEquals(1.0, registry.get("oi.method.errors").tag("method", "second").functionCounter().count());
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package io.oi.spring.adapter.web;
+
+import io.oi.core.config.OiCoreProperties;
+import io.oi.core.http.HttpClientStatistics;
+import io.oi.core.model.FlowTree;
+import io.oi.core.model.event.HttpClientEvent;
+import io.oi.core.trace.Tracer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OiClientHttpRequestInterceptorTest {
+
+    private final List<FlowTree> trees = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        Tracer.configure(new OiCoreProperties());
+        Tracer.setEmitter(trees::add);
+    }
+
+    @AfterEach
+    void tearDown() {
+        Tracer.setEmitter(null);
+        Tracer.configure(new OiCoreProperties());
+    }
+
+    @Test
+    void testCallsAreRecordedOnTheCallingNode() throws Exception {
+        OiClientHttpRequestInterceptor interceptor = new OiClientHttpRequestInterceptor();
+        HttpClientStatistics.snapshot(true);
+        byte[] body = "{\"id\":42}".getBytes(StandardCharsets.UTF_8);
+
+        Tracer.startTrace("com/test/Gateway", "lookup", "()V", 0, 0, new Object[0]);
+        MockClientHttpResponse found = new MockClientHttpResponse(body, HttpStatus.OK);
+        found.getHeaders().setContentLength(body.length);
+        assertSame(found, interceptor.intercept(
+                new MockClientHttpRequest(HttpMethod.GET, URI.create("http://users.test/users/42")), new byte[0],
+                (request, requestBody) -> found));
+        assertThrows(IOException.class, () -> interceptor.intercept(
+                new MockClientHttpRequest(HttpMethod.POST, URI.create("http://users.test/users/7")), new byte[0],
+                (request, requestBody) -> {
+                    throw new IOException("connection refused");
+                }));
+        Tracer.endTrace(null, null);
+
+        List<HttpClientEvent> events = trees.get(0).getRootNode().getHttpEvents();
+        assertEquals(2, events.size(), events.toString());
+        assertEquals("GET", events.get(0).method());
+        assertEquals("users.test", events.get(0).host());
+        assertEquals("/users/{id}", events.get(0).path());
+        assertEquals(200, events.get(0).status());
+        assertEquals(body.length, events.get(0).responseBytes());
+        assertEquals("POST", events.get(1).method());
+        assertEquals(-1, events.get(1).status());
+        assertTrue(events.get(1).failed());
+
+        assertEquals(1, HttpClientStatistics.get("users.test", "GET /users/{id}").getCount());
+        assertEquals(1, HttpClientStatistics.get("users.test", "POST /users/{id}").getFailures());
+    }
+}
@@ -0,0 +1,63 @@
+package io.oi.spring.adapter.web;
+
+import io.oi.core.config.OiCoreProperties;
+import io.oi.core.trace.Tracer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OiProfileEndpointTest {
+
+    private final OiCoreProperties properties = new OiCoreProperties();
+
+    @BeforeEach
+    void setUp() {
+        Tracer.setEmitter(tree -> { });
+    }
+
+    @AfterEach
+    void tearDown() {
+        Tracer.setEmitter(null);
+        Tracer.configure(new OiCoreProperties());
+    }
+
+    @Test
+    void testCompletedTracesAreServedAsFoldedStacks() {
+        properties.getProfile().setEnabled(true);
+        Tracer.configure(properties);
+        OiProfileEndpoint endpoint = new OiProfileEndpoint();
+
+        Tracer.startTrace("com/test/Profiled", "handle", "()V", 0, 0, new Object[0]);
+        Tracer.startTrace("com/test/Profiled", "load", "()V", 0, 0, new Object[0]);
+        // Stacks without self time are left out
+        long started = System.nanoTime();
+        while (System.nanoTime() - started < 2_000_000L) {
+            Thread.onSpinWait();
+        }
+        Tracer.endTrace(null, null);
+        Tracer.endTrace(null, null);
+
+        // The profiler merges trees on its own thread, and answers each query once it is idle
+        // or between two trees, so the query itself paces the polling
+        String folded = endpoint.folded(60);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!folded.contains("com.test.Profiled.handle;com.test.Profiled.load ")
+                && System.nanoTime() < deadline) {
+            folded = endpoint.folded(null);
+        }
+        assertTrue(folded.contains("com.test.Profiled.handle;com.test.Profiled.load "), folded);
+    }
+
+    @Test
+    void testNothingIsServedWhileProfilingIsOff() {
+        properties.getProfile().setEnabled(false);
+        Tracer.configure(properties);
+
+        assertNull(Tracer.getProfiler());
+        assertEquals("", new OiProfileEndpoint().folded(60));
+    }
+}
@@ -0,0 +1,29 @@
+package io.oi.spring.adapter.web;
+
+import io.oi.core.trace.Tracer;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OiSqlEndpointTest {
+
+    @Test
+    void testStatementsAreGroupedAndRankedByTotalTime() {
+        // Far above anything else recorded in this JVM
+        Tracer.recordDbQuery("select * from endpoint_orders where id = 42", 40_000_000_000L, 1);
+        Tracer.recordDbQuery("select * from endpoint_orders where id = 7", 40_000_000_000L, 3);
+        Tracer.recordDbQuery("update endpoint_orders set state = 'PAID' where id = 7", 50_000_000_000L, 1);
+
+        List<OiSqlEndpoint.StatementSummary> top = new OiSqlEndpoint().statements(2);
+
+        assertEquals(2, top.size());
+        assertEquals("select * from endpoint_orders where id = ?", top.get(0).sql());
+        assertEquals(2, top.get(0).count());
+        assertEquals(80_000.0, top.get(0).totalMs());
+        assertEquals(3, top.get(0).p99Rows());
+        assertEquals("update endpoint_orders set state = ? where id = ?", top.get(1).sql());
+        assertNotEquals(top.get(0).fingerprint(), top.get(1).fingerprint());
+    }
+}
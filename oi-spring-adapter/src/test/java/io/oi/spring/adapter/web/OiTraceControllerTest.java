@@ -0,0 +1,136 @@
+package io.oi.spring.adapter.web;
+
+import io.oi.core.config.OiCoreProperties;
+import io.oi.core.model.FlowTree;
+import io.oi.core.store.TraceStore;
+import io.oi.core.trace.ActiveTraceRegistry;
+import io.oi.core.trace.Tracer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class OiTraceControllerTest {
+
+    private final List<FlowTree> trees = new CopyOnWriteArrayList<>();
+    private final OiCoreProperties properties = new OiCoreProperties();
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(new OiTraceController(properties)).build();
+        Tracer.setEmitter(trees::add);
+    }
+
+    @AfterEach
+    void tearDown() {
+        Tracer.setEmitter(null);
+        Tracer.configure(new OiCoreProperties());
+    }
+
+    @Test
+    void testActiveTracesAreListedWithTheirLiveTrees() throws Exception {
+        Tracer.configure(properties);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread worker = new Thread(() -> {
+            Tracer.startTrace("com/test/Slow", "handle", "()V", 0, 0, new Object[0]);
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            Tracer.endTrace(null, null);
+        }, "oi-test-worker");
+        worker.start();
+        try {
+            started.await();
+            String traceId = ActiveTraceRegistry.snapshot().stream()
+                    .filter(snapshot -> snapshot.threadId() == worker.threadId())
+                    .findFirst()
+                    .orElseThrow()
+                    .traceId();
+
+            mockMvc.perform(get("/oi/trace/active").param("minElapsedMs", "0"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[*].traceId", hasItem(traceId)))
+                    .andExpect(jsonPath("$[*].threadName", hasItem("oi-test-worker")));
+            mockMvc.perform(get("/oi/trace/active").param("minElapsedMs", "3600000"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(0)));
+            mockMvc.perform(get("/oi/trace/active/{traceId}", traceId))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.rootNode.methodDetails.methodName").value("handle"));
+            mockMvc.perform(get("/oi/trace/latest"))
+                    .andExpect(status().isOk());
+        } finally {
+            release.countDown();
+            worker.join();
+        }
+        mockMvc.perform(get("/oi/trace/active/{traceId}", "unknown"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testRecentTracesAreQueriedFromTheStore() throws Exception {
+        properties.getStore().setEnabled(true);
+        Tracer.configure(properties);
+
+        Tracer.startTrace("com/test/Shop", "checkout", "()V", 0, 0, new Object[0]);
+        Tracer.startTrace("com/test/Repository", "load", "()V", 0, 0, new Object[0]);
+        Tracer.endTrace(null, null);
+        Tracer.endTrace(null, null);
+        String traceId = trees.get(0).getTraceId();
+        awaitStored(Tracer.getTraceStore(), 1);
+
+        mockMvc.perform(get("/oi/trace/recent").param("method", "com.test.Repository.load"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].traceId").value(traceId))
+                .andExpect(jsonPath("$[0].entryPoint").value("com.test.Shop.checkout"))
+                .andExpect(jsonPath("$[0].startEpochMillis", greaterThan(0L)));
+        mockMvc.perform(get("/oi/trace/recent").param("method", "com.test.Repository.save"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+        mockMvc.perform(get("/oi/trace/recent").param("failed", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+        mockMvc.perform(get("/oi/trace/recent/{traceId}", traceId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rootNode.children[0].methodDetails.methodName").value("load"));
+        mockMvc.perform(get("/oi/trace/recent/{traceId}", "unknown"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testRecentTracesAreNotFoundWithoutAStore() throws Exception {
+        properties.getStore().setEnabled(false);
+        Tracer.configure(properties);
+
+        mockMvc.perform(get("/oi/trace/recent"))
+                .andExpect(status().isNotFound());
+    }
+
+    private static void awaitStored(TraceStore store, int traces) throws InterruptedException {
+        assertNotNull(store);
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (store.size() < traces && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(traces, store.size());
+    }
+}